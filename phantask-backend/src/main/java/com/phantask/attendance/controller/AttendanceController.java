@@ -1,27 +1,52 @@
 package com.phantask.attendance.controller;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.DateTimeException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.phantask.attendance.dto.AttendancePercentageResponse;
+import com.phantask.attendance.dto.AttendanceStreakResponse;
 import com.phantask.attendance.dto.AttendanceReportRequest;
 import com.phantask.attendance.dto.AttendanceResponse;
+import com.phantask.attendance.dto.BatchMarkAttendanceRequest;
 import com.phantask.attendance.dto.MarkAttendanceRequest;
+import com.phantask.attendance.dto.ScanResult;
+import com.phantask.attendance.dto.ScanSyncRequest;
 import com.phantask.attendance.entity.Attendance;
+import com.phantask.attendance.presence.PresenceIndex;
 import com.phantask.attendance.service.IAttendanceService;
+import com.phantask.attendance.service.impl.AttendancePercentageCsvWriter;
+import com.phantask.authentication.security.PhanTaskPrincipal;
+import com.phantask.exception.AttendanceAlreadyMarkedException;
+import com.phantask.exception.InvalidQrTokenException;
 
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 
 @RestController
@@ -30,6 +55,17 @@ import lombok.RequiredArgsConstructor;
 public class AttendanceController {
 
     private final IAttendanceService attendanceService;
+    private final AttendancePercentageCsvWriter csvWriter;
+    private final PresenceIndex presenceIndex;
+
+    @Value("${attendance.mark-batch.max-size:500}")
+    private int maxBatchSize = 500;
+
+    @Value("${attendance.my-records.max-page-size:366}")
+    private int maxRecordsPageSize = 366;
+
+    @Value("${attendance.export.timeout-ms:600000}")
+    private long exportTimeoutMs = 600000;
 
     /**
      * User navigates to Attendance for generating a QR-code
@@ -37,9 +73,9 @@ public class AttendanceController {
     @PostMapping("/token/register")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<Void> registerToken(
-            @RequestBody MarkAttendanceRequest request) {
+            @RequestBody MarkAttendanceRequest request, PhanTaskPrincipal principal) {
 
-        attendanceService.registerQrToken(request.getToken());
+        attendanceService.registerQrToken(principal, request.getToken());
         return ResponseEntity.ok().build();
     }
     
@@ -69,6 +105,12 @@ public class AttendanceController {
                 "attendance", new AttendanceResponse(attendance)
             ));
             
+        } catch (InvalidQrTokenException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", e.getMessage()));
+        } catch (AttendanceAlreadyMarkedException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", e.getMessage()));
         } catch (ExpiredJwtException e) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN)
                     .body(Map.of("error", "QR code expired. User needs to refresh."));
@@ -84,64 +126,247 @@ public class AttendanceController {
         }
     }
 
+    /**
+     * Admin/HR/Manager kiosk flushes its queue of scanned QR tokens in one request.
+     * Each scan gets its own result; a rejected scan does not fail the others.
+     */
+    @PostMapping("/mark/batch")
+    @PreAuthorize("hasAuthority('ADMIN') or hasAuthority('HR') or hasAuthority('MANAGER')")
+    public ResponseEntity<?> markAttendanceBatch(
+            @RequestBody BatchMarkAttendanceRequest request) {
+
+        if (request.getScans() == null || request.getScans().isEmpty()) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "At least one scan is required"));
+        }
+        if (request.getScans().size() > maxBatchSize) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "At most " + maxBatchSize + " scans are allowed per batch"));
+        }
+
+        List<ScanResult> results = attendanceService.markAttendanceBatch(request.getScans());
+        long marked = results.stream().filter(ScanResult::isMarked).count();
+
+        return ResponseEntity.ok(Map.of(
+            "marked", marked,
+            "rejected", results.size() - marked,
+            "timestamp", LocalDateTime.now(),
+            "results", results
+        ));
+    }
+
+    /**
+     * Admin/HR/Manager scanner uploads the scans it took while offline, oldest first.
+     * Every scan carries a key generated on the device; sending the same backlog
+     * again returns the original results (flagged "replayed") instead of marking twice.
+     */
+    @PostMapping("/mark/sync")
+    @PreAuthorize("hasAuthority('ADMIN') or hasAuthority('HR') or hasAuthority('MANAGER')")
+    public ResponseEntity<?> syncScans(@RequestBody ScanSyncRequest request) {
+
+        if (request.getScans() == null || request.getScans().isEmpty()) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "At least one scan is required"));
+        }
+        if (request.getScans().size() > maxBatchSize) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "At most " + maxBatchSize + " scans are allowed per sync"));
+        }
+
+        try {
+            List<ScanResult> results = attendanceService.syncScans(request.getDeviceId(), request.getScans());
+            long marked = results.stream().filter(ScanResult::isMarked).count();
+
+            return ResponseEntity.ok(Map.of(
+                "marked", marked,
+                "rejected", results.size() - marked,
+                "replayed", results.stream().filter(ScanResult::isReplayed).count(),
+                "timestamp", LocalDateTime.now(),
+                "results", results
+            ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Admin/HR dashboard follows who is in right now, as Server-Sent Events:
+     * "counts" on connect and periodically, "presence" on every check-in/out
+     */
+    @GetMapping(path = "/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAuthority('ADMIN') or hasAuthority('HR')")
+    public SseEmitter live() {
+        return presenceIndex.subscribe();
+    }
+
     /**
      * User views own attendance
+     *
+     * Returns every record the user has; prefer /my/records, which pages.
      */
     @GetMapping("/my")
     @PreAuthorize("isAuthenticated()")
-    public ResponseEntity<List<Attendance>> myAttendance() {
-        return ResponseEntity.ok(attendanceService.getMyAttendance());
+    public ResponseEntity<List<Attendance>> myAttendance(PhanTaskPrincipal principal) {
+        return ResponseEntity.ok(attendanceService.getMyAttendance(principal));
+    }
+
+    /**
+     * User pages through own attendance, newest first.
+     * Defaults to the year up to today; pass the previous page's
+     * nextBefore as before to get the next page.
+     */
+    @GetMapping("/my/records")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> myAttendanceRecords(
+            @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate before,
+            @RequestParam(defaultValue = "31") int size,
+            PhanTaskPrincipal principal) {
+
+        if (size > maxRecordsPageSize) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "At most " + maxRecordsPageSize + " records are allowed per page"));
+        }
+
+        LocalDate end = endDate == null ? LocalDate.now() : endDate;
+        LocalDate start = startDate == null ? end.minusYears(1) : startDate;
+        try {
+            return ResponseEntity.ok(attendanceService.getMyAttendanceRecords(principal, start, end, before, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()));
+        }
     }
     
+    /**
+     * User views one month of own attendance as a calendar (defaults to the
+     * current month)
+     */
+    @GetMapping("/my/calendar")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> myCalendar(
+            @RequestParam(required = false) Integer year,
+            @RequestParam(required = false) Integer month,
+            PhanTaskPrincipal principal) {
+
+        YearMonth current = YearMonth.now();
+        try {
+            YearMonth requested = YearMonth.of(
+                    year == null ? current.getYear() : year,
+                    month == null ? current.getMonthValue() : month);
+            return ResponseEntity.ok(attendanceService.getMyCalendar(principal, requested));
+        } catch (DateTimeException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * User views own current attendance streak
+     */
+    @GetMapping("/my/streak")
+    @PreAuthorize("isAuthenticated()")
+    public AttendanceStreakResponse myStreak(PhanTaskPrincipal principal) {
+        return attendanceService.getMyStreak(principal);
+    }
+
+    /**
+     * User views own attendance totals for a year (defaults to the current year)
+     */
+    @GetMapping("/my/summary")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> myYearSummary(
+            @RequestParam(required = false) Integer year,
+            PhanTaskPrincipal principal) {
+
+        try {
+            return ResponseEntity.ok(attendanceService.getMyYearSummary(principal,
+                    year == null ? LocalDate.now().getYear() : year));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @GetMapping("/percentage/my")
     @PreAuthorize("isAuthenticated()")
-    public AttendancePercentageResponse getMyAttendancePercentage() {
-        return attendanceService.getMyAttendancePercentage();
+    public AttendancePercentageResponse getMyAttendancePercentage(PhanTaskPrincipal principal) {
+        return attendanceService.getMyAttendancePercentage(principal);
     }
     
     /**
      * Admin/HR downloads attendance report
      * 
      * CHANGED: hasRole() → hasAuthority()
+     *
+     * The CSV is streamed: rows are written through a buffered UTF-8 writer as
+     * they are read from the database, gzip-compressed when the client
+     * accepts it, so memory stays constant and the first bytes go out before
+     * the report is complete. Large reports take a while, so this request
+     * gets its own async timeout ({@code attendance.export.timeout-ms})
+     * instead of the application-wide one.
      */
     @PostMapping("/percentage/download")
     @PreAuthorize("hasAuthority('ADMIN') or hasAuthority('HR')")
-    public ResponseEntity<byte[]> downloadAttendancePercentage(
-            @RequestBody AttendanceReportRequest request
+    public WebAsyncTask<Void> downloadAttendancePercentage(
+            @RequestBody AttendanceReportRequest request,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletResponse response
     ) {
 
-        List<AttendancePercentageResponse> data =
-                attendanceService.getAttendancePercentage(
-                        request.getStartDate(),
-                        request.getEndDate(),
-                        request.getUserId()
-                );
+        boolean gzip = acceptsGzip(acceptEncoding);
 
-        String csv = buildCsv(data);
+        response.setHeader("Content-Disposition", "attachment; filename=attendance_percentage.csv");
+        response.setHeader("Content-Type", "text/csv; charset=UTF-8");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
 
-        return ResponseEntity.ok()
-                .header("Content-Disposition",
-                        "attachment; filename=attendance_percentage.csv")
-                .header("Content-Type", "text/csv")
-                .body(csv.getBytes());
+        return new WebAsyncTask<>(exportTimeoutMs, () -> {
+            OutputStream out = response.getOutputStream();
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, AttendancePercentageCsvWriter.BUFFER_SIZE);
+                writeCsv(request, compressed);
+                compressed.finish();
+            } else {
+                writeCsv(request, out);
+            }
+            out.flush();
+            return null;
+        });
     }
-    
-    private String buildCsv(List<AttendancePercentageResponse> data) {
-
-        StringBuilder sb = new StringBuilder();
-        sb.append("User ID,Username,Total Days,Present Days,Absent Days,Leave Days,Attendance Percentage\n");
-
-        for (AttendancePercentageResponse r : data) {
-            sb.append(r.getUserId()).append(",")
-              .append(r.getUsername()).append(",")
-              .append(r.getTotalDays()).append(",")
-              .append(r.getPresentDays()).append(",")
-              .append(r.getAbsentDays()).append(",")
-              .append(r.getLeaveDays()).append(",")
-              .append(r.getAttendancePercentage())
-              .append("\n");
+
+    private void writeCsv(AttendanceReportRequest request, OutputStream out) throws IOException {
+        csvWriter.write(request.getStartDate(), request.getEndDate(), request.getUserId(), out, () -> { });
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
         }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
 
-        return sb.toString();
+    /**
+     * Admin recomputes the monthly attendance rollup from raw attendance,
+     * e.g. after attendance rows were corrected directly in the database.
+     */
+    @PostMapping("/rollup/rebuild")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<?> rebuildRollup() {
+        int months = attendanceService.rebuildAttendanceRollup();
+        return ResponseEntity.ok(Map.of(
+            "months", months,
+            "timestamp", LocalDateTime.now()
+        ));
     }
 }
@@ -0,0 +1,16 @@
+package com.phantask.attendance.dto;
+
+import java.time.LocalDate;
+
+import com.phantask.attendance.enums.CalendarDayStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class AttendanceCalendarDay {
+
+    private LocalDate date;
+    private CalendarDayStatus status;
+}
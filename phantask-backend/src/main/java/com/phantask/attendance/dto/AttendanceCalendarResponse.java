@@ -0,0 +1,25 @@
+package com.phantask.attendance.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A user's attendance for one calendar month. Only days with attendance are
+ * listed; {@code presentDays} includes WFH days.
+ */
+@Getter
+@AllArgsConstructor
+public class AttendanceCalendarResponse {
+
+    private int year;
+    private int month;
+
+    private long presentDays;
+    private long wfhDays;
+    private long absentDays;
+    private long leaveDays;
+
+    private List<AttendanceCalendarDay> days;
+}
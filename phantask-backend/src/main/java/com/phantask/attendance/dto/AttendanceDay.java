@@ -0,0 +1,19 @@
+package com.phantask.attendance.dto;
+
+import java.time.LocalDate;
+
+import com.phantask.attendance.enums.AttendanceStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Date and status of one attendance row, read without loading the entity.
+ */
+@Getter
+@AllArgsConstructor
+public class AttendanceDay {
+
+    private LocalDate date;
+    private AttendanceStatus status;
+}
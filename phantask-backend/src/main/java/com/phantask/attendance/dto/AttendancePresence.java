@@ -0,0 +1,17 @@
+package com.phantask.attendance.dto;
+
+import com.phantask.attendance.enums.AttendanceStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * User and status of one attendance row, read without loading the entity.
+ */
+@Getter
+@AllArgsConstructor
+public class AttendancePresence {
+
+    private Long userId;
+    private AttendanceStatus status;
+}
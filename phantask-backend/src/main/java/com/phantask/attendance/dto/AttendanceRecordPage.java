@@ -0,0 +1,19 @@
+package com.phantask.attendance.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A page of a user's attendance, newest day first. The next page is
+ * requested with {@code before = nextBefore}; it is null on the last page.
+ */
+@Getter
+@AllArgsConstructor
+public class AttendanceRecordPage {
+
+    private List<AttendanceRecordView> records;
+    private LocalDate nextBefore;
+}
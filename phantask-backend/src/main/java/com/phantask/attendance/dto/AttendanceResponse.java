@@ -17,6 +17,11 @@ public class AttendanceResponse {
         this.date = attendance.getAttendanceDate();
         this.state = deriveState(attendance);
     }
+
+    public AttendanceResponse(LocalDate date, AttendanceUiState state) {
+        this.date = date;
+        this.state = state;
+    }
     
     /**
      * Derives UI-friendly attendance state from attendance timestamps.
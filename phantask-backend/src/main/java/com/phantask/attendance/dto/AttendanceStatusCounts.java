@@ -0,0 +1,20 @@
+package com.phantask.attendance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Per-user attendance counts for a date range, aggregated in the database.
+ */
+@Getter
+@AllArgsConstructor
+public class AttendanceStatusCounts {
+
+    private Long userId;
+    private String username;
+
+    private long totalDays;
+    private long presentDays;
+    private long absentDays;
+    private long leaveDays;
+}
@@ -0,0 +1,22 @@
+package com.phantask.attendance.dto;
+
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A user's current run of attended days (present or WFH) up to today. Leave
+ * days inside the run neither break it nor count towards it.
+ */
+@Getter
+@AllArgsConstructor
+public class AttendanceStreakResponse {
+
+    /** Attended days in the run, 0 if the last marked day was an absence. */
+    private long currentStreak;
+    /** First day of the run, null when there is no run. */
+    private LocalDate since;
+    /** Last day the run was evaluated up to. */
+    private LocalDate asOf;
+}
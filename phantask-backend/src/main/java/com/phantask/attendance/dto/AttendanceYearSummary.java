@@ -0,0 +1,24 @@
+package com.phantask.attendance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A user's attendance counts for one calendar year. {@code presentDays}
+ * includes WFH days; the percentage excludes leave days, like
+ * {@link AttendancePercentageResponse}.
+ */
+@Getter
+@AllArgsConstructor
+public class AttendanceYearSummary {
+
+    private int year;
+
+    private long totalDays;
+    private long presentDays;
+    private long wfhDays;
+    private long absentDays;
+    private long leaveDays;
+
+    private double attendancePercentage;
+}
@@ -0,0 +1,13 @@
+package com.phantask.attendance.dto;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class BatchMarkAttendanceRequest {
+
+    private List<ScannedToken> scans;
+}
@@ -0,0 +1,20 @@
+package com.phantask.attendance.dto;
+
+import java.time.LocalDateTime;
+
+import com.phantask.attendance.enums.AttendanceStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One user checking in or out, as pushed to live dashboards.
+ */
+@Getter
+@AllArgsConstructor
+public class PresenceChange {
+
+    private Long userId;
+    private AttendanceStatus status;
+    private LocalDateTime at;
+}
@@ -0,0 +1,24 @@
+package com.phantask.attendance.dto;
+
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * How many users are in each attendance state today. {@code notYet} is the
+ * enabled users with no attendance for the day yet.
+ */
+@Getter
+@AllArgsConstructor
+public class PresenceCounts {
+
+    private LocalDate date;
+
+    private long checkedIn;
+    private long checkedOut;
+    private long wfh;
+    private long onLeave;
+    private long absent;
+    private long notYet;
+}
@@ -0,0 +1,51 @@
+package com.phantask.attendance.dto;
+
+import lombok.Getter;
+
+/**
+ * Outcome of one scan of a batch, matched to the request by {@code index}.
+ * {@code replayed} is set when a synced scan was already processed and this
+ * is the result it got then.
+ */
+@Getter
+public class ScanResult {
+
+    private final int index;
+    private final boolean marked;
+    private final String username;
+    private final AttendanceResponse attendance;
+    private final String error;
+    private final boolean replayed;
+
+    private ScanResult(int index, boolean marked, String username, AttendanceResponse attendance, String error,
+            boolean replayed) {
+        this.index = index;
+        this.marked = marked;
+        this.username = username;
+        this.attendance = attendance;
+        this.error = error;
+        this.replayed = replayed;
+    }
+
+    public static ScanResult marked(int index, String username, AttendanceResponse attendance) {
+        return new ScanResult(index, true, username, attendance, null, false);
+    }
+
+    public static ScanResult rejected(int index, String error) {
+        return new ScanResult(index, false, null, null, error, false);
+    }
+
+    /**
+     * This result at {@code index} of another request, flagged as a replay.
+     */
+    public ScanResult replay(int index) {
+        return new ScanResult(index, marked, username, attendance, error, true);
+    }
+
+    /**
+     * This result moved to {@code index}.
+     */
+    public ScanResult at(int index) {
+        return new ScanResult(index, marked, username, attendance, error, replayed);
+    }
+}
@@ -0,0 +1,17 @@
+package com.phantask.attendance.dto;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A scanner's backlog of scans taken while it was offline, oldest first.
+ */
+@Getter
+@Setter
+public class ScanSyncRequest {
+
+    private String deviceId;
+    private List<ScannedToken> scans;
+}
@@ -0,0 +1,27 @@
+package com.phantask.attendance.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One QR code read by a kiosk, with the kiosk's own time of the scan and,
+ * for {@code /mark/sync}, the key the kiosk generated for it.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScannedToken {
+
+    private String token;
+    private LocalDateTime scannedAt; // optional, defaults to the time of the request
+    private String idempotencyKey; // required by /mark/sync, unique per scan on the device
+
+    public ScannedToken(String token, LocalDateTime scannedAt) {
+        this(token, scannedAt, null);
+    }
+}
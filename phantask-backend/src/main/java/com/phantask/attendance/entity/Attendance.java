@@ -14,6 +14,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -26,6 +27,9 @@ import lombok.Setter;
     name = "attendance",
     uniqueConstraints = {
         @UniqueConstraint(columnNames = {"uid", "attendance_date"})
+    },
+    indexes = {
+        @Index(name = "idx_attendance_date", columnList = "attendance_date")
     })
 @Getter
 @Setter
@@ -0,0 +1,59 @@
+package com.phantask.attendance.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Attendance counts of one user for one calendar month, kept up to date as
+ * attendance rows are written so that percentages are summed over months
+ * instead of counted over days.
+ *
+ * <p>
+ * Every attendance status falls into exactly one counter: CHECKED_IN and
+ * CHECKED_OUT are {@code present_days}, the others their own counter. Rows
+ * are written with plain SQL by {@code AttendanceRollupStore}; this entity
+ * only defines the table.
+ * </p>
+ */
+@Entity
+@Table(
+    name = "attendance_rollup",
+    uniqueConstraints = {
+        @UniqueConstraint(columnNames = {"uid", "month_key"})
+    })
+@Getter
+@Setter
+public class AttendanceRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long uid;
+
+    /**
+     * Year and month as {@code yyyyMM}, e.g. 202603.
+     */
+    @Column(name = "month_key", nullable = false)
+    private int monthKey;
+
+    @Column(name = "present_days", nullable = false)
+    private int presentDays;
+
+    @Column(name = "absent_days", nullable = false)
+    private int absentDays;
+
+    @Column(name = "leave_days", nullable = false)
+    private int leaveDays;
+
+    @Column(name = "wfh_days", nullable = false)
+    private int wfhDays;
+}
@@ -9,8 +9,26 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 
+/**
+ * A single-use QR token a user shows at the gate to check in or out.
+ *
+ * <p>
+ * Only the SHA-256 digest of the token is stored. The digest is a fixed-width,
+ * uniquely indexed column, so a scan is resolved with one index lookup no
+ * matter how many tokens the table holds. A token registered again (the
+ * frontend registers the current one on every page load) resets its row
+ * instead of adding one.
+ * </p>
+ *
+ * <p>
+ * Rows are deleted once they are past the retention window by
+ * {@code AttendanceTokenPurgeJob}, using the {@code expires_at} index.
+ * </p>
+ */
 @Entity
-@Table(name = "attendance_tokens")
+@Table(name = "attendance_tokens", indexes = {
+        @Index(name = "idx_attendance_tokens_expires_at", columnList = "expires_at")
+})
 @Getter
 @Setter
 public class AttendanceToken {
@@ -19,8 +37,11 @@ public class AttendanceToken {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false, columnDefinition = "LONGTEXT")
-    private String token;
+    /**
+     * Hex SHA-256 of the token (see {@code TokenDigests}).
+     */
+    @Column(name = "token_hash", unique = true, columnDefinition = "CHAR(64)")
+    private String tokenHash;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "uid", nullable = false)
@@ -29,7 +50,7 @@ public class AttendanceToken {
     @Column(nullable = false)
     private LocalDate date;
 
-    @Column(nullable = false)
+    @Column(name = "expires_at", nullable = false)
     private LocalDateTime expiresAt;
 
     @Column(nullable = false)
@@ -0,0 +1,28 @@
+package com.phantask.attendance.enums;
+
+/**
+ * Status of one day in a user's attendance calendar. Checked in and checked
+ * out days are both {@code PRESENT}.
+ */
+public enum CalendarDayStatus {
+    PRESENT,
+    WFH,
+    LEAVE,
+    ABSENT;
+
+    public static CalendarDayStatus of(AttendanceStatus status) {
+        return switch (status) {
+            case CHECKED_IN, CHECKED_OUT -> PRESENT;
+            case WFH -> WFH;
+            case LEAVE -> LEAVE;
+            case ABSENT -> ABSENT;
+        };
+    }
+
+    /**
+     * Whether the day counts as attended, see {@link AttendanceStatus#isPresent()}.
+     */
+    public boolean isAttended() {
+        return this == PRESENT || this == WFH;
+    }
+}
@@ -0,0 +1,24 @@
+package com.phantask.attendance.event;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.phantask.attendance.enums.AttendanceStatus;
+
+/**
+ * Published whenever attendance is written for one or more users on a day:
+ * a check-in or check-out by a scan, or ABSENT rows by the nightly job.
+ *
+ * <p>
+ * Listeners react after the surrounding transaction commits, so in-memory
+ * attendance state is never updated for a write that was rolled back.
+ * </p>
+ *
+ * @param uids   the users whose attendance was written
+ * @param date   the attendance day
+ * @param status the status written
+ * @param at     the time of the check-in or check-out, null for ABSENT
+ */
+public record AttendanceMarkedEvent(List<Long> uids, LocalDate date, AttendanceStatus status, LocalDateTime at) {
+}
@@ -0,0 +1,141 @@
+package com.phantask.attendance.index;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.phantask.attendance.dto.AttendanceDay;
+import com.phantask.attendance.dto.AttendanceStreakResponse;
+import com.phantask.attendance.enums.AttendanceStatus;
+import com.phantask.attendance.enums.CalendarDayStatus;
+import com.phantask.attendance.event.AttendanceMarkedEvent;
+import com.phantask.attendance.repository.AttendanceRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * In-memory attendance calendar per user: one {@link AttendanceYearBits} per
+ * user and year, so calendar, streak and yearly summary queries are answered
+ * with popcounts and bit scans instead of loading every attendance row.
+ *
+ * <p>
+ * A year is loaded from {@link AttendanceRepository#findDays} the first time
+ * it is asked for, reading only date and status. Afterwards it is kept up to
+ * date from {@link AttendanceMarkedEvent} once the write commits; events for
+ * users or years that are not loaded are ignored, since the next load reads
+ * them from the database anyway. Users are dropped when the index exceeds
+ * {@code attendance.index.max-users} (least recently used first) and
+ * {@code attendance.index.ttl-minutes} after they were loaded, which bounds
+ * staleness for writes made on other nodes or directly in the database.
+ * </p>
+ *
+ * <p>
+ * Hits, misses and evictions are published as the standard {@code cache.*}
+ * meters with {@code cache=attendanceIndex}.
+ * </p>
+ */
+@Component
+public class AttendanceBitmapIndex {
+
+    private final AttendanceRepository attendanceRepo;
+    private final Cache<Long, Map<Integer, AttendanceYearBits>> users;
+
+    public AttendanceBitmapIndex(AttendanceRepository attendanceRepo, MeterRegistry meterRegistry,
+            @Value("${attendance.index.max-users:10000}") long maxUsers,
+            @Value("${attendance.index.ttl-minutes:60}") long ttlMinutes) {
+        this.attendanceRepo = attendanceRepo;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "attendanceIndex");
+    }
+
+    /**
+     * The user's attendance in {@code year}, loaded on first use.
+     */
+    public AttendanceYearBits year(long uid, int year) {
+        return users.get(uid, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(year, key -> load(uid, year));
+    }
+
+    /**
+     * The user's current streak of attended days ending {@code today}. A day
+     * that is not marked yet today does not break the streak.
+     */
+    public AttendanceStreakResponse streak(long uid, LocalDate today) {
+        LocalDate end = today;
+        if (year(uid, today.getYear()).get(today.getDayOfYear() - 1) == null) {
+            end = today.minusDays(1);
+        }
+        LocalDate asOf = end;
+
+        long streak = 0;
+        LocalDate since = null;
+        while (true) {
+            AttendanceYearBits bits = year(uid, end.getYear());
+            int last = end.getDayOfYear() - 1;
+            int lastBreak = bits.lastBreakAtOrBefore(last);
+            streak += bits.countAttended(lastBreak + 1, last + 1);
+            if (lastBreak >= 0) {
+                if (lastBreak < last) {
+                    since = LocalDate.ofYearDay(end.getYear(), lastBreak + 2);
+                }
+                break;
+            }
+            // Unbroken since 1 January: carry on into the previous year
+            since = end.withDayOfYear(1);
+            end = since.minusDays(1);
+        }
+
+        return new AttendanceStreakResponse(streak, streak == 0 ? null : since, asOf);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAttendanceMarked(AttendanceMarkedEvent event) {
+        int day = event.date().getDayOfYear() - 1;
+        CalendarDayStatus status = CalendarDayStatus.of(event.status());
+
+        for (Long uid : event.uids()) {
+            Map<Integer, AttendanceYearBits> years = users.getIfPresent(uid);
+            if (years == null) {
+                continue;
+            }
+            // Waits for a load of the same year in progress, which may predate the commit
+            years.computeIfPresent(event.date().getYear(), (key, bits) -> {
+                if (event.status() == AttendanceStatus.ABSENT) {
+                    // The absentee job may name users that checked in concurrently
+                    bits.setIfUnmarked(day, status);
+                } else {
+                    bits.set(day, status);
+                }
+                return bits;
+            });
+        }
+    }
+
+    /**
+     * Drops every user, e.g. after attendance was corrected in the database.
+     */
+    public void invalidateAll() {
+        users.invalidateAll();
+    }
+
+    private AttendanceYearBits load(long uid, int year) {
+        AttendanceYearBits bits = new AttendanceYearBits();
+        for (AttendanceDay day : attendanceRepo.findDays(uid, LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31))) {
+            bits.set(day.getDate().getDayOfYear() - 1, CalendarDayStatus.of(day.getStatus()));
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,114 @@
+package com.phantask.attendance.index;
+
+import com.phantask.attendance.enums.CalendarDayStatus;
+
+/**
+ * One user's attendance for one calendar year as four 366-bit sets, one per
+ * {@link CalendarDayStatus}. Bit {@code n} is day-of-year {@code n + 1}; a
+ * day has at most one bit set across the four sets.
+ *
+ * <p>
+ * Counts are popcounts over word ranges and streaks are found by scanning
+ * for the last clear bit, so no query walks individual days. The whole year
+ * takes four {@code long[6]}, about 250 bytes. Access is synchronized on the
+ * instance.
+ * </p>
+ */
+public final class AttendanceYearBits {
+
+    public static final int DAYS = 366;
+    private static final int WORDS = (DAYS + 63) / 64;
+
+    private final long[][] bits = new long[CalendarDayStatus.values().length][WORDS];
+
+    /**
+     * Sets the status of day index {@code day} (0-based), replacing any other.
+     */
+    public synchronized void set(int day, CalendarDayStatus status) {
+        for (long[] set : bits) {
+            set[day >>> 6] &= ~(1L << day);
+        }
+        bits[status.ordinal()][day >>> 6] |= 1L << day;
+    }
+
+    /**
+     * Sets the status of day index {@code day} unless the day already has one.
+     */
+    public synchronized void setIfUnmarked(int day, CalendarDayStatus status) {
+        if (get(day) == null) {
+            bits[status.ordinal()][day >>> 6] |= 1L << day;
+        }
+    }
+
+    /**
+     * Status of day index {@code day}, or null if nothing was recorded.
+     */
+    public synchronized CalendarDayStatus get(int day) {
+        for (CalendarDayStatus status : CalendarDayStatus.values()) {
+            if ((bits[status.ordinal()][day >>> 6] & (1L << day)) != 0) {
+                return status;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Days with {@code status} in day indexes {@code [from, to)}.
+     */
+    public synchronized long count(CalendarDayStatus status, int from, int to) {
+        return count(bits[status.ordinal()], from, to);
+    }
+
+    /**
+     * Attended days (present or WFH) in day indexes {@code [from, to)}.
+     */
+    public synchronized long countAttended(int from, int to) {
+        return count(bits[CalendarDayStatus.PRESENT.ordinal()], from, to)
+                + count(bits[CalendarDayStatus.WFH.ordinal()], from, to);
+    }
+
+    /**
+     * The last day index at or before {@code day} that breaks a streak, i.e.
+     * is absent or has no attendance, or -1 if there is none this year.
+     */
+    public synchronized int lastBreakAtOrBefore(int day) {
+        for (int word = day >>> 6; word >= 0; word--) {
+            long unbroken = bits[CalendarDayStatus.PRESENT.ordinal()][word]
+                    | bits[CalendarDayStatus.WFH.ordinal()][word]
+                    | bits[CalendarDayStatus.LEAVE.ordinal()][word];
+            long breaks = ~unbroken & upTo(word, day);
+            if (breaks != 0) {
+                return (word << 6) + 63 - Long.numberOfLeadingZeros(breaks);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Mask of the bits of {@code word} at or below day index {@code day}.
+     */
+    private static long upTo(int word, int day) {
+        int last = day - (word << 6);
+        return last >= 63 ? -1L : (1L << (last + 1)) - 1;
+    }
+
+    private static long count(long[] set, int from, int to) {
+        if (from >= to) {
+            return 0;
+        }
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        long count = 0;
+        for (int word = first; word <= last; word++) {
+            long mask = -1L;
+            if (word == first) {
+                mask &= -1L << from;
+            }
+            if (word == last) {
+                mask &= -1L >>> (63 - ((to - 1) & 63));
+            }
+            count += Long.bitCount(set[word] & mask);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,177 @@
+package com.phantask.attendance.presence;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.phantask.exception.TooManyRequestsException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pushes events to connected Server-Sent Events subscribers without ever
+ * blocking the publisher.
+ *
+ * <p>
+ * Every subscriber has its own queue of {@code attendance.live.queue-capacity}
+ * events. Publishing offers the event to each queue, which is constant work
+ * per subscriber and never waits. A subscriber's queue is drained by one task
+ * at a time on a pool of {@code attendance.live.sender-threads}, which does
+ * the network writes. A subscriber whose queue is full, because it reads
+ * slower than events arrive, is disconnected and counted in
+ * {@code phantask.attendance.live.dropped}; an {@code EventSource} reconnects
+ * by itself and gets a fresh snapshot.
+ * </p>
+ */
+@Component
+@Slf4j
+public class PresenceBroadcaster {
+
+    private static final long RETRY_AFTER_SECONDS = 30;
+
+    private record Event(String name, Object data) {
+    }
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor senders;
+    private final int queueCapacity;
+    private final int maxSubscribers;
+    private final long timeoutMs;
+    private final Counter dropped;
+
+    public PresenceBroadcaster(MeterRegistry meterRegistry,
+            @Value("${attendance.live.sender-threads:4}") int senderThreads,
+            @Value("${attendance.live.queue-capacity:256}") int queueCapacity,
+            @Value("${attendance.live.max-subscribers:200}") int maxSubscribers,
+            @Value("${attendance.live.timeout-ms:1800000}") long timeoutMs) {
+        this.queueCapacity = queueCapacity;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMs = timeoutMs;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        // At most one task per subscriber is ever queued, so the queue is bounded by maxSubscribers
+        this.senders = new ThreadPoolExecutor(senderThreads, senderThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "presence-sse-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        Gauge.builder("phantask.attendance.live.subscribers", subscribers, Set::size)
+                .description("Dashboards connected to the live attendance stream")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("phantask.attendance.live.dropped")
+                .description("Live attendance subscribers disconnected for falling behind")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Connects a new subscriber; {@code name}/{@code data} is its first event.
+     *
+     * @throws TooManyRequestsException if {@code attendance.live.max-subscribers}
+     *                                  are already connected
+     */
+    public SseEmitter subscribe(String name, Object data) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new TooManyRequestsException("Too many live dashboards are connected, please try again later",
+                    RETRY_AFTER_SECONDS);
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        subscribers.add(subscriber);
+        subscriber.offer(new Event(name, data));
+        return emitter;
+    }
+
+    /**
+     * Queues an event for every subscriber. Never blocks.
+     */
+    public void publish(String name, Object data) {
+        Event event = new Event(name, data);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(event);
+        }
+    }
+
+    public boolean hasSubscribers() {
+        return !subscribers.isEmpty();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        senders.shutdownNow();
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<Event> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(Event event) {
+            if (!queue.offer(event)) {
+                dropped.increment();
+                log.info("Disconnecting live attendance subscriber that fell {} events behind", queueCapacity);
+                close();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    close();
+                }
+            }
+        }
+
+        private void drain() {
+            do {
+                Event event;
+                while ((event = queue.poll()) != null) {
+                    try {
+                        emitter.send(SseEmitter.event().name(event.name()).data(event.data()));
+                    } catch (IOException | IllegalStateException e) {
+                        // Client went away or the emitter already completed
+                        close();
+                        return;
+                    }
+                }
+                draining.set(false);
+                // An event offered after the last poll but before the reset would otherwise wait
+            } while (!queue.isEmpty() && draining.compareAndSet(false, true));
+        }
+
+        private void close() {
+            if (subscribers.remove(this)) {
+                queue.clear();
+                emitter.complete();
+            }
+        }
+    }
+}
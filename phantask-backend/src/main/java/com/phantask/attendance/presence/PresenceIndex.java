@@ -0,0 +1,167 @@
+package com.phantask.attendance.presence;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.phantask.attendance.dto.AttendancePresence;
+import com.phantask.attendance.dto.PresenceChange;
+import com.phantask.attendance.dto.PresenceCounts;
+import com.phantask.attendance.enums.AttendanceStatus;
+import com.phantask.attendance.event.AttendanceMarkedEvent;
+import com.phantask.attendance.repository.AttendanceRepository;
+import com.phantask.authentication.repository.UserRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Who is in right now: today's attendance status of every user, held in
+ * memory for the live HR dashboard ({@code GET /api/attendance/live}).
+ *
+ * <p>
+ * The index is rebuilt from today's attendance rows at startup and then
+ * follows {@link AttendanceMarkedEvent}s once their writes commit. Per-status
+ * counters are adjusted on every change, so counts are read without walking
+ * the users. Check-ins and check-outs are pushed to subscribers as
+ * {@code presence} events; every {@code attendance.live.counts-interval-ms}
+ * all subscribers get a {@code counts} event, which also rolls the index
+ * over to a new day after midnight. The index is local to one instance.
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PresenceIndex {
+
+    /**
+     * The statuses of one day. Replaced as a whole when the day changes.
+     */
+    private static final class Day {
+
+        final LocalDate date;
+        final Map<Long, AttendanceStatus> statuses = new ConcurrentHashMap<>();
+        final AtomicLongArray counts = new AtomicLongArray(AttendanceStatus.values().length);
+
+        Day(LocalDate date) {
+            this.date = date;
+        }
+
+        /**
+         * Applies a status written for {@code uid}; returns whether it changed.
+         */
+        boolean apply(long uid, AttendanceStatus status) {
+            boolean[] changed = new boolean[1];
+            statuses.compute(uid, (key, old) -> {
+                // ABSENT only fills days without a row; a check-out is never undone by a late check-in event
+                if (old == status
+                        || (old != null && status == AttendanceStatus.ABSENT)
+                        || (old == AttendanceStatus.CHECKED_OUT && status == AttendanceStatus.CHECKED_IN)) {
+                    return old;
+                }
+                if (old != null) {
+                    counts.decrementAndGet(old.ordinal());
+                }
+                counts.incrementAndGet(status.ordinal());
+                changed[0] = true;
+                return status;
+            });
+            return changed[0];
+        }
+
+        long count(AttendanceStatus status) {
+            return counts.get(status.ordinal());
+        }
+    }
+
+    private final AttendanceRepository attendanceRepo;
+    private final UserRepository userRepo;
+    private final PresenceBroadcaster broadcaster;
+
+    private volatile Day today = new Day(LocalDate.now());
+    private volatile long enabledUsers;
+
+    /**
+     * Reloads today's statuses from the attendance table.
+     */
+    public void rebuild() {
+        Day day = new Day(LocalDate.now());
+        for (AttendancePresence row : attendanceRepo.findPresence(day.date)) {
+            day.apply(row.getUserId(), row.getStatus());
+        }
+        enabledUsers = userRepo.countByEnabledTrue();
+        today = day;
+        log.info("Presence index rebuilt for {} with {} user(s) marked", day.date, day.statuses.size());
+    }
+
+    /**
+     * Connects a live dashboard, starting with the current counts.
+     */
+    public SseEmitter subscribe() {
+        return broadcaster.subscribe("counts", counts());
+    }
+
+    public PresenceCounts counts() {
+        Day day = current(LocalDate.now());
+        long marked = day.statuses.size();
+        return new PresenceCounts(
+                day.date,
+                day.count(AttendanceStatus.CHECKED_IN),
+                day.count(AttendanceStatus.CHECKED_OUT),
+                day.count(AttendanceStatus.WFH),
+                day.count(AttendanceStatus.LEAVE),
+                day.count(AttendanceStatus.ABSENT),
+                Math.max(0, enabledUsers - marked)
+        );
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAttendanceMarked(AttendanceMarkedEvent event) {
+        Day day = current(event.date());
+        if (!day.date.equals(event.date())) {
+            // A write for an earlier day, e.g. a late absentee run
+            return;
+        }
+
+        for (Long uid : event.uids()) {
+            boolean changed = day.apply(uid, event.status());
+            // Absentee runs are reflected by the next counts event rather than one event per user
+            if (changed && event.status() != AttendanceStatus.ABSENT) {
+                broadcaster.publish("presence", new PresenceChange(uid, event.status(), event.at()));
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${attendance.live.counts-interval-ms:10000}")
+    public void publishCounts() {
+        if (!broadcaster.hasSubscribers()) {
+            return;
+        }
+        enabledUsers = userRepo.countByEnabledTrue();
+        broadcaster.publish("counts", counts());
+    }
+
+    /**
+     * The index for {@code date}, starting a new empty day if {@code date} is
+     * after the current one.
+     */
+    private Day current(LocalDate date) {
+        Day day = today;
+        if (!date.isAfter(day.date)) {
+            return day;
+        }
+        synchronized (this) {
+            if (date.isAfter(today.date)) {
+                today = new Day(date);
+            }
+            return today;
+        }
+    }
+}
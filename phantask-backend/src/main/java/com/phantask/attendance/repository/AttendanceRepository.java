@@ -1,12 +1,20 @@
 package com.phantask.attendance.repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import com.phantask.attendance.dto.AttendanceDay;
+import com.phantask.attendance.dto.AttendancePresence;
+import com.phantask.attendance.dto.AttendanceRecordView;
+import com.phantask.attendance.dto.AttendanceStatusCounts;
 import com.phantask.attendance.entity.Attendance;
+import com.phantask.attendance.enums.AttendanceStatus;
 import com.phantask.authentication.entity.User;
 
 public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
@@ -14,6 +22,8 @@ public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
     Optional<Attendance> findByUserAndAttendanceDate(User user, LocalDate date);
     boolean existsByUserAndAttendanceDate(User user, LocalDate date);
     boolean existsByUserUidAndAttendanceDate(Long userId, LocalDate date);
+
+    Optional<Attendance> findByUserUidAndAttendanceDate(Long userId, LocalDate date);
     List<Attendance> findByAttendanceDateBetween(
             LocalDate startDate,
             LocalDate endDate
@@ -25,4 +35,70 @@ public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
     );   
     List<Attendance> findByAttendanceDate(LocalDate date);
     List<Attendance> findByUser(User user);
+
+    List<Attendance> findByUserUid(Long userId);
+
+    /**
+     * User and status of every attendance row on {@code date}, without
+     * loading entities or users.
+     */
+    @Query("""
+        SELECT new com.phantask.attendance.dto.AttendancePresence(a.user.uid, a.status)
+        FROM Attendance a
+        WHERE a.attendanceDate = :date
+    """)
+    List<AttendancePresence> findPresence(LocalDate date);
+
+    List<Attendance> findByUserUidAndAttendanceDateLessThanEqual(Long userId, LocalDate endDate);
+
+    /**
+     * Date and status of one user's attendance in {@code [startDate, endDate]},
+     * read through the {@code (uid, attendance_date)} unique index without
+     * loading entities or the user.
+     */
+    @Query("""
+        SELECT new com.phantask.attendance.dto.AttendanceDay(a.attendanceDate, a.status)
+        FROM Attendance a
+        WHERE a.user.uid = :userId
+          AND a.attendanceDate BETWEEN :startDate AND :endDate
+    """)
+    List<AttendanceDay> findDays(Long userId, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * One user's attendance in {@code [startDate, endDate]}, newest first, at
+     * most one page of it. Walks the {@code (uid, attendance_date)} unique
+     * index backwards from {@code endDate}; callers page by moving
+     * {@code endDate} before the last date returned instead of using an offset.
+     */
+    @Query("""
+        SELECT new com.phantask.attendance.dto.AttendanceRecordView(
+            a.attendanceDate, a.status, a.checkInTime, a.checkOutTime)
+        FROM Attendance a
+        WHERE a.user.uid = :userId
+          AND a.attendanceDate BETWEEN :startDate AND :endDate
+        ORDER BY a.attendanceDate DESC
+    """)
+    List<AttendanceRecordView> findRecords(Long userId, LocalDate startDate, LocalDate endDate, Pageable page);
+
+    /**
+     * Attendance counts per user in {@code [startDate, endDate]}, for one user
+     * or all when {@code userId} is null, ordered by uid. Days with a status in
+     * {@code presentStatuses} count as present.
+     */
+    @Query("""
+        SELECT new com.phantask.attendance.dto.AttendanceStatusCounts(
+            u.uid,
+            u.username,
+            COUNT(a),
+            SUM(CASE WHEN a.status IN :presentStatuses THEN 1 ELSE 0 END),
+            SUM(CASE WHEN a.status = com.phantask.attendance.enums.AttendanceStatus.ABSENT THEN 1 ELSE 0 END),
+            SUM(CASE WHEN a.status = com.phantask.attendance.enums.AttendanceStatus.LEAVE THEN 1 ELSE 0 END))
+        FROM Attendance a JOIN a.user u
+        WHERE a.attendanceDate BETWEEN :startDate AND :endDate
+          AND (:userId IS NULL OR u.uid = :userId)
+        GROUP BY u.uid, u.username
+        ORDER BY u.uid
+    """)
+    List<AttendanceStatusCounts> countByUser(LocalDate startDate, LocalDate endDate, Long userId,
+            Collection<AttendanceStatus> presentStatuses);
 }
@@ -2,21 +2,25 @@ package com.phantask.attendance.repository;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
 import com.phantask.attendance.entity.AttendanceToken;
 import com.phantask.authentication.entity.User;
 
+import jakarta.persistence.LockModeType;
+
 public interface AttendanceTokenRepository extends JpaRepository<AttendanceToken, Long> {
 
-    Optional<AttendanceToken> findByTokenAndUsedFalse(String token);
     boolean existsByUserUidAndDate(Long userId, LocalDate date);
     boolean existsByUserAndDate(User user, LocalDate date);
-    void deleteByExpiresAtBefore(LocalDateTime now);
     
     @Modifying
     @Query("""
@@ -27,5 +31,48 @@ public interface AttendanceTokenRepository extends JpaRepository<AttendanceToken
           AND t.used = false
     """)
     void invalidateActiveTokens(User user, LocalDate date);
-}
 
+    /**
+     * Uses up the token if it is still unused.
+     *
+     * @return 1 if this call consumed the token, 0 if it was unknown or already used
+     */
+    @Modifying
+    @Query("UPDATE AttendanceToken t SET t.used = true WHERE t.tokenHash = :tokenHash AND t.used = false")
+    int consume(String tokenHash);
+
+    @Query("SELECT t FROM AttendanceToken t JOIN FETCH t.user WHERE t.tokenHash IN :tokenHashes")
+    List<AttendanceToken> findWithUser(Collection<String> tokenHashes);
+
+    /**
+     * Locks the still unused tokens among {@code tokenHashes} until the
+     * transaction ends, so the caller can consume exactly those.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM AttendanceToken t WHERE t.tokenHash IN :tokenHashes AND t.used = false")
+    List<AttendanceToken> lockUnused(Collection<String> tokenHashes);
+
+    @Modifying
+    @Query("UPDATE AttendanceToken t SET t.used = true WHERE t.tokenHash IN :tokenHashes AND t.used = false")
+    int markUsed(Collection<String> tokenHashes);
+
+    /**
+     * Inserts a token, or resets its row when the same token is registered
+     * again: the frontend registers the user's current token on every page
+     * load, so one digest legitimately arrives several times.
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO attendance_tokens (token_hash, uid, date, expires_at, used)
+        VALUES (:tokenHash, :uid, :date, :expiresAt, :used)
+        ON DUPLICATE KEY UPDATE uid = VALUES(uid), date = VALUES(date),
+            expires_at = VALUES(expires_at), used = VALUES(used)
+    """, nativeQuery = true)
+    void upsert(String tokenHash, Long uid, LocalDate date, LocalDateTime expiresAt, boolean used);
+
+    /**
+     * Ids of tokens that expired before {@code cutoff}, at most one page of them.
+     */
+    @Query("SELECT t.id FROM AttendanceToken t WHERE t.expiresAt < :cutoff ORDER BY t.expiresAt")
+    List<Long> findExpiredIds(LocalDateTime cutoff, Pageable page);
+}
@@ -1,19 +1,45 @@
 package com.phantask.attendance.service;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.function.Consumer;
 
+import com.phantask.attendance.dto.AttendanceCalendarResponse;
 import com.phantask.attendance.dto.AttendancePercentageResponse;
+import com.phantask.attendance.dto.AttendanceRecordPage;
+import com.phantask.attendance.dto.AttendanceStreakResponse;
+import com.phantask.attendance.dto.AttendanceYearSummary;
+import com.phantask.attendance.dto.ScanResult;
+import com.phantask.attendance.dto.ScannedToken;
 import com.phantask.attendance.entity.Attendance;
+import com.phantask.authentication.security.PhanTaskPrincipal;
 
 public interface IAttendanceService {
 
-	void registerQrToken(String token);
+	void registerQrToken(PhanTaskPrincipal principal, String token);
 	Attendance markAttendance(String token);
-	List<Attendance> getMyAttendance();
-	AttendancePercentageResponse getMyAttendancePercentage();
+	List<ScanResult> markAttendanceBatch(List<ScannedToken> scans);
+	List<ScanResult> syncScans(String deviceId, List<ScannedToken> scans);
+	List<Attendance> getMyAttendance(PhanTaskPrincipal principal);
+	AttendanceRecordPage getMyAttendanceRecords(
+	            PhanTaskPrincipal principal,
+	            LocalDate startDate,
+	            LocalDate endDate,
+	            LocalDate before,
+	            int size);
+	AttendancePercentageResponse getMyAttendancePercentage(PhanTaskPrincipal principal);
+	AttendanceCalendarResponse getMyCalendar(PhanTaskPrincipal principal, YearMonth month);
+	AttendanceStreakResponse getMyStreak(PhanTaskPrincipal principal);
+	AttendanceYearSummary getMyYearSummary(PhanTaskPrincipal principal, int year);
 	List<AttendancePercentageResponse> getAttendancePercentage(
 	            LocalDate startDate,
 	            LocalDate endDate,
 	            Long userId);
+	void streamAttendancePercentage(
+	            LocalDate startDate,
+	            LocalDate endDate,
+	            Long userId,
+	            Consumer<AttendancePercentageResponse> action);
+	int rebuildAttendanceRollup();
 }
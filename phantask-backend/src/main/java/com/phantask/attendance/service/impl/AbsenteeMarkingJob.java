@@ -0,0 +1,151 @@
+package com.phantask.attendance.service.impl;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.phantask.attendance.enums.AttendanceStatus;
+import com.phantask.attendance.event.AttendanceMarkedEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Marks every enabled user without an attendance row for a day as ABSENT,
+ * using set-based SQL instead of one query and one insert per user.
+ *
+ * <p>
+ * The job walks the users in chunks of {@code attendance.absentee-job.chunk-size},
+ * ordered by uid. For each chunk a single anti-join finds the next users that
+ * have no row for the day, and those rows are written with one JDBC batch of
+ * {@code INSERT IGNORE}. Every chunk commits on its own, so the job never
+ * holds one long transaction over the whole user table. The chunk's new
+ * ABSENT days are added to the monthly rollup ({@link AttendanceRollupStore})
+ * in the same transaction, and an {@link AttendanceMarkedEvent} is published
+ * for the chunk.
+ * </p>
+ *
+ * <p>
+ * The job is idempotent and restartable: the anti-join only returns users
+ * that are still missing, and a row created concurrently (for example a
+ * late check-in) is skipped by the {@code (uid, attendance_date)} unique
+ * constraint instead of failing the batch. Running it again after a crash
+ * simply finishes the remaining users.
+ * </p>
+ *
+ * <p>
+ * Metrics: {@code phantask.attendance.absentee.duration} (timer) and
+ * {@code phantask.attendance.absentee.rows} (rows inserted, counted after
+ * each chunk's batch rather than taken from the driver's update counts).
+ * </p>
+ */
+@Component
+@Slf4j
+public class AbsenteeMarkingJob {
+
+    private static final String FIND_MISSING_SQL = """
+            SELECT u.uid FROM users u
+            WHERE u.enabled = TRUE
+              AND u.uid > ?
+              AND NOT EXISTS (
+                  SELECT 1 FROM attendance a
+                  WHERE a.uid = u.uid AND a.attendance_date = ?)
+            ORDER BY u.uid
+            LIMIT ?""";
+
+    private static final String INSERT_ABSENT_SQL =
+            "INSERT IGNORE INTO attendance (uid, attendance_date, status) VALUES (?, ?, ?)";
+
+    private static final String COUNT_ABSENT_SQL = """
+            SELECT COUNT(*) FROM attendance
+            WHERE uid IN (:uids) AND attendance_date = :day AND status = 'ABSENT'""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AttendanceRollupStore rollup;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+    private final Timer duration;
+    private final Counter rowsWritten;
+
+    public AbsenteeMarkingJob(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+            AttendanceRollupStore rollup, ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry,
+            @Value("${attendance.absentee-job.chunk-size:1000}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = transactionTemplate;
+        this.rollup = rollup;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+        this.duration = Timer.builder("phantask.attendance.absentee.duration")
+                .description("Time taken to mark absent users for a day")
+                .register(meterRegistry);
+        this.rowsWritten = Counter.builder("phantask.attendance.absentee.rows")
+                .description("ABSENT attendance rows inserted by the absentee job")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Inserts an ABSENT row for every enabled user that has no attendance row
+     * on {@code date}.
+     *
+     * @return the number of rows inserted
+     */
+    public int markAbsent(LocalDate date) {
+        long start = System.nanoTime();
+        Date sqlDate = Date.valueOf(date);
+
+        int inserted = 0;
+        int chunks = 0;
+        long lastUid = 0;
+        List<Long> missing;
+        do {
+            long after = lastUid;
+            missing = jdbcTemplate.queryForList(FIND_MISSING_SQL, Long.class, after, sqlDate, chunkSize);
+            if (missing.isEmpty()) {
+                break;
+            }
+            List<Long> chunk = missing;
+            inserted += transactionTemplate.execute(status -> insertChunk(chunk, date));
+            lastUid = missing.get(missing.size() - 1);
+            chunks++;
+        } while (missing.size() == chunkSize);
+
+        long elapsed = System.nanoTime() - start;
+        duration.record(elapsed, TimeUnit.NANOSECONDS);
+        rowsWritten.increment(inserted);
+        log.info("Marked {} user(s) absent for {} in {} chunk(s), {} ms", inserted, date, chunks,
+                TimeUnit.NANOSECONDS.toMillis(elapsed));
+        return inserted;
+    }
+
+    private int insertChunk(List<Long> uids, LocalDate date) {
+        Date sqlDate = Date.valueOf(date);
+        jdbcTemplate.batchUpdate(INSERT_ABSENT_SQL, uids, uids.size(), (ps, uid) -> {
+            ps.setLong(1, uid);
+            ps.setDate(2, sqlDate);
+            ps.setString(3, AttendanceStatus.ABSENT.name());
+        });
+
+        // Rewritten batches report SUCCESS_NO_INFO for ignored duplicates too, so the
+        // update counts cannot tell; these users had no row before, so every ABSENT row is ours
+        Integer inserted = namedJdbcTemplate.queryForObject(COUNT_ABSENT_SQL, new MapSqlParameterSource()
+                .addValue("uids", uids)
+                .addValue("day", sqlDate), Integer.class);
+        rollup.addAbsent(uids, date);
+        eventPublisher.publishEvent(new AttendanceMarkedEvent(List.copyOf(uids), date, AttendanceStatus.ABSENT, null));
+        return inserted == null ? 0 : inserted;
+    }
+}
@@ -0,0 +1,101 @@
+package com.phantask.attendance.service.impl;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.phantask.attendance.dto.AttendancePercentageResponse;
+import com.phantask.attendance.event.AttendanceMarkedEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded cache of each user's own attendance percentage
+ * ({@code GET /api/attendance/percentage/my}), which every user's dashboard
+ * asks for on every load.
+ *
+ * <p>
+ * An entry is computed for one day and dropped:
+ * <ul>
+ *   <li>as soon as attendance written for the user commits (check-in,
+ *       check-out, absentee run), via {@link AttendanceMarkedEvent};</li>
+ *   <li>on the first read after midnight, so a day's value is never served
+ *       the next day;</li>
+ *   <li>after {@code attendance.percentage-cache.ttl-minutes}, which bounds
+ *       staleness for writes made on other nodes;</li>
+ *   <li>when the cache exceeds {@code attendance.percentage-cache.max-size}.</li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * Hits, misses and size/TTL evictions are published as the standard
+ * {@code cache.*} meters with {@code cache=attendancePercentage};
+ * {@code phantask.attendance.percentage.invalidations} counts event-driven
+ * removals.
+ * </p>
+ */
+@Component
+public class AttendancePercentageCache {
+
+    private record Entry(LocalDate day, AttendancePercentageResponse percentage) {
+    }
+
+    private final Cache<Long, Entry> cache;
+    private final Counter invalidations;
+
+    public AttendancePercentageCache(MeterRegistry meterRegistry,
+            @Value("${attendance.percentage-cache.max-size:10000}") long maxSize,
+            @Value("${attendance.percentage-cache.ttl-minutes:60}") long ttlMinutes) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "attendancePercentage");
+        this.invalidations = Counter.builder("phantask.attendance.percentage.invalidations")
+                .description("Cached attendance percentages dropped because attendance was marked")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the user's percentage as of {@code today}, calling
+     * {@code loader} on a miss or when the cached value is from another day.
+     */
+    public AttendancePercentageResponse get(long uid, LocalDate today, Supplier<AttendancePercentageResponse> loader) {
+        Entry entry = cache.get(uid, key -> new Entry(today, loader.get()));
+        if (!entry.day().equals(today)) {
+            // Computed before midnight: roll over to a fresh entry
+            cache.asMap().remove(uid, entry);
+            entry = cache.get(uid, key -> new Entry(today, loader.get()));
+        }
+        return entry.percentage();
+    }
+
+    public void invalidate(long uid) {
+        cache.invalidate(uid);
+        invalidations.increment();
+    }
+
+    /**
+     * Drops every user, e.g. after the rollup was rebuilt.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAttendanceMarked(AttendanceMarkedEvent event) {
+        for (Long uid : event.uids()) {
+            invalidate(uid);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.phantask.attendance.service.impl;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import org.springframework.stereotype.Component;
+
+import com.phantask.attendance.dto.AttendancePercentageResponse;
+import com.phantask.attendance.service.IAttendanceService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Writes the attendance percentage report as UTF-8 CSV, one row per user as
+ * the rows are read (see {@link IAttendanceService#streamAttendancePercentage}),
+ * so memory does not grow with the size of the report. Used by the download
+ * endpoint and by report jobs.
+ */
+@Component
+@RequiredArgsConstructor
+public class AttendancePercentageCsvWriter {
+
+    public static final int BUFFER_SIZE = 8192;
+
+    private static final String HEADER =
+            "User ID,Username,Total Days,Present Days,Absent Days,Leave Days,Attendance Percentage\n";
+
+    private final IAttendanceService attendanceService;
+
+    /**
+     * Writes the report for {@code [startDate, endDate]} to {@code out} and
+     * flushes it; {@code out} is not closed. {@code onRow} runs after every
+     * row written.
+     *
+     * @return the number of rows written, without the header
+     */
+    public long write(LocalDate startDate, LocalDate endDate, Long userId, OutputStream out, Runnable onRow)
+            throws IOException {
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        writer.write(HEADER);
+
+        long[] rows = new long[1];
+        try {
+            attendanceService.streamAttendancePercentage(startDate, endDate, userId, r -> {
+                writeRow(writer, r);
+                rows[0]++;
+                onRow.run();
+            });
+        } catch (UncheckedIOException e) {
+            // The output went away; stop reading rows
+            throw e.getCause();
+        }
+
+        writer.flush();
+        return rows[0];
+    }
+
+    private static void writeRow(Writer writer, AttendancePercentageResponse r) {
+        try {
+            writer.append(String.valueOf(r.getUserId())).append(',')
+                  .append(r.getUsername()).append(',')
+                  .append(String.valueOf(r.getTotalDays())).append(',')
+                  .append(String.valueOf(r.getPresentDays())).append(',')
+                  .append(String.valueOf(r.getAbsentDays())).append(',')
+                  .append(String.valueOf(r.getLeaveDays())).append(',')
+                  .append(String.valueOf(r.getAttendancePercentage()))
+                  .append('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.phantask.attendance.service.impl;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.phantask.attendance.enums.AttendanceStatus;
+import com.phantask.attendance.event.AttendanceMarkedEvent;
+
+
+/**
+ * Records a check-in or check-out with single conditional statements instead
+ * of read-then-write, so simultaneous scans for one user cannot both decide
+ * that the user has no attendance yet.
+ *
+ * <p>
+ * A scan first tries to {@code INSERT} a checked-in row; the
+ * {@code (uid, attendance_date)} unique constraint lets exactly one such
+ * insert succeed per day, and only its duplicate-key error is taken to mean
+ * that the row exists (any other failure propagates). If the row already
+ * exists, an {@code UPDATE} that only matches a CHECKED_IN row without a
+ * check-out time checks the user out, which again only one scan can do. Every
+ * later scan, and any scan of a day already marked ABSENT, LEAVE or WFH,
+ * changes nothing and is reported as {@link Outcome#ALREADY_COMPLETED}. The
+ * outcome is read from the affected-row counts, so no lock beyond the row
+ * itself is taken.
+ * </p>
+ *
+ * <p>
+ * A check-in is also counted in the monthly rollup
+ * ({@link AttendanceRollupStore}); a check-out only ever follows a
+ * check-in, so the day stays present and the rollup is unchanged. Both
+ * publish an {@link AttendanceMarkedEvent}. Runs in the caller's transaction.
+ * </p>
+ *
+ * <p>
+ * {@link #recordAll} applies a burst of scans of one day with the same
+ * statements sent as JDBC batches, so the number of round trips does not
+ * grow with the number of scans.
+ * </p>
+ */
+@Component
+public class AttendanceRecorder {
+
+    public enum Outcome {
+        CHECKED_IN,
+        CHECKED_OUT,
+        ALREADY_COMPLETED
+    }
+
+    private static final String CHECK_IN_SQL =
+            "INSERT INTO attendance (uid, attendance_date, check_in_time, status) VALUES (?, ?, ?, ?)";
+
+    /**
+     * Batched form of {@link #CHECK_IN_SQL}: a duplicate key must not abort
+     * the rest of the batch, so it is turned into a no-op instead of an error.
+     * Any other failure still fails the batch.
+     */
+    private static final String CHECK_IN_BATCH_SQL = """
+            INSERT INTO attendance (uid, attendance_date, check_in_time, status) VALUES (?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE uid = uid""";
+
+    private static final String CHECK_OUT_SQL = """
+            UPDATE attendance SET check_out_time = ?, status = ?
+            WHERE uid = ? AND attendance_date = ? AND status = 'CHECKED_IN' AND check_out_time IS NULL""";
+
+    private static final String DAY_ROWS_SQL = """
+            SELECT uid, status, check_in_time, check_out_time FROM attendance
+            WHERE attendance_date = :day AND uid IN (:uids)""";
+
+    /**
+     * A scan of {@code uid} taken at {@code at}.
+     */
+    public record Scan(long uid, LocalDateTime at) {
+    }
+
+    private record DayRow(String status, Timestamp checkIn, Timestamp checkOut) {
+
+        boolean open() {
+            return AttendanceStatus.CHECKED_IN.name().equals(status) && checkOut == null;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final AttendanceRollupStore rollup;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public AttendanceRecorder(JdbcTemplate jdbcTemplate, AttendanceRollupStore rollup,
+            ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.rollup = rollup;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Checks the user in on {@code day}, or out if already checked in.
+     */
+    public Outcome record(long uid, LocalDate day, LocalDateTime at) {
+        Date sqlDate = Date.valueOf(day);
+        Timestamp time = Timestamp.valueOf(at);
+
+        if (checkIn(uid, sqlDate, time)) {
+            rollup.add(uid, day, AttendanceStatus.CHECKED_IN);
+            eventPublisher.publishEvent(new AttendanceMarkedEvent(List.of(uid), day, AttendanceStatus.CHECKED_IN, at));
+            return Outcome.CHECKED_IN;
+        }
+        if (jdbcTemplate.update(CHECK_OUT_SQL, time, AttendanceStatus.CHECKED_OUT.name(), uid, sqlDate) == 1) {
+            eventPublisher.publishEvent(new AttendanceMarkedEvent(List.of(uid), day, AttendanceStatus.CHECKED_OUT, at));
+            return Outcome.CHECKED_OUT;
+        }
+        return Outcome.ALREADY_COMPLETED;
+    }
+
+    /**
+     * Inserts the day's checked-in row.
+     *
+     * @return false if the user already has a row for the day
+     */
+    private boolean checkIn(long uid, Date sqlDate, Timestamp time) {
+        try {
+            return jdbcTemplate.update(CHECK_IN_SQL, uid, sqlDate, time, AttendanceStatus.CHECKED_IN.name()) == 1;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Records {@code scans} of {@code day}, which must be in scan order, as
+     * {@link #record} would one after another but in a fixed number of
+     * statements: one read of the day's rows, one batch of check-in inserts,
+     * one batch of check-out updates, one re-read and one batch of rollup
+     * upserts.
+     *
+     * <p>
+     * The outcome of each scan is planned from the first read and then
+     * confirmed from the re-read: a planned check-in or check-out only counts
+     * if the row now carries this scan's time. Batched update counts are not
+     * used because a rewritten MySQL batch does not report them per
+     * statement. A scan whose write lost to a concurrent request changed
+     * nothing and is reported as {@link Outcome#ALREADY_COMPLETED}. Times are
+     * truncated to microseconds, the precision of the DATETIME(6) columns, so
+     * they compare equal after the round trip.
+     * </p>
+     *
+     * @return the outcome of every scan, in the order of {@code scans}
+     */
+    public List<Outcome> recordAll(LocalDate day, List<Scan> scans) {
+        if (scans.isEmpty()) {
+            return List.of();
+        }
+        Date sqlDate = Date.valueOf(day);
+        Set<Long> uids = new LinkedHashSet<>();
+        scans.forEach(scan -> uids.add(scan.uid()));
+
+        // Plan every scan from the rows as they are: no row checks in, an open row checks out
+        Map<Long, DayRow> before = readDay(sqlDate, uids);
+        Map<Long, Outcome> last = new HashMap<>();
+        before.forEach((uid, row) -> last.put(uid, row.open() ? Outcome.CHECKED_IN : Outcome.ALREADY_COMPLETED));
+
+        List<Outcome> planned = new ArrayList<>(scans.size());
+        List<Timestamp> times = new ArrayList<>(scans.size());
+        List<Integer> checkIns = new ArrayList<>();
+        List<Integer> checkOuts = new ArrayList<>();
+        for (int i = 0; i < scans.size(); i++) {
+            Scan scan = scans.get(i);
+            Outcome previous = last.get(scan.uid());
+            Outcome outcome = previous == null ? Outcome.CHECKED_IN
+                    : previous == Outcome.CHECKED_IN ? Outcome.CHECKED_OUT
+                    : Outcome.ALREADY_COMPLETED;
+            planned.add(outcome);
+            times.add(Timestamp.valueOf(scan.at().truncatedTo(ChronoUnit.MICROS)));
+            if (outcome == Outcome.CHECKED_IN) {
+                checkIns.add(i);
+            } else if (outcome == Outcome.CHECKED_OUT) {
+                checkOuts.add(i);
+            }
+            last.put(scan.uid(), outcome);
+        }
+
+        if (!checkIns.isEmpty()) {
+            jdbcTemplate.batchUpdate(CHECK_IN_BATCH_SQL, checkIns, checkIns.size(), (ps, i) -> {
+                ps.setLong(1, scans.get(i).uid());
+                ps.setDate(2, sqlDate);
+                ps.setTimestamp(3, times.get(i));
+                ps.setString(4, AttendanceStatus.CHECKED_IN.name());
+            });
+        }
+        if (!checkOuts.isEmpty()) {
+            jdbcTemplate.batchUpdate(CHECK_OUT_SQL, checkOuts, checkOuts.size(), (ps, i) -> {
+                ps.setTimestamp(1, times.get(i));
+                ps.setString(2, AttendanceStatus.CHECKED_OUT.name());
+                ps.setLong(3, scans.get(i).uid());
+                ps.setDate(4, sqlDate);
+            });
+        }
+        if (checkIns.isEmpty() && checkOuts.isEmpty()) {
+            return planned;
+        }
+
+        // Keep only the writes that actually landed
+        Map<Long, DayRow> after = readDay(sqlDate, uids);
+        List<Outcome> outcomes = new ArrayList<>(scans.size());
+        List<Long> checkedIn = new ArrayList<>();
+        for (int i = 0; i < scans.size(); i++) {
+            long uid = scans.get(i).uid();
+            DayRow row = after.get(uid);
+            Outcome outcome = planned.get(i);
+            boolean won = switch (outcome) {
+                case CHECKED_IN -> row != null && Objects.equals(row.checkIn(), times.get(i));
+                case CHECKED_OUT -> row != null && Objects.equals(row.checkOut(), times.get(i));
+                case ALREADY_COMPLETED -> false;
+            };
+            if (!won) {
+                outcomes.add(Outcome.ALREADY_COMPLETED);
+                continue;
+            }
+            outcomes.add(outcome);
+            if (outcome == Outcome.CHECKED_IN) {
+                checkedIn.add(uid);
+            }
+        }
+
+        rollup.addPresent(checkedIn, day);
+        for (int i = 0; i < scans.size(); i++) {
+            Outcome outcome = outcomes.get(i);
+            if (outcome != Outcome.ALREADY_COMPLETED) {
+                AttendanceStatus status = outcome == Outcome.CHECKED_IN
+                        ? AttendanceStatus.CHECKED_IN
+                        : AttendanceStatus.CHECKED_OUT;
+                eventPublisher.publishEvent(
+                        new AttendanceMarkedEvent(List.of(scans.get(i).uid()), day, status, scans.get(i).at()));
+            }
+        }
+        return outcomes;
+    }
+
+    private Map<Long, DayRow> readDay(Date sqlDate, Collection<Long> uids) {
+        Map<Long, DayRow> rows = new HashMap<>();
+        namedJdbcTemplate.query(DAY_ROWS_SQL, new MapSqlParameterSource()
+                .addValue("day", sqlDate)
+                .addValue("uids", uids),
+                (RowCallbackHandler) rs -> rows.put(rs.getLong("uid"), new DayRow(rs.getString("status"),
+                        rs.getTimestamp("check_in_time"), rs.getTimestamp("check_out_time"))));
+        return rows;
+    }
+}
@@ -0,0 +1,320 @@
+package com.phantask.attendance.service.impl;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.phantask.attendance.dto.AttendanceStatusCounts;
+import com.phantask.attendance.enums.AttendanceStatus;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Maintains {@code attendance_rollup}, the per-user monthly attendance counts
+ * (see {@code AttendanceRollup}), and answers percentage queries from it.
+ *
+ * <p>
+ * Writers call {@link #add}, {@link #addPresent} or {@link #addAbsent} in the same transaction as
+ * the attendance insert, so a committed attendance row is always counted
+ * exactly once. The update is an upsert on the {@code (uid, month_key)} key
+ * and only touches that user's row for the month.
+ * </p>
+ *
+ * <p>
+ * Reads sum the rollup for the calendar months that lie completely inside the
+ * requested range and count raw attendance rows only for the partial months
+ * at either end, in one {@code UNION ALL} query. A report over years of
+ * history therefore reads one row per user and month plus at most two
+ * months of days.
+ * </p>
+ *
+ * <p>
+ * {@link #forEachByUser} hands the report rows to the caller one at a time
+ * from a forward-only result set, so exports need constant memory no matter
+ * how many users there are.
+ * </p>
+ *
+ * <p>
+ * {@link #rebuild()} recomputes every month from the attendance table, one
+ * month per transaction, to reconcile the counters after data was changed
+ * outside the application. It runs automatically at startup while the
+ * rollup is still empty.
+ * </p>
+ */
+@Component
+@Slf4j
+public class AttendanceRollupStore {
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO attendance_rollup (uid, month_key, present_days, absent_days, leave_days, wfh_days)
+            VALUES (?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                present_days = present_days + VALUES(present_days),
+                absent_days = absent_days + VALUES(absent_days),
+                leave_days = leave_days + VALUES(leave_days),
+                wfh_days = wfh_days + VALUES(wfh_days)""";
+
+    private static final String ADD_ABSENT_SQL = """
+            INSERT INTO attendance_rollup (uid, month_key, present_days, absent_days, leave_days, wfh_days)
+            SELECT a.uid, :monthKey, 0, 1, 0, 0 FROM attendance a
+            WHERE a.uid IN (:uids) AND a.attendance_date = :day AND a.status = 'ABSENT'
+            ON DUPLICATE KEY UPDATE absent_days = absent_days + 1""";
+
+    /**
+     * Per-status counters of raw attendance rows; must match {@link #add}.
+     */
+    private static final String RAW_COUNTERS = """
+            CASE WHEN a.status IN ('CHECKED_IN', 'CHECKED_OUT') THEN 1 ELSE 0 END AS present_days,
+            CASE WHEN a.status = 'ABSENT' THEN 1 ELSE 0 END AS absent_days,
+            CASE WHEN a.status = 'LEAVE' THEN 1 ELSE 0 END AS leave_days,
+            CASE WHEN a.status = 'WFH' THEN 1 ELSE 0 END AS wfh_days""";
+
+    private static final String COUNT_BY_USER_SQL = """
+            SELECT u.uid, u.username,
+                   SUM(t.present_days) AS present_days, SUM(t.absent_days) AS absent_days,
+                   SUM(t.leave_days) AS leave_days, SUM(t.wfh_days) AS wfh_days
+            FROM (
+                SELECT r.uid, r.present_days, r.absent_days, r.leave_days, r.wfh_days
+                FROM attendance_rollup r
+                WHERE r.month_key >= :fromMonth AND r.month_key < :toMonth
+                  AND (:userId IS NULL OR r.uid = :userId)
+                UNION ALL
+                SELECT a.uid, %s
+                FROM attendance a
+                WHERE ((a.attendance_date >= :startDate AND a.attendance_date < :fullFrom)
+                    OR (a.attendance_date >= :fullTo AND a.attendance_date <= :endDate))
+                  AND (:userId IS NULL OR a.uid = :userId)
+            ) t
+            JOIN users u ON u.uid = t.uid
+            GROUP BY u.uid, u.username
+            ORDER BY u.uid""".formatted(RAW_COUNTERS);
+
+    private static final String TOTALS_SQL = """
+            SELECT COALESCE(SUM(present_days), 0) AS present_days, COALESCE(SUM(absent_days), 0) AS absent_days,
+                   COALESCE(SUM(leave_days), 0) AS leave_days, COALESCE(SUM(wfh_days), 0) AS wfh_days
+            FROM attendance_rollup
+            WHERE uid = ? AND month_key <= ?""";
+
+    private static final String REBUILD_MONTH_SQL = """
+            INSERT INTO attendance_rollup (uid, month_key, present_days, absent_days, leave_days, wfh_days)
+            SELECT t.uid, ?, SUM(t.present_days), SUM(t.absent_days), SUM(t.leave_days), SUM(t.wfh_days)
+            FROM (
+                SELECT a.uid, %s
+                FROM attendance a
+                WHERE a.attendance_date >= ? AND a.attendance_date < ?
+            ) t
+            GROUP BY t.uid""".formatted(RAW_COUNTERS);
+
+    /**
+     * Rows fetched per round trip when streaming from drivers other than MySQL.
+     */
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private volatile NamedParameterJdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Timer rebuildDuration;
+
+    public AttendanceRollupStore(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = transactionTemplate;
+        this.rebuildDuration = Timer.builder("phantask.attendance.rollup.rebuild.duration")
+                .description("Time taken to rebuild the monthly attendance rollup")
+                .register(meterRegistry);
+    }
+
+    /**
+     * {@code yyyyMM} of the month containing {@code day}.
+     */
+    static int monthKey(LocalDate day) {
+        return day.getYear() * 100 + day.getMonthValue();
+    }
+
+    /**
+     * Counts a newly written attendance day. Runs in the caller's transaction.
+     */
+    public void add(long uid, LocalDate day, AttendanceStatus status) {
+        boolean present = status == AttendanceStatus.CHECKED_IN || status == AttendanceStatus.CHECKED_OUT;
+        jdbcTemplate.update(UPSERT_SQL, uid, monthKey(day),
+                present ? 1 : 0,
+                status == AttendanceStatus.ABSENT ? 1 : 0,
+                status == AttendanceStatus.LEAVE ? 1 : 0,
+                status == AttendanceStatus.WFH ? 1 : 0);
+    }
+
+    /**
+     * Counts the check-ins just inserted on {@code day} for {@code uids}, as
+     * one JDBC batch. Runs in the caller's transaction.
+     */
+    public void addPresent(Collection<Long> uids, LocalDate day) {
+        if (uids.isEmpty()) {
+            return;
+        }
+        int monthKey = monthKey(day);
+        jdbcTemplate.batchUpdate(UPSERT_SQL, uids, uids.size(), (ps, uid) -> {
+            ps.setLong(1, uid);
+            ps.setInt(2, monthKey);
+            ps.setInt(3, 1);
+            ps.setInt(4, 0);
+            ps.setInt(5, 0);
+            ps.setInt(6, 0);
+        });
+    }
+
+    /**
+     * Counts the ABSENT rows just inserted on {@code day} for {@code uids}, in
+     * one statement. Runs in the caller's transaction; the caller must only
+     * pass users that had no attendance row for the day before.
+     */
+    public void addAbsent(Collection<Long> uids, LocalDate day) {
+        if (uids.isEmpty()) {
+            return;
+        }
+        namedJdbcTemplate.update(ADD_ABSENT_SQL, new MapSqlParameterSource()
+                .addValue("monthKey", monthKey(day))
+                .addValue("uids", uids)
+                .addValue("day", Date.valueOf(day)));
+    }
+
+    /**
+     * Attendance counts per user in {@code [startDate, endDate]}, for one user
+     * or all when {@code userId} is null, ordered by uid.
+     */
+    public List<AttendanceStatusCounts> countByUser(LocalDate startDate, LocalDate endDate, Long userId) {
+        List<AttendanceStatusCounts> counts = new ArrayList<>();
+        forEachByUser(startDate, endDate, userId, counts::add);
+        return counts;
+    }
+
+    /**
+     * Same rows as {@link #countByUser}, passed to {@code action} as they are
+     * read instead of being collected. Uses a streaming result set; the
+     * action must not run other statements on the same connection.
+     */
+    public void forEachByUser(LocalDate startDate, LocalDate endDate, Long userId,
+            Consumer<AttendanceStatusCounts> action) {
+        // Whole months in [fullFrom, fullTo) come from the rollup, the days around them from attendance
+        LocalDate fullFrom = startDate.getDayOfMonth() == 1
+                ? startDate
+                : startDate.withDayOfMonth(1).plusMonths(1);
+        LocalDate fullTo = endDate.plusDays(1).withDayOfMonth(1);
+        if (!fullFrom.isBefore(fullTo)) {
+            fullFrom = endDate.plusDays(1);
+            fullTo = fullFrom;
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("fromMonth", monthKey(fullFrom))
+                .addValue("toMonth", monthKey(fullTo))
+                .addValue("startDate", Date.valueOf(startDate))
+                .addValue("fullFrom", Date.valueOf(fullFrom))
+                .addValue("fullTo", Date.valueOf(fullTo))
+                .addValue("endDate", Date.valueOf(endDate))
+                .addValue("userId", userId);
+
+        streaming().query(COUNT_BY_USER_SQL, params,
+                (RowCallbackHandler) rs -> action.accept(toCounts(rs, rs.getLong("uid"), rs.getString("username"))));
+    }
+
+    private NamedParameterJdbcTemplate streaming() {
+        NamedParameterJdbcTemplate template = streamingJdbcTemplate;
+        if (template == null) {
+            String product = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) con -> con.getMetaData().getDatabaseProductName());
+            JdbcTemplate streamingJdbc = new JdbcTemplate(jdbcTemplate.getDataSource());
+            // Connector/J only streams row by row with this sentinel; other drivers take a normal fetch size
+            streamingJdbc.setFetchSize("MySQL".equals(product) ? Integer.MIN_VALUE : STREAM_FETCH_SIZE);
+            template = new NamedParameterJdbcTemplate(streamingJdbc);
+            streamingJdbcTemplate = template;
+        }
+        return template;
+    }
+
+    /**
+     * Attendance counts of one user over all months up to and including the
+     * month of {@code upTo}.
+     */
+    public AttendanceStatusCounts totals(long uid, String username, LocalDate upTo) {
+        return jdbcTemplate.queryForObject(TOTALS_SQL,
+                (rs, rowNum) -> toCounts(rs, uid, username), uid, monthKey(upTo));
+    }
+
+    private static AttendanceStatusCounts toCounts(ResultSet rs, Long uid, String username) throws SQLException {
+        long present = rs.getLong("present_days");
+        long absent = rs.getLong("absent_days");
+        long leave = rs.getLong("leave_days");
+        long wfh = rs.getLong("wfh_days");
+        // WFH counts as present, see AttendanceStatus.isPresent()
+        return new AttendanceStatusCounts(uid, username, present + absent + leave + wfh, present + wfh, absent, leave);
+    }
+
+    /**
+     * Recomputes the rollup from the attendance table, one month per
+     * transaction.
+     *
+     * @return the number of months rebuilt
+     */
+    public int rebuild() {
+        long start = System.nanoTime();
+
+        LocalDate[] range = jdbcTemplate.queryForObject(
+                "SELECT MIN(attendance_date), MAX(attendance_date) FROM attendance",
+                (rs, rowNum) -> new LocalDate[] {
+                        rs.getObject(1, LocalDate.class), rs.getObject(2, LocalDate.class) });
+        LocalDate first = range[0];
+        LocalDate last = range[1];
+
+        if (first == null) {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update("DELETE FROM attendance_rollup"));
+            return 0;
+        }
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(
+                "DELETE FROM attendance_rollup WHERE month_key < ? OR month_key > ?",
+                monthKey(first), monthKey(last)));
+
+        int months = 0;
+        for (LocalDate month = first.withDayOfMonth(1); !month.isAfter(last); month = month.plusMonths(1)) {
+            LocalDate from = month;
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update("DELETE FROM attendance_rollup WHERE month_key = ?", monthKey(from));
+                jdbcTemplate.update(REBUILD_MONTH_SQL, monthKey(from),
+                        Date.valueOf(from), Date.valueOf(from.plusMonths(1)));
+            });
+            months++;
+        }
+
+        long elapsed = System.nanoTime() - start;
+        rebuildDuration.record(elapsed, TimeUnit.NANOSECONDS);
+        log.info("Rebuilt attendance rollup for {} month(s) from {} to {} in {} ms", months, first, last,
+                TimeUnit.NANOSECONDS.toMillis(elapsed));
+        return months;
+    }
+
+    /**
+     * Builds the rollup from existing attendance if it has never been built.
+     */
+    public void rebuildIfEmpty() {
+        if (jdbcTemplate.queryForList("SELECT 1 FROM attendance_rollup LIMIT 1").isEmpty()) {
+            rebuild();
+        }
+    }
+}
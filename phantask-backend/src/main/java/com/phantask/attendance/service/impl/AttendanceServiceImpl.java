@@ -1,25 +1,60 @@
 package com.phantask.attendance.service.impl;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import com.phantask.attendance.dto.AttendanceCalendarDay;
+import com.phantask.attendance.dto.AttendanceCalendarResponse;
 import com.phantask.attendance.dto.AttendancePercentageResponse;
+import com.phantask.attendance.dto.AttendanceRecordPage;
+import com.phantask.attendance.dto.AttendanceRecordView;
+import com.phantask.attendance.dto.AttendanceResponse;
+import com.phantask.attendance.dto.AttendanceStatusCounts;
+import com.phantask.attendance.dto.AttendanceStreakResponse;
+import com.phantask.attendance.dto.AttendanceYearSummary;
+import com.phantask.attendance.dto.ScanResult;
+import com.phantask.attendance.dto.ScannedToken;
 import com.phantask.attendance.entity.Attendance;
-import com.phantask.attendance.entity.AttendanceToken;
 import com.phantask.attendance.enums.AttendanceStatus;
+import com.phantask.attendance.enums.AttendanceUiState;
+import com.phantask.attendance.enums.CalendarDayStatus;
+import com.phantask.attendance.index.AttendanceBitmapIndex;
+import com.phantask.attendance.index.AttendanceYearBits;
 import com.phantask.attendance.repository.AttendanceRepository;
-import com.phantask.attendance.repository.AttendanceTokenRepository;
 import com.phantask.attendance.service.IAttendanceService;
-import com.phantask.authentication.entity.User;
-import com.phantask.authentication.repository.UserRepository;
+import com.phantask.attendance.service.impl.AttendanceRecorder.Outcome;
+import com.phantask.attendance.service.impl.AttendanceRecorder.Scan;
+import com.phantask.attendance.sync.ScanIdempotencyStore;
+import com.phantask.attendance.token.QrToken;
+import com.phantask.attendance.token.QrTokenStore;
+import com.phantask.authentication.security.PhanTaskPrincipal;
+import com.phantask.authentication.security.TokenDigests;
 import com.phantask.exception.AttendanceAlreadyMarkedException;
+import com.phantask.exception.InvalidQrTokenException;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -29,128 +64,368 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class AttendanceServiceImpl implements IAttendanceService {
 
+    private static final Duration QR_TOKEN_TTL = Duration.ofMinutes(5);
+
+    private static final int MAX_SYNC_ID_LENGTH = 64;
+
+    private static final Set<AttendanceStatus> PRESENT_STATUSES = Arrays.stream(AttendanceStatus.values())
+            .filter(AttendanceStatus::isPresent)
+            .collect(Collectors.toCollection(() -> EnumSet.noneOf(AttendanceStatus.class)));
+
     private final AttendanceRepository attendanceRepo;
-    private final AttendanceTokenRepository tokenRepo;
-    private final UserRepository userRepo;
+    private final QrTokenStore qrTokens;
+    private final AbsenteeMarkingJob absenteeJob;
+    private final AttendanceRecorder recorder;
+    private final AttendanceRollupStore rollup;
+    private final AttendanceBitmapIndex attendanceIndex;
+    private final ScanIdempotencyStore syncedScans;
+    private final AttendancePercentageCache percentageCache;
+
+    /**
+     * Read percentages from the monthly rollup instead of counting raw rows.
+     */
+    @Value("${attendance.rollup.enabled:true}")
+    private boolean readFromRollup = true;
+
+    /**
+     * How far back a synced offline scan may have been taken; older scans
+     * are taken to have happened this long ago.
+     */
+    @Value("${attendance.sync.max-backlog-minutes:480}")
+    private long maxSyncBacklogMinutes = 480;
 
     /**
      * Generates a new QR token for the logged-in user to mark attendance.
-     * Blocks token generation if attendance is already completed for the day.
+     * Blocks token generation if attendance is already completed for the day,
+     * or the day is already marked ABSENT, LEAVE or WFH.
      * Invalidates any previously active tokens for today.
      */
     @Override
     @Transactional
-    public void registerQrToken(String token) {
-
-        String username = SecurityContextHolder.getContext()
-                .getAuthentication().getName();
-
-        User user = userRepo.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    public void registerQrToken(PhanTaskPrincipal principal, String token) {
 
         LocalDate today = LocalDate.now();
 
         Attendance attendance = attendanceRepo
-                .findByUserAndAttendanceDate(user, today)
+                .findByUserUidAndAttendanceDate(principal.getUid(), today)
                 .orElse(null);
 
-        if (attendance != null && attendance.getCheckOutTime() != null) {
+        // Only a checked-in day can still be scanned (to check out); ABSENT, LEAVE and WFH days are final
+        if (attendance != null
+                && (attendance.getStatus() != AttendanceStatus.CHECKED_IN || attendance.getCheckOutTime() != null)) {
         	throw new AttendanceAlreadyMarkedException("Attendance already marked for today");
         }
-        
-        tokenRepo.invalidateActiveTokens(user, today);
-
-        AttendanceToken attendanceToken = new AttendanceToken();
-        attendanceToken.setToken(token);
-        attendanceToken.setUser(user);
-        attendanceToken.setDate(today);
-        attendanceToken.setExpiresAt(LocalDateTime.now().plusMinutes(5));
-        attendanceToken.setUsed(false);
 
-        tokenRepo.save(attendanceToken);
+        // Replaces the user's previous token, if any
+        qrTokens.register(new QrToken(principal.getUid(), principal.getUsername(), today,
+                TokenDigests.sha256Hex(token), Instant.now().plus(QR_TOKEN_TTL)));
     }
 
     /**
      * Marks attendance using a scanned QR token.
      * First scan checks the user in, second scan checks the user out.
      * Further scans are rejected and the token is invalidated after use.
+     * Both the token and the attendance row are claimed atomically, so of
+     * several simultaneous scans exactly one wins (see {@link AttendanceRecorder}).
      */
     @Override
     @Transactional
     public Attendance markAttendance(String token) {
 
-        AttendanceToken attendanceToken = tokenRepo
-        		.findByTokenAndUsedFalse(token)
-                .orElseThrow(() -> new RuntimeException("Invalid or used QR token"));
+        // Consuming the token first makes a second scan of the same code fail
+        QrToken qrToken = qrTokens
+                .consume(TokenDigests.sha256Hex(token))
+                .orElseThrow(() -> new InvalidQrTokenException("Invalid or used QR token"));
 
-        if (attendanceToken.getExpiresAt().isBefore(LocalDateTime.now())) {
-            throw new RuntimeException("QR token expired");
+        if (qrToken.isExpired(Instant.now())) {
+            throw new InvalidQrTokenException("QR token expired");
         }
 
-        User user = attendanceToken.getUser();
         LocalDate today = LocalDate.now();
 
-        Attendance attendance = attendanceRepo
-                .findByUserAndAttendanceDate(user, today)
-                .orElse(null);
+        if (recorder.record(qrToken.uid(), today, LocalDateTime.now()) == Outcome.ALREADY_COMPLETED) {
+            throw new AttendanceAlreadyMarkedException("Attendance already completed");
+        }
+
+        log.info("Attendance marked for {}", qrToken.username());
+        return attendanceRepo.findByUserUidAndAttendanceDate(qrToken.uid(), today)
+                .orElseThrow(() -> new IllegalStateException("Attendance row missing after scan"));
+    }
+
+    /**
+     * Marks attendance for a kiosk's queue of scans in one transaction.
+     * All tokens are consumed together and the scans are then recorded with
+     * the same conditional statements as a single scan, sent as JDBC
+     * batches. Scans are applied in the order they were taken, so a check-in and a check-out of the same user
+     * in one batch both count. A rejected scan only fails its own entry.
+     */
+    @Override
+    @Transactional
+    public List<ScanResult> markAttendanceBatch(List<ScannedToken> scans) {
+        List<ScanResult> results = markScans(scans, QR_TOKEN_TTL);
+        log.info("Batch of {} scan(s) marked attendance {} time(s)", scans.size(),
+                results.stream().filter(ScanResult::isMarked).count());
+        return results;
+    }
+
+    /**
+     * Applies a scanner's offline backlog and is safe to send again. Every
+     * scan carries a key generated on the device; a scan whose key was
+     * already processed gets its original result back, flagged as replayed,
+     * without its token or the attendance being touched. New scans are
+     * marked as in {@link #markAttendanceBatch}, except that a scan keeps the
+     * time the device took it, and its token is checked against that time,
+     * for up to {@code attendance.sync.max-backlog-minutes}. Results are kept
+     * in the {@link ScanIdempotencyStore} once the transaction commits.
+     */
+    @Override
+    @Transactional
+    public List<ScanResult> syncScans(String deviceId, List<ScannedToken> scans) {
+
+        if (deviceId == null || deviceId.isBlank() || deviceId.length() > MAX_SYNC_ID_LENGTH) {
+            throw new IllegalArgumentException("A device id of at most " + MAX_SYNC_ID_LENGTH
+                    + " characters is required");
+        }
+
+        ScanResult[] results = new ScanResult[scans.size()];
+        String[] keys = new String[scans.size()];
+        Map<String, Integer> firstByKey = new HashMap<>();
+        List<Integer> fresh = new ArrayList<>();
+        List<String> claimed = new ArrayList<>();
+
+        for (int i = 0; i < scans.size(); i++) {
+            int index = i;
+            String key = scans.get(i) == null ? null : scans.get(i).getIdempotencyKey();
+            if (key == null || key.isBlank() || key.length() > MAX_SYNC_ID_LENGTH) {
+                results[i] = ScanResult.rejected(i, "An idempotency key of at most " + MAX_SYNC_ID_LENGTH
+                        + " characters is required");
+                continue;
+            }
+            keys[i] = deviceId + ':' + key;
+            // A key sent twice in one backlog is answered from its first occurrence below
+            if (firstByKey.putIfAbsent(keys[i], i) != null) {
+                continue;
+            }
+
+            Optional<ScanResult> done = syncedScans.find(keys[i]);
+            if (done.isEmpty() && syncedScans.claim(keys[i])) {
+                // The request that held the claim may have finished in between
+                done = syncedScans.find(keys[i]);
+                if (done.isEmpty()) {
+                    claimed.add(keys[i]);
+                    fresh.add(i);
+                    continue;
+                }
+                syncedScans.release(keys[i]);
+            }
+            results[i] = done
+                    .map(result -> result.replay(index))
+                    .orElseGet(() -> ScanResult.rejected(index, "Scan is already being synced, retry later"));
+        }
+
+        List<ScanResult> marked;
+        try {
+            marked = markScans(fresh.stream().map(scans::get).toList(),
+                    Duration.ofMinutes(maxSyncBacklogMinutes));
+        } catch (RuntimeException e) {
+            claimed.forEach(syncedScans::release);
+            throw e;
+        }
 
-        if (attendance == null) {
-            attendance = new Attendance();
-            attendance.setUser(user);
-            attendance.setAttendanceDate(today);
-            attendance.setCheckInTime(LocalDateTime.now());
-            attendance.setStatus(AttendanceStatus.CHECKED_IN);
-        } else if (attendance.getCheckOutTime() == null) {
-            attendance.setCheckOutTime(LocalDateTime.now());
-            attendance.setStatus(AttendanceStatus.CHECKED_OUT);
-        } else {
-            throw new RuntimeException("Attendance already completed");
+        Map<String, ScanResult> processed = new HashMap<>();
+        for (int j = 0; j < fresh.size(); j++) {
+            int index = fresh.get(j);
+            results[index] = marked.get(j).at(index);
+            processed.put(claimed.get(j), marked.get(j));
+        }
+        for (int i = 0; i < scans.size(); i++) {
+            if (results[i] == null) {
+                results[i] = results[firstByKey.get(keys[i])].replay(i);
+            }
         }
+        rememberAfterCommit(processed);
+
+        log.info("Synced {} scan(s) from device {}: {} new, {} replayed", scans.size(), deviceId,
+                fresh.size(), Arrays.stream(results).filter(ScanResult::isReplayed).count());
+        return List.of(results);
+    }
 
-        attendanceToken.setUsed(true);
-        tokenRepo.save(attendanceToken);
-        
-        log.info("Attendance marked for {}", user.getUsername());   
-        return attendanceRepo.save(attendance); //create or update the attendance record
+    /**
+     * Stores synced results once the surrounding transaction commits, or
+     * releases their keys if it rolls back so the scans can be sent again.
+     */
+    private void rememberAfterCommit(Map<String, ScanResult> processed) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            processed.forEach(syncedScans::complete);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    processed.forEach(syncedScans::complete);
+                } else {
+                    processed.keySet().forEach(syncedScans::release);
+                }
+            }
+        });
+    }
+
+    /**
+     * Consumes the scans' tokens together and records the scans oldest first
+     * with batched statements (see {@link AttendanceRecorder#recordAll}).
+     * Each scan is recorded at, and its token checked against, the time the
+     * device took it, as long as that is at most {@code maxAge} ago.
+     * Results are in the order of {@code scans}.
+     */
+    private List<ScanResult> markScans(List<ScannedToken> scans, Duration maxAge) {
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate today = now.toLocalDate();
+        ScanResult[] results = new ScanResult[scans.size()];
+
+        List<String> hashes = new ArrayList<>(scans.size());
+        for (ScannedToken scan : scans) {
+            String token = scan == null ? null : scan.getToken();
+            hashes.add(token == null || token.isEmpty() ? null : TokenDigests.sha256Hex(token));
+        }
+        Map<String, QrToken> consumed = qrTokens.consumeAll(
+                hashes.stream().filter(hash -> hash != null).collect(Collectors.toSet()));
+
+        record Pending(int index, QrToken token, LocalDateTime at) {
+        }
+        List<Pending> pending = new ArrayList<>();
+        Set<String> taken = new HashSet<>();
+        for (int i = 0; i < scans.size(); i++) {
+            String hash = hashes.get(i);
+            if (hash == null) {
+                results[i] = ScanResult.rejected(i, "QR token is required");
+                continue;
+            }
+            QrToken qrToken = consumed.get(hash);
+            // A token read twice in the same batch only counts once
+            if (qrToken == null || !taken.add(hash)) {
+                results[i] = ScanResult.rejected(i, "Invalid or used QR token");
+                continue;
+            }
+            LocalDateTime at = scanTime(scans.get(i).getScannedAt(), now, maxAge);
+            if (qrToken.isExpired(at.atZone(ZoneId.systemDefault()).toInstant())) {
+                results[i] = ScanResult.rejected(i, "QR token expired");
+                continue;
+            }
+            pending.add(new Pending(i, qrToken, at));
+        }
+        pending.sort(Comparator.comparing(Pending::at));
+
+        List<Outcome> outcomes = recorder.recordAll(today,
+                pending.stream().map(scan -> new Scan(scan.token().uid(), scan.at())).toList());
+        for (int i = 0; i < pending.size(); i++) {
+            Pending scan = pending.get(i);
+            Outcome outcome = outcomes.get(i);
+            if (outcome == Outcome.ALREADY_COMPLETED) {
+                results[scan.index()] = ScanResult.rejected(scan.index(), "Attendance already completed");
+                continue;
+            }
+            AttendanceUiState state = outcome == Outcome.CHECKED_IN
+                    ? AttendanceUiState.CHECKED_IN
+                    : AttendanceUiState.COMPLETED;
+            results[scan.index()] = ScanResult.marked(scan.index(), scan.token().username(),
+                    new AttendanceResponse(today, state));
+        }
+
+        return List.of(results);
+    }
+
+    /**
+     * Time a kiosk scan is taken to have happened: the kiosk's clock, but
+     * never in the future, never before today and never more than
+     * {@code maxAge} ago.
+     */
+    private static LocalDateTime scanTime(LocalDateTime scannedAt, LocalDateTime now, Duration maxAge) {
+        if (scannedAt == null || scannedAt.isAfter(now)) {
+            return now;
+        }
+        LocalDateTime earliest = now.minus(maxAge);
+        if (earliest.toLocalDate().isBefore(now.toLocalDate())) {
+            earliest = now.toLocalDate().atStartOfDay();
+        }
+        return scannedAt.isBefore(earliest) ? earliest : scannedAt;
     }
 
     /**
      * Returns all attendance records of the currently logged-in user.
+     * Unbounded; {@link #getMyAttendanceRecords} pages through the same data.
      */
     @Override
-    public List<Attendance> getMyAttendance() {
+    public List<Attendance> getMyAttendance(PhanTaskPrincipal principal) {
+        return attendanceRepo.findByUserUid(principal.getUid());
+    }
+
+    /**
+     * Returns one page of the logged-in user's attendance in
+     * {@code [startDate, endDate]}, newest first, starting before
+     * {@code before} when given. Pages are cut by date rather than by offset,
+     * so every page costs the same however far back it is.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public AttendanceRecordPage getMyAttendanceRecords(PhanTaskPrincipal principal, LocalDate startDate,
+            LocalDate endDate, LocalDate before, int size) {
 
-        String username = SecurityContextHolder.getContext()
-                .getAuthentication().getName();
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("startDate must not be after endDate");
+        }
+        if (size < 1) {
+            throw new IllegalArgumentException("size must be at least 1");
+        }
 
-        User user = userRepo.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        LocalDate last = before != null && !before.isAfter(endDate) ? before.minusDays(1) : endDate;
+        if (last.isBefore(startDate)) {
+            return new AttendanceRecordPage(List.of(), null);
+        }
 
-        return attendanceRepo.findByUser(user);
+        // One extra row tells whether there is a next page
+        List<AttendanceRecordView> records = attendanceRepo.findRecords(
+                principal.getUid(), startDate, last, PageRequest.ofSize(size + 1));
+
+        if (records.size() <= size) {
+            return new AttendanceRecordPage(records, null);
+        }
+        List<AttendanceRecordView> page = records.subList(0, size);
+        return new AttendanceRecordPage(List.copyOf(page), page.get(size - 1).getDate());
     }
     
     
+    /**
+     * Returns the attendance percentage of the logged-in user over all their
+     * attendance, summed from one rollup row per month. The result is cached
+     * per user until attendance is next marked for them or the day ends
+     * (see {@link AttendancePercentageCache}).
+     */
     @Override
     @Transactional(readOnly = true)
-    public AttendancePercentageResponse getMyAttendancePercentage() {
+    public AttendancePercentageResponse getMyAttendancePercentage(PhanTaskPrincipal principal) {
+        return percentageCache.get(principal.getUid(), LocalDate.now(),
+                () -> loadMyAttendancePercentage(principal));
+    }
 
-        String username = SecurityContextHolder.getContext()
-                .getAuthentication()
-                .getName();
+    private AttendancePercentageResponse loadMyAttendancePercentage(PhanTaskPrincipal principal) {
 
-        User user = userRepo.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        if (readFromRollup) {
+            // Attendance is never recorded ahead of today, so the whole current month can be summed
+            return toPercentage(rollup.totals(principal.getUid(), principal.getUsername(), LocalDate.now()));
+        }
 
-        LocalDate startDate = user.getCreatedAt().toLocalDate(); // or joining date
+        // No lower bound needed: a user cannot have attendance from before they were created
         LocalDate endDate = LocalDate.now();
 
         List<Attendance> records = attendanceRepo
-                .findByUserUidAndAttendanceDateBetween(user.getUid(), startDate, endDate);
+                .findByUserUidAndAttendanceDateLessThanEqual(principal.getUid(), endDate);
 
         if (records.isEmpty()) {
             return new AttendancePercentageResponse(
-                    user.getUid(),
-                    user.getUsername(),
+                    principal.getUid(),
+                    principal.getUsername(),
                     0, 0, 0, 0, 0
             );
         }
@@ -158,63 +433,151 @@ public class AttendanceServiceImpl implements IAttendanceService {
         return calculatePercentage(records);
     }
 
-    
+
     /**
-     * System marked for No-Shows
+     * Returns the logged-in user's attendance for one month, day by day,
+     * from the in-memory attendance index.
      */
-    @Scheduled(cron = "0 5 23 * * ?") // 11:05 PM daily
-    @Transactional
-    public void markAbsentUsers() {
-
-        LocalDate today = LocalDate.now();
+    @Override
+    public AttendanceCalendarResponse getMyCalendar(PhanTaskPrincipal principal, YearMonth month) {
 
-        List<User> users = userRepo.findAllByEnabledTrue();
+        if (month.isAfter(YearMonth.now())) {
+            throw new IllegalArgumentException("Attendance is not available for future months");
+        }
 
-        for (User user : users) {
-            boolean exists = attendanceRepo
-                .existsByUserAndAttendanceDate(user, today);
+        AttendanceYearBits bits = attendanceIndex.year(principal.getUid(), month.getYear());
+        int from = month.atDay(1).getDayOfYear() - 1;
+        int to = from + month.lengthOfMonth();
 
-            if (!exists) {
-                Attendance attendance = new Attendance();
-                attendance.setUser(user);
-                attendance.setAttendanceDate(today);
-                attendance.setStatus(AttendanceStatus.ABSENT);
-                attendanceRepo.save(attendance);
+        List<AttendanceCalendarDay> days = new ArrayList<>();
+        for (int day = from; day < to; day++) {
+            CalendarDayStatus status = bits.get(day);
+            if (status != null) {
+                days.add(new AttendanceCalendarDay(month.atDay(day - from + 1), status));
             }
         }
+
+        long wfh = bits.count(CalendarDayStatus.WFH, from, to);
+        return new AttendanceCalendarResponse(
+                month.getYear(),
+                month.getMonthValue(),
+                bits.count(CalendarDayStatus.PRESENT, from, to) + wfh,
+                wfh,
+                bits.count(CalendarDayStatus.ABSENT, from, to),
+                bits.count(CalendarDayStatus.LEAVE, from, to),
+                days
+        );
+    }
+
+    /**
+     * Returns the logged-in user's current run of attended days.
+     */
+    @Override
+    public AttendanceStreakResponse getMyStreak(PhanTaskPrincipal principal) {
+        return attendanceIndex.streak(principal.getUid(), LocalDate.now());
+    }
+
+    /**
+     * Returns the logged-in user's attendance counts for one year, from the
+     * in-memory attendance index.
+     */
+    @Override
+    public AttendanceYearSummary getMyYearSummary(PhanTaskPrincipal principal, int year) {
+
+        if (year > LocalDate.now().getYear()) {
+            throw new IllegalArgumentException("Attendance is not available for future years");
+        }
+
+        AttendanceYearBits bits = attendanceIndex.year(principal.getUid(), year);
+        long present = bits.count(CalendarDayStatus.PRESENT, 0, AttendanceYearBits.DAYS);
+        long wfh = bits.count(CalendarDayStatus.WFH, 0, AttendanceYearBits.DAYS);
+        long absent = bits.count(CalendarDayStatus.ABSENT, 0, AttendanceYearBits.DAYS);
+        long leave = bits.count(CalendarDayStatus.LEAVE, 0, AttendanceYearBits.DAYS);
+
+        AttendancePercentageResponse percentage = toPercentage(new AttendanceStatusCounts(
+                principal.getUid(),
+                principal.getUsername(),
+                present + wfh + absent + leave,
+                present + wfh,
+                absent,
+                leave
+        ));
+
+        return new AttendanceYearSummary(
+                year,
+                percentage.getTotalDays(),
+                percentage.getPresentDays(),
+                wfh,
+                percentage.getAbsentDays(),
+                percentage.getLeaveDays(),
+                percentage.getAttendancePercentage()
+        );
+    }
+
+    /**
+     * System marked for No-Shows.
+     * Inserts ABSENT rows in independently committed chunks (see {@link AbsenteeMarkingJob}).
+     */
+    @Scheduled(cron = "0 5 23 * * ?") // 11:05 PM daily
+    public void markAbsentUsers() {
+        absenteeJob.markAbsent(LocalDate.now());
+    }
+
+    /**
+     * Recomputes the monthly attendance rollup from the attendance table.
+     * The attendance index and cached percentages are dropped too, since the
+     * rows were presumably changed outside the application.
+     */
+    @Override
+    public int rebuildAttendanceRollup() {
+        int months = rollup.rebuild();
+        attendanceIndex.invalidateAll();
+        percentageCache.invalidateAll();
+        return months;
     }
 
     /**
      * Calculates attendance percentage for users within a given date range.
      * Can be filtered by userId or computed for all users (HR/Admin use).
+     * The counts are aggregated by a single GROUP BY query, so no attendance
+     * entities or users are loaded; whole months are read from the rollup.
      */
     @Override
     @Transactional(readOnly = true)
     public List<AttendancePercentageResponse> getAttendancePercentage(
             LocalDate startDate, LocalDate endDate, Long userId) {
 
-        List<Attendance> attendances;
-
-        if (userId != null) {
-            attendances = attendanceRepo
-                    .findByUserUidAndAttendanceDateBetween(userId, startDate, endDate);
-        } else {
-            attendances = attendanceRepo
-                    .findByAttendanceDateBetween(startDate, endDate);
-        }
+        List<AttendanceStatusCounts> counts = readFromRollup
+                ? rollup.countByUser(startDate, endDate, userId)
+                : attendanceRepo.countByUser(startDate, endDate, userId, PRESENT_STATUSES);
 
-        // Group by user
-        return attendances.stream()
-                .collect(Collectors.groupingBy(a -> a.getUser().getUid()))
-                .values()
+        return counts
                 .stream()
-                .map(this::calculatePercentage)
+                .map(AttendanceServiceImpl::toPercentage)
                 .toList();
     }
     
+    /**
+     * Same report as {@link #getAttendancePercentage}, handed to {@code action}
+     * one user at a time while the rows are read from the rollup, so exports
+     * need constant memory. With the rollup disabled the raw counts are
+     * loaded first.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAttendancePercentage(LocalDate startDate, LocalDate endDate, Long userId,
+            Consumer<AttendancePercentageResponse> action) {
+
+        if (readFromRollup) {
+            rollup.forEachByUser(startDate, endDate, userId, counts -> action.accept(toPercentage(counts)));
+            return;
+        }
+        attendanceRepo.countByUser(startDate, endDate, userId, PRESENT_STATUSES)
+                .forEach(counts -> action.accept(toPercentage(counts)));
+    }
+
     /**
      * Computes attendance percentage from attendance records of a single user.
-     * Excludes leave days from the percentage calculation.
      */
     private AttendancePercentageResponse calculatePercentage(
             List<Attendance> records) {
@@ -233,22 +596,38 @@ public class AttendanceServiceImpl implements IAttendanceService {
                 .filter(a -> a.getStatus() == AttendanceStatus.LEAVE)
                 .count();
 
-        // Usually LEAVE is excluded from denominator
-        long effectiveDays = totalDays - leaveDays;
-
-        double percentage = effectiveDays == 0
-                ? 0
-                : (presentDays * 100.0) / effectiveDays;
-
         Attendance any = records.get(0);
 
-        return new AttendancePercentageResponse(
+        return toPercentage(new AttendanceStatusCounts(
                 any.getUser().getUid(),
                 any.getUser().getUsername(),
                 totalDays,
                 presentDays,
                 absentDays,
-                leaveDays,
+                leaveDays
+        ));
+    }
+
+    /**
+     * Turns per-status counts into a percentage.
+     * Excludes leave days from the percentage calculation.
+     */
+    private static AttendancePercentageResponse toPercentage(AttendanceStatusCounts counts) {
+
+        // Usually LEAVE is excluded from denominator
+        long effectiveDays = counts.getTotalDays() - counts.getLeaveDays();
+
+        double percentage = effectiveDays == 0
+                ? 0
+                : (counts.getPresentDays() * 100.0) / effectiveDays;
+
+        return new AttendancePercentageResponse(
+                counts.getUserId(),
+                counts.getUsername(),
+                counts.getTotalDays(),
+                counts.getPresentDays(),
+                counts.getAbsentDays(),
+                counts.getLeaveDays(),
                 Math.round(percentage * 100.0) / 100.0
         );
     }
@@ -0,0 +1,93 @@
+package com.phantask.attendance.service.impl;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.phantask.attendance.repository.AttendanceTokenRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Deletes attendance tokens that expired more than
+ * {@code attendance.qr-tokens.retention-hours} ago.
+ *
+ * <p>
+ * Every token expires a few minutes after it is issued, whether it was used
+ * or not, so the expiry time alone decides when a row is due. The job pages
+ * through the ids of due rows on the {@code expires_at} index and deletes
+ * each page by primary key in its own short transaction. Only the rows being
+ * deleted are locked, never a range that new or live tokens fall into, so
+ * registrations and scans carry on while it runs.
+ * </p>
+ *
+ * <p>
+ * Metrics: {@code phantask.attendance.qrtokens.purge.duration} (timer) and
+ * {@code phantask.attendance.qrtokens.purged} (rows deleted).
+ * </p>
+ */
+@Component
+@Slf4j
+public class AttendanceTokenPurgeJob {
+
+    private final AttendanceTokenRepository tokenRepo;
+    private final Duration retention;
+    private final int batchSize;
+    private final Timer duration;
+    private final Counter rowsPurged;
+
+    public AttendanceTokenPurgeJob(AttendanceTokenRepository tokenRepo, MeterRegistry meterRegistry,
+            @Value("${attendance.qr-tokens.retention-hours:720}") long retentionHours,
+            @Value("${attendance.qr-tokens.purge-batch-size:500}") int batchSize) {
+        this.tokenRepo = tokenRepo;
+        this.retention = Duration.ofHours(retentionHours);
+        this.batchSize = batchSize;
+        this.duration = Timer.builder("phantask.attendance.qrtokens.purge.duration")
+                .description("Time taken to purge expired attendance tokens")
+                .register(meterRegistry);
+        this.rowsPurged = Counter.builder("phantask.attendance.qrtokens.purged")
+                .description("Expired attendance tokens deleted by the purge job")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Deletes every token past the retention window, one batch at a time.
+     *
+     * @return the number of rows deleted
+     */
+    @Scheduled(fixedDelayString = "${attendance.qr-tokens.purge-interval-ms:3600000}",
+            initialDelayString = "${attendance.qr-tokens.purge-interval-ms:3600000}")
+    public int purgeExpired() {
+        long start = System.nanoTime();
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        PageRequest batch = PageRequest.ofSize(batchSize);
+
+        int deleted = 0;
+        List<Long> ids;
+        do {
+            ids = tokenRepo.findExpiredIds(cutoff, batch);
+            if (!ids.isEmpty()) {
+                tokenRepo.deleteAllByIdInBatch(ids);
+                deleted += ids.size();
+            }
+        } while (ids.size() == batchSize);
+
+        long elapsed = System.nanoTime() - start;
+        duration.record(elapsed, TimeUnit.NANOSECONDS);
+        rowsPurged.increment(deleted);
+        if (deleted > 0) {
+            log.info("Purged {} attendance token(s) expired before {} in {} ms", deleted, cutoff,
+                    TimeUnit.NANOSECONDS.toMillis(elapsed));
+        }
+        return deleted;
+    }
+}
@@ -0,0 +1,90 @@
+package com.phantask.attendance.sync;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.phantask.attendance.dto.ScanResult;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Results of synced scans by idempotency key, so a scanner that resends its
+ * backlog gets the original results back instead of the scans being
+ * recorded again.
+ *
+ * <p>
+ * A key is first claimed by the request that processes it and only gets a
+ * result once that request has committed; a concurrent request with the same
+ * key sees the claim and does not process the scan a second time. At most
+ * {@code attendance.sync.max-keys} results are kept, each for
+ * {@code attendance.sync.ttl-hours}. A scan resent after its result was
+ * dropped is processed again, but its QR token was consumed the first time,
+ * so it is rejected rather than flipping the user's attendance.
+ * </p>
+ *
+ * <p>
+ * Hits, misses and evictions are published as the standard {@code cache.*}
+ * meters with {@code cache=scanIdempotency}. The store is local to one
+ * instance.
+ * </p>
+ */
+@Component
+public class ScanIdempotencyStore {
+
+    private final Cache<String, ScanResult> results;
+    private final Set<String> claimed = ConcurrentHashMap.newKeySet();
+
+    public ScanIdempotencyStore(MeterRegistry meterRegistry,
+            @Value("${attendance.sync.max-keys:100000}") long maxKeys,
+            @Value("${attendance.sync.ttl-hours:48}") long ttlHours) {
+        this.results = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterWrite(Duration.ofHours(ttlHours))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, results, "scanIdempotency");
+        Gauge.builder("phantask.attendance.sync.in-flight", claimed, Set::size)
+                .description("Synced scans being processed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * The result stored for {@code key}, if any.
+     */
+    public Optional<ScanResult> find(String key) {
+        return Optional.ofNullable(results.getIfPresent(key));
+    }
+
+    /**
+     * Claims {@code key} for processing.
+     *
+     * @return false if another request is processing it
+     */
+    public boolean claim(String key) {
+        return claimed.add(key);
+    }
+
+    /**
+     * Stores the result of a claimed key and releases the claim.
+     */
+    public void complete(String key, ScanResult result) {
+        results.put(key, result);
+        claimed.remove(key);
+    }
+
+    /**
+     * Releases a claim without a result, e.g. after a rollback.
+     */
+    public void release(String key) {
+        claimed.remove(key);
+    }
+}
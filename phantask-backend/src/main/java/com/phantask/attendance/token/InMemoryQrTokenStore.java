@@ -0,0 +1,164 @@
+package com.phantask.attendance.token;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps QR tokens in process, so registering and scanning a token touches no
+ * database at all.
+ *
+ * <p>
+ * Tokens are held in a {@link ConcurrentHashMap} keyed by digest, next to a
+ * uid → digest map that enforces one active token per user. Consuming is a
+ * single {@code remove}, so only one of several concurrent scans of the same
+ * code gets the token.
+ * </p>
+ *
+ * <p>
+ * Expiry uses a hashed timing wheel: every token is queued in the slot of the
+ * tick in which it expires, and {@link #expire()} only looks at the slots
+ * whose tick has passed, instead of scanning all tokens. A token more than one
+ * revolution away is simply queued again when its slot comes round.
+ * </p>
+ *
+ * <p>
+ * An expired token is kept for {@code attendance.sync.max-backlog-minutes}
+ * more before it is dropped, so a gate scanner that was offline can still
+ * sync the scans it took while the token was valid. Callers check
+ * {@link QrToken#isExpired} against the time of the scan.
+ * </p>
+ *
+ * <p>
+ * Tokens are lost on restart (users just show a fresh QR code) and are not
+ * shared between instances; use {@code attendance.qr-tokens.store=jpa} when
+ * running more than one. Registrations and scans are copied to
+ * {@code attendance_tokens} in the background by {@link QrTokenAuditWriter}.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "attendance.qr-tokens.store", havingValue = "memory", matchIfMissing = true)
+@Slf4j
+public class InMemoryQrTokenStore implements QrTokenStore {
+
+    private static final int WHEEL_SIZE = 512;
+
+    private final Map<String, QrToken> byHash = new ConcurrentHashMap<>();
+    private final Map<Long, String> activeByUser = new ConcurrentHashMap<>();
+    private final AtomicReferenceArray<ConcurrentLinkedQueue<QrToken>> wheel;
+    private final int wheelMask;
+    private final long tickMillis;
+    private final long retainExpiredMillis;
+    private final LongSupplier clock;
+    private final QrTokenAuditWriter audit;
+
+    // Only read and written by expire(), which is synchronized
+    private long lastTick;
+
+    @Autowired
+    public InMemoryQrTokenStore(QrTokenAuditWriter audit, MeterRegistry meterRegistry,
+            @Value("${attendance.qr-tokens.tick-ms:1000}") long tickMillis,
+            @Value("${attendance.sync.max-backlog-minutes:480}") long maxBacklogMinutes) {
+        this(audit, tickMillis, WHEEL_SIZE, TimeUnit.MINUTES.toMillis(maxBacklogMinutes), System::currentTimeMillis);
+        Gauge.builder("phantask.attendance.qrtokens.active", byHash, Map::size)
+                .description("QR tokens held, including expired ones kept for offline sync")
+                .register(meterRegistry);
+    }
+
+    InMemoryQrTokenStore(QrTokenAuditWriter audit, long tickMillis, int wheelSize, long retainExpiredMillis,
+            LongSupplier clock) {
+        int size = Integer.highestOneBit(Math.max(2, wheelSize - 1)) << 1;
+        this.wheel = new AtomicReferenceArray<>(size);
+        for (int i = 0; i < size; i++) {
+            wheel.set(i, new ConcurrentLinkedQueue<>());
+        }
+        this.wheelMask = size - 1;
+        this.tickMillis = tickMillis;
+        this.retainExpiredMillis = retainExpiredMillis;
+        this.clock = clock;
+        this.audit = audit;
+        this.lastTick = Math.floorDiv(clock.getAsLong(), tickMillis);
+    }
+
+    @Override
+    public void register(QrToken token) {
+        String hash = token.tokenHash();
+        QrToken existing = byHash.put(hash, token);
+        String previous = activeByUser.put(token.uid(), hash);
+        if (previous != null && !previous.equals(hash)) {
+            byHash.remove(previous);
+        }
+        schedule(token);
+        if (existing == null) {
+            audit.registered(token);
+        }
+    }
+
+    @Override
+    public Optional<QrToken> consume(String tokenHash) {
+        QrToken token = byHash.remove(tokenHash);
+        if (token == null) {
+            return Optional.empty();
+        }
+        activeByUser.remove(token.uid(), tokenHash);
+        audit.consumed(token);
+        return Optional.of(token);
+    }
+
+    /**
+     * Advances the wheel to the current tick and drops every token whose
+     * retention after expiry has passed in the meantime.
+     */
+    @Scheduled(fixedDelayString = "${attendance.qr-tokens.tick-ms:1000}")
+    public synchronized void expire() {
+        long now = clock.getAsLong();
+        long currentTick = Math.floorDiv(now, tickMillis);
+        // After a long pause a single revolution still covers every slot
+        long fromTick = Math.max(lastTick + 1, currentTick - wheelMask);
+
+        int expired = 0;
+        for (long tick = fromTick; tick <= currentTick; tick++) {
+            ConcurrentLinkedQueue<QrToken> due = wheel.getAndSet((int) tick & wheelMask, new ConcurrentLinkedQueue<>());
+            for (QrToken token : due) {
+                if (dropAt(token) > now) {
+                    schedule(token);
+                } else if (byHash.remove(token.tokenHash(), token)) {
+                    activeByUser.remove(token.uid(), token.tokenHash());
+                    expired++;
+                }
+            }
+        }
+        lastTick = currentTick;
+
+        if (expired > 0) {
+            log.debug("Expired {} QR token(s)", expired);
+        }
+    }
+
+    int size() {
+        return byHash.size();
+    }
+
+    private long dropAt(QrToken token) {
+        return token.expiresAt().toEpochMilli() + retainExpiredMillis;
+    }
+
+    private void schedule(QrToken token) {
+        long deadlineTick = Math.floorDiv(dropAt(token) + tickMillis - 1, tickMillis);
+        wheel.get((int) deadlineTick & wheelMask).add(token);
+    }
+}
@@ -0,0 +1,76 @@
+package com.phantask.attendance.token;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.phantask.attendance.entity.AttendanceToken;
+import com.phantask.attendance.repository.AttendanceTokenRepository;
+import com.phantask.authentication.entity.User;
+import com.phantask.authentication.repository.UserRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Keeps QR tokens in the {@code attendance_tokens} table. Slower than the
+ * in-memory store, but shared between instances when the application is
+ * scaled out.
+ *
+ * <p>
+ * A token is consumed with a conditional {@code UPDATE ... WHERE used = false};
+ * only the scan whose update changed the row gets the token. A batch of
+ * tokens first locks the unused ones with {@code SELECT ... FOR UPDATE} and
+ * marks exactly those used in one {@code UPDATE}: a set-wide update alone
+ * would not tell which of the tokens this call was the one to consume.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "attendance.qr-tokens.store", havingValue = "jpa")
+@RequiredArgsConstructor
+public class JpaQrTokenStore implements QrTokenStore {
+
+    private final AttendanceTokenRepository tokenRepo;
+    private final UserRepository userRepo;
+
+    @Override
+    @Transactional
+    public void register(QrToken token) {
+        User user = userRepo.getReferenceById(token.uid());
+        tokenRepo.invalidateActiveTokens(user, token.date());
+        // The same token may be registered again; that resets its row
+        tokenRepo.upsert(token.tokenHash(), token.uid(), token.date(), token.localExpiresAt(), false);
+    }
+
+    @Override
+    @Transactional
+    public Optional<QrToken> consume(String tokenHash) {
+        if (tokenRepo.consume(tokenHash) == 0) {
+            return Optional.empty();
+        }
+        return tokenRepo.findWithUser(List.of(tokenHash)).stream().findFirst().map(QrToken::of);
+    }
+
+    @Override
+    @Transactional
+    public Map<String, QrToken> consumeAll(Collection<String> tokenHashes) {
+        Map<String, QrToken> consumed = new LinkedHashMap<>();
+        if (tokenHashes.isEmpty()) {
+            return consumed;
+        }
+        // Lock the unused tokens, use them all up in one UPDATE, then load their users in one query
+        List<String> won = tokenRepo.lockUnused(tokenHashes).stream().map(AttendanceToken::getTokenHash).toList();
+        if (!won.isEmpty()) {
+            tokenRepo.markUsed(won);
+            for (AttendanceToken entity : tokenRepo.findWithUser(won)) {
+                consumed.put(entity.getTokenHash(), QrToken.of(entity));
+            }
+        }
+        return consumed;
+    }
+}
@@ -0,0 +1,32 @@
+package com.phantask.attendance.token;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import com.phantask.attendance.entity.AttendanceToken;
+
+/**
+ * A registered attendance QR token, identified by the SHA-256 digest of the
+ * raw token.
+ */
+public record QrToken(long uid, String username, LocalDate date, String tokenHash, Instant expiresAt) {
+
+    public boolean isExpired(Instant now) {
+        return expiresAt.isBefore(now);
+    }
+
+    /**
+     * {@link #expiresAt} in the server's time zone, as stored in
+     * {@code attendance_tokens.expires_at}.
+     */
+    public LocalDateTime localExpiresAt() {
+        return LocalDateTime.ofInstant(expiresAt, ZoneId.systemDefault());
+    }
+
+    public static QrToken of(AttendanceToken entity) {
+        return new QrToken(entity.getUser().getUid(), entity.getUser().getUsername(), entity.getDate(),
+                entity.getTokenHash(), entity.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
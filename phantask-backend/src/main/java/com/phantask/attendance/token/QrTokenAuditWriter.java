@@ -0,0 +1,125 @@
+package com.phantask.attendance.token;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.phantask.attendance.repository.AttendanceTokenRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Copies the registrations and scans of the {@link InMemoryQrTokenStore} to
+ * the {@code attendance_tokens} table for audit, off the request path.
+ *
+ * <p>
+ * Records are queued in a bounded queue and written in batches on a fixed
+ * delay, one transaction per batch. The audit trail is best effort: when the
+ * queue is full a record is dropped and counted in
+ * {@code phantask.attendance.qrtokens.audit.dropped}, and a batch that fails
+ * to write is logged and skipped. Nothing reads the table back, so attendance
+ * is never affected. Disabled with {@code attendance.qr-tokens.audit.enabled=false}.
+ * </p>
+ */
+@Component
+@Slf4j
+public class QrTokenAuditWriter {
+
+    private record Entry(QrToken token, boolean consumed) {
+    }
+
+    private final AttendanceTokenRepository tokenRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final BlockingQueue<Entry> queue;
+    private final Counter dropped;
+
+    public QrTokenAuditWriter(AttendanceTokenRepository tokenRepo, TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+            @Value("${attendance.qr-tokens.audit.enabled:true}") boolean enabled,
+            @Value("${attendance.qr-tokens.audit.queue-capacity:10000}") int queueCapacity,
+            @Value("${attendance.qr-tokens.audit.batch-size:500}") int batchSize) {
+        this.tokenRepo = tokenRepo;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.dropped = Counter.builder("phantask.attendance.qrtokens.audit.dropped")
+                .description("QR token audit records dropped because the queue was full")
+                .register(meterRegistry);
+    }
+
+    public void registered(QrToken token) {
+        offer(new Entry(token, false));
+    }
+
+    public void consumed(QrToken token) {
+        offer(new Entry(token, true));
+    }
+
+    private void offer(Entry entry) {
+        if (enabled && !queue.offer(entry)) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Writes everything queued so far, in batches.
+     */
+    @Scheduled(fixedDelayString = "${attendance.qr-tokens.audit.flush-interval-ms:1000}")
+    public void flush() {
+        List<Entry> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(batch));
+            } catch (DataAccessException e) {
+                log.warn("Could not write {} QR token audit record(s): {}", batch.size(), e.getMessage());
+            }
+            batch.clear();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void write(List<Entry> batch) {
+        Map<String, Entry> registered = new LinkedHashMap<>();
+        Set<String> consumed = new LinkedHashSet<>();
+        for (Entry entry : batch) {
+            String hash = entry.token().tokenHash();
+            if (!entry.consumed() || registered.containsKey(hash)) {
+                // A registration resets the row, also after an earlier scan; a scan
+                // of a token registered in this batch writes it as used
+                registered.put(hash, entry);
+                consumed.remove(hash);
+            } else {
+                consumed.add(hash);
+            }
+        }
+
+        // Upserts, since a token registered again in a later batch already has a row
+        for (Entry entry : registered.values()) {
+            QrToken token = entry.token();
+            tokenRepo.upsert(token.tokenHash(), token.uid(), token.date(), token.localExpiresAt(), entry.consumed());
+        }
+        if (!consumed.isEmpty()) {
+            tokenRepo.markUsed(consumed);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.phantask.attendance.token;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Holds the attendance QR tokens that can still be scanned.
+ *
+ * <p>
+ * The implementation is chosen with {@code attendance.qr-tokens.store}:
+ * {@code memory} (default, {@link InMemoryQrTokenStore}) or {@code jpa}
+ * ({@link JpaQrTokenStore}).
+ * </p>
+ */
+public interface QrTokenStore {
+
+    /**
+     * Registers {@code token} as the user's only active token; any token the
+     * user registered before can no longer be consumed.
+     */
+    void register(QrToken token);
+
+    /**
+     * Atomically takes the token with this digest, so that concurrent scans
+     * of the same QR code succeed at most once.
+     *
+     * @return the token, or empty if it is unknown, replaced or already used
+     */
+    Optional<QrToken> consume(String tokenHash);
+
+    /**
+     * Consumes several tokens at once, with the same guarantee as
+     * {@link #consume(String)} for each of them.
+     *
+     * @return the tokens that were taken, by digest
+     */
+    default Map<String, QrToken> consumeAll(Collection<String> tokenHashes) {
+        Map<String, QrToken> consumed = new HashMap<>();
+        for (String tokenHash : tokenHashes) {
+            consume(tokenHash).ifPresent(token -> consumed.put(tokenHash, token));
+        }
+        return consumed;
+    }
+}
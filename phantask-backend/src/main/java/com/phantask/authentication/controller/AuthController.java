@@ -12,11 +12,13 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.phantask.authentication.dto.LoginRequest;
+import com.phantask.authentication.security.LoginThrottle;
 import com.phantask.authentication.service.api.IAuthService;
 import com.phantask.authentication.service.impl.AuthService;
 
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 
@@ -27,8 +29,8 @@ import lombok.RequiredArgsConstructor;
  * Exposes endpoints under {@code /api/auth} for:
  * <ul>
  *   <li>login: authenticates a user and returns authentication data (e.g. token and user info)</li>
- *   <li>logout: invalidates or handles logout for the provided authorization header</li>
- *   <li>refresh-token: refreshes an existing token and returns a new one</li>
+ *   <li>logout: revokes the login session of the refresh token in the authorization header</li>
+ *   <li>refresh-token: exchanges a refresh token for a new access token and a new refresh token</li>
  * </ul>
  * </p>
  *
@@ -41,6 +43,7 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public class AuthController {
 	private final IAuthService authService;
+	private final LoginThrottle loginThrottle;
 
 	/**
 	 * Authenticate a user using the provided credentials.
@@ -52,11 +55,19 @@ public class AuthController {
 	 * user info).
 	 * </p>
 	 *
+	 * <p>
+	 * Attempts are rate limited per client IP and per username before the
+	 * password is checked; excess attempts get {@code 429} with
+	 * {@code Retry-After}.
+	 * </p>
+	 *
 	 * @param req the login request payload (validated)
 	 * @return a ResponseEntity containing a map with authentication information
 	 */
 	@PostMapping("/login")
-	public ResponseEntity<Map<String, Object>> login(@RequestBody @Valid LoginRequest req) {
+	public ResponseEntity<Map<String, Object>> login(@RequestBody @Valid LoginRequest req,
+			HttpServletRequest request) {
+		loginThrottle.check(LoginThrottle.Endpoint.LOGIN, request, req.getUsername());
 		Map<String, Object> response = authService.login(req);
 		return ResponseEntity.ok(response);
 	}
@@ -69,7 +80,9 @@ public class AuthController {
 	 * 1. Verify that the Authorization header exists and starts with "Bearer ".
 	 * 2. Extract the refresh token from the header.
 	 * 3. Pass the token to the service to validate it and generate a new access token.
-	 * 4. Return the new access token to the client.
+	 * 4. Return the new access token and the next refresh token to the client.
+	 *    The presented refresh token is consumed and cannot be used again;
+	 *    presenting it a second time ends the whole session.
 	 *
 	 * If the refresh token is expired or invalid,
 	 * the user must log in again.
@@ -81,14 +94,37 @@ public class AuthController {
 		}
 		try {
 			String refreshToken = authHeader.substring(7);
-			String newToken = authService.refreshToken(refreshToken);
-			return ResponseEntity.ok(Map.of("token", newToken));
+			return ResponseEntity.ok(authService.refreshToken(refreshToken));
 		} catch (ExpiredJwtException e) {
 			return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("message", "Refresh token has expired"));
 		} catch (JwtException ex) {
 			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("message", "Invalid token"));
 		}
 	}
+
+	/*
+	 * Handles logout.
+	 *
+	 * Expects the refresh token in the Authorization header and revokes the
+	 * login session it belongs to, so neither it nor any refresh token rotated
+	 * from it can be used again. Access tokens already issued stay valid until
+	 * they expire.
+	 */
+	@PostMapping("/logout")
+	public ResponseEntity<Map<String, String>> logout(@RequestHeader("Authorization") String authHeader) {
+		if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+			return ResponseEntity.badRequest().body(Map.of("error", "Invalid Authorization header"));
+		}
+		try {
+			authService.logout(authHeader.substring(7));
+			return ResponseEntity.ok(Map.of("message", "Logged out"));
+		} catch (ExpiredJwtException e) {
+			// Nothing left to revoke
+			return ResponseEntity.ok(Map.of("message", "Logged out"));
+		} catch (JwtException ex) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("message", "Invalid token"));
+		}
+	}
 	
 	/**
      * Resolve the identity associated with the supplied {@code Authorization}
@@ -25,8 +25,11 @@ import com.phantask.authentication.dto.UpdateProfileRequest;
 import com.phantask.authentication.dto.UserProfileResponse;
 import com.phantask.authentication.dto.UserResponse;
 import com.phantask.authentication.entity.UserProfile;
+import com.phantask.authentication.security.LoginThrottle;
 import com.phantask.authentication.service.api.IUserService;
+import com.phantask.exception.PasswordHashingBusyException;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -60,6 +63,7 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 public class UserController {
 	private final IUserService userService;
+	private final LoginThrottle loginThrottle;
 	
 	/**
 	 * Create a new user account with a temporary password.
@@ -87,6 +91,8 @@ public class UserController {
 
 	    } catch (IllegalArgumentException ex) {
 	        return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+	    } catch (PasswordHashingBusyException ex) {
+	        throw ex; // 503 + Retry-After from GlobalExceptionHandler
 	    } catch (RuntimeException ex) {
 	        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
 	                .body(Map.of("error", ex.getMessage()));
@@ -164,11 +170,14 @@ public class UserController {
      * <p>
      * This endpoint is intentionally accessible without authentication
      * because the user is required to change a temporary password
-     * before completing login.
+     * before completing login. Attempts are rate limited per client IP and
+     * per username.
      * </p>
      */
 	@PostMapping("/change-password-first-login")
-	public ResponseEntity<String> changePasswordFirstLogin(@RequestBody PasswordChangeRequest req) {
+	public ResponseEntity<String> changePasswordFirstLogin(@RequestBody PasswordChangeRequest req,
+			HttpServletRequest request) {
+		loginThrottle.check(LoginThrottle.Endpoint.FIRST_LOGIN, request, req.getUsername());
 		return ResponseEntity.ok(userService.changePasswordFirstLogin(req));
 	}
 
@@ -0,0 +1,60 @@
+package com.phantask.authentication.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A refresh token that has been issued to a client.
+ *
+ * <p>
+ * Only the SHA-256 of the token's id ("jti" claim) is stored, never the token
+ * itself. Each refresh consumes the presented token ({@code used = true}) and
+ * issues the next one in the same {@link RefreshTokenFamily}; presenting a
+ * token that was already used means it was copied, and the whole family is
+ * revoked.
+ * </p>
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "idx_refresh_tokens_expires_at", columnList = "expires_at")
+})
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Hex SHA-256 of the token id; unique, so lookups are a single index probe.
+     */
+    @Column(name = "token_hash", nullable = false, unique = true, columnDefinition = "CHAR(64)")
+    private String tokenHash;
+
+    @Column(name = "family_id", nullable = false, length = 36)
+    private String familyId;
+
+    @Column(nullable = false)
+    private Long uid;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(nullable = false)
+    private boolean used = false;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
@@ -0,0 +1,53 @@
+package com.phantask.authentication.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One login session: the chain of refresh tokens produced by rotating the
+ * token issued at login.
+ *
+ * <p>
+ * Revoking a session (logout, reuse of a rotated token, password change)
+ * sets {@code revoked} on this single row; every token of the family is then
+ * rejected without touching the tokens themselves.
+ * </p>
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "refresh_token_families", indexes = {
+        @Index(name = "idx_refresh_token_families_uid", columnList = "uid"),
+        @Index(name = "idx_refresh_token_families_expires_at", columnList = "expires_at")
+})
+public class RefreshTokenFamily {
+
+    @Id
+    @Column(name = "family_id", length = 36)
+    private String familyId;
+
+    @Column(nullable = false)
+    private Long uid;
+
+    @Column(nullable = false)
+    private boolean revoked = false;
+
+    /**
+     * End of the session, the expiry of the token issued at login; no token of
+     * the family outlives it, and the family can be purged after it.
+     */
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
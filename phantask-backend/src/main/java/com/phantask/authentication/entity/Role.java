@@ -57,6 +57,19 @@ public class Role {
      */
     @Column(nullable = false, unique = true)
     private String roleName;
+
+    /**
+     * Stable position of this role in the role bitmask ("rm" claim) carried by
+     * access tokens. Assigned once when the role is created and never reused, so
+     * tokens issued at any time decode to the same set of roles.
+     *
+     * <p>
+     * Only indexes 0-62 fit in the mask; roles without an index are carried by
+     * name in the legacy "roles" claim instead.
+     * </p>
+     */
+    @Column(name = "bit_index", unique = true)
+    private Integer bitIndex;
     
     @ManyToMany(mappedBy = "roles")
     @JsonIgnore
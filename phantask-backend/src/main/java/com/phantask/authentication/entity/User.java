@@ -93,6 +93,12 @@ public class User implements UserDetails {
 
 	@Column(name = "deactivated_at")
 	private LocalDateTime deactivatedAt;
+
+	/*Incremented whenever something happens that must invalidate tokens already issued to this user
+	 * (password change/reset, deactivation, reactivation). Access tokens carry the version they were
+	 * issued with, so in stateless mode a stale token is rejected without loading the user.*/
+	@Column(name = "token_version", nullable = false, columnDefinition = "INT DEFAULT 0")
+	private int tokenVersion = 0;
 	
 	@PrePersist
 	protected void onCreate() {
@@ -139,6 +145,10 @@ public class User implements UserDetails {
 		role.getUsers().remove(this);
 	}
 
+	public void bumpTokenVersion() {
+		this.tokenVersion++;
+	}
+
 	@Override
 	public Collection<? extends GrantedAuthority> getAuthorities() {
 		return roles.stream().map(role -> new SimpleGrantedAuthority(role.getRoleName())).collect(Collectors.toSet());
@@ -0,0 +1,19 @@
+package com.phantask.authentication.event;
+
+/**
+ * Published by the user service whenever a change affects how a user's
+ * existing tokens must be treated (password change or reset, deactivation,
+ * reactivation).
+ *
+ * <p>
+ * Listeners react after the surrounding transaction commits, so in-memory
+ * security state is never updated for a change that was rolled back.
+ * </p>
+ *
+ * @param uid          the affected user's id
+ * @param username     the affected user's username
+ * @param tokenVersion the user's token version after the change
+ * @param enabled      whether the account is enabled after the change
+ */
+public record UserSecurityChangedEvent(Long uid, String username, int tokenVersion, boolean enabled) {
+}
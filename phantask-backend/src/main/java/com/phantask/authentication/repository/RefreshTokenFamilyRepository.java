@@ -0,0 +1,34 @@
+package com.phantask.authentication.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.phantask.authentication.entity.RefreshTokenFamily;
+
+/**
+ * Repository for {@link RefreshTokenFamily} rows (one per login session).
+ */
+@Repository
+public interface RefreshTokenFamilyRepository extends JpaRepository<RefreshTokenFamily, String> {
+
+    @Modifying
+    @Query("UPDATE RefreshTokenFamily f SET f.revoked = true WHERE f.familyId = :familyId")
+    int revoke(String familyId);
+
+    @Modifying
+    @Query("UPDATE RefreshTokenFamily f SET f.revoked = true WHERE f.uid = :uid AND f.revoked = false")
+    int revokeAllForUser(Long uid);
+
+    /**
+     * Ids of families that expired before {@code now}, at most one
+     * page of them.
+     */
+    @Query("SELECT f.familyId FROM RefreshTokenFamily f WHERE f.expiresAt < :now ORDER BY f.expiresAt")
+    List<String> findExpiredIds(LocalDateTime now, Pageable page);
+}
@@ -0,0 +1,38 @@
+package com.phantask.authentication.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import com.phantask.authentication.entity.RefreshToken;
+
+/**
+ * Repository for issued {@link RefreshToken}s. All lookups go through the
+ * unique {@code token_hash} index or the {@code expires_at} index.
+ */
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    /**
+     * Marks the token as used if nobody has used it yet.
+     *
+     * @return 1 if this call consumed the token, 0 if it was already used
+     */
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.used = true WHERE t.tokenHash = :tokenHash AND t.used = false")
+    int markUsed(String tokenHash);
+
+    /**
+     * Ids of tokens that expired before {@code now}, at most one page of them.
+     */
+    @Query("SELECT t.id FROM RefreshToken t WHERE t.expiresAt < :now ORDER BY t.expiresAt")
+    List<Long> findExpiredIds(LocalDateTime now, Pageable page);
+}
@@ -1,8 +1,10 @@
 package com.phantask.authentication.repository;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.phantask.authentication.entity.Role;
@@ -31,4 +33,17 @@ public interface RoleRepository extends JpaRepository<Role, Long> {
      * @return true if the role exists, false otherwise
      */
     boolean existsByRoleName(String roleName);
+
+    /**
+     * Highest role bit index assigned so far.
+     *
+     * @return the highest bit index, or empty if no role has one yet
+     */
+    @Query("SELECT MAX(r.bitIndex) FROM Role r")
+    Optional<Integer> findMaxBitIndex();
+
+    /**
+     * Roles created before bit indexes existed, oldest first.
+     */
+    List<Role> findByBitIndexIsNullOrderByRidAsc();
 }
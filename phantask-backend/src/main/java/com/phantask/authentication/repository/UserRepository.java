@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import com.phantask.authentication.entity.User;
 
@@ -36,6 +37,18 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     Optional<User> findByUsername(String username);
 
+    /**
+     * Id of the user with the given username, without loading the entity.
+     */
+    @Query("SELECT u.uid FROM User u WHERE u.username = :username")
+    Optional<Long> findUidByUsername(String username);
+
+    /**
+     * Email of the user with the given id, without loading the entity.
+     */
+    @Query("SELECT u.email FROM User u WHERE u.uid = :uid")
+    Optional<String> findEmailByUid(Long uid);
+
     /**
      * Check whether a user with the given username exists.
      *
@@ -55,6 +68,13 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     List<User> findAllByEnabledTrue();
 
+    /**
+     * Count active users without loading them.
+     *
+     * @return the number of users with {@code enabled = true}
+     */
+    long countByEnabledTrue();
+
     /**
      * Retrieve all inactive users.
      *
@@ -94,4 +114,26 @@ public interface UserRepository extends JpaRepository<User, Long> {
      *         or empty if not found or already active
      */
     Optional<User> findByUidAndEnabledFalse(Long uid);
+
+    /**
+     * Load the token version and enabled flag of every user.
+     *
+     * <p>
+     * Used to refresh the in-memory token version registry; only three scalar
+     * columns are read, no roles or profiles.
+     * </p>
+     *
+     * @return the token state of all users
+     */
+    @Query("SELECT u.uid AS uid, u.tokenVersion AS tokenVersion, u.enabled AS enabled FROM User u")
+    List<UserTokenState> findAllTokenStates();
+
+    /**
+     * Load the token version and enabled flag of a single user.
+     *
+     * @param uid the unique user ID
+     * @return the user's token state, or empty if the user does not exist
+     */
+    @Query("SELECT u.uid AS uid, u.tokenVersion AS tokenVersion, u.enabled AS enabled FROM User u WHERE u.uid = :uid")
+    Optional<UserTokenState> findTokenStateByUid(Long uid);
 }
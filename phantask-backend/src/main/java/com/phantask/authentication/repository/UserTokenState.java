@@ -0,0 +1,15 @@
+package com.phantask.authentication.repository;
+
+/**
+ * Projection of the columns needed to decide whether an access token is still
+ * acceptable for a user, without loading the full {@code User} entity or its
+ * roles.
+ */
+public interface UserTokenState {
+
+	Long getUid();
+
+	int getTokenVersion();
+
+	boolean isEnabled();
+}
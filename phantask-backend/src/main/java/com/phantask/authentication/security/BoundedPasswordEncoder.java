@@ -0,0 +1,158 @@
+package com.phantask.authentication.security;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.phantask.exception.PasswordHashingBusyException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * BCrypt password encoder that runs every hash and verification on a small,
+ * dedicated worker pool instead of on the calling servlet thread.
+ *
+ * <p>
+ * BCrypt is deliberately slow and CPU bound. During a login storm, running it
+ * on Tomcat threads lets a burst of logins occupy every request thread and
+ * starve all other endpoints. Here the number of concurrent hashes is capped
+ * at the pool size and at most {@code queueCapacity} requests may wait for a
+ * worker. Anything beyond that is rejected immediately with
+ * {@link PasswordHashingBusyException} (503 + Retry-After), and so is a task
+ * that could not be completed within {@code maxWaitMillis}.
+ * </p>
+ *
+ * <p>
+ * Metrics (Micrometer):
+ * <ul>
+ *   <li>{@code phantask.password.queue.wait} - time a task waited for a worker</li>
+ *   <li>{@code phantask.password.hash} - time spent in BCrypt</li>
+ *   <li>{@code phantask.password.queue.depth} - tasks currently waiting</li>
+ *   <li>{@code phantask.password.rejected} - tasks turned away</li>
+ * </ul>
+ * Timers are tagged with {@code op=encode|matches}.
+ * </p>
+ */
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+	private static final long RETRY_AFTER_SECONDS = 1;
+
+	private final PasswordEncoder delegate = new BCryptPasswordEncoder();
+	private final ThreadPoolExecutor executor;
+	private final long maxWaitMillis;
+
+	private final Timer encodeWait;
+	private final Timer matchesWait;
+	private final Timer encodeHash;
+	private final Timer matchesHash;
+	private final Counter rejected;
+
+	public BoundedPasswordEncoder(int threads, int queueCapacity, long maxWaitMillis, MeterRegistry meterRegistry) {
+		AtomicInteger threadNumber = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+					Thread thread = new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}, new ThreadPoolExecutor.AbortPolicy());
+		this.maxWaitMillis = maxWaitMillis;
+
+		this.encodeWait = waitTimer(meterRegistry, "encode");
+		this.matchesWait = waitTimer(meterRegistry, "matches");
+		this.encodeHash = hashTimer(meterRegistry, "encode");
+		this.matchesHash = hashTimer(meterRegistry, "matches");
+		this.rejected = Counter.builder("phantask.password.rejected")
+				.description("Password hashing tasks rejected because the pool was saturated")
+				.register(meterRegistry);
+		Gauge.builder("phantask.password.queue.depth", executor, e -> e.getQueue().size())
+				.description("Password hashing tasks waiting for a worker")
+				.register(meterRegistry);
+
+		log.info("Password hashing pool started with {} threads and queue capacity {}", threads, queueCapacity);
+	}
+
+	private static Timer waitTimer(MeterRegistry registry, String op) {
+		return Timer.builder("phantask.password.queue.wait")
+				.description("Time a password hashing task waited for a worker")
+				.tag("op", op)
+				.register(registry);
+	}
+
+	private static Timer hashTimer(MeterRegistry registry, String op) {
+		return Timer.builder("phantask.password.hash")
+				.description("Time spent hashing or verifying a password")
+				.tag("op", op)
+				.register(registry);
+	}
+
+	@Override
+	public String encode(CharSequence rawPassword) {
+		return run(() -> delegate.encode(rawPassword), encodeWait, encodeHash);
+	}
+
+	@Override
+	public boolean matches(CharSequence rawPassword, String encodedPassword) {
+		return run(() -> delegate.matches(rawPassword, encodedPassword), matchesWait, matchesHash);
+	}
+
+	@Override
+	public boolean upgradeEncoding(String encodedPassword) {
+		return delegate.upgradeEncoding(encodedPassword);
+	}
+
+	private <T> T run(Callable<T> task, Timer waitTimer, Timer hashTimer) {
+		long submittedAt = System.nanoTime();
+		Future<T> future;
+		try {
+			future = executor.submit(() -> {
+				waitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+				return hashTimer.recordCallable(task);
+			});
+		} catch (RejectedExecutionException e) {
+			rejected.increment();
+			throw busy();
+		}
+
+		try {
+			return future.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			future.cancel(true);
+			rejected.increment();
+			throw busy();
+		} catch (InterruptedException e) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException runtime) {
+				throw runtime;
+			}
+			throw new IllegalStateException("Password hashing failed", e.getCause());
+		}
+	}
+
+	private static PasswordHashingBusyException busy() {
+		return new PasswordHashingBusyException("Server is busy, please try again shortly", RETRY_AFTER_SECONDS);
+	}
+
+	/**
+	 * Stops the worker threads; called by Spring when the context closes.
+	 */
+	public void shutdown() {
+		executor.shutdown();
+	}
+}
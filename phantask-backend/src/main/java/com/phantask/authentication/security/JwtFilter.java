@@ -1,17 +1,17 @@
 package com.phantask.authentication.security;
 
-import java.util.ArrayList;
 import java.util.List;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.phantask.authentication.repository.UserRepository;
 import com.phantask.authentication.service.api.IUserService;
 
 import io.jsonwebtoken.ExpiredJwtException;
@@ -31,11 +31,18 @@ import lombok.RequiredArgsConstructor;
  * <ol>
  * <li>Extracts the token from the Authorization header (typically "Bearer
  * &lt;token&gt;")</li>
- * <li>Validates the token using {@link JwtUtil}</li>
- * <li>Extracts roles from the JWT token and loads them as authorities</li>
- * <li>Creates both ROLE_* and non-prefixed authorities for flexibility</li>
- * <li>If valid, loads user details and sets the Spring Security
- * {@code Authentication} in the context with JWT-derived authorities</li>
+ * <li>Verifies the token once using {@link JwtUtil#verify(String)}; the
+ * resulting {@link VerifiedToken} is reused for every later check so the JWT
+ * is never parsed twice for the same request (and parallel requests with the
+ * same token are served from {@link VerifiedTokenCache})</li>
+ * <li>Takes the authorities resolved from the token's role mask by
+ * {@link RoleAuthorityRegistry}; they are pre-built and shared, so no
+ * authority objects are allocated per request</li>
+ * <li>Grants both ROLE_* and non-prefixed authorities for flexibility</li>
+ * <li>If valid, loads user details (through {@link UserDetailsCache}) and sets the Spring Security
+ * {@code Authentication} in the context with JWT-derived authorities and a
+ * {@link PhanTaskPrincipal} (uid, username, roles, enabled) as principal, so
+ * controllers and services never have to look the caller up again</li>
  * </ol>
  * </p>
  *
@@ -47,6 +54,15 @@ import lombok.RequiredArgsConstructor;
  * </p>
  *
  * <p>
+ * Stateless mode ({@code jwt.stateless.enabled=true}): access tokens carry the
+ * user's id and token version, so the filter builds the principal straight
+ * from the verified claims and asks {@link TokenVersionRegistry} whether the
+ * version has been revoked, instead of loading the user and roles from the
+ * database on every request. Tokens without those claims (issued before they
+ * were added) still take the database path.
+ * </p>
+ *
+ * <p>
  * Implemented as a OncePerRequestFilter so the token is processed exactly once
  * per request.
  * </p>
@@ -57,6 +73,12 @@ public class JwtFilter extends OncePerRequestFilter {
 
 	private final JwtUtil jwtUtil;
 	private final IUserService userService;
+	private final UserRepository userRepo;
+	private final UserDetailsCache userDetailsCache;
+	private final TokenVersionRegistry tokenVersions;
+
+	@Value("${jwt.stateless.enabled:false}")
+	private boolean statelessEnabled;
 
 	/**
 	 * Extract and validate token from the request, and populate SecurityContext on
@@ -83,13 +105,14 @@ public class JwtFilter extends OncePerRequestFilter {
 
 		String header = req.getHeader("Authorization");
 		String username = null;
-		String token = null;
+		VerifiedToken verifiedToken = null;
 
 		// Extract token from Authorization header
 		if (header != null && header.startsWith("Bearer ")) {
-			token = header.substring(7);
+			String token = header.substring(7);
 			try {
-				username = jwtUtil.extractUsername(token);
+				verifiedToken = jwtUtil.verify(token);
+				username = verifiedToken.getUsername();
 			} catch (ExpiredJwtException e) {
 				// Token expired - send 401 and stop processing
 				res.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
@@ -108,45 +131,48 @@ public class JwtFilter extends OncePerRequestFilter {
 		// If we have a valid username from the token, authenticate the user
 		if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
 			try {
-				// Extract roles from JWT token claims
-				List<String> rolesFromJwt = jwtUtil.extractRoles(token);
-
-				// Create authorities with both plain and ROLE_ prefixed versions
-				// This allows using both hasAuthority('ADMIN') and hasRole('ADMIN')
-				List<GrantedAuthority> authorities = new ArrayList<>();
-				for (String role : rolesFromJwt) {
-					// Add plain authority (for hasAuthority)
-					authorities.add(new SimpleGrantedAuthority(role));
-
-					// Add ROLE_ prefixed authority (for hasRole)
-					if (!role.startsWith("ROLE_")) {
-						authorities.add(new SimpleGrantedAuthority("ROLE_" + role));
+				// Authorities (plain and ROLE_ prefixed) were resolved when the token was
+				// verified; the list is shared by every token with the same roles
+				List<GrantedAuthority> authorities = verifiedToken.getAuthorities();
+
+				PhanTaskPrincipal principal;
+
+				if (statelessEnabled && verifiedToken.hasEmbeddedIdentity()) {
+					// Stateless mode: identity comes from the verified token, revocation from the version registry
+					if (!tokenVersions.isCurrent(verifiedToken.getUid(), verifiedToken.getTokenVersion())) {
+						res.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+						res.setContentType("application/json");
+						res.getWriter().write("{\"error\": \"Token revoked, please login again\"}");
+						return;
 					}
-				}
-
-				// Load user details for token validation
-				UserDetails userDetails = userService.loadUserByUsername(username);
-
-				// Validate token against user details
-				if (jwtUtil.isTokenValid(token, userDetails)) {
-
-					// Create authentication token with authorities from JWT
-					// Note: Contains both plain and ROLE_ prefixed authorities
-					UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(userDetails,
-							null, authorities);
-					authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(req));
-					SecurityContextHolder.getContext().setAuthentication(authToken);
-
-//					System.out.println("Authentication successful with authorities: " 
-//							+ SecurityContextHolder.getContext().getAuthentication().getAuthorities());
+					principal = new PhanTaskPrincipal(verifiedToken.getUid(), username, verifiedToken.getRoles(), true);
 				} else {
-					// Token validation failed - send 403
-					System.err.println("Token validation failed for user: " + username);
-					res.setStatus(HttpServletResponse.SC_FORBIDDEN);
-					res.setContentType("application/json");
-					res.getWriter().write("{\"error\": \"Invalid or expired token\"}");
-					return;
+					// Load user details for token validation (cached until the user changes)
+					UserDetails userDetails = userDetailsCache.get(username, userService::loadUserByUsername);
+
+					// Validate token against user details
+					if (!jwtUtil.isTokenValid(verifiedToken, userDetails)) {
+						// Token validation failed - send 403
+						System.err.println("Token validation failed for user: " + username);
+						res.setStatus(HttpServletResponse.SC_FORBIDDEN);
+						res.setContentType("application/json");
+						res.getWriter().write("{\"error\": \"Invalid or expired token\"}");
+						return;
+					}
+
+					// Tokens issued before uid was embedded need one extra lookup
+					Long uid = verifiedToken.getUid() != null
+							? verifiedToken.getUid()
+							: userRepo.findUidByUsername(username).orElseThrow(() -> new RuntimeException("User not found"));
+					principal = new PhanTaskPrincipal(uid, username, verifiedToken.getRoles(), userDetails.isEnabled());
 				}
+
+				// Create authentication token with authorities from JWT
+				// Note: Contains both plain and ROLE_ prefixed authorities
+				UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(principal,
+						null, authorities);
+				authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(req));
+				SecurityContextHolder.getContext().setAuthentication(authToken);
 			} catch (Exception e) {
 				// User not found or other authentication error - send 403
 				System.err.println("Authentication error: " + e.getMessage());
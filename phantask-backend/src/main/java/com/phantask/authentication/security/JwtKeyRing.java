@@ -0,0 +1,174 @@
+package com.phantask.authentication.security;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.Key;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The HMAC keys used to sign and verify JWTs, indexed by key id ({@code kid}).
+ *
+ * <p>
+ * Exactly one key is active and signs new tokens; its id is written to the
+ * {@code kid} header. Any number of further keys are kept for verification
+ * only, so tokens signed before a rotation stay valid until they expire.
+ * Tokens without a {@code kid} (issued before key ids existed) are verified
+ * with the {@code jwt.secret} key, which is always on the ring as
+ * {@value #DEFAULT_KID}.
+ * </p>
+ *
+ * <p>
+ * Additional keys come from the properties file named by {@code jwt.keys.file}:
+ * <pre>
+ * active=2026-10
+ * key.2026-10=&lt;secret, at least 32 bytes&gt;
+ * key.2026-04=&lt;previous secret&gt;
+ * </pre>
+ * The file is checked every {@code jwt.keys.reload-ms} and re-read when it
+ * changes, so a rotation is: add the new key and switch {@code active}, then
+ * remove the old key once its tokens have expired. A file that fails to load
+ * keeps the previous keys in place. When a key is removed, already verified
+ * tokens are dropped from the {@link VerifiedTokenCache} so tokens signed with
+ * it are rejected immediately.
+ * </p>
+ *
+ * <p>
+ * Keys are derived once per load and the ring is swapped atomically. A single
+ * parser, which resolves the key by {@code kid}, is shared by all threads.
+ * </p>
+ */
+@Slf4j
+@Component
+public class JwtKeyRing {
+
+	static final String DEFAULT_KID = "default";
+
+	private final String secret;
+	private final Path keysFile;
+	private final VerifiedTokenCache verifiedTokenCache;
+	private final JwtParser parser;
+
+	private volatile Ring ring;
+	private volatile FileTime loadedModifiedTime;
+
+	record Ring(String activeKid, Key activeKey, Map<String, Key> keys) {
+	}
+
+	public JwtKeyRing(@Value("${jwt.secret}") String secret,
+			@Value("${jwt.keys.file:}") String keysFile,
+			VerifiedTokenCache verifiedTokenCache) {
+		this.secret = secret;
+		this.keysFile = keysFile.isBlank() ? null : Path.of(keysFile);
+		this.verifiedTokenCache = verifiedTokenCache;
+		this.ring = load();
+		this.parser = Jwts.parserBuilder()
+				.setSigningKeyResolver(new SigningKeyResolverAdapter() {
+					// jjwt 0.11 declares this parameter as the raw JwsHeader; JwsHeader<?> would not override it
+					@Override
+					@SuppressWarnings("rawtypes")
+					public Key resolveSigningKey(JwsHeader header, Claims claims) {
+						return verificationKey(header.getKeyId());
+					}
+				})
+				.build();
+	}
+
+	/**
+	 * The shared, thread-safe parser. It verifies each token with the key named
+	 * by its {@code kid} header.
+	 */
+	public JwtParser parser() {
+		return parser;
+	}
+
+	public String activeKid() {
+		return ring.activeKid();
+	}
+
+	public Key activeKey() {
+		return ring.activeKey();
+	}
+
+	Key verificationKey(String kid) {
+		Key key = ring.keys().get(kid == null ? DEFAULT_KID : kid);
+		if (key == null) {
+			throw new SignatureException("Unknown signing key id: " + kid);
+		}
+		return key;
+	}
+
+	/**
+	 * Re-reads the keys file if it changed since it was last loaded.
+	 */
+	@Scheduled(fixedDelayString = "${jwt.keys.reload-ms:30000}", initialDelayString = "${jwt.keys.reload-ms:30000}")
+	public void reloadIfChanged() {
+		if (keysFile == null) {
+			return;
+		}
+		try {
+			FileTime modified = Files.getLastModifiedTime(keysFile);
+			if (modified.equals(loadedModifiedTime)) {
+				return;
+			}
+			Ring previous = ring;
+			Ring next = load();
+			ring = next;
+			log.info("Reloaded JWT keys from {}: active={}, keys={}", keysFile, next.activeKid(), next.keys().keySet());
+			if (!next.keys().keySet().containsAll(previous.keys().keySet())) {
+				verifiedTokenCache.invalidateAll();
+			}
+		} catch (IOException | RuntimeException e) {
+			log.error("Could not reload JWT keys from {}; keeping the current keys", keysFile, e);
+		}
+	}
+
+	private Ring load() {
+		Map<String, Key> keys = new HashMap<>();
+		keys.put(DEFAULT_KID, Keys.hmacShaKeyFor(secret.getBytes()));
+		String activeKid = DEFAULT_KID;
+
+		if (keysFile != null) {
+			Properties props = new Properties();
+			try {
+				FileTime modified = Files.getLastModifiedTime(keysFile);
+				try (Reader reader = Files.newBufferedReader(keysFile, StandardCharsets.UTF_8)) {
+					props.load(reader);
+				}
+				loadedModifiedTime = modified;
+			} catch (IOException e) {
+				throw new IllegalStateException("Cannot read JWT keys file " + keysFile, e);
+			}
+
+			for (String name : props.stringPropertyNames()) {
+				if (name.startsWith("key.")) {
+					keys.put(name.substring(4), Keys.hmacShaKeyFor(props.getProperty(name).trim().getBytes()));
+				}
+			}
+			activeKid = props.getProperty("active", DEFAULT_KID).trim();
+			if (!keys.containsKey(activeKid)) {
+				throw new IllegalStateException("Active JWT key '" + activeKid + "' is not defined in " + keysFile);
+			}
+		}
+
+		return new Ring(activeKid, keys.get(activeKid), Map.copyOf(keys));
+	}
+}
@@ -1,30 +1,40 @@
 package com.phantask.authentication.security;
 
-import java.security.Key;
+import java.time.Instant;
 import java.util.Date;
 import java.util.List;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import com.phantask.authentication.entity.User;
+
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
+import lombok.RequiredArgsConstructor;
 
 /*
  * JwtUtil handles everything related to JWT tokens in the application:
  *
  * 1. It creates two kinds of tokens:
  *      - ACCESS token: short-lived (15 min), contains username + roles.
- *      - REFRESH token: long-lived (12 hrs), contains only username.
+ *        Roles are carried as a bitmask ("rm") of the roles' bit indexes; tokens
+ *        issued before that (or for a role without an index) list role names
+ *        in "roles". Both forms are decoded by RoleAuthorityRegistry.
+ *      - REFRESH token: long-lived (12 hrs), contains only username plus its
+ *        own id ("jti") and the id of its token family ("fid"). Refresh tokens
+ *        are also recorded server-side and rotated on every use (see
+ *        RefreshTokenService).
  *
  * 2. ACCESS tokens include user roles because they are used for authorization
- *    on every API request.
+ *    on every API request. They also carry the user's id ("uid") and token
+ *    version ("ver") so the JwtFilter can authenticate a request without a
+ *    database lookup when stateless mode is enabled (see TokenVersionRegistry).
  *    REFRESH tokens do NOT include roles for security reasons and are used
  *    only to fetch a new access token when it expires.
  *
@@ -37,8 +47,17 @@ import io.jsonwebtoken.security.Keys;
  *      - get username, token type, roles, and expiration time
  *      - validate tokens and check if they are expired
  *
- * 5. The signing key comes from the `jwt.secret` property in application.properties.
- *    HS256 algorithm is used to sign the tokens.
+ *    Every token is verified at most once: verify() checks the signature and
+ *    expiry, reads the claims into an immutable VerifiedToken and remembers it
+ *    in the VerifiedTokenCache until the token expires. All extract and is
+ *    helpers go through verify(), so repeated calls for the same token (within
+ *    one request or across parallel requests) do not re-run HMAC or JSON parsing.
+ *
+ * 5. Signing keys come from the JwtKeyRing: the `jwt.secret` property plus any
+ *    keys in the optional `jwt.keys.file`. Tokens are signed (HS256) with the
+ *    active key and name it in the "kid" header; they are verified by the ring's
+ *    shared parser with whichever key their "kid" names, so keys can be rotated
+ *    without invalidating tokens that are already out.
  *
  * Overall flow:
  *      User logs in → UI receives access + refresh tokens → UI uses access token
@@ -47,17 +66,15 @@ import io.jsonwebtoken.security.Keys;
  */
 
 @Component
+@RequiredArgsConstructor
 public class JwtUtil {
 
     private final long ACCESS_TOKEN_EXP = 1000 * 60 * 5 * 3;          // 15 minutes for testing
     private final long REFRESH_TOKEN_EXP = 1000 * 60 * 60 * 12;   // 12 hours for testing
 
-    @Value("${jwt.secret}")
-    private String SECRET;
-
-    private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(SECRET.getBytes());
-    }
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final RoleAuthorityRegistry roleAuthorities;
+    private final JwtKeyRing keyRing;
 
     // -------------------- Token Generation --------------------
 
@@ -66,75 +83,118 @@ public class JwtUtil {
     }
 
     //modified refresh-token to not hold roles
+    //starts a new refresh-token family (a fresh login)
     public String generateRefreshToken(UserDetails userDetails) {
-        return generateToken(userDetails, "REFRESH", REFRESH_TOKEN_EXP, false);
+        return generateRefreshToken(userDetails, UUID.randomUUID().toString());
     }
 
-    private String generateToken(UserDetails userDetails, String type, long expMillis, boolean includeRoles) {
+    //next refresh-token of an existing family (a rotation); every token gets its own id ("jti")
+    public String generateRefreshToken(UserDetails userDetails, String familyId) {
+        return generateRefreshToken(userDetails, familyId, REFRESH_TOKEN_EXP);
+    }
+
+    //next refresh-token of a family that must end at notAfter: rotating never outlives the login
+    public String generateRefreshToken(UserDetails userDetails, String familyId, Instant notAfter) {
+        long remaining = notAfter.toEpochMilli() - System.currentTimeMillis();
+        return generateRefreshToken(userDetails, familyId, Math.max(0, Math.min(REFRESH_TOKEN_EXP, remaining)));
+    }
+
+    private String generateRefreshToken(UserDetails userDetails, String familyId, long expMillis) {
         Claims claims = Jwts.claims().setSubject(userDetails.getUsername());
+        claims.setId(UUID.randomUUID().toString());
+        claims.put("fid", familyId);
+        return generateToken(claims, userDetails, "REFRESH", expMillis, false);
+    }
+
+    private String generateToken(UserDetails userDetails, String type, long expMillis, boolean includeRoles) {
+        return generateToken(Jwts.claims().setSubject(userDetails.getUsername()), userDetails, type, expMillis,
+                includeRoles);
+    }
+
+    private String generateToken(Claims claims, UserDetails userDetails, String type, long expMillis,
+            boolean includeRoles) {
         claims.put("type", type);
         
         if (includeRoles) {
-            List<String> roles = userDetails.getAuthorities().stream()
-                    .map(auth -> auth.getAuthority())
-                    .collect(Collectors.toList());
-            claims.put("roles", roles);
+            Long roleMask = null;
+            if (userDetails instanceof User user) {
+                roleMask = RoleAuthorityRegistry.maskOf(user.getRoles());
+                claims.put("uid", user.getUid());
+                claims.put("ver", user.getTokenVersion());
+            }
+
+            if (roleMask != null) {
+                claims.put("rm", roleMask);
+            } else {
+                // A role without a bit index yet: fall back to listing roles by name
+                List<String> roles = userDetails.getAuthorities().stream()
+                        .map(auth -> auth.getAuthority())
+                        .collect(Collectors.toList());
+                claims.put("roles", roles);
+            }
         }
 
         long now = System.currentTimeMillis();
         return Jwts.builder()
+                .setHeaderParam("kid", keyRing.activeKid())
                 .setClaims(claims)
                 .setIssuedAt(new Date(now))
                 .setExpiration(new Date(now + expMillis))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(keyRing.activeKey(), SignatureAlgorithm.HS256)
                 .compact();
     }
 
     public Claims getClaims(String token) throws JwtException {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
+        return keyRing.parser()
                 .parseClaimsJws(token)
                 .getBody();
     }
 
     // -------------------- Token Parsing --------------------
+
+    /**
+     * Verifies the token (signature + expiry) and returns its parsed claims.
+     * Tokens that were already verified are served from the cache until they expire.
+     */
+    public VerifiedToken verify(String token) throws JwtException {
+        return verifiedTokenCache.get(token, t -> VerifiedToken.from(getClaims(t), roleAuthorities));
+    }
     
     public String extractUsername(String token) throws JwtException {
-        return getClaims(token).getSubject();
+        return verify(token).getUsername();
     }
 
     public String extractTokenType(String token) throws JwtException {
-        return (String) getClaims(token).get("type");
+        return verify(token).getType();
     }
 
-    @SuppressWarnings("unchecked")
     public List<String> extractRoles(String token) throws JwtException {
-        Claims claims = getClaims(token);
-        Object roles = claims.get("roles");
-        return roles == null ? List.of() : (List<String>) roles;
+        return verify(token).getRoles();
     }
 
     public Date extractExpiration(String token) throws JwtException {
-        return getClaims(token).getExpiration();
+        return Date.from(verify(token).getExpiresAt());
     }
 
     // -------------------- Token Validation --------------------
 
     public boolean isTokenExpired(String token) throws ExpiredJwtException {
-        return extractExpiration(token).before(new Date());
+        return verify(token).isExpired();
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) throws JwtException {
-        final String username = extractUsername(token);
-        return username.equals(userDetails.getUsername()) && !isTokenExpired(token);
+        return isTokenValid(verify(token), userDetails);
+    }
+
+    public boolean isTokenValid(VerifiedToken token, UserDetails userDetails) {
+        return token.getUsername().equals(userDetails.getUsername()) && !token.isExpired();
     }
 
     public boolean isRefreshToken(String token) throws JwtException {
-        return "REFRESH".equals(extractTokenType(token));
+        return verify(token).isRefreshToken();
     }
 
     public boolean isAccessToken(String token) throws JwtException {
-        return "ACCESS".equals(extractTokenType(token));
+        return verify(token).isAccessToken();
     }
 }
@@ -0,0 +1,60 @@
+package com.phantask.authentication.security;
+
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Username/password authentication that does not load the user a second time
+ * when the caller already has it.
+ *
+ * <p>
+ * {@code AuthService.login} loads the {@code User} to check business rules
+ * (deactivated account, first login) before authenticating. It passes that
+ * entity as the details of the authentication request, and this provider
+ * verifies the password against it directly. Requests without a loaded user
+ * fall back to the {@link UserDetailsService}.
+ * </p>
+ */
+@RequiredArgsConstructor
+public class LoadedUserAuthenticationProvider implements AuthenticationProvider {
+
+	private final UserDetailsService userDetailsService;
+	private final PasswordEncoder passwordEncoder;
+
+	@Override
+	public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+		String username = authentication.getName();
+		Object credentials = authentication.getCredentials();
+
+		UserDetails user = authentication.getDetails() instanceof UserDetails loaded
+				&& loaded.getUsername().equals(username)
+						? loaded
+						: userDetailsService.loadUserByUsername(username);
+
+		if (!user.isEnabled()) {
+			throw new DisabledException("Account is deactivated");
+		}
+		if (credentials == null || !passwordEncoder.matches(credentials.toString(), user.getPassword())) {
+			throw new BadCredentialsException("Invalid username or password");
+		}
+
+		UsernamePasswordAuthenticationToken result = UsernamePasswordAuthenticationToken.authenticated(user, null,
+				user.getAuthorities());
+		result.setDetails(authentication.getDetails());
+		return result;
+	}
+
+	@Override
+	public boolean supports(Class<?> authentication) {
+		return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication);
+	}
+}
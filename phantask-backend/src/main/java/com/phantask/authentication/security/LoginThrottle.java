@@ -0,0 +1,180 @@
+package com.phantask.authentication.security;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.core.env.Environment;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.stereotype.Component;
+
+import com.phantask.exception.TooManyRequestsException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Rate limits the public endpoints that verify a password, so a credential
+ * stuffing burst is turned away before it reaches BCrypt.
+ *
+ * <p>
+ * Every endpoint has two {@link TokenBucketRateLimiter}s, one keyed by client
+ * IP and one by username; a request must pass both. Limits are configured per
+ * endpoint and key:
+ * <pre>
+ * security.rate-limit.&lt;endpoint&gt;.ip.capacity / refill-per-minute
+ * security.rate-limit.&lt;endpoint&gt;.username.capacity / refill-per-minute
+ * </pre>
+ * with {@code <endpoint>} being {@code login} or {@code first-login}.
+ * Rejections are counted in {@code phantask.ratelimit.rejected}, tagged with
+ * {@code endpoint} and {@code key}.
+ * </p>
+ *
+ * <p>
+ * Behind a reverse proxy every request arrives from the proxy's address, so
+ * the client IP is taken from {@code X-Forwarded-For} when the request comes
+ * from one of {@code security.rate-limit.trusted-proxies} (comma-separated
+ * addresses or CIDR ranges). The header is read from the right, skipping
+ * trusted hops, and the first other address is the client; anything further
+ * left was written by the client and is ignored. Without trusted proxies
+ * the header is never read, so clients cannot pick their own bucket.
+ * </p>
+ */
+@Component
+public class LoginThrottle {
+
+	public enum Endpoint {
+		LOGIN("login", 30, 30, 10, 5),
+		FIRST_LOGIN("first-login", 10, 10, 5, 3);
+
+		private final String property;
+		private final int ipCapacity;
+		private final int ipRefillPerMinute;
+		private final int usernameCapacity;
+		private final int usernameRefillPerMinute;
+
+		Endpoint(String property, int ipCapacity, int ipRefillPerMinute, int usernameCapacity,
+				int usernameRefillPerMinute) {
+			this.property = property;
+			this.ipCapacity = ipCapacity;
+			this.ipRefillPerMinute = ipRefillPerMinute;
+			this.usernameCapacity = usernameCapacity;
+			this.usernameRefillPerMinute = usernameRefillPerMinute;
+		}
+	}
+
+	private record Limit(TokenBucketRateLimiter limiter, Counter rejected) {
+	}
+
+	static final String FORWARDED_FOR = "X-Forwarded-For";
+
+	private final boolean enabled;
+	private final List<IpAddressMatcher> trustedProxies;
+	private final Map<Endpoint, Limit> byIp = new EnumMap<>(Endpoint.class);
+	private final Map<Endpoint, Limit> byUsername = new EnumMap<>(Endpoint.class);
+
+	public LoginThrottle(Environment env, MeterRegistry meterRegistry) {
+		this.enabled = env.getProperty("security.rate-limit.enabled", Boolean.class, true);
+		int slots = env.getProperty("security.rate-limit.slots", Integer.class, 1 << 18);
+		this.trustedProxies = Arrays.stream(env.getProperty("security.rate-limit.trusted-proxies", "").split(","))
+				.map(String::trim)
+				.filter(proxy -> !proxy.isEmpty())
+				.map(IpAddressMatcher::new)
+				.toList();
+
+		for (Endpoint endpoint : Endpoint.values()) {
+			String prefix = "security.rate-limit." + endpoint.property;
+			byIp.put(endpoint, limit(env, meterRegistry, slots, endpoint, prefix + ".ip", "ip",
+					endpoint.ipCapacity, endpoint.ipRefillPerMinute));
+			byUsername.put(endpoint, limit(env, meterRegistry, slots, endpoint, prefix + ".username", "username",
+					endpoint.usernameCapacity, endpoint.usernameRefillPerMinute));
+		}
+	}
+
+	private static Limit limit(Environment env, MeterRegistry registry, int slots, Endpoint endpoint, String prefix,
+			String key, int defaultCapacity, int defaultRefill) {
+		int capacity = env.getProperty(prefix + ".capacity", Integer.class, defaultCapacity);
+		int refill = env.getProperty(prefix + ".refill-per-minute", Integer.class, defaultRefill);
+		Counter rejected = Counter.builder("phantask.ratelimit.rejected")
+				.description("Requests rejected by the login rate limiter")
+				.tag("endpoint", endpoint.property)
+				.tag("key", key)
+				.register(registry);
+		return new Limit(new TokenBucketRateLimiter(slots, capacity, refill), rejected);
+	}
+
+	/**
+	 * Takes a token for the IP of the client that sent {@code request} and
+	 * the username.
+	 *
+	 * @throws TooManyRequestsException if either limit is exhausted
+	 */
+	public void check(Endpoint endpoint, HttpServletRequest request, String username) {
+		check(endpoint, clientIp(request), username);
+	}
+
+	/**
+	 * Address of the client that sent {@code request}, looking through
+	 * trusted proxies.
+	 */
+	String clientIp(HttpServletRequest request) {
+		String client = request.getRemoteAddr();
+		String forwardedFor = request.getHeader(FORWARDED_FOR);
+		if (forwardedFor == null || !isTrustedProxy(client)) {
+			return client;
+		}
+		String[] hops = forwardedFor.split(",");
+		for (int i = hops.length - 1; i >= 0; i--) {
+			String hop = hops[i].trim();
+			if (hop.isEmpty()) {
+				continue;
+			}
+			client = hop;
+			if (!isTrustedProxy(hop)) {
+				break;
+			}
+		}
+		return client;
+	}
+
+	private boolean isTrustedProxy(String address) {
+		for (IpAddressMatcher proxy : trustedProxies) {
+			try {
+				if (proxy.matches(address)) {
+					return true;
+				}
+			} catch (IllegalArgumentException e) {
+				// not an IP address
+				return false;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Takes a token for the client IP and the username.
+	 *
+	 * @throws TooManyRequestsException if either limit is exhausted
+	 */
+	public void check(Endpoint endpoint, String clientIp, String username) {
+		if (!enabled) {
+			return;
+		}
+		acquire(byIp.get(endpoint), clientIp == null ? "" : clientIp);
+		if (username != null && !username.isBlank()) {
+			acquire(byUsername.get(endpoint), username.trim().toLowerCase(Locale.ROOT));
+		}
+	}
+
+	private static void acquire(Limit limit, String key) {
+		long waitMillis = limit.limiter().tryAcquire(key);
+		if (waitMillis > 0) {
+			limit.rejected().increment();
+			throw new TooManyRequestsException("Too many attempts, please try again later",
+					(waitMillis + 999) / 1000);
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package com.phantask.authentication.security;
+
+import java.util.List;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+/**
+ * The authenticated user of the current request, as established by
+ * {@link JwtFilter}.
+ *
+ * <p>
+ * Carries what controllers and services usually need to know about the caller
+ * (id, username, roles and whether the account is enabled) so they do not have
+ * to look the user up again by username. The filter stores it as the principal
+ * of the request's {@code Authentication}; controller methods receive it simply
+ * by declaring a {@code PhanTaskPrincipal} parameter (see
+ * {@link PhanTaskPrincipalArgumentResolver}).
+ * </p>
+ *
+ * <p>
+ * Implements {@link AuthenticatedPrincipal}, so {@code Authentication.getName()}
+ * keeps returning the username for code that still works with usernames. (It
+ * deliberately is not a {@code java.security.Principal}: Spring MVC resolves
+ * those parameters itself from the servlet request.)
+ * </p>
+ */
+public final class PhanTaskPrincipal implements AuthenticatedPrincipal {
+
+	private final Long uid;
+	private final String username;
+	private final List<String> roles;
+	private final boolean enabled;
+
+	public PhanTaskPrincipal(Long uid, String username, List<String> roles, boolean enabled) {
+		this.uid = uid;
+		this.username = username;
+		this.roles = List.copyOf(roles);
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Returns the principal of an authentication. Authentications not created by
+	 * {@link JwtFilter} (for example mock users in tests) are converted from their
+	 * name and authorities; such principals have no uid.
+	 */
+	public static PhanTaskPrincipal from(Authentication auth) {
+		if (auth.getPrincipal() instanceof PhanTaskPrincipal principal) {
+			return principal;
+		}
+		List<String> roles = auth.getAuthorities().stream()
+				.map(GrantedAuthority::getAuthority)
+				.filter(authority -> !authority.startsWith("ROLE_"))
+				.toList();
+		return new PhanTaskPrincipal(null, auth.getName(), roles, true);
+	}
+
+	public Long getUid() {
+		return uid;
+	}
+
+	public String getUsername() {
+		return username;
+	}
+
+	/**
+	 * Role names without the {@code ROLE_} prefix, e.g. {@code ["ADMIN"]}.
+	 */
+	public List<String> getRoles() {
+		return roles;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public boolean hasRole(String role) {
+		return roles.contains(role);
+	}
+
+	@Override
+	public String getName() {
+		return username;
+	}
+
+	@Override
+	public String toString() {
+		return "PhanTaskPrincipal{uid=" + uid + ", username='" + username + "', roles=" + roles + "}";
+	}
+}
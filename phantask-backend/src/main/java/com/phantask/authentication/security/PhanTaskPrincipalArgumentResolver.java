@@ -0,0 +1,41 @@
+package com.phantask.authentication.security;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * Supplies the current request's {@link PhanTaskPrincipal} to any controller
+ * method parameter of that type:
+ *
+ * <pre>
+ * &#64;GetMapping("/my/raised")
+ * public ResponseEntity&lt;?&gt; myRaised(PhanTaskPrincipal me) { ... }
+ * </pre>
+ *
+ * <p>
+ * Registered in {@link PrincipalResolverConfig}.
+ * </p>
+ */
+public class PhanTaskPrincipalArgumentResolver implements HandlerMethodArgumentResolver {
+
+	@Override
+	public boolean supportsParameter(MethodParameter parameter) {
+		return PhanTaskPrincipal.class.equals(parameter.getParameterType());
+	}
+
+	@Override
+	public PhanTaskPrincipal resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+			NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+		Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+		if (auth == null || !auth.isAuthenticated()) {
+			throw new AuthenticationCredentialsNotFoundException("Authentication required");
+		}
+		return PhanTaskPrincipal.from(auth);
+	}
+}
@@ -0,0 +1,19 @@
+package com.phantask.authentication.security;
+
+import java.util.List;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Lets controller methods declare a {@link PhanTaskPrincipal} parameter.
+ */
+@Configuration
+public class PrincipalResolverConfig implements WebMvcConfigurer {
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(new PhanTaskPrincipalArgumentResolver());
+    }
+}
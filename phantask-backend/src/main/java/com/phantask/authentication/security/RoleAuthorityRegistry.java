@@ -0,0 +1,174 @@
+package com.phantask.authentication.security;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import com.phantask.authentication.entity.Role;
+import com.phantask.authentication.repository.RoleRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Maps role bitmasks ("rm" claim of access tokens) to role names and Spring
+ * Security authorities.
+ *
+ * <p>
+ * Every role has a stable bit index ({@link Role#getBitIndex()}), so a user's
+ * roles fit in a single number instead of a JSON string array. Each distinct
+ * mask is decoded once into an immutable {@link Roles} value that is shared by
+ * every request carrying that mask; building the authentication for a request
+ * therefore allocates no authority objects at all.
+ * </p>
+ *
+ * <p>
+ * Tokens issued before masks existed still carry role names; {@link #resolve(Collection)}
+ * maps those names onto the same shared values whenever all of them are known.
+ * </p>
+ *
+ * <p>
+ * Role names per bit are loaded lazily from the database and reloaded when a
+ * mask contains a bit that is not known yet (a role added on another node).
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RoleAuthorityRegistry {
+
+	/** Number of bits usable in the mask; bit 63 is left alone to keep masks positive. */
+	public static final int MAX_ROLE_BITS = 63;
+
+	private final RoleRepository roleRepo;
+
+	private final ConcurrentMap<Long, Roles> byMask = new ConcurrentHashMap<>();
+
+	private volatile String[] namesByBit;
+	private volatile Map<String, Integer> bitsByName;
+
+	/**
+	 * Role names of a token together with the authorities granted for them: the
+	 * plain name (for {@code hasAuthority}) and the {@code ROLE_} prefixed name
+	 * (for {@code hasRole}). Both lists are immutable.
+	 */
+	public record Roles(List<String> names, List<GrantedAuthority> authorities) {
+	}
+
+	/**
+	 * Computes the role mask for the given roles.
+	 *
+	 * @return the mask, or {@code null} if any role has no bit index
+	 */
+	public static Long maskOf(Collection<Role> roles) {
+		long mask = 0;
+		for (Role role : roles) {
+			Integer bit = role.getBitIndex();
+			if (bit == null || bit < 0 || bit >= MAX_ROLE_BITS) {
+				return null;
+			}
+			mask |= 1L << bit;
+		}
+		return mask;
+	}
+
+	/**
+	 * Returns the shared roles and authorities for a role mask.
+	 */
+	public Roles resolve(long mask) {
+		Roles roles = byMask.get(mask);
+		return roles != null ? roles : byMask.computeIfAbsent(mask, this::decode);
+	}
+
+	/**
+	 * Returns roles and authorities for a legacy token that lists roles by name.
+	 * Known role sets are served from the same shared values as masks.
+	 */
+	public Roles resolve(Collection<String> roleNames) {
+		Map<String, Integer> bits = bitsByName();
+		long mask = 0;
+		for (String name : roleNames) {
+			Integer bit = bits.get(name);
+			if (bit == null) {
+				return build(List.copyOf(roleNames));
+			}
+			mask |= 1L << bit;
+		}
+		return resolve(mask);
+	}
+
+	private Roles decode(long mask) {
+		String[] names = namesByBit();
+		if (hasUnknownBit(mask, names)) {
+			names = reload();
+			if (hasUnknownBit(mask, names)) {
+				log.warn("Role mask {} contains bits without a role; ignoring them", mask);
+			}
+		}
+		List<String> roleNames = new ArrayList<>();
+		for (int bit = 0; bit < MAX_ROLE_BITS; bit++) {
+			if ((mask & (1L << bit)) != 0 && names[bit] != null) {
+				roleNames.add(names[bit]);
+			}
+		}
+		return build(List.copyOf(roleNames));
+	}
+
+	private static Roles build(List<String> roleNames) {
+		List<GrantedAuthority> authorities = new ArrayList<>();
+		for (String role : roleNames) {
+			authorities.add(new SimpleGrantedAuthority(role));
+			if (!role.startsWith("ROLE_")) {
+				authorities.add(new SimpleGrantedAuthority("ROLE_" + role));
+			}
+		}
+		return new Roles(roleNames, List.copyOf(authorities));
+	}
+
+	private static boolean hasUnknownBit(long mask, String[] names) {
+		for (int bit = 0; bit < MAX_ROLE_BITS; bit++) {
+			if ((mask & (1L << bit)) != 0 && names[bit] == null) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private String[] namesByBit() {
+		String[] names = namesByBit;
+		return names != null ? names : reload();
+	}
+
+	private Map<String, Integer> bitsByName() {
+		Map<String, Integer> bits = bitsByName;
+		if (bits == null) {
+			reload();
+			bits = bitsByName;
+		}
+		return bits;
+	}
+
+	private synchronized String[] reload() {
+		String[] names = new String[MAX_ROLE_BITS];
+		Map<String, Integer> bits = new HashMap<>();
+		for (Role role : roleRepo.findAll()) {
+			Integer bit = role.getBitIndex();
+			if (bit != null && bit >= 0 && bit < MAX_ROLE_BITS) {
+				names[bit] = role.getRoleName();
+				bits.put(role.getRoleName(), bit);
+			}
+		}
+		bitsByName = Map.copyOf(bits);
+		namesByBit = names;
+		log.debug("Loaded {} role bit indexes", bits.size());
+		return names;
+	}
+}
@@ -1,18 +1,22 @@
 package com.phantask.authentication.security;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+
 /*
 Main Spring Security configuration class.
 
@@ -21,6 +25,7 @@ What this file does:
 - Registers the JWT filter so every request is checked for a valid token.
 - Turns off sessions (we use JWT → stateless authentication).
 - Enables CORS and disables CSRF for APIs.
+- Provides the authentication manager and the (pooled) password encoder.
 */
 @Configuration
 @EnableWebSecurity
@@ -36,7 +41,14 @@ public class SecurityConfig {
     3. Public endpoints:
          - /api/auth/** → login, refresh-token, etc.
          - /api/users/change-password-first-login → user changes password before login.
-    4. All other requests require a valid JWT.
+    4. All other requests require a valid JWT. Async dispatches (the CSV
+       export and the live stream) are permitted: they only write out the
+       result of a handler that already ran on this request after the JWT
+       and the authorization rules, @PreAuthorize included, accepted it.
+       The security context of that request is propagated to the async
+       work, but jwtFilter does not run again on the async dispatch and a
+       stateless chain has no session to restore it from, so re-checking
+       there would reject every streamed response.
     5. The jwtFilter is placed before UsernamePasswordAuthenticationFilter
        so token validation happens early in the request lifecycle.
    */
@@ -46,6 +58,8 @@ public class SecurityConfig {
         	.cors(cors -> {}) // enable CORS using CorsConfig
         	.csrf(csrf -> csrf.disable())
             .authorizeHttpRequests(auth -> auth
+                // Streamed responses finish on an async dispatch of a request that was already authorized (see 4.)
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers("/api/auth/**").permitAll() // Allow registration & login
                 .requestMatchers("/api/users/change-password-first-login").permitAll() // Allow first-login change
                 .requestMatchers("/api/users/update-profile-first-login").permitAll()
@@ -57,13 +71,28 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /*
+    Login authentication uses a single provider that verifies the password
+    against the User that AuthService has already loaded (see
+    LoadedUserAuthenticationProvider), so a login reads the user only once.
+   */
     @Bean
-    AuthenticationManager authenticationManager(AuthenticationConfiguration config) throws Exception {
-        return config.getAuthenticationManager();
+    AuthenticationManager authenticationManager(UserDetailsService userDetailsService, PasswordEncoder passwordEncoder) {
+        return new ProviderManager(new LoadedUserAuthenticationProvider(userDetailsService, passwordEncoder));
     }
 
-    @Bean
-    PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    /*
+    BCrypt runs on a bounded worker pool (see BoundedPasswordEncoder):
+    - security.password-pool.threads: concurrent hashes (0 = one per CPU core)
+    - security.password-pool.queue-capacity: requests allowed to wait for a worker
+    - security.password-pool.max-wait-ms: longest a request waits before getting a 503
+   */
+    @Bean(destroyMethod = "shutdown")
+    BoundedPasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+            @Value("${security.password-pool.threads:0}") int threads,
+            @Value("${security.password-pool.queue-capacity:64}") int queueCapacity,
+            @Value("${security.password-pool.max-wait-ms:5000}") long maxWaitMillis) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(poolSize, queueCapacity, maxWaitMillis, meterRegistry);
     }
 }
@@ -0,0 +1,129 @@
+package com.phantask.authentication.security;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Fixed-memory, lock-free token bucket rate limiter for an unbounded number of
+ * keys (client IPs, usernames).
+ *
+ * <p>
+ * Buckets are not stored per key. Each key is hashed, with a random seed
+ * chosen at startup, onto two slots of a fixed {@link AtomicLongArray}, and a
+ * request is allowed only if both slots still hold a token (the count-min
+ * idea applied to token buckets). Memory is therefore constant no matter how
+ * many distinct keys arrive; a key is only throttled early if both of its
+ * slots are shared with keys that are themselves being throttled.
+ * </p>
+ *
+ * <p>
+ * Each slot packs its state into one {@code long}: the time of the last
+ * refill in milliseconds (upper 40 bits) and the remaining tokens in
+ * thousandths (lower 24 bits). Updates are a single compare-and-set, so there
+ * are no locks and no per-key objects. Idle buckets need no cleanup: a slot
+ * that has not been touched for a while is simply full again the next time
+ * it is read.
+ * </p>
+ */
+public class TokenBucketRateLimiter {
+
+	private static final int TOKEN_BITS = 24;
+	private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+	private static final long MILLI = 1000;
+
+	private final AtomicLongArray slots;
+	private final int slotMask;
+	private final long capacityMilli;
+	private final long refillPerMinute;
+	private final long fillMillis;
+	private final LongSupplier clock;
+	private final long epoch;
+	private final long seed = ThreadLocalRandom.current().nextLong();
+
+	/**
+	 * @param slots           number of slots, rounded up to a power of two
+	 * @param capacity        tokens in a full bucket (the allowed burst), at most 16000
+	 * @param refillPerMinute tokens added back per minute
+	 * @param clock           current time in milliseconds
+	 */
+	public TokenBucketRateLimiter(int slots, int capacity, int refillPerMinute, LongSupplier clock) {
+		if (capacity < 1 || capacity * MILLI > TOKEN_MASK || refillPerMinute < 1) {
+			throw new IllegalArgumentException("capacity must be 1..16000 and refillPerMinute at least 1");
+		}
+		int size = Integer.highestOneBit(Math.max(2, slots - 1)) << 1;
+		this.slots = new AtomicLongArray(size);
+		this.slotMask = size - 1;
+		this.capacityMilli = capacity * MILLI;
+		this.refillPerMinute = refillPerMinute;
+		this.fillMillis = capacity * 60_000L / refillPerMinute + 1;
+		this.clock = clock;
+		// Stored times are relative to construction; 0 marks a slot never used
+		this.epoch = clock.getAsLong() - 1;
+	}
+
+	public TokenBucketRateLimiter(int slots, int capacity, int refillPerMinute) {
+		this(slots, capacity, refillPerMinute, System::currentTimeMillis);
+	}
+
+	/**
+	 * Takes one token for {@code key}.
+	 *
+	 * @return 0 if the request is allowed, otherwise the number of milliseconds
+	 *         until a token will be available
+	 */
+	public long tryAcquire(String key) {
+		long hash = hash(key);
+		long now = clock.getAsLong() - epoch;
+		long wait = tryAcquireSlot((int) hash & slotMask, now);
+		if (wait > 0) {
+			return wait;
+		}
+		return tryAcquireSlot((int) (hash >>> 32) & slotMask, now);
+	}
+
+	private long tryAcquireSlot(int index, long now) {
+		while (true) {
+			long current = slots.get(index);
+			long last = current >>> TOKEN_BITS;
+			long tokens = current == 0 ? capacityMilli : current & TOKEN_MASK;
+
+			// Refill for the time since the last update. Only the time that was
+			// actually turned into tokens is consumed, so frequent requests do
+			// not lose the fractional refill.
+			long elapsed = Math.min(Math.max(0, now - last), fillMillis);
+			long added = elapsed * refillPerMinute * MILLI / 60_000;
+			long refilledAt;
+			if (current == 0 || tokens + added >= capacityMilli) {
+				tokens = capacityMilli;
+				refilledAt = now;
+			} else {
+				tokens += added;
+				refilledAt = last + added * 60_000 / (refillPerMinute * MILLI);
+			}
+
+			if (tokens < MILLI) {
+				long missing = MILLI - tokens;
+				return Math.max(1, (missing * 60_000 + refillPerMinute * MILLI - 1) / (refillPerMinute * MILLI));
+			}
+			long next = (refilledAt << TOKEN_BITS) | (tokens - MILLI);
+			if (slots.compareAndSet(index, current, next)) {
+				return 0;
+			}
+		}
+	}
+
+	private long hash(String key) {
+		long h = seed;
+		for (int i = 0; i < key.length(); i++) {
+			h = (h ^ key.charAt(i)) * 0x100000001b3L;
+		}
+		// murmur3 finalizer so both halves are well mixed
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+}
@@ -0,0 +1,40 @@
+package com.phantask.authentication.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Fixed-width digests of bearer tokens.
+ *
+ * <p>
+ * Tokens are several hundred bytes long; wherever a token has to be used as a
+ * lookup key (caches, indexed columns) its SHA-256 digest is used instead so
+ * the key has a constant size of 64 hex characters and the raw token never
+ * needs to be stored.
+ * </p>
+ */
+public final class TokenDigests {
+
+	private static final HexFormat HEX = HexFormat.of();
+
+	private TokenDigests() {
+	}
+
+	/**
+	 * Returns the lowercase hex encoded SHA-256 digest of the given token.
+	 *
+	 * @param token the raw token
+	 * @return a 64 character hex string
+	 */
+	public static String sha256Hex(String token) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			return HEX.formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			// SHA-256 is mandatory on every Java platform
+			throw new IllegalStateException("SHA-256 not available", e);
+		}
+	}
+}
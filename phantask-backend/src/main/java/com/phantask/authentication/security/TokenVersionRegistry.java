@@ -0,0 +1,102 @@
+package com.phantask.authentication.security;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.phantask.authentication.event.UserSecurityChangedEvent;
+import com.phantask.authentication.repository.UserRepository;
+import com.phantask.authentication.repository.UserTokenState;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory map of {@code uid -> (tokenVersion, enabled)} used by
+ * {@link JwtFilter} in stateless mode to decide whether an access token has
+ * been revoked, without querying the database on every request.
+ *
+ * <p>
+ * The map is kept current in two ways:
+ * <ul>
+ *   <li>Changes made on this node arrive as {@link UserSecurityChangedEvent}s
+ *       right after their transaction commits, so revocation is immediate
+ *       locally.</li>
+ *   <li>A background refresh reloads all versions from the {@code users}
+ *       table, which picks up changes made on other nodes within
+ *       {@code jwt.stateless.version-refresh-ms}.</li>
+ * </ul>
+ * Versions only ever increase, so updates are merged by keeping the higher
+ * version; a refresh that read the table just before a commit can never undo a
+ * revocation that was already applied from an event.
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenVersionRegistry {
+
+	private final UserRepository userRepo;
+
+	private final ConcurrentMap<Long, State> states = new ConcurrentHashMap<>();
+
+	@Value("${jwt.stateless.enabled:false}")
+	private boolean statelessEnabled;
+
+	record State(int version, boolean enabled) {
+
+		State newer(State other) {
+			return other.version > version ? other : this;
+		}
+	}
+
+	/**
+	 * Returns true if a token issued with {@code tokenVersion} is still acceptable
+	 * for the user: the account exists, is enabled, and nothing has bumped its
+	 * version since the token was issued.
+	 *
+	 * <p>
+	 * Users not seen yet (created after the last refresh) are loaded once from
+	 * the database and remembered.
+	 * </p>
+	 */
+	public boolean isCurrent(Long uid, int tokenVersion) {
+		State state = states.get(uid);
+		if (state == null) {
+			state = userRepo.findTokenStateByUid(uid)
+					.map(this::remember)
+					.orElse(null);
+		}
+		return state != null && state.enabled() && state.version() == tokenVersion;
+	}
+
+	/**
+	 * Reloads the version of every user from the database.
+	 */
+	@Scheduled(fixedDelayString = "${jwt.stateless.version-refresh-ms:30000}")
+	public void refresh() {
+		if (!statelessEnabled) {
+			return;
+		}
+		int count = 0;
+		for (UserTokenState row : userRepo.findAllTokenStates()) {
+			remember(row);
+			count++;
+		}
+		log.debug("Token version registry refreshed for {} users", count);
+	}
+
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+	public void onUserSecurityChanged(UserSecurityChangedEvent event) {
+		states.merge(event.uid(), new State(event.tokenVersion(), event.enabled()), State::newer);
+	}
+
+	private State remember(UserTokenState row) {
+		return states.merge(row.getUid(), new State(row.getTokenVersion(), row.isEnabled()), State::newer);
+	}
+}
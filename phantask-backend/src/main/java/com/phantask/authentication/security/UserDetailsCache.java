@@ -0,0 +1,79 @@
+package com.phantask.authentication.security;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.phantask.authentication.event.UserSecurityChangedEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded, time-limited cache of the {@link UserDetails} that
+ * {@link JwtFilter} loads to validate a token against the user.
+ *
+ * <p>
+ * Without it every authenticated request reads the user and their roles from
+ * the database. Entries are dropped:
+ * <ul>
+ *   <li>as soon as a change to the user commits (password change or reset,
+ *       deactivation, reactivation), via {@link UserSecurityChangedEvent};</li>
+ *   <li>after {@code security.user-cache.ttl-seconds}, which bounds staleness
+ *       for changes made on other nodes;</li>
+ *   <li>when the cache exceeds {@code security.user-cache.max-size}.</li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * Hits, misses and size/TTL evictions are published as the standard
+ * {@code cache.*} meters with {@code cache=userDetails};
+ * {@code phantask.userdetails.invalidations} counts event-driven removals.
+ * </p>
+ */
+@Component
+public class UserDetailsCache {
+
+	private final Cache<String, UserDetails> cache;
+	private final Counter invalidations;
+
+	public UserDetailsCache(MeterRegistry meterRegistry,
+			@Value("${security.user-cache.max-size:10000}") long maxSize,
+			@Value("${security.user-cache.ttl-seconds:300}") long ttlSeconds) {
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+				.recordStats()
+				.build();
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, "userDetails");
+		this.invalidations = Counter.builder("phantask.userdetails.invalidations")
+				.description("Cached user details dropped because the user changed")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Returns the cached details for {@code username}, calling {@code loader}
+	 * on a miss. Failed loads (unknown user) are not cached.
+	 */
+	public UserDetails get(String username, Function<String, UserDetails> loader) {
+		return cache.get(username, loader);
+	}
+
+	public void invalidate(String username) {
+		cache.invalidate(username);
+		invalidations.increment();
+	}
+
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+	public void onUserSecurityChanged(UserSecurityChangedEvent event) {
+		invalidate(event.username());
+	}
+}
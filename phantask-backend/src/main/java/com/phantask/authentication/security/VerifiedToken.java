@@ -0,0 +1,148 @@
+package com.phantask.authentication.security;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * The result of verifying a JWT once: signature checked, expiry checked and
+ * claims parsed.
+ *
+ * <p>
+ * Everything the request pipeline needs from a token is read out of the
+ * {@link Claims} a single time when the token is verified, so callers can ask
+ * for the username, type, roles or expiry as often as they like without
+ * touching the raw token again. Instances are immutable and safe to share
+ * between threads, which is what allows {@link VerifiedTokenCache} to hand the
+ * same instance to parallel requests carrying the same token.
+ * </p>
+ */
+public final class VerifiedToken {
+
+	private final String username;
+	private final String type;
+	private final RoleAuthorityRegistry.Roles roles;
+	private final Instant expiresAt;
+	private final Long uid;
+	private final Integer tokenVersion;
+	private final String tokenId;
+	private final String familyId;
+
+	private VerifiedToken(String username, String type, RoleAuthorityRegistry.Roles roles, Instant expiresAt, Long uid,
+			Integer tokenVersion, String tokenId, String familyId) {
+		this.username = username;
+		this.type = type;
+		this.roles = roles;
+		this.expiresAt = expiresAt;
+		this.uid = uid;
+		this.tokenVersion = tokenVersion;
+		this.tokenId = tokenId;
+		this.familyId = familyId;
+	}
+
+	/**
+	 * Builds a verified token from claims that have already passed signature and
+	 * expiry validation. Roles come from the "rm" bitmask claim, or from the
+	 * "roles" name array for tokens issued before masks were introduced.
+	 */
+	static VerifiedToken from(Claims claims, RoleAuthorityRegistry roleAuthorities) {
+		Long roleMask = claims.get("rm", Long.class);
+		RoleAuthorityRegistry.Roles roles;
+		if (roleMask != null) {
+			roles = roleAuthorities.resolve(roleMask);
+		} else {
+			Object rawRoles = claims.get("roles");
+			roles = roleAuthorities.resolve(rawRoles instanceof List<?> list
+					? list.stream().map(String::valueOf).toList()
+					: List.<String>of());
+		}
+
+		return new VerifiedToken(
+				claims.getSubject(),
+				claims.get("type", String.class),
+				roles,
+				claims.getExpiration().toInstant(),
+				claims.get("uid", Long.class),
+				claims.get("ver", Integer.class),
+				claims.getId(),
+				claims.get("fid", String.class));
+	}
+
+	public String getUsername() {
+		return username;
+	}
+
+	public String getType() {
+		return type;
+	}
+
+	public List<String> getRoles() {
+		return roles.names();
+	}
+
+	/**
+	 * Plain and {@code ROLE_} prefixed authorities for the token's roles. The
+	 * list is immutable and shared by all tokens with the same roles.
+	 */
+	public List<GrantedAuthority> getAuthorities() {
+		return roles.authorities();
+	}
+
+	public Instant getExpiresAt() {
+		return expiresAt;
+	}
+
+	/**
+	 * The user's id, or {@code null} for tokens issued before ids were embedded.
+	 */
+	public Long getUid() {
+		return uid;
+	}
+
+	/**
+	 * The user's token version at issue time, or {@code null} for tokens issued
+	 * before versions were embedded.
+	 */
+	public Integer getTokenVersion() {
+		return tokenVersion;
+	}
+
+	/**
+	 * Unique id ("jti") of a refresh token, or {@code null} for access tokens and
+	 * refresh tokens issued before ids were added.
+	 */
+	public String getTokenId() {
+		return tokenId;
+	}
+
+	/**
+	 * Id of the refresh-token family (one login session) this refresh token
+	 * belongs to.
+	 */
+	public String getFamilyId() {
+		return familyId;
+	}
+
+	/**
+	 * True if the token carries everything needed to authenticate a request
+	 * without loading the user from the database.
+	 */
+	public boolean hasEmbeddedIdentity() {
+		return uid != null && tokenVersion != null;
+	}
+
+	public boolean isExpired() {
+		return !expiresAt.isAfter(Instant.now());
+	}
+
+	public boolean isAccessToken() {
+		return "ACCESS".equals(type);
+	}
+
+	public boolean isRefreshToken() {
+		return "REFRESH".equals(type);
+	}
+}
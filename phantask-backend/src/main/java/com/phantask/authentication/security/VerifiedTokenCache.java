@@ -0,0 +1,86 @@
+package com.phantask.authentication.security;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+/**
+ * Size-bounded cache of tokens whose signature has already been verified.
+ *
+ * <p>
+ * Dashboards fire several API calls in parallel with the same access token.
+ * Without this cache every one of those requests would HMAC-verify and
+ * JSON-parse the token again. Entries are keyed by the SHA-256 digest of the
+ * complete token (header, payload and signature), so a hit means these exact
+ * bytes were verified before; a forged or modified token can never collide
+ * with a cached entry.
+ * </p>
+ *
+ * <p>
+ * Each entry expires at the token's own {@code exp} claim, so an expired token
+ * always falls through to a full parse, which then reports the expiry exactly
+ * as an uncached token would.
+ * </p>
+ */
+@Component
+public class VerifiedTokenCache {
+
+	private final Cache<String, VerifiedToken> cache;
+
+	public VerifiedTokenCache(@Value("${jwt.verified-cache.max-size:10000}") long maxSize) {
+		this.cache = Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfter(new Expiry<String, VerifiedToken>() {
+					@Override
+					public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+						return remainingNanos(value);
+					}
+
+					@Override
+					public long expireAfterUpdate(String key, VerifiedToken value, long currentTime,
+							long currentDuration) {
+						return remainingNanos(value);
+					}
+
+					@Override
+					public long expireAfterRead(String key, VerifiedToken value, long currentTime,
+							long currentDuration) {
+						return currentDuration;
+					}
+				})
+				.build();
+	}
+
+	/**
+	 * Returns the cached verification result for the token, running
+	 * {@code verifier} only when the token has not been seen (or has expired).
+	 *
+	 * <p>
+	 * Exceptions thrown by the verifier (expired or invalid tokens) propagate to
+	 * the caller and nothing is cached for that token.
+	 * </p>
+	 */
+	public VerifiedToken get(String token, Function<String, VerifiedToken> verifier) {
+		return cache.get(TokenDigests.sha256Hex(token), digest -> verifier.apply(token));
+	}
+
+	/**
+	 * Drops every cached verification result, forcing the next request for each
+	 * token to verify its signature again.
+	 */
+	public void invalidateAll() {
+		cache.invalidateAll();
+	}
+
+	private static long remainingNanos(VerifiedToken token) {
+		Duration remaining = Duration.between(Instant.now(), token.getExpiresAt());
+		return remaining.isNegative() ? 0 : remaining.toNanos();
+	}
+}
@@ -7,7 +7,9 @@ import com.phantask.authentication.dto.LoginRequest;
 public interface IAuthService {
 	Map<String, Object> login(LoginRequest req);
 
-	String refreshToken(String refreshToken);
+	Map<String, String> refreshToken(String refreshToken);
+
+	void logout(String refreshToken);
 	
 	public Map<String, Object> getCurrentUserProfile(String token);
 }
@@ -0,0 +1,42 @@
+package com.phantask.authentication.service.api;
+
+import com.phantask.authentication.entity.User;
+
+/**
+ * Server-side bookkeeping of issued refresh tokens.
+ *
+ * <p>
+ * Every refresh token belongs to a family (one login session). Using a refresh
+ * token consumes it and returns the next token of the same family; using a
+ * token a second time revokes the family, which logs out both the legitimate
+ * client and whoever copied the token.
+ * </p>
+ */
+public interface IRefreshTokenService {
+
+    /**
+     * Record a refresh token that was just issued at login.
+     *
+     * @param refreshToken the signed refresh token
+     * @param user         the user it was issued to
+     */
+    void register(String refreshToken, User user);
+
+    /**
+     * Consume a refresh token and issue its successor.
+     *
+     * @param refreshToken the presented (already signature-checked) refresh token
+     * @param user         the token's user
+     * @return the next refresh token of the same family
+     * @throws com.phantask.exception.InvalidRefreshTokenException if the token is
+     *         unknown, was already used, or its family is revoked
+     */
+    String rotate(String refreshToken, User user);
+
+    /**
+     * Revoke the family of the given refresh token (logout).
+     *
+     * @param refreshToken the signed refresh token
+     */
+    void revokeFamily(String refreshToken);
+}
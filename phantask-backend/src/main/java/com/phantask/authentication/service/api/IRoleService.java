@@ -17,6 +17,11 @@ public interface IRoleService {
      * @throws IllegalArgumentException if the role already exists
      */
     void addRole(String roleName);
+
+    /**
+     * Assign a token bit index to every role that does not have one yet.
+     */
+    void assignMissingBitIndexes();
     
     /**
      * Retrieve all roles in the system.
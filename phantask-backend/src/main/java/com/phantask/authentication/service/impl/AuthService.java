@@ -14,6 +14,7 @@ import com.phantask.authentication.entity.User;
 import com.phantask.authentication.repository.UserRepository;
 import com.phantask.authentication.security.JwtUtil;
 import com.phantask.authentication.service.api.IAuthService;
+import com.phantask.authentication.service.api.IRefreshTokenService;
 import com.phantask.exception.AccountDeactivatedException;
 
 import lombok.RequiredArgsConstructor;
@@ -24,7 +25,8 @@ import lombok.RequiredArgsConstructor;
  * Responsibilities:
  * - User login and password verification
  * - Access token and refresh token generation
- * - Refreshing access tokens
+ * - Refreshing access tokens (rotating the refresh token each time)
+ * - Revoking a login session on logout
  * - Providing basic user profile info from JWT
  */
 @Service
@@ -34,6 +36,7 @@ public class AuthService implements IAuthService {
     private final UserRepository userRepo;
     private final JwtUtil jwtUtil;
     private final AuthenticationManager authManager;
+    private final IRefreshTokenService refreshTokens;
 
     /**
      * Handles user login.
@@ -52,9 +55,11 @@ public class AuthService implements IAuthService {
 	        throw new AccountDeactivatedException("Account is deactivated. Please contact admin.");
 	    }
 	
-	    authManager.authenticate(
-	            new UsernamePasswordAuthenticationToken(req.getUsername(), req.getPassword())
-	    );
+	    // Hand the loaded user to the provider so it is not fetched a second time
+	    UsernamePasswordAuthenticationToken authRequest =
+	            new UsernamePasswordAuthenticationToken(req.getUsername(), req.getPassword());
+	    authRequest.setDetails(user);
+	    authManager.authenticate(authRequest);
 	
 	    if (user.isFirstLogin()) {
 	        return Map.of(
@@ -65,6 +70,7 @@ public class AuthService implements IAuthService {
 	
 	    String token = jwtUtil.generateAccessToken(user);
 	    String refreshToken = jwtUtil.generateRefreshToken(user);
+	    refreshTokens.register(refreshToken, user);
 	
 	    return Map.of(
 	            "token", token,
@@ -78,10 +84,11 @@ public class AuthService implements IAuthService {
     /**
      * Generates a new access token using a valid refresh token.
      * - Validates refresh token
-     * - Returns new access token
+     * - Consumes it and issues the next refresh token of the same session
+     * - Returns new access token and refresh token
      */
     @Override
-    public String refreshToken(String refreshToken) {
+    public Map<String, String> refreshToken(String refreshToken) {
 
         String username = jwtUtil.extractUsername(refreshToken);
         
@@ -94,7 +101,24 @@ public class AuthService implements IAuthService {
         if (!jwtUtil.isTokenValid(refreshToken, user)) {
             throw new RuntimeException("Refresh token expired. Please login again.");
         }
-        return jwtUtil.generateAccessToken(user);
+
+        String nextRefreshToken = refreshTokens.rotate(refreshToken, user);
+        return Map.of(
+                "token", jwtUtil.generateAccessToken(user),
+                "refreshToken", nextRefreshToken
+        );
+    }
+
+    /**
+     * Ends the login session the given refresh token belongs to. The token and
+     * every token rotated from it stop working immediately.
+     */
+    @Override
+    public void logout(String refreshToken) {
+        if (!jwtUtil.isRefreshToken(refreshToken)) {
+            throw new RuntimeException("Invalid token type. Only refresh tokens are allowed.");
+        }
+        refreshTokens.revokeFamily(refreshToken);
     }
     
     /**
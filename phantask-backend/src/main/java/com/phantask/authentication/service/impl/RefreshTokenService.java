@@ -0,0 +1,225 @@
+package com.phantask.authentication.service.impl;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.phantask.authentication.entity.RefreshToken;
+import com.phantask.authentication.entity.RefreshTokenFamily;
+import com.phantask.authentication.entity.User;
+import com.phantask.authentication.event.UserSecurityChangedEvent;
+import com.phantask.authentication.repository.RefreshTokenFamilyRepository;
+import com.phantask.authentication.repository.RefreshTokenRepository;
+import com.phantask.authentication.security.JwtUtil;
+import com.phantask.authentication.security.TokenDigests;
+import com.phantask.authentication.security.VerifiedToken;
+import com.phantask.authentication.service.api.IRefreshTokenService;
+import com.phantask.exception.InvalidRefreshTokenException;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Records issued refresh tokens in {@code refresh_tokens} /
+ * {@code refresh_token_families} and rotates them on every refresh.
+ *
+ * <p>
+ * Only the SHA-256 of a token's id is stored. Two in-memory indexes hold the
+ * facts that can never change once written, so they are safe to cache on any
+ * node:
+ * <ul>
+ *   <li>token hash → (family, user, expiry) of tokens issued but not yet
+ *       rotated on this node, which saves the lookup on the normal path;</li>
+ *   <li>families known to be revoked, which rejects replayed tokens without
+ *       touching the database.</li>
+ * </ul>
+ * Whether a token is still unused is always decided by a conditional
+ * {@code UPDATE ... WHERE used = false}, so two parallel refreshes with the
+ * same token cannot both succeed, on one node or many. Revoking a session is a
+ * single-row update of its family, no matter how many tokens it produced.
+ * </p>
+ *
+ * <p>
+ * A rotated token never outlives its family: the family keeps the expiry of
+ * the token issued at login, and every later token expires at the earlier of
+ * its normal lifetime and that instant, so a session still has to log in
+ * again at most 12 hours after it started.
+ * </p>
+ *
+ * <p>
+ * Expired rows are deleted in batches by {@link #purgeExpired()}; both queries
+ * it runs are served by the {@code expires_at} indexes.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RefreshTokenService implements IRefreshTokenService {
+
+    private static final String INVALID_MESSAGE = "Refresh token is no longer valid. Please login again.";
+
+    private final RefreshTokenRepository tokenRepo;
+    private final RefreshTokenFamilyRepository familyRepo;
+    private final JwtUtil jwtUtil;
+
+    private final ConcurrentMap<String, Entry> tokens = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LocalDateTime> revokedFamilies = new ConcurrentHashMap<>();
+
+    @Value("${security.refresh-tokens.purge-batch-size:500}")
+    private int purgeBatchSize = 500;
+
+    record Entry(String familyId, Long uid, LocalDateTime expiresAt) {
+    }
+
+    @Override
+    @Transactional
+    public void register(String refreshToken, User user) {
+        VerifiedToken verified = jwtUtil.verify(refreshToken);
+        LocalDateTime expiresAt = toLocal(verified.getExpiresAt());
+
+        RefreshTokenFamily family = new RefreshTokenFamily();
+        family.setFamilyId(verified.getFamilyId());
+        family.setUid(user.getUid());
+        family.setExpiresAt(expiresAt);
+        familyRepo.save(family);
+
+        save(verified, user, expiresAt);
+    }
+
+    @Override
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public String rotate(String refreshToken, User user) {
+        VerifiedToken verified = jwtUtil.verify(refreshToken);
+        if (verified.getTokenId() == null) {
+            // Issued before refresh tokens were tracked
+            throw new InvalidRefreshTokenException(INVALID_MESSAGE);
+        }
+
+        String hash = TokenDigests.sha256Hex(verified.getTokenId());
+        Entry entry = Optional.ofNullable(tokens.get(hash))
+                .or(() -> tokenRepo.findByTokenHash(hash)
+                        .map(t -> new Entry(t.getFamilyId(), t.getUid(), t.getExpiresAt())))
+                .filter(e -> e.uid().equals(user.getUid()))
+                .orElseThrow(() -> new InvalidRefreshTokenException(INVALID_MESSAGE));
+
+        String familyId = entry.familyId();
+        if (revokedFamilies.containsKey(familyId)) {
+            throw new InvalidRefreshTokenException(INVALID_MESSAGE);
+        }
+        RefreshTokenFamily family = familyRepo.findById(familyId).orElse(null);
+        if (family == null || family.isRevoked()) {
+            revokedFamilies.put(familyId, entry.expiresAt());
+            throw new InvalidRefreshTokenException(INVALID_MESSAGE);
+        }
+
+        if (tokenRepo.markUsed(hash) == 0) {
+            // The token was already exchanged once: someone else holds a copy
+            log.warn("Refresh token reuse detected for user {}; revoking session {}", user.getUid(), familyId);
+            familyRepo.revoke(familyId);
+            revokedFamilies.put(familyId, family.getExpiresAt());
+            tokens.remove(hash);
+            throw new InvalidRefreshTokenException(INVALID_MESSAGE);
+        }
+        tokens.remove(hash);
+
+        // The session ends when the token issued at login would have: rotating never extends it
+        String next = jwtUtil.generateRefreshToken(user, familyId,
+                family.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant());
+        VerifiedToken nextVerified = jwtUtil.verify(next);
+        save(nextVerified, user, toLocal(nextVerified.getExpiresAt()));
+        return next;
+    }
+
+    @Override
+    @Transactional
+    public void revokeFamily(String refreshToken) {
+        VerifiedToken verified = jwtUtil.verify(refreshToken);
+        String familyId = verified.getFamilyId();
+        if (familyId == null) {
+            return;
+        }
+        familyRepo.revoke(familyId);
+        revokedFamilies.put(familyId, toLocal(verified.getExpiresAt()));
+    }
+
+    /**
+     * A password change, reset or deactivation ends every session of the user.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onUserSecurityChanged(UserSecurityChangedEvent event) {
+        int revoked = familyRepo.revokeAllForUser(event.uid());
+        if (revoked > 0) {
+            log.info("Revoked {} refresh token session(s) of user {}", revoked, event.uid());
+        }
+    }
+
+    /**
+     * Deletes expired tokens and families in batches of
+     * {@code security.refresh-tokens.purge-batch-size}, each batch in its own
+     * short transaction, and drops expired entries from the in-memory indexes.
+     */
+    @Scheduled(fixedDelayString = "${security.refresh-tokens.purge-interval-ms:3600000}",
+            initialDelayString = "${security.refresh-tokens.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        PageRequest batch = PageRequest.ofSize(purgeBatchSize);
+
+        int deletedTokens = 0;
+        List<Long> tokenIds;
+        do {
+            tokenIds = tokenRepo.findExpiredIds(now, batch);
+            if (!tokenIds.isEmpty()) {
+                tokenRepo.deleteAllByIdInBatch(tokenIds);
+                deletedTokens += tokenIds.size();
+            }
+        } while (tokenIds.size() == purgeBatchSize);
+
+        int deletedFamilies = 0;
+        List<String> familyIds;
+        do {
+            familyIds = familyRepo.findExpiredIds(now, batch);
+            if (!familyIds.isEmpty()) {
+                familyRepo.deleteAllByIdInBatch(familyIds);
+                deletedFamilies += familyIds.size();
+            }
+        } while (familyIds.size() == purgeBatchSize);
+
+        tokens.values().removeIf(entry -> entry.expiresAt().isBefore(now));
+        revokedFamilies.values().removeIf(expiresAt -> expiresAt.isBefore(now));
+
+        if (deletedTokens > 0 || deletedFamilies > 0) {
+            log.info("Purged {} expired refresh token(s) and {} session(s)", deletedTokens, deletedFamilies);
+        }
+    }
+
+    private void save(VerifiedToken verified, User user, LocalDateTime expiresAt) {
+        String hash = TokenDigests.sha256Hex(verified.getTokenId());
+
+        RefreshToken token = new RefreshToken();
+        token.setTokenHash(hash);
+        token.setFamilyId(verified.getFamilyId());
+        token.setUid(user.getUid());
+        token.setExpiresAt(expiresAt);
+        tokenRepo.save(token);
+
+        tokens.put(hash, new Entry(verified.getFamilyId(), user.getUid(), expiresAt));
+    }
+
+    private static LocalDateTime toLocal(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import com.phantask.authentication.entity.Role;
 import com.phantask.authentication.repository.RoleRepository;
+import com.phantask.authentication.security.RoleAuthorityRegistry;
 import com.phantask.authentication.service.api.IRoleService;
 
 import lombok.RequiredArgsConstructor;
@@ -54,11 +55,41 @@ public class RoleService implements IRoleService {
         // Create and save new role
         Role role = new Role();
         role.setRoleName(normalizedRoleName);
+        role.setBitIndex(nextBitIndex());
         roleRepository.save(role);
         
         log.info("Successfully added new role: {}", normalizedRoleName);
     }
     
+    /**
+     * Give every role created before bit indexes existed its own index, in
+     * creation order. Runs once at startup; roles that already have an index
+     * keep it.
+     */
+    @Override
+    @Transactional
+    public void assignMissingBitIndexes() {
+        for (Role role : roleRepository.findByBitIndexIsNullOrderByRidAsc()) {
+            Integer bit = nextBitIndex();
+            if (bit == null) {
+                log.warn("No role bit left for role {}; its tokens will carry the role by name", role.getRoleName());
+                return;
+            }
+            role.setBitIndex(bit);
+            roleRepository.saveAndFlush(role);
+            log.info("Assigned bit index {} to role {}", bit, role.getRoleName());
+        }
+    }
+
+    /**
+     * Next unused bit index, or {@code null} once all bits of the token role
+     * mask are taken.
+     */
+    private Integer nextBitIndex() {
+        int next = roleRepository.findMaxBitIndex().map(max -> max + 1).orElse(0);
+        return next < RoleAuthorityRegistry.MAX_ROLE_BITS ? next : null;
+    }
+    
     /**
      * Retrieve all roles in the system.
      * 
@@ -8,6 +8,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -25,6 +26,7 @@ import com.phantask.authentication.dto.UserResponse;
 import com.phantask.authentication.entity.Role;
 import com.phantask.authentication.entity.User;
 import com.phantask.authentication.entity.UserProfile;
+import com.phantask.authentication.event.UserSecurityChangedEvent;
 import com.phantask.authentication.repository.RoleRepository;
 import com.phantask.authentication.repository.UserProfileRepository;
 import com.phantask.authentication.repository.UserRepository;
@@ -62,6 +64,7 @@ public class UserService implements IUserService {
     private final UserProfileRepository profileRepo;
     private final PasswordEncoder passwordEncoder;
     private final EmailService emailService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public UserDetails loadUserByUsername(String username) {
@@ -283,7 +286,15 @@ public class UserService implements IUserService {
         user.setPassword(passwordEncoder.encode(newPassword));
         user.setFirstLogin(false);
         user.setPasswordChangedAt(LocalDateTime.now());
+        user.bumpTokenVersion();
         userRepo.save(user);
+        publishSecurityChange(user);
+    }
+
+    //To revoke tokens already issued to the user once the change commits
+    private void publishSecurityChange(User user) {
+        eventPublisher.publishEvent(new UserSecurityChangedEvent(
+                user.getUid(), user.getUsername(), user.getTokenVersion(), user.isEnabled()));
     }
 
     /* 
@@ -374,8 +385,10 @@ public class UserService implements IUserService {
 
         user.setEnabled(false);
         user.setDeactivatedAt(LocalDateTime.now());
+        user.bumpTokenVersion();
 
-        userRepo.save(user);		
+        userRepo.save(user);
+        publishSecurityChange(user);
 	}
 
 	@Override
@@ -386,8 +399,10 @@ public class UserService implements IUserService {
 		
 		user.setEnabled(true);
 		user.setDeactivatedAt(null);
+		user.bumpTokenVersion();
 		
-		userRepo.save(user);		
+		userRepo.save(user);
+		publishSecurityChange(user);
 	}
 
 	@Override
@@ -499,8 +514,10 @@ public class UserService implements IUserService {
 	        user.setPassword(passwordEncoder.encode("Temp@123"));
 	        user.setFirstLogin(true);
 	        user.setPasswordChangedAt(null);
+	        user.bumpTokenVersion();
 	        User savedUser = userRepo.save(user);
 	        userRepo.flush(); // Force immediate commit to database
+	        publishSecurityChange(user);
 	        log.info("Password reset complete. FirstLogin set to: {}", savedUser.isFirstLogin());
 	    } else {
 	        log.info("Password reset SKIPPED - resetPassword was false");
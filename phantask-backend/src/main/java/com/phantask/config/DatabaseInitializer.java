@@ -4,12 +4,20 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import com.phantask.attendance.presence.PresenceIndex;
+import com.phantask.attendance.service.impl.AttendanceRollupStore;
+import com.phantask.authentication.service.api.IRoleService;
+
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Configuration class that runs initialization tasks on application startup.
- * Currently: delegates to AdminUserInitializerService to create default admin.
+ * Currently: delegates to AdminUserInitializerService to create default admin,
+ * then gives any role without a token bit index its index, relaxes legacy
+ * columns that would break inserts, builds the monthly attendance rollup
+ * if it has never been built, and loads today's attendance into the live
+ * presence index.
  */
 @Configuration
 @RequiredArgsConstructor
@@ -18,6 +26,10 @@ public class DatabaseInitializer {
 
     // Inject the service that handles admin user creation
     private final AdminUserInitializerService initService;
+    private final IRoleService roleService;
+    private final LegacySchemaCleanupService schemaCleanup;
+    private final AttendanceRollupStore attendanceRollup;
+    private final PresenceIndex presenceIndex;
 
     /**
      * CommandLineRunner bean that executes once when Spring Boot application starts.
@@ -28,6 +40,10 @@ public class DatabaseInitializer {
         return args -> {
             log.info("Running database initialization checks...");
             initService.createDefaultAdminIfNotExists();
+            roleService.assignMissingBitIndexes();
+            schemaCleanup.relaxRawAttendanceTokenColumn();
+            attendanceRollup.rebuildIfEmpty();
+            presenceIndex.rebuild();
             log.info("Database initialization complete.");
         };
     }
@@ -0,0 +1,47 @@
+package com.phantask.config;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Relaxes columns that Hibernate's {@code ddl-auto=update} leaves behind when
+ * an entity field is dropped, where keeping them as they are would break
+ * inserts. Columns are never dropped here: dropping is irreversible and would
+ * break a rollback to a build that still maps them, so that is left to a
+ * deliberate manual step.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LegacySchemaCleanupService {
+
+    private static final String NOT_NULL_COLUMN_SQL = """
+            SELECT COUNT(*) FROM information_schema.columns
+            WHERE table_schema = DATABASE() AND table_name = ? AND column_name = ? AND is_nullable = 'NO'""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Attendance tokens used to be stored raw in a NOT NULL LONGTEXT
+     * {@code token} column; only their hash is written now, so the old column
+     * is made nullable or every new token insert fails. Its data is kept.
+     * Once no deployed build maps the column it can be removed with
+     * {@code ALTER TABLE attendance_tokens DROP COLUMN token}.
+     */
+    public void relaxRawAttendanceTokenColumn() {
+        try {
+            Integer count = jdbcTemplate.queryForObject(NOT_NULL_COLUMN_SQL, Integer.class,
+                    "attendance_tokens", "token");
+            if (count != null && count > 0) {
+                jdbcTemplate.execute("ALTER TABLE attendance_tokens MODIFY COLUMN token LONGTEXT NULL");
+                log.info("Made legacy column attendance_tokens.token nullable");
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not check legacy column attendance_tokens.token: {}", e.getMessage());
+        }
+    }
+}
@@ -4,6 +4,7 @@ import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -27,6 +28,29 @@ public class GlobalExceptionHandler {
 				.body(Map.of("error", "Invalid username or password"));
 	}
 	
+	@ExceptionHandler(InvalidRefreshTokenException.class)
+	public ResponseEntity<Map<String, Object>> handleInvalidRefreshToken(InvalidRefreshTokenException ex) {
+		return ResponseEntity
+				.status(HttpStatus.UNAUTHORIZED)
+				.body(Map.of("message", ex.getMessage(), "code", "REFRESH_TOKEN_REVOKED"));
+	}
+
+	@ExceptionHandler(PasswordHashingBusyException.class)
+	public ResponseEntity<Map<String, Object>> handlePasswordHashingBusy(PasswordHashingBusyException ex) {
+		return ResponseEntity
+				.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+				.body(Map.of("error", ex.getMessage(), "code", "SERVER_BUSY"));
+	}
+
+	@ExceptionHandler(TooManyRequestsException.class)
+	public ResponseEntity<Map<String, Object>> handleTooManyRequests(TooManyRequestsException ex) {
+		return ResponseEntity
+				.status(HttpStatus.TOO_MANY_REQUESTS)
+				.header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+				.body(Map.of("error", ex.getMessage(), "code", "RATE_LIMITED"));
+	}
+
 	@ExceptionHandler(AttendanceAlreadyMarkedException.class)
     public ResponseEntity<Map<String, Object>> handleAttendanceAlreadyMarked(
             AttendanceAlreadyMarkedException ex) {
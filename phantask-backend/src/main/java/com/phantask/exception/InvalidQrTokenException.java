@@ -0,0 +1,13 @@
+package com.phantask.exception;
+
+/**
+ * Thrown when a scanned attendance QR token is unknown, already used or expired.
+ */
+public class InvalidQrTokenException extends RuntimeException {
+
+	private static final long serialVersionUID = 6170468870155923391L;
+
+	public InvalidQrTokenException(String message) {
+		super(message);
+	}
+}
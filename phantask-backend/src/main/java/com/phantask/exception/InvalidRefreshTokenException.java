@@ -0,0 +1,15 @@
+package com.phantask.exception;
+
+/**
+ * Thrown when a refresh token is structurally valid but no longer accepted by
+ * the server: unknown, already rotated, or belonging to a revoked session.
+ * Mapped to {@code 401 Unauthorized}; the client has to log in again.
+ */
+public class InvalidRefreshTokenException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public InvalidRefreshTokenException(String message) {
+		super(message);
+	}
+}
@@ -0,0 +1,22 @@
+package com.phantask.exception;
+
+/**
+ * Thrown when the password hashing pool is saturated and cannot accept more
+ * work. Mapped to {@code 503 Service Unavailable} with a {@code Retry-After}
+ * header so clients back off instead of piling up on the servlet threads.
+ */
+public class PasswordHashingBusyException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final long retryAfterSeconds;
+
+	public PasswordHashingBusyException(String message, long retryAfterSeconds) {
+		super(message);
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+
+	public long getRetryAfterSeconds() {
+		return retryAfterSeconds;
+	}
+}
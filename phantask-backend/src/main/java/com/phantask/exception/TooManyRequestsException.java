@@ -0,0 +1,21 @@
+package com.phantask.exception;
+
+/**
+ * Thrown when a client exceeds a rate limit. Mapped to
+ * {@code 429 Too Many Requests} with a {@code Retry-After} header.
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final long retryAfterSeconds;
+
+	public TooManyRequestsException(String message, long retryAfterSeconds) {
+		super(message);
+		this.retryAfterSeconds = retryAfterSeconds;
+	}
+
+	public long getRetryAfterSeconds() {
+		return retryAfterSeconds;
+	}
+}
@@ -10,8 +10,8 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
-import com.phantask.authentication.entity.User;
 import com.phantask.authentication.repository.UserRepository;
+import com.phantask.authentication.security.PhanTaskPrincipal;
 import com.phantask.helpline.dto.RaiseHelplineTicketDTO;
 import com.phantask.helpline.dto.ResolveHelplineTicketDTO;
 import com.phantask.helpline.entity.HelplineTicket;
@@ -31,7 +31,7 @@ public class HelplineTicketController {
 	// Service layer for helpline ticket business logic
 	private final HelplineTicketService helplineTicketService;
 
-	// Repository to fetch logged-in user details
+	// Repository to fetch details of the logged-in user that the principal does not carry
 	private final UserRepository userRepository;
 
 	// -------- Helper Method --------
@@ -52,16 +52,14 @@ public class HelplineTicketController {
 	 */
 	@PostMapping("/raise")
 	@PreAuthorize("isAuthenticated()")
-	public ResponseEntity<?> raiseTicket(@RequestBody RaiseHelplineTicketDTO dto, Authentication auth) {
+	public ResponseEntity<?> raiseTicket(@RequestBody RaiseHelplineTicketDTO dto, PhanTaskPrincipal principal) {
 		try {
-			String username = auth.getName();
-
-			// Fetch logged-in user
-			User user = userRepository.findByUsername(username)
+			// The ticket stores the raiser's email, which is not part of the principal
+			String email = userRepository.findEmailByUid(principal.getUid())
 					.orElseThrow(() -> new RuntimeException("User not found"));
 
 			// Delegate ticket creation to service layer
-			HelplineTicket ticket = helplineTicketService.raiseTicket(user.getUid(), user.getEmail(),
+			HelplineTicket ticket = helplineTicketService.raiseTicket(principal.getUid(), email,
 					dto.getAssignedRoleName(), dto.getDescription(), dto.getPriority());
 
 			// 200 OK with created ticket
@@ -83,20 +81,10 @@ public class HelplineTicketController {
 	 */
 	@GetMapping("/my/raised")
 	@PreAuthorize("isAuthenticated()")
-	public ResponseEntity<?> myRaised(Authentication auth) {
+	public ResponseEntity<?> myRaised(PhanTaskPrincipal principal) {
 		try {
-			String username = auth.getName();
-
-			// Null check for authentication
-			if (username == null || username.isEmpty()) {
-				return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Authentication required");
-			}
-
-			User user = userRepository.findByUsername(username)
-					.orElseThrow(() -> new RuntimeException("User not found"));
-
 			// Get tickets and ensure it's never null
-			List<HelplineTicket> tickets = helplineTicketService.getTicketsRaisedByUser(user.getUid());
+			List<HelplineTicket> tickets = helplineTicketService.getTicketsRaisedByUser(principal.getUid());
 
 			// Return empty list if null
 			if (tickets == null) {
@@ -163,17 +151,13 @@ public class HelplineTicketController {
 	@PutMapping("/resolve/{ticketId}")
 	@PreAuthorize("isAuthenticated()")
 	public ResponseEntity<?> resolveTicket(@PathVariable Long ticketId,
-			@RequestBody(required = false) ResolveHelplineTicketDTO dto, Authentication auth) {
+			@RequestBody(required = false) ResolveHelplineTicketDTO dto, PhanTaskPrincipal principal,
+			Authentication auth) {
 		try {
-			String username = auth.getName();
-
-			User user = userRepository.findByUsername(username)
-					.orElseThrow(() -> new RuntimeException("User not found"));
-
 			List<String> roles = getRolesFromAuth(auth);
 
 			// Delegate resolution logic to service layer
-			HelplineTicket resolvedTicket = helplineTicketService.resolveTicket(ticketId, user.getUid(), roles);
+			HelplineTicket resolvedTicket = helplineTicketService.resolveTicket(ticketId, principal.getUid(), roles);
 
 			return ResponseEntity.ok(resolvedTicket);
 
@@ -0,0 +1,118 @@
+package com.phantask.report.controller;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.phantask.authentication.security.PhanTaskPrincipal;
+import com.phantask.report.dto.ReportJobRequest;
+import com.phantask.report.dto.ReportJobResponse;
+import com.phantask.report.enums.ReportJobState;
+import com.phantask.report.enums.ReportType;
+import com.phantask.report.service.ReportJob;
+import com.phantask.report.service.ReportJobService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Background report jobs: submit, poll, download.
+ */
+@RestController
+@RequestMapping("/api/reports/jobs")
+@RequiredArgsConstructor
+public class ReportJobController {
+
+    private final ReportJobService reportJobs;
+
+    /**
+     * Admin/HR submits a report and gets the job to poll (202 Accepted).
+     * Feedback reports are admin only, like {@code /api/feedback/admin/report}.
+     */
+    @PostMapping
+    @PreAuthorize("hasAuthority('ADMIN') or hasAuthority('HR')")
+    public ResponseEntity<?> submit(@RequestBody ReportJobRequest request, PhanTaskPrincipal principal) {
+
+        if (request.getType() == ReportType.FEEDBACK && !principal.hasRole("ADMIN")) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", "Feedback reports are only available to admins"));
+        }
+
+        try {
+            ReportJob job = reportJobs.submit(request, principal);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/reports/jobs/" + job.getId()))
+                    .body(new ReportJobResponse(job));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Progress of a job the caller submitted.
+     */
+    @GetMapping("/{jobId}")
+    @PreAuthorize("hasAuthority('ADMIN') or hasAuthority('HR')")
+    public ResponseEntity<?> status(@PathVariable String jobId, PhanTaskPrincipal principal) {
+        Optional<ReportJob> job = reportJobs.find(jobId, principal);
+        if (job.isEmpty()) {
+            return notFound();
+        }
+        return ResponseEntity.ok(new ReportJobResponse(job.get()));
+    }
+
+    /**
+     * Result file of a completed job.
+     */
+    @GetMapping("/{jobId}/download")
+    @PreAuthorize("hasAuthority('ADMIN') or hasAuthority('HR')")
+    public ResponseEntity<?> download(@PathVariable String jobId, PhanTaskPrincipal principal) throws IOException {
+        Optional<ReportJob> found = reportJobs.find(jobId, principal);
+        if (found.isEmpty()) {
+            return notFound();
+        }
+
+        ReportJob job = found.get();
+        if (job.getState() != ReportJobState.COMPLETED) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "Report is not ready", "state", job.getState()));
+        }
+
+        Path file = job.getFile();
+        if (!Files.exists(file)) {
+            return notFound();
+        }
+
+        boolean csv = job.getType() == ReportType.ATTENDANCE_PERCENTAGE;
+        String filename = csv
+                ? "attendance_percentage.csv"
+                : "feedback_report_" + job.getRequest().getFeedbackId() + ReportJobService.extension(job.getType());
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + filename)
+                .contentType(csv ? MediaType.parseMediaType("text/csv; charset=UTF-8") : MediaType.APPLICATION_JSON)
+                .contentLength(Files.size(file))
+                .body(new FileSystemResource(file));
+    }
+
+    private static ResponseEntity<?> notFound() {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(Map.of("error", "Report job not found"));
+    }
+}
@@ -0,0 +1,20 @@
+package com.phantask.report.dto;
+
+import java.time.LocalDate;
+
+import com.phantask.report.enums.ReportType;
+
+import lombok.Data;
+
+/**
+ * Parameters of a report job. {@code ATTENDANCE_PERCENTAGE} uses the date
+ * range and optional user, {@code FEEDBACK} the feedback id.
+ */
+@Data
+public class ReportJobRequest {
+    private ReportType type;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Long userId;
+    private Long feedbackId;
+}
@@ -0,0 +1,42 @@
+package com.phantask.report.dto;
+
+import java.time.Instant;
+
+import com.phantask.report.enums.ReportJobState;
+import com.phantask.report.enums.ReportType;
+import com.phantask.report.service.ReportJob;
+
+import lombok.Getter;
+
+/**
+ * State of a report job as returned when it is submitted or polled.
+ */
+@Getter
+public class ReportJobResponse {
+
+    private final String jobId;
+    private final ReportType type;
+    private final ReportJobState state;
+    /** Rows written to the result so far. */
+    private final long processedRows;
+    private final Instant createdAt;
+    private final Instant startedAt;
+    private final Instant finishedAt;
+    private final String error;
+    /** Where to fetch the result once the job is COMPLETED. */
+    private final String downloadUrl;
+
+    public ReportJobResponse(ReportJob job) {
+        this.jobId = job.getId();
+        this.type = job.getType();
+        this.state = job.getState();
+        this.processedRows = job.getProcessedRows();
+        this.createdAt = job.getCreatedAt();
+        this.startedAt = job.getStartedAt();
+        this.finishedAt = job.getFinishedAt();
+        this.error = job.getError();
+        this.downloadUrl = job.getState() == ReportJobState.COMPLETED
+                ? "/api/reports/jobs/" + job.getId() + "/download"
+                : null;
+    }
+}
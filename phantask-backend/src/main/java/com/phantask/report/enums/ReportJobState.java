@@ -0,0 +1,12 @@
+package com.phantask.report.enums;
+
+public enum ReportJobState {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED;
+
+    public boolean isFinished() {
+        return this == COMPLETED || this == FAILED;
+    }
+}
@@ -0,0 +1,11 @@
+package com.phantask.report.enums;
+
+/**
+ * Reports that can be produced by a report job.
+ */
+public enum ReportType {
+    /** Attendance percentage per user over a date range, as CSV. */
+    ATTENDANCE_PERCENTAGE,
+    /** Aggregated ratings of one feedback form, as JSON. */
+    FEEDBACK
+}
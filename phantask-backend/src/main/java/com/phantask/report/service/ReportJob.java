@@ -0,0 +1,77 @@
+package com.phantask.report.service;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.phantask.report.dto.ReportJobRequest;
+import com.phantask.report.enums.ReportJobState;
+import com.phantask.report.enums.ReportType;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * One report being produced, or produced, by {@link ReportJobService}. Held
+ * in memory only; the result lives in a file on local disk until the job
+ * expires.
+ */
+@Getter
+public class ReportJob {
+
+    private final String id;
+    /** Identifies identical requests, see {@link ReportJobService#dedupKey}. */
+    private final String key;
+    private final ReportType type;
+    private final ReportJobRequest request;
+    /** User whose concurrency limit the job counts against. */
+    private final String owner;
+    /** Every user that submitted these parameters and may read the job. */
+    private final Set<String> requesters = ConcurrentHashMap.newKeySet();
+    private final Instant createdAt;
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong rows = new AtomicLong();
+
+    private volatile ReportJobState state = ReportJobState.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+    private volatile Path file;
+
+    ReportJob(String id, String key, ReportJobRequest request, String owner, Instant createdAt) {
+        this.id = id;
+        this.key = key;
+        this.type = request.getType();
+        this.request = request;
+        this.owner = owner;
+        this.createdAt = createdAt;
+        this.requesters.add(owner);
+    }
+
+    public long getProcessedRows() {
+        return rows.get();
+    }
+
+    void started(Instant at) {
+        startedAt = at;
+        state = ReportJobState.RUNNING;
+    }
+
+    void rowWritten() {
+        rows.incrementAndGet();
+    }
+
+    void completed(Path result, Instant at) {
+        file = result;
+        finishedAt = at;
+        state = ReportJobState.COMPLETED;
+    }
+
+    void failed(String message, Instant at) {
+        error = message;
+        finishedAt = at;
+        state = ReportJobState.FAILED;
+    }
+}
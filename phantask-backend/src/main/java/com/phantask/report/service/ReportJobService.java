@@ -0,0 +1,332 @@
+package com.phantask.report.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.phantask.attendance.service.impl.AttendancePercentageCsvWriter;
+import com.phantask.authentication.security.PhanTaskPrincipal;
+import com.phantask.exception.TooManyRequestsException;
+import com.phantask.feedback.service.FeedbackService;
+import com.phantask.report.dto.ReportJobRequest;
+import com.phantask.report.enums.ReportType;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs long HR reports in the background so no HTTP request waits for them:
+ * a report is submitted, polled, and downloaded from a file on local disk
+ * once it is complete.
+ *
+ * <p>
+ * Jobs run on a fixed pool of {@code report.jobs.threads} workers with a
+ * queue of {@code report.jobs.queue-capacity}; when the queue is full, or a
+ * user already has {@code report.jobs.per-user-limit} jobs queued or running,
+ * a submission is refused with {@link TooManyRequestsException}. A request
+ * with the same parameters as a queued or running job returns that job
+ * instead of starting another one. A finished job is never reused, since
+ * the data behind it may have changed since; its result stays downloadable
+ * by its requesters until it expires.
+ * </p>
+ *
+ * <p>
+ * Results are written to {@code <id>.part} and renamed when complete, so a
+ * partial file is never served. Finished jobs and their files are removed
+ * {@code report.jobs.ttl-minutes} after they finish; files left behind by an
+ * earlier run of the application are removed once they are as old. Jobs are
+ * held in memory, so they are local to one instance.
+ * </p>
+ *
+ * <p>
+ * Metrics: {@code phantask.reports.jobs.duration} (timer, tagged with
+ * {@code type} and {@code outcome}), {@code phantask.reports.jobs.queued}
+ * and {@code phantask.reports.jobs.running}.
+ * </p>
+ */
+@Service
+@Slf4j
+public class ReportJobService {
+
+    private static final long RETRY_AFTER_SECONDS = 30;
+
+    private final AttendancePercentageCsvWriter attendanceCsv;
+    private final FeedbackService feedbackService;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Path dir;
+    private final int perUserLimit;
+    private final Duration ttl;
+    private final LongSupplier clock;
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, ReportJob> byId = new ConcurrentHashMap<>();
+    private final Map<String, ReportJob> byKey = new ConcurrentHashMap<>();
+    /** Queued or running jobs per owner; guarded by {@code this}. */
+    private final Map<String, Integer> activeByOwner = new HashMap<>();
+
+    @Autowired
+    public ReportJobService(AttendancePercentageCsvWriter attendanceCsv, FeedbackService feedbackService,
+            ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${report.jobs.dir:${java.io.tmpdir}/phantask-reports}") String dir,
+            @Value("${report.jobs.threads:2}") int threads,
+            @Value("${report.jobs.queue-capacity:20}") int queueCapacity,
+            @Value("${report.jobs.per-user-limit:2}") int perUserLimit,
+            @Value("${report.jobs.ttl-minutes:60}") long ttlMinutes) {
+        this(attendanceCsv, feedbackService, objectMapper, meterRegistry, Paths.get(dir), threads, queueCapacity,
+                perUserLimit, Duration.ofMinutes(ttlMinutes), System::currentTimeMillis);
+    }
+
+    ReportJobService(AttendancePercentageCsvWriter attendanceCsv, FeedbackService feedbackService,
+            ObjectMapper objectMapper, MeterRegistry meterRegistry, Path dir, int threads, int queueCapacity,
+            int perUserLimit, Duration ttl, LongSupplier clock) {
+        this.attendanceCsv = attendanceCsv;
+        this.feedbackService = feedbackService;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.dir = dir;
+        this.perUserLimit = perUserLimit;
+        this.ttl = ttl;
+        this.clock = clock;
+
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create report directory " + dir, e);
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "report-job-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("phantask.reports.jobs.queued", executor, e -> e.getQueue().size())
+                .description("Report jobs waiting for a worker")
+                .register(meterRegistry);
+        Gauge.builder("phantask.reports.jobs.running", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Report jobs currently running")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts a report job, or returns the queued or running job for the same
+     * parameters.
+     *
+     * @throws IllegalArgumentException if the request is incomplete
+     * @throws TooManyRequestsException if the user or the queue is at its limit
+     */
+    public ReportJob submit(ReportJobRequest request, PhanTaskPrincipal principal) {
+        validate(request);
+        String key = dedupKey(request);
+        String owner = principal.getUsername();
+
+        synchronized (this) {
+            ReportJob existing = byKey.get(key);
+            if (existing != null && !existing.getState().isFinished()) {
+                existing.getRequesters().add(owner);
+                return existing;
+            }
+            if (activeByOwner.getOrDefault(owner, 0) >= perUserLimit) {
+                throw new TooManyRequestsException(
+                        "You already have " + perUserLimit + " reports in progress, please wait for one to finish",
+                        RETRY_AFTER_SECONDS);
+            }
+
+            ReportJob job = new ReportJob(UUID.randomUUID().toString(), key, request, owner, now());
+            byId.put(job.getId(), job);
+            byKey.put(key, job);
+            activeByOwner.merge(owner, 1, Integer::sum);
+            try {
+                executor.execute(() -> run(job));
+            } catch (RejectedExecutionException e) {
+                byId.remove(job.getId());
+                byKey.remove(key, job);
+                release(owner);
+                throw new TooManyRequestsException("Too many reports are being generated, please try again later",
+                        RETRY_AFTER_SECONDS);
+            }
+            log.info("Report job {} ({}) submitted by {}", job.getId(), job.getType(), owner);
+            return job;
+        }
+    }
+
+    /**
+     * Returns the job if it exists and {@code principal} submitted it or is
+     * an admin.
+     */
+    public Optional<ReportJob> find(String jobId, PhanTaskPrincipal principal) {
+        return Optional.ofNullable(byId.get(jobId))
+                .filter(job -> job.getRequesters().contains(principal.getUsername())
+                        || principal.hasRole("ADMIN"));
+    }
+
+    /**
+     * Deletes finished jobs, and result files, older than the TTL.
+     */
+    @Scheduled(fixedDelayString = "${report.jobs.cleanup-interval-ms:60000}")
+    public void purgeExpired() {
+        Instant cutoff = now().minus(ttl);
+
+        for (ReportJob job : byId.values()) {
+            if (job.getState().isFinished() && job.getFinishedAt().isBefore(cutoff)) {
+                byId.remove(job.getId());
+                byKey.remove(job.getKey(), job);
+                if (job.getFile() != null) {
+                    deleteQuietly(job.getFile());
+                }
+            }
+        }
+
+        // Files of jobs this instance does not know, e.g. from before a restart
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(file -> !byId.containsKey(jobIdOf(file)))
+                    .filter(file -> isOlderThan(file, cutoff))
+                    .forEach(ReportJobService::deleteQuietly);
+        } catch (IOException e) {
+            log.warn("Could not list report directory {}", dir, e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Jobs with equal keys produce the same report.
+     */
+    static String dedupKey(ReportJobRequest request) {
+        return switch (request.getType()) {
+            case ATTENDANCE_PERCENTAGE -> request.getType() + ":" + request.getStartDate() + ":"
+                    + request.getEndDate() + ":" + request.getUserId();
+            case FEEDBACK -> request.getType() + ":" + request.getFeedbackId();
+        };
+    }
+
+    private static void validate(ReportJobRequest request) {
+        if (request.getType() == null) {
+            throw new IllegalArgumentException("Report type is required");
+        }
+        if (request.getType() == ReportType.ATTENDANCE_PERCENTAGE) {
+            if (request.getStartDate() == null || request.getEndDate() == null) {
+                throw new IllegalArgumentException("startDate and endDate are required");
+            }
+            if (request.getStartDate().isAfter(request.getEndDate())) {
+                throw new IllegalArgumentException("startDate must not be after endDate");
+            }
+        } else if (request.getFeedbackId() == null) {
+            throw new IllegalArgumentException("feedbackId is required");
+        }
+    }
+
+    private void run(ReportJob job) {
+        long start = System.nanoTime();
+        job.started(now());
+        Path part = dir.resolve(job.getId() + ".part");
+        String outcome = "completed";
+        try {
+            try (OutputStream out = Files.newOutputStream(part)) {
+                write(job, out);
+            }
+            Path result = dir.resolve(job.getId() + extension(job.getType()));
+            Files.move(part, result, StandardCopyOption.ATOMIC_MOVE);
+            // Free the owner's slot before the job is seen as finished, so a
+            // client that polls COMPLETED can submit again right away
+            release(job.getOwner());
+            job.completed(result, now());
+            log.info("Report job {} completed with {} row(s)", job.getId(), job.getProcessedRows());
+        } catch (Exception e) {
+            outcome = "failed";
+            deleteQuietly(part);
+            release(job.getOwner());
+            job.failed(e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage(), now());
+            log.warn("Report job {} failed", job.getId(), e);
+        } finally {
+            Timer.builder("phantask.reports.jobs.duration")
+                    .description("Time taken to produce a report")
+                    .tag("type", job.getType().name())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void write(ReportJob job, OutputStream out) throws IOException {
+        ReportJobRequest request = job.getRequest();
+        switch (job.getType()) {
+            case ATTENDANCE_PERCENTAGE -> attendanceCsv.write(request.getStartDate(), request.getEndDate(),
+                    request.getUserId(), out, job::rowWritten);
+            case FEEDBACK -> {
+                objectMapper.writeValue(out, feedbackService.getReport(request.getFeedbackId()));
+                job.rowWritten();
+            }
+        }
+    }
+
+    /**
+     * File name extension of a report's result.
+     */
+    public static String extension(ReportType type) {
+        return type == ReportType.ATTENDANCE_PERCENTAGE ? ".csv" : ".json";
+    }
+
+    private synchronized void release(String owner) {
+        activeByOwner.computeIfPresent(owner, (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private Instant now() {
+        return Instant.ofEpochMilli(clock.getAsLong());
+    }
+
+    private static String jobIdOf(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? name : name.substring(0, dot);
+    }
+
+    private static boolean isOlderThan(Path file, Instant cutoff) {
+        try {
+            return Files.getLastModifiedTime(file).toInstant().isBefore(cutoff);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete report file {}", file, e);
+        }
+    }
+}
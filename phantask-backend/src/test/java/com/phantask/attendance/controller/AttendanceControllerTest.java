@@ -1,24 +1,34 @@
 package com.phantask.attendance.controller;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -29,14 +39,23 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.phantask.attendance.dto.AttendancePercentageResponse;
+import com.phantask.attendance.dto.AttendanceCalendarDay;
+import com.phantask.attendance.dto.AttendanceCalendarResponse;
+import com.phantask.attendance.dto.AttendanceRecordPage;
+import com.phantask.attendance.dto.AttendanceRecordView;
 import com.phantask.attendance.dto.AttendanceReportRequest;
+import com.phantask.attendance.dto.AttendanceStreakResponse;
 import com.phantask.attendance.entity.Attendance;
 import com.phantask.attendance.enums.AttendanceStatus;
+import com.phantask.attendance.enums.CalendarDayStatus;
 import com.phantask.attendance.service.IAttendanceService;
 import com.phantask.authentication.entity.User;
+import com.phantask.exception.AttendanceAlreadyMarkedException;
+import com.phantask.exception.InvalidQrTokenException;
 
 import io.jsonwebtoken.ExpiredJwtException;
 
@@ -82,7 +101,7 @@ class AttendanceControllerTest {
     void registerToken_WithValidToken_ShouldReturn200() throws Exception {
         // Arrange
         String jsonRequest = "{\"token\":\"valid-token\"}";
-        doNothing().when(attendanceService).registerQrToken("valid-token");
+        doNothing().when(attendanceService).registerQrToken(any(), eq("valid-token"));
 
         // Act & Assert
         mockMvc.perform(post("/api/attendance/token/register")
@@ -91,7 +110,7 @@ class AttendanceControllerTest {
                 .content(jsonRequest))
                 .andExpect(status().isOk());
 
-        verify(attendanceService).registerQrToken("valid-token");
+        verify(attendanceService).registerQrToken(any(), eq("valid-token"));
     }
 
     @Test
@@ -106,7 +125,7 @@ class AttendanceControllerTest {
                 .content(jsonRequest))
         		.andExpect(status().isForbidden());
 
-        verify(attendanceService, never()).registerQrToken(anyString());
+        verify(attendanceService, never()).registerQrToken(any(), anyString());
     }
 
     // ==================== POST /api/attendance/mark Tests ====================
@@ -246,6 +265,40 @@ class AttendanceControllerTest {
                 .andExpect(jsonPath("$.error").value("Invalid token"));
     }
 
+    @Test
+    @WithMockUser(authorities = "ADMIN")
+    void markAttendance_WithUsedQrToken_ShouldReturn403() throws Exception {
+        // Arrange
+        String jsonRequest = "{\"token\":\"used-token\"}";
+        when(attendanceService.markAttendance("used-token"))
+                .thenThrow(new InvalidQrTokenException("Invalid or used QR token"));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/attendance/mark")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(jsonRequest))
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.error").value("Invalid or used QR token"));
+    }
+
+    @Test
+    @WithMockUser(authorities = "ADMIN")
+    void markAttendance_WhenAttendanceCompleted_ShouldReturn409() throws Exception {
+        // Arrange
+        String jsonRequest = "{\"token\":\"valid-token\"}";
+        when(attendanceService.markAttendance("valid-token"))
+                .thenThrow(new AttendanceAlreadyMarkedException("Attendance already completed"));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/attendance/mark")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(jsonRequest))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("Attendance already completed"));
+    }
+
     @Test
     @WithMockUser(authorities = "ADMIN")
     void markAttendance_WithServiceException_ShouldReturn500() throws Exception {
@@ -270,7 +323,7 @@ class AttendanceControllerTest {
     void getMyAttendance_WithAuthentication_ShouldReturn200() throws Exception {
         // Arrange
         List<Attendance> attendances = Arrays.asList(testAttendance);
-        when(attendanceService.getMyAttendance()).thenReturn(attendances);
+        when(attendanceService.getMyAttendance(any())).thenReturn(attendances);
 
         // Act & Assert
         mockMvc.perform(get("/api/attendance/my"))
@@ -278,7 +331,7 @@ class AttendanceControllerTest {
                 .andExpect(jsonPath("$").isArray())
                 .andExpect(jsonPath("$.length()").value(1));
 
-        verify(attendanceService).getMyAttendance();
+        verify(attendanceService).getMyAttendance(any());
     }
 
     @Test
@@ -287,14 +340,14 @@ class AttendanceControllerTest {
         mockMvc.perform(get("/api/attendance/my"))
         		.andExpect(status().isForbidden());
 
-        verify(attendanceService, never()).getMyAttendance();
+        verify(attendanceService, never()).getMyAttendance(any());
     }
 
     @Test
     @WithMockUser(username = "testuser")
     void getMyAttendance_WithNoRecords_ShouldReturnEmptyArray() throws Exception {
         // Arrange
-        when(attendanceService.getMyAttendance()).thenReturn(Collections.emptyList());
+        when(attendanceService.getMyAttendance(any())).thenReturn(Collections.emptyList());
 
         // Act & Assert
         mockMvc.perform(get("/api/attendance/my"))
@@ -312,7 +365,7 @@ class AttendanceControllerTest {
         AttendancePercentageResponse response = new AttendancePercentageResponse(
             1L, "testuser", 10, 8, 2, 0, 80.0
         );
-        when(attendanceService.getMyAttendancePercentage()).thenReturn(response);
+        when(attendanceService.getMyAttendancePercentage(any())).thenReturn(response);
 
         // Act & Assert
         mockMvc.perform(get("/api/attendance/percentage/my"))
@@ -323,7 +376,7 @@ class AttendanceControllerTest {
                 .andExpect(jsonPath("$.presentDays").value(8))
                 .andExpect(jsonPath("$.attendancePercentage").value(80.0));
 
-        verify(attendanceService).getMyAttendancePercentage();
+        verify(attendanceService).getMyAttendancePercentage(any());
     }
 
     @Test
@@ -333,8 +386,105 @@ class AttendanceControllerTest {
         		.andExpect(status().isForbidden());
     }
 
+    // ==================== GET /api/attendance/my/records Tests ====================
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void myAttendanceRecords_WithRangeAndCursor_ShouldReturnPage() throws Exception {
+        // Arrange
+        AttendanceRecordPage page = new AttendanceRecordPage(List.of(
+            new AttendanceRecordView(LocalDate.of(2026, 3, 9), AttendanceStatus.CHECKED_OUT,
+                    LocalDate.of(2026, 3, 9).atTime(9, 0), LocalDate.of(2026, 3, 9).atTime(18, 0))
+        ), LocalDate.of(2026, 3, 9));
+        when(attendanceService.getMyAttendanceRecords(any(), eq(LocalDate.of(2026, 1, 1)),
+                eq(LocalDate.of(2026, 3, 31)), eq(LocalDate.of(2026, 3, 10)), eq(1))).thenReturn(page);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/attendance/my/records")
+                .param("startDate", "2026-01-01")
+                .param("endDate", "2026-03-31")
+                .param("before", "2026-03-10")
+                .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.records[0].date").value("2026-03-09"))
+                .andExpect(jsonPath("$.records[0].status").value("CHECKED_OUT"))
+                .andExpect(jsonPath("$.records[0].user").doesNotExist())
+                .andExpect(jsonPath("$.nextBefore").value("2026-03-09"));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void myAttendanceRecords_WithOversizedPage_ShouldReturn400() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/attendance/my/records").param("size", "5000"))
+                .andExpect(status().isBadRequest());
+
+        verify(attendanceService, never()).getMyAttendanceRecords(any(), any(), any(), any(), anyInt());
+    }
+
+    // ==================== GET /api/attendance/my/calendar, /my/streak Tests ====================
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void myCalendar_WithMonth_ShouldReturnDays() throws Exception {
+        // Arrange
+        AttendanceCalendarResponse response = new AttendanceCalendarResponse(2026, 3, 1, 0, 1, 0, List.of(
+            new AttendanceCalendarDay(LocalDate.of(2026, 3, 2), CalendarDayStatus.PRESENT),
+            new AttendanceCalendarDay(LocalDate.of(2026, 3, 3), CalendarDayStatus.ABSENT)
+        ));
+        when(attendanceService.getMyCalendar(any(), eq(YearMonth.of(2026, 3)))).thenReturn(response);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/attendance/my/calendar").param("year", "2026").param("month", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.presentDays").value(1))
+                .andExpect(jsonPath("$.days.length()").value(2))
+                .andExpect(jsonPath("$.days[1].date").value("2026-03-03"))
+                .andExpect(jsonPath("$.days[1].status").value("ABSENT"));
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void myCalendar_WithInvalidMonth_ShouldReturn400() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/attendance/my/calendar").param("year", "2026").param("month", "13"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").exists());
+
+        verify(attendanceService, never()).getMyCalendar(any(), any());
+    }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    void myStreak_WithAuthentication_ShouldReturn200() throws Exception {
+        // Arrange
+        when(attendanceService.getMyStreak(any())).thenReturn(
+                new AttendanceStreakResponse(5, LocalDate.of(2026, 3, 6), LocalDate.of(2026, 3, 10)));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/attendance/my/streak"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.currentStreak").value(5))
+                .andExpect(jsonPath("$.since").value("2026-03-06"));
+    }
+
+    @Test
+    void myStreak_WithoutAuthentication_ShouldReturn401() throws Exception {
+        // Act & Assert
+        mockMvc.perform(get("/api/attendance/my/streak"))
+                .andExpect(status().isForbidden());
+    }
+
     // ==================== POST /api/attendance/percentage/download Tests ====================
 
+    private void streamReport(List<AttendancePercentageResponse> data) {
+        doAnswer(invocation -> {
+            Consumer<AttendancePercentageResponse> action = invocation.getArgument(3);
+            data.forEach(action);
+            return null;
+        }).when(attendanceService).streamAttendancePercentage(any(), any(), any(), any());
+    }
+
     @Test
     @WithMockUser(authorities = "ADMIN")
     void downloadAttendancePercentage_WithAdminRole_ShouldReturn200() throws Exception {
@@ -343,29 +493,32 @@ class AttendanceControllerTest {
         request.setStartDate(LocalDate.now().minusDays(7));
         request.setEndDate(LocalDate.now());
         
-        List<AttendancePercentageResponse> data = Arrays.asList(
+        streamReport(Arrays.asList(
             new AttendancePercentageResponse(1L, "user1", 7, 6, 1, 0, 85.71)
-        );
-        
-        when(attendanceService.getAttendancePercentage(any(), any(), any()))
-                .thenReturn(data);
+        ));
 
         // Act & Assert
-        mockMvc.perform(post("/api/attendance/percentage/download")
+        MvcResult result = mockMvc.perform(post("/api/attendance/percentage/download")
                 .with(csrf())
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(header().string("Content-Disposition", 
                     "attachment; filename=attendance_percentage.csv"))
-                .andExpect(header().string("Content-Type", "text/csv"))
+                .andExpect(header().string("Content-Type", "text/csv; charset=UTF-8"))
+                .andExpect(header().doesNotExist("Content-Encoding"))
                 .andExpect(content().string(org.hamcrest.Matchers.containsString("User ID")))
                 .andExpect(content().string(org.hamcrest.Matchers.containsString("Username")));
 
-        verify(attendanceService).getAttendancePercentage(
-            request.getStartDate(), 
-            request.getEndDate(), 
-            null
+        verify(attendanceService).streamAttendancePercentage(
+            eq(request.getStartDate()), 
+            eq(request.getEndDate()), 
+            eq(null),
+            any()
         );
     }
 
@@ -378,15 +531,42 @@ class AttendanceControllerTest {
         request.setEndDate(LocalDate.now());
         request.setUserId(1L);
         
-        when(attendanceService.getAttendancePercentage(any(), any(), eq(1L)))
-                .thenReturn(Collections.emptyList());
+        streamReport(Collections.emptyList());
 
         // Act & Assert
-        mockMvc.perform(post("/api/attendance/percentage/download")
+        MvcResult result = mockMvc.perform(post("/api/attendance/percentage/download")
                 .with(csrf())
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk());
+
+        verify(attendanceService).streamAttendancePercentage(any(), any(), eq(1L), any());
+    }
+
+    @Test
+    @WithMockUser(authorities = "ADMIN")
+    void downloadAttendancePercentage_ShouldUseTheExportTimeout() throws Exception {
+        // Arrange
+        AttendanceReportRequest request = new AttendanceReportRequest();
+        request.setStartDate(LocalDate.now().minusDays(7));
+        request.setEndDate(LocalDate.now());
+
+        streamReport(Collections.emptyList());
+
+        // Act
+        MvcResult result = mockMvc.perform(post("/api/attendance/percentage/download")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert - attendance.export.timeout-ms, not the application-wide async timeout
+        assertEquals(600000L, result.getRequest().getAsyncContext().getTimeout());
     }
 
     @Test
@@ -404,7 +584,7 @@ class AttendanceControllerTest {
                 .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isForbidden());
 
-        verify(attendanceService, never()).getAttendancePercentage(any(), any(), any());
+        verify(attendanceService, never()).streamAttendancePercentage(any(), any(), any(), any());
     }
 
     @Test
@@ -415,18 +595,18 @@ class AttendanceControllerTest {
         request.setStartDate(LocalDate.now().minusDays(7));
         request.setEndDate(LocalDate.now());
         
-        List<AttendancePercentageResponse> data = Arrays.asList(
+        streamReport(Arrays.asList(
             new AttendancePercentageResponse(1L, "user1", 7, 6, 1, 0, 85.71)
-        );
-        
-        when(attendanceService.getAttendancePercentage(any(), any(), any()))
-                .thenReturn(data);
+        ));
 
         // Act & Assert
-        mockMvc.perform(post("/api/attendance/percentage/download")
+        MvcResult result = mockMvc.perform(post("/api/attendance/percentage/download")
                 .with(csrf())
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(request)))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(content().string(org.hamcrest.Matchers.containsString("Total Days")))
                 .andExpect(content().string(org.hamcrest.Matchers.containsString("Present Days")))
@@ -435,4 +615,53 @@ class AttendanceControllerTest {
                 .andExpect(content().string(org.hamcrest.Matchers.containsString("Attendance Percentage")))
                 .andExpect(content().string(org.hamcrest.Matchers.containsString("1,user1,7,6,1,0,85.71")));
     }
+
+    @Test
+    @WithMockUser(authorities = "ADMIN")
+    void downloadAttendancePercentage_AcceptingGzip_ShouldCompressTheCsv() throws Exception {
+        // Arrange
+        AttendanceReportRequest request = new AttendanceReportRequest();
+        request.setStartDate(LocalDate.now().minusDays(7));
+        request.setEndDate(LocalDate.now());
+
+        streamReport(Arrays.asList(
+            new AttendancePercentageResponse(1L, "user1", 7, 6, 1, 0, 85.71)
+        ));
+
+        // Act
+        MvcResult result = mockMvc.perform(post("/api/attendance/percentage/download")
+                .with(csrf())
+                .header("Accept-Encoding", "gzip, deflate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andReturn();
+
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // Assert
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            String csv = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            org.hamcrest.MatcherAssert.assertThat(csv,
+                org.hamcrest.Matchers.containsString("1,user1,7,6,1,0,85.71"));
+        }
+    }
+
+    // ==================== GET /api/attendance/live Tests ====================
+
+    @Test
+    @WithMockUser(authorities = "HR")
+    void live_WithHrRole_ShouldStartEventStream() throws Exception {
+        mockMvc.perform(get("/api/attendance/live").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+    }
+
+    @Test
+    @WithMockUser(authorities = "USER")
+    void live_WithUserRole_ShouldReturn403() throws Exception {
+        mockMvc.perform(get("/api/attendance/live").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isForbidden());
+    }
 }
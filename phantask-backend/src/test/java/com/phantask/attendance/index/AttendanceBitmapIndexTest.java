@@ -0,0 +1,169 @@
+package com.phantask.attendance.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.phantask.attendance.dto.AttendanceDay;
+import com.phantask.attendance.dto.AttendanceStreakResponse;
+import com.phantask.attendance.enums.AttendanceStatus;
+import com.phantask.attendance.enums.CalendarDayStatus;
+import com.phantask.attendance.event.AttendanceMarkedEvent;
+import com.phantask.attendance.repository.AttendanceRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for AttendanceBitmapIndex and AttendanceYearBits
+ */
+class AttendanceBitmapIndexTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 1, 3);
+
+    private AttendanceRepository attendanceRepo;
+    private AttendanceBitmapIndex index;
+
+    @BeforeEach
+    void setUp() {
+        attendanceRepo = mock(AttendanceRepository.class);
+        index = new AttendanceBitmapIndex(attendanceRepo, new SimpleMeterRegistry(), 100, 60);
+    }
+
+    private void givenYear(int year, List<AttendanceDay> days) {
+        when(attendanceRepo.findDays(eq(1L), eq(LocalDate.of(year, 1, 1)), eq(LocalDate.of(year, 12, 31))))
+                .thenReturn(days);
+    }
+
+    private static List<AttendanceDay> run(LocalDate from, LocalDate to, AttendanceStatus status) {
+        List<AttendanceDay> days = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            days.add(new AttendanceDay(day, status));
+        }
+        return days;
+    }
+
+    @Test
+    void yearBits_ShouldCountAcrossWordBoundaries() {
+        AttendanceYearBits bits = new AttendanceYearBits();
+        for (int day = 60; day < 140; day++) {
+            bits.set(day, CalendarDayStatus.PRESENT);
+        }
+        bits.set(100, CalendarDayStatus.WFH);
+        bits.set(365, CalendarDayStatus.ABSENT);
+
+        assertEquals(79, bits.count(CalendarDayStatus.PRESENT, 0, AttendanceYearBits.DAYS));
+        assertEquals(80, bits.countAttended(0, AttendanceYearBits.DAYS));
+        assertEquals(4, bits.count(CalendarDayStatus.PRESENT, 60, 64));
+        assertEquals(1, bits.count(CalendarDayStatus.ABSENT, 300, AttendanceYearBits.DAYS));
+        assertEquals(CalendarDayStatus.WFH, bits.get(100));
+        assertNull(bits.get(59));
+        assertEquals(59, bits.lastBreakAtOrBefore(139));
+        assertEquals(200, bits.lastBreakAtOrBefore(200));
+
+        AttendanceYearBits unbroken = new AttendanceYearBits();
+        for (int day = 0; day < 70; day++) {
+            unbroken.set(day, day == 5 ? CalendarDayStatus.LEAVE : CalendarDayStatus.PRESENT);
+        }
+        assertEquals(-1, unbroken.lastBreakAtOrBefore(69));
+    }
+
+    @Test
+    void yearBits_SetIfUnmarked_ShouldKeepExistingStatus() {
+        AttendanceYearBits bits = new AttendanceYearBits();
+        bits.set(10, CalendarDayStatus.PRESENT);
+
+        bits.setIfUnmarked(10, CalendarDayStatus.ABSENT);
+        bits.setIfUnmarked(11, CalendarDayStatus.ABSENT);
+
+        assertEquals(CalendarDayStatus.PRESENT, bits.get(10));
+        assertEquals(CalendarDayStatus.ABSENT, bits.get(11));
+    }
+
+    @Test
+    void year_ShouldLoadOnceAndServeFromMemory() {
+        givenYear(2026, List.of(new AttendanceDay(TODAY, AttendanceStatus.CHECKED_OUT)));
+
+        index.year(1L, 2026);
+        AttendanceYearBits bits = index.year(1L, 2026);
+
+        assertEquals(CalendarDayStatus.PRESENT, bits.get(2));
+        verify(attendanceRepo, times(1)).findDays(anyLong(), eq(LocalDate.of(2026, 1, 1)),
+                eq(LocalDate.of(2026, 12, 31)));
+    }
+
+    @Test
+    void streak_ShouldContinueIntoPreviousYearAndSkipLeave() {
+        List<AttendanceDay> lastYear = new ArrayList<>();
+        lastYear.add(new AttendanceDay(LocalDate.of(2025, 12, 19), AttendanceStatus.ABSENT));
+        lastYear.addAll(run(LocalDate.of(2025, 12, 20), LocalDate.of(2025, 12, 31), AttendanceStatus.CHECKED_OUT));
+        lastYear.set(6, new AttendanceDay(LocalDate.of(2025, 12, 25), AttendanceStatus.LEAVE));
+        givenYear(2025, lastYear);
+        givenYear(2026, run(LocalDate.of(2026, 1, 1), TODAY, AttendanceStatus.WFH));
+
+        AttendanceStreakResponse streak = index.streak(1L, TODAY);
+
+        // 12 days in December less one leave day, plus 3 in January
+        assertEquals(14, streak.getCurrentStreak());
+        assertEquals(LocalDate.of(2025, 12, 20), streak.getSince());
+        assertEquals(TODAY, streak.getAsOf());
+    }
+
+    @Test
+    void streak_WithTodayNotMarkedYet_ShouldEndYesterday() {
+        givenYear(2026, run(LocalDate.of(2026, 1, 2), LocalDate.of(2026, 1, 2), AttendanceStatus.CHECKED_OUT));
+
+        AttendanceStreakResponse streak = index.streak(1L, TODAY);
+
+        assertEquals(1, streak.getCurrentStreak());
+        assertEquals(LocalDate.of(2026, 1, 2), streak.getSince());
+        assertEquals(LocalDate.of(2026, 1, 2), streak.getAsOf());
+    }
+
+    @Test
+    void streak_AfterAbsence_ShouldBeZero() {
+        givenYear(2026, List.of(new AttendanceDay(TODAY, AttendanceStatus.ABSENT)));
+
+        AttendanceStreakResponse streak = index.streak(1L, TODAY);
+
+        assertEquals(0, streak.getCurrentStreak());
+        assertNull(streak.getSince());
+    }
+
+    @Test
+    void onAttendanceMarked_ShouldUpdateLoadedYearsOnly() {
+        givenYear(2026, List.of());
+        index.year(1L, 2026);
+
+        index.onAttendanceMarked(new AttendanceMarkedEvent(List.of(1L, 2L), TODAY, AttendanceStatus.CHECKED_IN,
+                TODAY.atTime(9, 0)));
+        index.onAttendanceMarked(new AttendanceMarkedEvent(List.of(1L), TODAY, AttendanceStatus.ABSENT, null));
+
+        assertEquals(CalendarDayStatus.PRESENT, index.year(1L, 2026).get(2));
+        // user 2 was never loaded, so nothing was kept for them
+        verify(attendanceRepo, times(0)).findDays(eq(2L), any(), any());
+    }
+
+    @Test
+    void invalidateAll_ShouldReloadOnNextRead() {
+        givenYear(2026, List.of());
+        index.year(1L, 2026);
+
+        index.invalidateAll();
+        index.year(1L, 2026);
+
+        verify(attendanceRepo, times(2)).findDays(eq(1L), any(), any());
+    }
+}
@@ -0,0 +1,129 @@
+package com.phantask.attendance.presence;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.phantask.attendance.dto.AttendancePresence;
+import com.phantask.attendance.dto.PresenceCounts;
+import com.phantask.attendance.enums.AttendanceStatus;
+import com.phantask.attendance.event.AttendanceMarkedEvent;
+import com.phantask.attendance.repository.AttendanceRepository;
+import com.phantask.authentication.repository.UserRepository;
+
+/**
+ * Unit tests for PresenceIndex
+ */
+class PresenceIndexTest {
+
+    private AttendanceRepository attendanceRepo;
+    private UserRepository userRepo;
+    private PresenceBroadcaster broadcaster;
+    private PresenceIndex index;
+    private LocalDate today;
+
+    @BeforeEach
+    void setUp() {
+        attendanceRepo = mock(AttendanceRepository.class);
+        userRepo = mock(UserRepository.class);
+        broadcaster = mock(PresenceBroadcaster.class);
+        index = new PresenceIndex(attendanceRepo, userRepo, broadcaster);
+        today = LocalDate.now();
+
+        when(userRepo.countByEnabledTrue()).thenReturn(10L);
+        when(attendanceRepo.findPresence(any())).thenReturn(List.of(
+                new AttendancePresence(1L, AttendanceStatus.CHECKED_IN),
+                new AttendancePresence(2L, AttendanceStatus.CHECKED_OUT),
+                new AttendancePresence(3L, AttendanceStatus.LEAVE)));
+        index.rebuild();
+    }
+
+    private AttendanceMarkedEvent marked(long uid, AttendanceStatus status) {
+        return new AttendanceMarkedEvent(List.of(uid), today, status,
+                status == AttendanceStatus.ABSENT ? null : LocalDateTime.now());
+    }
+
+    @Test
+    void rebuild_ShouldCountTodaysRows() {
+        PresenceCounts counts = index.counts();
+
+        assertEquals(today, counts.getDate());
+        assertEquals(1, counts.getCheckedIn());
+        assertEquals(1, counts.getCheckedOut());
+        assertEquals(1, counts.getOnLeave());
+        assertEquals(7, counts.getNotYet());
+    }
+
+    @Test
+    void onAttendanceMarked_ShouldMoveCountsAndPublishChange() {
+        index.onAttendanceMarked(marked(1L, AttendanceStatus.CHECKED_OUT));
+        index.onAttendanceMarked(marked(4L, AttendanceStatus.CHECKED_IN));
+
+        PresenceCounts counts = index.counts();
+        assertEquals(1, counts.getCheckedIn());
+        assertEquals(2, counts.getCheckedOut());
+        assertEquals(6, counts.getNotYet());
+        verify(broadcaster, times(2)).publish(eq("presence"), any());
+    }
+
+    @Test
+    void onAttendanceMarked_ShouldNotUndoCheckOutOrOverwriteWithAbsent() {
+        index.onAttendanceMarked(marked(2L, AttendanceStatus.CHECKED_IN));
+        index.onAttendanceMarked(marked(1L, AttendanceStatus.ABSENT));
+
+        PresenceCounts counts = index.counts();
+        assertEquals(1, counts.getCheckedIn());
+        assertEquals(1, counts.getCheckedOut());
+        assertEquals(0, counts.getAbsent());
+        verify(broadcaster, never()).publish(eq("presence"), any());
+    }
+
+    @Test
+    void onAttendanceMarked_AbsenteeRun_ShouldOnlyAdjustCounts() {
+        index.onAttendanceMarked(new AttendanceMarkedEvent(List.of(5L, 6L, 7L), today,
+                AttendanceStatus.ABSENT, null));
+
+        PresenceCounts counts = index.counts();
+        assertEquals(3, counts.getAbsent());
+        assertEquals(4, counts.getNotYet());
+        verify(broadcaster, never()).publish(any(), any());
+    }
+
+    @Test
+    void onAttendanceMarked_ForEarlierDay_ShouldBeIgnored() {
+        index.onAttendanceMarked(new AttendanceMarkedEvent(List.of(4L), today.minusDays(1),
+                AttendanceStatus.ABSENT, null));
+
+        assertEquals(0, index.counts().getAbsent());
+    }
+
+    @Test
+    void publishCounts_WithoutSubscribers_ShouldSkip() {
+        when(broadcaster.hasSubscribers()).thenReturn(false);
+
+        index.publishCounts();
+
+        verify(broadcaster, never()).publish(any(), any());
+    }
+
+    @Test
+    void publishCounts_WithSubscribers_ShouldPublishCounts() {
+        when(broadcaster.hasSubscribers()).thenReturn(true);
+
+        index.publishCounts();
+
+        verify(broadcaster).publish(eq("counts"), any(PresenceCounts.class));
+    }
+}
@@ -0,0 +1,147 @@
+package com.phantask.attendance.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import com.phantask.attendance.dto.AttendanceStatusCounts;
+import com.phantask.attendance.entity.Attendance;
+import com.phantask.attendance.enums.AttendanceStatus;
+import com.phantask.authentication.entity.User;
+
+/**
+ * Tests the GROUP BY report query against the per-entity counting it
+ * replaced, on generated data in an embedded H2 database
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:attendance;MODE=MySQL;DATABASE_TO_LOWER=TRUE",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class AttendanceRepositoryTest {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2026, 1, 1);
+    private static final int DAYS = 90;
+    private static final int USERS = 40;
+    private static final Set<AttendanceStatus> PRESENT = Arrays.stream(AttendanceStatus.values())
+            .filter(AttendanceStatus::isPresent)
+            .collect(Collectors.toCollection(() -> EnumSet.noneOf(AttendanceStatus.class)));
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private AttendanceRepository attendanceRepo;
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(42);
+        AttendanceStatus[] statuses = AttendanceStatus.values();
+
+        for (int u = 0; u < USERS; u++) {
+            User user = new User();
+            user.setUsername("user" + u);
+            user.setEmail("user" + u + "@example.com");
+            user.setPassword("x");
+            em.persist(user);
+
+            for (int d = 0; d < DAYS; d++) {
+                // Leave gaps so users have different numbers of days
+                if (random.nextInt(5) == 0) {
+                    continue;
+                }
+                Attendance attendance = new Attendance();
+                attendance.setUser(user);
+                attendance.setAttendanceDate(FIRST_DAY.plusDays(d));
+                attendance.setStatus(statuses[random.nextInt(statuses.length)]);
+                em.persist(attendance);
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    /**
+     * The counting the report did before: load every row in the range and
+     * group in Java.
+     */
+    private List<AttendanceStatusCounts> countInMemory(List<Attendance> attendances) {
+        Map<Long, List<Attendance>> byUser = attendances.stream()
+                .collect(Collectors.groupingBy(a -> a.getUser().getUid()));
+
+        List<AttendanceStatusCounts> counts = new ArrayList<>();
+        for (List<Attendance> records : byUser.values()) {
+            User user = records.get(0).getUser();
+            counts.add(new AttendanceStatusCounts(
+                    user.getUid(),
+                    user.getUsername(),
+                    records.size(),
+                    records.stream().filter(a -> a.getStatus().isPresent()).count(),
+                    records.stream().filter(a -> a.getStatus() == AttendanceStatus.ABSENT).count(),
+                    records.stream().filter(a -> a.getStatus() == AttendanceStatus.LEAVE).count()));
+        }
+        counts.sort(Comparator.comparing(AttendanceStatusCounts::getUserId));
+        return counts;
+    }
+
+    private static void assertSameCounts(List<AttendanceStatusCounts> expected, List<AttendanceStatusCounts> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            AttendanceStatusCounts e = expected.get(i);
+            AttendanceStatusCounts a = actual.get(i);
+            assertEquals(e.getUserId(), a.getUserId());
+            assertEquals(e.getUsername(), a.getUsername());
+            assertEquals(e.getTotalDays(), a.getTotalDays(), e.getUsername());
+            assertEquals(e.getPresentDays(), a.getPresentDays(), e.getUsername());
+            assertEquals(e.getAbsentDays(), a.getAbsentDays(), e.getUsername());
+            assertEquals(e.getLeaveDays(), a.getLeaveDays(), e.getUsername());
+        }
+    }
+
+    @Test
+    void countByUser_ForAllUsers_ShouldMatchCountingEntities() {
+        LocalDate start = FIRST_DAY.plusDays(10);
+        LocalDate end = FIRST_DAY.plusDays(70);
+
+        List<AttendanceStatusCounts> expected = countInMemory(attendanceRepo.findByAttendanceDateBetween(start, end));
+        List<AttendanceStatusCounts> actual = attendanceRepo.countByUser(start, end, null, PRESENT);
+
+        assertEquals(USERS, actual.size());
+        assertSameCounts(expected, actual);
+    }
+
+    @Test
+    void countByUser_ForOneUser_ShouldMatchCountingEntities() {
+        Long uid = attendanceRepo.findAll().get(0).getUser().getUid();
+        LocalDate end = FIRST_DAY.plusDays(DAYS);
+
+        List<AttendanceStatusCounts> expected = countInMemory(
+                attendanceRepo.findByUserUidAndAttendanceDateBetween(uid, FIRST_DAY, end));
+        List<AttendanceStatusCounts> actual = attendanceRepo.countByUser(FIRST_DAY, end, uid, PRESENT);
+
+        assertEquals(1, actual.size());
+        assertSameCounts(expected, actual);
+    }
+
+    @Test
+    void countByUser_WithNoRowsInRange_ShouldReturnNothing() {
+        assertTrue(attendanceRepo.countByUser(FIRST_DAY.minusYears(1), FIRST_DAY.minusDays(1), null, PRESENT)
+                .isEmpty());
+    }
+}
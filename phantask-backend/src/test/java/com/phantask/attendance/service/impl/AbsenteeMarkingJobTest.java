@@ -0,0 +1,161 @@
+package com.phantask.attendance.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.phantask.attendance.enums.AttendanceStatus;
+import com.phantask.attendance.event.AttendanceMarkedEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests for AbsenteeMarkingJob against an in-memory H2 database in MySQL mode
+ */
+class AbsenteeMarkingJobTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 10);
+
+    private EmbeddedDatabase db;
+    private JdbcTemplate jdbc;
+    private SimpleMeterRegistry registry;
+    private List<Object> events;
+    private AbsenteeMarkingJob job;
+
+    @BeforeEach
+    void setUp() {
+        db = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName("absentee;MODE=MySQL;DATABASE_TO_LOWER=TRUE")
+                .generateUniqueName(false)
+                .addScript("attendance-schema.sql")
+                .build();
+        jdbc = new JdbcTemplate(db);
+        jdbc.execute("CREATE TABLE users (uid BIGINT PRIMARY KEY, enabled BOOLEAN NOT NULL)");
+
+        // users 1..25 enabled, 26..30 disabled
+        for (long uid = 1; uid <= 30; uid++) {
+            jdbc.update("INSERT INTO users (uid, enabled) VALUES (?, ?)", uid, uid <= 25);
+        }
+        // 3 and 7 already checked in
+        jdbc.update("INSERT INTO attendance (uid, attendance_date, status) VALUES (3, ?, 'CHECKED_IN')", DAY);
+        jdbc.update("INSERT INTO attendance (uid, attendance_date, status) VALUES (7, ?, 'CHECKED_OUT')", DAY);
+
+        registry = new SimpleMeterRegistry();
+        TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(db));
+        events = new ArrayList<>();
+        job = new AbsenteeMarkingJob(jdbc, tx, new AttendanceRollupStore(jdbc, tx, registry), events::add,
+                registry, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.shutdown();
+    }
+
+    private int count(String status) {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM attendance WHERE attendance_date = ? AND status = ?",
+                Integer.class, DAY, status);
+    }
+
+    private int rolledUpAbsent() {
+        return jdbc.queryForObject("SELECT COALESCE(SUM(absent_days), 0) FROM attendance_rollup WHERE month_key = 202603",
+                Integer.class);
+    }
+
+    @Test
+    void markAbsent_ShouldInsertOnlyMissingEnabledUsers() {
+        int inserted = job.markAbsent(DAY);
+
+        assertEquals(23, inserted);
+        assertEquals(23, count("ABSENT"));
+        assertEquals(1, count("CHECKED_IN"));
+        assertEquals(1, count("CHECKED_OUT"));
+        assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM attendance WHERE uid > 25", Integer.class));
+        assertEquals(23, rolledUpAbsent());
+    }
+
+    @Test
+    void markAbsent_RunTwice_ShouldBeIdempotent() {
+        job.markAbsent(DAY);
+
+        assertEquals(0, job.markAbsent(DAY));
+        assertEquals(23, count("ABSENT"));
+        assertEquals(23, rolledUpAbsent());
+    }
+
+    @Test
+    void markAbsent_AfterPartialRun_ShouldFinishRemainingUsers() {
+        // an earlier run committed users 1..10 before stopping
+        for (long uid = 1; uid <= 10; uid++) {
+            if (uid != 3 && uid != 7) {
+                jdbc.update("INSERT INTO attendance (uid, attendance_date, status) VALUES (?, ?, 'ABSENT')", uid, DAY);
+            }
+        }
+
+        assertEquals(15, job.markAbsent(DAY));
+        assertEquals(23, count("ABSENT"));
+        // only the rows this run inserted are counted
+        assertEquals(15, rolledUpAbsent());
+    }
+
+    @Test
+    void markAbsent_UserCheckingInDuringTheBatch_ShouldNotBeCountedAsInserted() {
+        // uid 1 checks in between the anti-join and the insert, so INSERT IGNORE skips it
+        JdbcTemplate racing = new JdbcTemplate(db) {
+            @Override
+            public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+                    ParameterizedPreparedStatementSetter<T> pss) {
+                if (batchArgs.contains(1L)) {
+                    update("INSERT INTO attendance (uid, attendance_date, status) VALUES (1, ?, 'CHECKED_IN')", DAY);
+                }
+                return super.batchUpdate(sql, batchArgs, batchSize, pss);
+            }
+        };
+        TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(db));
+        AbsenteeMarkingJob racingJob = new AbsenteeMarkingJob(racing, tx, new AttendanceRollupStore(racing, tx, registry),
+                events::add, registry, 4);
+
+        assertEquals(22, racingJob.markAbsent(DAY));
+        assertEquals(22, count("ABSENT"));
+        assertEquals(22.0, registry.get("phantask.attendance.absentee.rows").counter().count());
+        assertEquals(22, rolledUpAbsent());
+    }
+
+    @Test
+    void markAbsent_ShouldRecordDurationAndRows() {
+        job.markAbsent(DAY);
+
+        assertEquals(1, registry.get("phantask.attendance.absentee.duration").timer().count());
+        assertEquals(23.0, registry.get("phantask.attendance.absentee.rows").counter().count());
+    }
+
+    @Test
+    void markAbsent_ShouldPublishOneEventPerChunk() {
+        job.markAbsent(DAY);
+
+        // 23 users in chunks of 4
+        assertEquals(6, events.size());
+        long uids = events.stream()
+                .map(AttendanceMarkedEvent.class::cast)
+                .peek(event -> assertEquals(AttendanceStatus.ABSENT, event.status()))
+                .peek(event -> assertEquals(DAY, event.date()))
+                .mapToLong(event -> event.uids().size())
+                .sum();
+        assertEquals(23, uids);
+    }
+}
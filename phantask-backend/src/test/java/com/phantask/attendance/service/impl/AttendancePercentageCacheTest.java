@@ -0,0 +1,73 @@
+package com.phantask.attendance.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.phantask.attendance.dto.AttendancePercentageResponse;
+import com.phantask.attendance.enums.AttendanceStatus;
+import com.phantask.attendance.event.AttendanceMarkedEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for AttendancePercentageCache
+ */
+class AttendancePercentageCacheTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 10);
+
+    private SimpleMeterRegistry meterRegistry;
+    private AttendancePercentageCache cache;
+    private AtomicInteger loads;
+    private Supplier<AttendancePercentageResponse> loader;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new AttendancePercentageCache(meterRegistry, 100, 60);
+        loads = new AtomicInteger();
+        loader = () -> new AttendancePercentageResponse(1L, "testuser", loads.incrementAndGet(), 0, 0, 0, 0);
+    }
+
+    @Test
+    void get_CalledTwice_ShouldLoadOnceAndCountHit() {
+        AttendancePercentageResponse first = cache.get(1L, TODAY, loader);
+        AttendancePercentageResponse second = cache.get(1L, TODAY, loader);
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "attendancePercentage").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void get_OnNextDay_ShouldReload() {
+        cache.get(1L, TODAY, loader);
+
+        AttendancePercentageResponse nextDay = cache.get(1L, TODAY.plusDays(1), loader);
+
+        assertEquals(2, loads.get());
+        assertEquals(2, nextDay.getTotalDays());
+    }
+
+    @Test
+    void onAttendanceMarked_ShouldForceReloadForMarkedUsersOnly() {
+        cache.get(1L, TODAY, loader);
+        cache.get(2L, TODAY, loader);
+
+        cache.onAttendanceMarked(new AttendanceMarkedEvent(List.of(1L), TODAY, AttendanceStatus.ABSENT, null));
+        cache.get(1L, TODAY, loader);
+        cache.get(2L, TODAY, loader);
+
+        assertEquals(3, loads.get());
+        assertEquals(1, meterRegistry.get("phantask.attendance.percentage.invalidations").counter().count());
+    }
+}
@@ -0,0 +1,258 @@
+package com.phantask.attendance.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.phantask.attendance.service.impl.AttendanceRecorder.Outcome;
+import com.phantask.attendance.service.impl.AttendanceRecorder.Scan;
+import com.phantask.attendance.token.InMemoryQrTokenStore;
+import com.phantask.attendance.token.QrToken;
+import com.phantask.attendance.token.QrTokenAuditWriter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests for AttendanceRecorder against an in-memory H2 database in MySQL mode,
+ * including simultaneous scans for one user
+ */
+class AttendanceRecorderTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 3, 10);
+    private static final int THREADS = 16;
+
+    private EmbeddedDatabase db;
+    private JdbcTemplate jdbc;
+    private AttendanceRecorder recorder;
+    private ExecutorService pool;
+
+    @BeforeEach
+    void setUp() {
+        db = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName("recorder;MODE=MySQL;DATABASE_TO_LOWER=TRUE")
+                .generateUniqueName(false)
+                .addScript("attendance-schema.sql")
+                .build();
+        jdbc = new JdbcTemplate(db);
+
+        recorder = recorder(jdbc);
+        pool = Executors.newFixedThreadPool(THREADS);
+    }
+
+    private AttendanceRecorder recorder(JdbcTemplate template) {
+        return new AttendanceRecorder(template, new AttendanceRollupStore(template,
+                new TransactionTemplate(new DataSourceTransactionManager(db)), new SimpleMeterRegistry()), event -> { });
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+        db.shutdown();
+    }
+
+    private int rows() {
+        return jdbc.queryForObject("SELECT COUNT(*) FROM attendance WHERE uid = 1 AND attendance_date = ?",
+                Integer.class, DAY);
+    }
+
+    private int presentDays() {
+        return presentDays(1L);
+    }
+
+    private int presentDays(long uid) {
+        return jdbc.queryForObject("SELECT COALESCE(SUM(present_days), 0) FROM attendance_rollup"
+                + " WHERE uid = ? AND month_key = 202603", Integer.class, uid);
+    }
+
+    /**
+     * Runs {@code scan} on every thread at once and counts the outcomes.
+     */
+    private Map<Outcome, Integer> hammer(Callable<Optional<Outcome>> scan) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Optional<Outcome>>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                return scan.call();
+            }));
+        }
+        start.countDown();
+
+        Map<Outcome, Integer> outcomes = new EnumMap<>(Outcome.class);
+        for (Future<Optional<Outcome>> future : futures) {
+            future.get(10, TimeUnit.SECONDS).ifPresent(outcome -> outcomes.merge(outcome, 1, Integer::sum));
+        }
+        return outcomes;
+    }
+
+    @Test
+    void record_ShouldCheckInThenOutThenRefuse() {
+        LocalDateTime in = DAY.atTime(9, 0);
+        LocalDateTime out = DAY.atTime(18, 0);
+
+        assertEquals(Outcome.CHECKED_IN, recorder.record(1L, DAY, in));
+        assertEquals(Outcome.CHECKED_OUT, recorder.record(1L, DAY, out));
+        assertEquals(Outcome.ALREADY_COMPLETED, recorder.record(1L, DAY, out.plusMinutes(1)));
+
+        Map<String, Object> row = jdbc.queryForMap("SELECT * FROM attendance WHERE uid = 1");
+        assertEquals("CHECKED_OUT", row.get("status"));
+        assertEquals(Timestamp.valueOf(in), row.get("check_in_time"));
+        assertEquals(Timestamp.valueOf(out), row.get("check_out_time"));
+        assertEquals(1, presentDays());
+    }
+
+    @Test
+    void record_OnDayMarkedAbsentLeaveOrWfh_ShouldChangeNothing() {
+        for (String status : List.of("ABSENT", "LEAVE", "WFH")) {
+            jdbc.update("DELETE FROM attendance");
+            jdbc.update("INSERT INTO attendance (uid, attendance_date, status) VALUES (1, ?, ?)", DAY, status);
+
+            assertEquals(Outcome.ALREADY_COMPLETED, recorder.record(1L, DAY, DAY.atTime(9, 0)), status);
+
+            Map<String, Object> row = jdbc.queryForMap("SELECT * FROM attendance WHERE uid = 1");
+            assertEquals(status, row.get("status"));
+            assertNull(row.get("check_out_time"), status);
+        }
+    }
+
+    @Test
+    void record_WhenInsertFailsForAnotherReason_ShouldNotReportAlreadyCompleted() {
+        jdbc.execute("ALTER TABLE attendance ADD CONSTRAINT no_uid_2 CHECK (uid <> 2)");
+
+        assertThrows(DataIntegrityViolationException.class, () -> recorder.record(2L, DAY, DAY.atTime(9, 0)));
+    }
+
+    @Test
+    void recordAll_ShouldApplyTheBurstLikeSingleScansInOrder() {
+        jdbc.update("INSERT INTO attendance (uid, attendance_date, check_in_time, status) VALUES (3, ?, ?, 'CHECKED_IN')",
+                DAY, DAY.atTime(8, 0));
+        jdbc.update("INSERT INTO attendance (uid, attendance_date, status) VALUES (4, ?, 'ABSENT')", DAY);
+
+        List<Outcome> outcomes = recorder.recordAll(DAY, List.of(
+                new Scan(1L, DAY.atTime(9, 0)),
+                new Scan(2L, DAY.atTime(9, 5)),
+                new Scan(3L, DAY.atTime(9, 10)),
+                new Scan(4L, DAY.atTime(9, 15)),
+                new Scan(1L, DAY.atTime(18, 0)),
+                new Scan(1L, DAY.atTime(18, 1))));
+
+        assertEquals(List.of(Outcome.CHECKED_IN, Outcome.CHECKED_IN, Outcome.CHECKED_OUT,
+                Outcome.ALREADY_COMPLETED, Outcome.CHECKED_OUT, Outcome.ALREADY_COMPLETED), outcomes);
+
+        Map<String, Object> row = jdbc.queryForMap("SELECT * FROM attendance WHERE uid = 1");
+        assertEquals("CHECKED_OUT", row.get("status"));
+        assertEquals(Timestamp.valueOf(DAY.atTime(9, 0)), row.get("check_in_time"));
+        assertEquals(Timestamp.valueOf(DAY.atTime(18, 0)), row.get("check_out_time"));
+        assertEquals("CHECKED_IN", jdbc.queryForObject("SELECT status FROM attendance WHERE uid = 2", String.class));
+        assertEquals("CHECKED_OUT", jdbc.queryForObject("SELECT status FROM attendance WHERE uid = 3", String.class));
+        assertEquals("ABSENT", jdbc.queryForObject("SELECT status FROM attendance WHERE uid = 4", String.class));
+
+        // Only the two check-ins of this burst are new present days
+        assertEquals(1, presentDays(1L));
+        assertEquals(1, presentDays(2L));
+        assertEquals(0, presentDays(3L));
+        assertEquals(0, presentDays(4L));
+    }
+
+    @Test
+    void recordAll_WhenAnotherScanChecksInFirst_ShouldNotClaimTheCheckIn() {
+        LocalDateTime theirs = DAY.atTime(8, 59);
+        JdbcTemplate racing = new JdbcTemplate(db) {
+            @Override
+            public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+                    ParameterizedPreparedStatementSetter<T> pss) {
+                if (sql.startsWith("INSERT INTO attendance ")) {
+                    // A single scan on another instance lands between the read and the batch
+                    jdbc.update("INSERT INTO attendance (uid, attendance_date, check_in_time, status)"
+                            + " VALUES (1, ?, ?, 'CHECKED_IN')", DAY, theirs);
+                }
+                return super.batchUpdate(sql, batchArgs, batchSize, pss);
+            }
+        };
+
+        List<Outcome> outcomes = recorder(racing).recordAll(DAY, List.of(
+                new Scan(1L, DAY.atTime(9, 0)),
+                new Scan(2L, DAY.atTime(9, 1))));
+
+        assertEquals(List.of(Outcome.ALREADY_COMPLETED, Outcome.CHECKED_IN), outcomes);
+        assertEquals(1, rows());
+        assertEquals(Timestamp.valueOf(theirs),
+                jdbc.queryForObject("SELECT check_in_time FROM attendance WHERE uid = 1", Timestamp.class));
+        assertEquals(0, presentDays(1L));
+        assertEquals(1, presentDays(2L));
+    }
+
+    @Test
+    void recordAll_WhenInsertFailsForAnotherReason_ShouldFail() {
+        jdbc.execute("ALTER TABLE attendance ADD CONSTRAINT no_uid_2 CHECK (uid <> 2)");
+
+        assertThrows(DataIntegrityViolationException.class, () -> recorder.recordAll(DAY, List.of(
+                new Scan(1L, DAY.atTime(9, 0)),
+                new Scan(2L, DAY.atTime(9, 1)))));
+    }
+
+    @Test
+    void simultaneousScans_ShouldCheckInOnceAndOutOnce() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            jdbc.update("DELETE FROM attendance");
+            jdbc.update("DELETE FROM attendance_rollup");
+
+            Map<Outcome, Integer> outcomes = hammer(() -> Optional.of(recorder.record(1L, DAY, LocalDateTime.now())));
+
+            assertEquals(1, outcomes.get(Outcome.CHECKED_IN));
+            assertEquals(1, outcomes.get(Outcome.CHECKED_OUT));
+            assertEquals(THREADS - 2, outcomes.get(Outcome.ALREADY_COMPLETED));
+            assertEquals(1, rows());
+            assertEquals(1, presentDays());
+        }
+    }
+
+    @Test
+    void simultaneousScansOfOneQrCode_ShouldHaveASingleWinner() throws Exception {
+        InMemoryQrTokenStore store = new InMemoryQrTokenStore(mock(QrTokenAuditWriter.class),
+                new SimpleMeterRegistry(), 1000, 0);
+
+        for (String token : List.of("check-in", "check-out", "too-late")) {
+            store.register(new QrToken(1L, "testuser", DAY, token, Instant.now().plusSeconds(300)));
+
+            Map<Outcome, Integer> outcomes = hammer(() -> store.consume(token)
+                    .map(qrToken -> recorder.record(qrToken.uid(), DAY, LocalDateTime.now())));
+
+            assertEquals(1, outcomes.values().stream().mapToInt(Integer::intValue).sum(), token);
+        }
+
+        assertEquals(1, rows());
+        assertEquals("CHECKED_OUT", jdbc.queryForObject("SELECT status FROM attendance WHERE uid = 1", String.class));
+    }
+}
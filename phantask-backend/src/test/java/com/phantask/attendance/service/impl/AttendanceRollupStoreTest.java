@@ -0,0 +1,225 @@
+package com.phantask.attendance.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.phantask.attendance.dto.AttendanceStatusCounts;
+import com.phantask.attendance.enums.AttendanceStatus;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests for AttendanceRollupStore against an in-memory H2 database in MySQL
+ * mode, comparing rollup reads with counting the raw attendance rows
+ */
+class AttendanceRollupStoreTest {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2025, 11, 1);
+    private static final int DAYS = 420;
+    private static final int USERS = 12;
+
+    private record Row(long uid, LocalDate day, AttendanceStatus status) {
+    }
+
+    private EmbeddedDatabase db;
+    private JdbcTemplate jdbc;
+    private SimpleMeterRegistry registry;
+    private AttendanceRollupStore store;
+    private final List<Row> rows = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        db = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName("rollup;MODE=MySQL;DATABASE_TO_LOWER=TRUE")
+                .generateUniqueName(false)
+                .addScript("attendance-schema.sql")
+                .build();
+        jdbc = new JdbcTemplate(db);
+        jdbc.execute("CREATE TABLE users (uid BIGINT PRIMARY KEY, username VARCHAR(255) NOT NULL)");
+
+        registry = new SimpleMeterRegistry();
+        store = new AttendanceRollupStore(jdbc, new TransactionTemplate(new DataSourceTransactionManager(db)),
+                registry);
+
+        // Every row is counted as it is written, like the attendance writers do
+        Random random = new Random(7);
+        AttendanceStatus[] statuses = AttendanceStatus.values();
+        for (long uid = 1; uid <= USERS; uid++) {
+            jdbc.update("INSERT INTO users (uid, username) VALUES (?, ?)", uid, "user" + uid);
+            for (int d = 0; d < DAYS; d++) {
+                if (random.nextInt(4) == 0) {
+                    continue;
+                }
+                Row row = new Row(uid, FIRST_DAY.plusDays(d), statuses[random.nextInt(statuses.length)]);
+                jdbc.update("INSERT INTO attendance (uid, attendance_date, status) VALUES (?, ?, ?)",
+                        row.uid(), row.day(), row.status().name());
+                store.add(row.uid(), row.day(), row.status());
+                rows.add(row);
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.shutdown();
+    }
+
+    /**
+     * Counts of the generated rows in {@code [start, end]}, by uid.
+     */
+    private List<AttendanceStatusCounts> countRows(LocalDate start, LocalDate end, Long userId) {
+        Map<Long, long[]> byUser = new TreeMap<>();
+        for (Row row : rows) {
+            if (row.day().isBefore(start) || row.day().isAfter(end) || (userId != null && row.uid() != userId)) {
+                continue;
+            }
+            long[] counts = byUser.computeIfAbsent(row.uid(), uid -> new long[4]);
+            counts[0]++;
+            if (row.status().isPresent()) {
+                counts[1]++;
+            }
+            if (row.status() == AttendanceStatus.ABSENT) {
+                counts[2]++;
+            }
+            if (row.status() == AttendanceStatus.LEAVE) {
+                counts[3]++;
+            }
+        }
+        List<AttendanceStatusCounts> result = new ArrayList<>();
+        byUser.forEach((uid, c) -> result.add(new AttendanceStatusCounts(uid, "user" + uid, c[0], c[1], c[2], c[3])));
+        return result;
+    }
+
+    private static void assertSameCounts(List<AttendanceStatusCounts> expected, List<AttendanceStatusCounts> actual,
+            String range) {
+        assertEquals(expected.size(), actual.size(), range);
+        for (int i = 0; i < expected.size(); i++) {
+            AttendanceStatusCounts e = expected.get(i);
+            AttendanceStatusCounts a = actual.get(i);
+            String context = range + " " + e.getUsername();
+            assertEquals(e.getUserId(), a.getUserId(), context);
+            assertEquals(e.getUsername(), a.getUsername(), context);
+            assertEquals(e.getTotalDays(), a.getTotalDays(), context);
+            assertEquals(e.getPresentDays(), a.getPresentDays(), context);
+            assertEquals(e.getAbsentDays(), a.getAbsentDays(), context);
+            assertEquals(e.getLeaveDays(), a.getLeaveDays(), context);
+        }
+    }
+
+    private List<Map<String, Object>> rollupRows() {
+        return jdbc.queryForList("""
+                SELECT uid, month_key, present_days, absent_days, leave_days, wfh_days
+                FROM attendance_rollup ORDER BY uid, month_key""");
+    }
+
+    @Test
+    void countByUser_ShouldMatchCountingRowsForAnyRange() {
+        Random random = new Random(11);
+        List<LocalDate[]> ranges = new ArrayList<>(List.of(
+                // whole months, within one month, across a year end, single day
+                new LocalDate[] { LocalDate.of(2026, 1, 1), LocalDate.of(2026, 3, 31) },
+                new LocalDate[] { LocalDate.of(2026, 2, 3), LocalDate.of(2026, 2, 20) },
+                new LocalDate[] { LocalDate.of(2025, 12, 15), LocalDate.of(2026, 1, 14) },
+                new LocalDate[] { LocalDate.of(2026, 4, 30), LocalDate.of(2026, 4, 30) },
+                new LocalDate[] { FIRST_DAY.minusYears(1), FIRST_DAY.plusYears(2) }));
+        for (int i = 0; i < 40; i++) {
+            LocalDate start = FIRST_DAY.plusDays(random.nextInt(DAYS));
+            ranges.add(new LocalDate[] { start, start.plusDays(random.nextInt(200)) });
+        }
+
+        for (LocalDate[] range : ranges) {
+            String name = range[0] + ".." + range[1];
+            assertSameCounts(countRows(range[0], range[1], null), store.countByUser(range[0], range[1], null), name);
+            assertSameCounts(countRows(range[0], range[1], 5L), store.countByUser(range[0], range[1], 5L), name);
+        }
+    }
+
+    @Test
+    void totals_ShouldCountAllMonthsUpToTheGivenOne() {
+        LocalDate upTo = LocalDate.of(2026, 6, 18);
+        AttendanceStatusCounts expected = countRows(FIRST_DAY, upTo.withDayOfMonth(30), 3L).get(0);
+
+        AttendanceStatusCounts totals = store.totals(3L, "user3", upTo);
+
+        assertSameCounts(List.of(expected), List.of(totals), "totals");
+    }
+
+    @Test
+    void totals_WithoutAttendance_ShouldBeZero() {
+        AttendanceStatusCounts totals = store.totals(99L, "nobody", LocalDate.of(2026, 6, 18));
+
+        assertEquals(0, totals.getTotalDays());
+        assertEquals("nobody", totals.getUsername());
+    }
+
+    @Test
+    void rebuild_ShouldReconcileCountersWithAttendance() {
+        List<Map<String, Object>> maintained = rollupRows();
+
+        // drift: a lost update, a stray month and a missing row
+        jdbc.update("UPDATE attendance_rollup SET present_days = present_days + 5 WHERE uid = 2");
+        jdbc.update("INSERT INTO attendance_rollup (uid, month_key, present_days, absent_days, leave_days, wfh_days) "
+                + "VALUES (1, 203001, 1, 0, 0, 0)");
+        jdbc.update("DELETE FROM attendance_rollup WHERE uid = 4 AND month_key = 202602");
+
+        int months = store.rebuild();
+
+        assertEquals(14, months);
+        assertEquals(maintained, rollupRows());
+        assertEquals(1, registry.get("phantask.attendance.rollup.rebuild.duration").timer().count());
+    }
+
+    @Test
+    void scanOfAbsentDay_ShouldLeaveRollupInStepWithAttendance() {
+        LocalDate day = FIRST_DAY.plusDays(DAYS + 5);
+        jdbc.update("INSERT INTO attendance (uid, attendance_date, status) VALUES (1, ?, 'ABSENT')", day);
+        store.add(1L, day, AttendanceStatus.ABSENT);
+        List<Map<String, Object>> maintained = rollupRows();
+        AttendanceRecorder recorder = new AttendanceRecorder(jdbc, store, event -> { });
+
+        recorder.record(1L, day, day.atTime(9, 0));
+        store.rebuild();
+
+        assertEquals(maintained, rollupRows());
+    }
+
+    @Test
+    void rebuild_WithoutAttendance_ShouldEmptyTheRollup() {
+        jdbc.update("DELETE FROM attendance");
+
+        assertEquals(0, store.rebuild());
+        assertTrue(rollupRows().isEmpty());
+    }
+
+    @Test
+    void rebuildIfEmpty_ShouldOnlyBuildAnEmptyRollup() {
+        List<Map<String, Object>> maintained = rollupRows();
+
+        jdbc.update("UPDATE attendance_rollup SET present_days = 0 WHERE uid = 1");
+        store.rebuildIfEmpty();
+        assertEquals(0, jdbc.queryForObject("SELECT SUM(present_days) FROM attendance_rollup WHERE uid = 1",
+                Integer.class));
+
+        jdbc.update("DELETE FROM attendance_rollup");
+        store.rebuildIfEmpty();
+        assertEquals(maintained, rollupRows());
+    }
+}
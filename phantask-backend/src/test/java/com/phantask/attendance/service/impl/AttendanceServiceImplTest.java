@@ -1,25 +1,35 @@
 package com.phantask.attendance.service.impl;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
-import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -27,19 +37,38 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContext;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import com.phantask.attendance.dto.AttendanceCalendarResponse;
 import com.phantask.attendance.dto.AttendancePercentageResponse;
+import com.phantask.attendance.dto.AttendanceRecordPage;
+import com.phantask.attendance.dto.AttendanceRecordView;
+import com.phantask.attendance.dto.AttendanceResponse;
+import com.phantask.attendance.dto.AttendanceStatusCounts;
+import com.phantask.attendance.dto.AttendanceYearSummary;
+import com.phantask.attendance.dto.ScanResult;
+import com.phantask.attendance.dto.ScannedToken;
 import com.phantask.attendance.entity.Attendance;
-import com.phantask.attendance.entity.AttendanceToken;
 import com.phantask.attendance.enums.AttendanceStatus;
+import com.phantask.attendance.enums.AttendanceUiState;
+import com.phantask.attendance.enums.CalendarDayStatus;
+import com.phantask.attendance.index.AttendanceBitmapIndex;
+import com.phantask.attendance.index.AttendanceYearBits;
 import com.phantask.attendance.repository.AttendanceRepository;
-import com.phantask.attendance.repository.AttendanceTokenRepository;
+import com.phantask.attendance.service.impl.AttendanceRecorder.Outcome;
+import com.phantask.attendance.service.impl.AttendanceRecorder.Scan;
+import com.phantask.attendance.sync.ScanIdempotencyStore;
+import com.phantask.attendance.token.QrToken;
+import com.phantask.attendance.token.QrTokenStore;
 import com.phantask.authentication.entity.User;
 import com.phantask.authentication.repository.UserRepository;
+import com.phantask.authentication.security.PhanTaskPrincipal;
+import com.phantask.authentication.security.TokenDigests;
 import com.phantask.exception.AttendanceAlreadyMarkedException;
+import com.phantask.exception.InvalidQrTokenException;
+
+import jakarta.persistence.EntityNotFoundException;
 
 /**
  * Unit tests for AttendanceServiceImpl
@@ -58,23 +87,36 @@ class AttendanceServiceImplTest {
     private AttendanceRepository attendanceRepo;
 
     @Mock
-    private AttendanceTokenRepository tokenRepo;
+    private QrTokenStore qrTokens;
 
     @Mock
     private UserRepository userRepo;
 
     @Mock
-    private SecurityContext securityContext;
+    private AbsenteeMarkingJob absenteeJob;
+
+    @Mock
+    private AttendanceRecorder recorder;
+
+    @Mock
+    private AttendanceRollupStore rollup;
+
+    @Mock
+    private AttendanceBitmapIndex attendanceIndex;
 
     @Mock
-    private Authentication authentication;
+    private ScanIdempotencyStore syncedScans;
+
+    @Mock
+    private AttendancePercentageCache percentageCache;
 
     @InjectMocks
     private AttendanceServiceImpl attendanceService;
 
     private User testUser;
+    private PhanTaskPrincipal principal;
     private Attendance testAttendance;
-    private AttendanceToken testToken;
+    private QrToken testToken;
 
     @BeforeEach
     void setUp() {
@@ -86,6 +128,8 @@ class AttendanceServiceImplTest {
         testUser.setEnabled(true);
         testUser.setCreatedAt(LocalDateTime.now().minusDays(30));
 
+        principal = new PhanTaskPrincipal(1L, "testuser", List.of("USER"), true);
+
         // Setup test attendance
         testAttendance = new Attendance();
         testAttendance.setId(1L);
@@ -94,64 +138,55 @@ class AttendanceServiceImplTest {
         testAttendance.setStatus(AttendanceStatus.CHECKED_IN);
 
         // Setup test token
-        testToken = new AttendanceToken();
-        testToken.setId(1L);
-        testToken.setToken("valid-jwt-token");
-        testToken.setUser(testUser);
-        testToken.setDate(LocalDate.now());
-        testToken.setExpiresAt(LocalDateTime.now().plusMinutes(5));
-        testToken.setUsed(false);
-
-        // Mock security context
-        SecurityContextHolder.setContext(securityContext);
+        testToken = new QrToken(1L, "testuser", LocalDate.now(), TokenDigests.sha256Hex("valid-token"),
+                Instant.now().plusSeconds(300));
     }
 
     // ==================== registerQrToken() Tests ====================
 
     @Test
-    void registerQrToken_WithValidUser_ShouldSaveToken() {
+    void registerQrToken_WithValidUser_ShouldRegisterTokenHash() {
         // Arrange
-        when(securityContext.getAuthentication()).thenReturn(authentication);
-        when(authentication.getName()).thenReturn("testuser");
-        when(userRepo.findByUsername("testuser")).thenReturn(Optional.of(testUser));
-        when(attendanceRepo.findByUserAndAttendanceDate(testUser, LocalDate.now()))
+        when(attendanceRepo.findByUserUidAndAttendanceDate(1L, LocalDate.now()))
                 .thenReturn(Optional.empty());
 
         // Act
-        attendanceService.registerQrToken("new-token");
+        attendanceService.registerQrToken(principal, "new-token");
 
         // Assert
-        verify(tokenRepo).invalidateActiveTokens(testUser, LocalDate.now());
-        verify(tokenRepo).save(any(AttendanceToken.class));
+        verify(qrTokens).register(argThat(token -> token.uid() == 1L
+                && token.tokenHash().equals(TokenDigests.sha256Hex("new-token"))
+                && token.date().equals(LocalDate.now())
+                && token.expiresAt().isAfter(Instant.now().plusSeconds(290))));
+        verify(userRepo, never()).getReferenceById(anyLong());
     }
 
     @Test
     void registerQrToken_WhenAttendanceAlreadyCompleted_ShouldThrowException() {
         // Arrange
         testAttendance.setCheckOutTime(LocalDateTime.now());
-        when(securityContext.getAuthentication()).thenReturn(authentication);
-        when(authentication.getName()).thenReturn("testuser");
-        when(userRepo.findByUsername("testuser")).thenReturn(Optional.of(testUser));
-        when(attendanceRepo.findByUserAndAttendanceDate(testUser, LocalDate.now()))
+        when(attendanceRepo.findByUserUidAndAttendanceDate(1L, LocalDate.now()))
                 .thenReturn(Optional.of(testAttendance));
 
         // Act & Assert
         assertThrows(AttendanceAlreadyMarkedException.class, 
-                () -> attendanceService.registerQrToken("new-token"));
+                () -> attendanceService.registerQrToken(principal, "new-token"));
         
-        verify(tokenRepo, never()).save(any(AttendanceToken.class));
+        verify(qrTokens, never()).register(any(QrToken.class));
     }
 
     @Test
-    void registerQrToken_WhenUserNotFound_ShouldThrowException() {
+    void registerQrToken_WhenMarkedAbsent_ShouldThrowException() {
         // Arrange
-        when(securityContext.getAuthentication()).thenReturn(authentication);
-        when(authentication.getName()).thenReturn("nonexistent");
-        when(userRepo.findByUsername("nonexistent")).thenReturn(Optional.empty());
+        testAttendance.setStatus(AttendanceStatus.ABSENT);
+        when(attendanceRepo.findByUserUidAndAttendanceDate(1L, LocalDate.now()))
+                .thenReturn(Optional.of(testAttendance));
 
         // Act & Assert
-        assertThrows(RuntimeException.class, 
-                () -> attendanceService.registerQrToken("new-token"));
+        assertThrows(AttendanceAlreadyMarkedException.class,
+                () -> attendanceService.registerQrToken(principal, "new-token"));
+
+        verify(qrTokens, never()).register(any(QrToken.class));
     }
 
     @Test
@@ -160,17 +195,14 @@ class AttendanceServiceImplTest {
         testAttendance.setCheckInTime(LocalDateTime.now());
         testAttendance.setCheckOutTime(null); // Not checked out yet
         
-        when(securityContext.getAuthentication()).thenReturn(authentication);
-        when(authentication.getName()).thenReturn("testuser");
-        when(userRepo.findByUsername("testuser")).thenReturn(Optional.of(testUser));
-        when(attendanceRepo.findByUserAndAttendanceDate(testUser, LocalDate.now()))
+        when(attendanceRepo.findByUserUidAndAttendanceDate(1L, LocalDate.now()))
                 .thenReturn(Optional.of(testAttendance));
 
         // Act
-        attendanceService.registerQrToken("new-token");
+        attendanceService.registerQrToken(principal, "new-token");
 
         // Assert - Should allow token generation for checkout
-        verify(tokenRepo).save(any(AttendanceToken.class));
+        verify(qrTokens).register(any(QrToken.class));
     }
 
     // ==================== markAttendance() Tests ====================
@@ -178,11 +210,12 @@ class AttendanceServiceImplTest {
     @Test
     void markAttendance_WithValidToken_ShouldCheckInUser() {
         // Arrange
-        when(tokenRepo.findByTokenAndUsedFalse("valid-token"))
+        testAttendance.setCheckInTime(LocalDateTime.now());
+        when(qrTokens.consume(TokenDigests.sha256Hex("valid-token")))
                 .thenReturn(Optional.of(testToken));
-        when(attendanceRepo.findByUserAndAttendanceDate(testUser, LocalDate.now()))
-                .thenReturn(Optional.empty());
-        when(attendanceRepo.save(any(Attendance.class))).thenAnswer(i -> i.getArgument(0));
+        when(recorder.record(eq(1L), eq(LocalDate.now()), any())).thenReturn(Outcome.CHECKED_IN);
+        when(attendanceRepo.findByUserUidAndAttendanceDate(1L, LocalDate.now()))
+                .thenReturn(Optional.of(testAttendance));
 
         // Act
         Attendance result = attendanceService.markAttendance("valid-token");
@@ -194,21 +227,21 @@ class AttendanceServiceImplTest {
         assertEquals(AttendanceStatus.CHECKED_IN, result.getStatus());
         assertEquals(testUser, result.getUser());
         
-        verify(tokenRepo).save(argThat(token -> token.isUsed()));
-        verify(attendanceRepo).save(any(Attendance.class));
+        verify(attendanceRepo, never()).save(any(Attendance.class));
     }
 
     @Test
     void markAttendance_WithValidTokenSecondTime_ShouldCheckOutUser() {
         // Arrange
         testAttendance.setCheckInTime(LocalDateTime.now().minusHours(8));
-        testAttendance.setCheckOutTime(null);
+        testAttendance.setCheckOutTime(LocalDateTime.now());
+        testAttendance.setStatus(AttendanceStatus.CHECKED_OUT);
         
-        when(tokenRepo.findByTokenAndUsedFalse("valid-token"))
+        when(qrTokens.consume(TokenDigests.sha256Hex("valid-token")))
                 .thenReturn(Optional.of(testToken));
-        when(attendanceRepo.findByUserAndAttendanceDate(testUser, LocalDate.now()))
+        when(recorder.record(eq(1L), eq(LocalDate.now()), any())).thenReturn(Outcome.CHECKED_OUT);
+        when(attendanceRepo.findByUserUidAndAttendanceDate(1L, LocalDate.now()))
                 .thenReturn(Optional.of(testAttendance));
-        when(attendanceRepo.save(any(Attendance.class))).thenAnswer(i -> i.getArgument(0));
 
         // Act
         Attendance result = attendanceService.markAttendance("valid-token");
@@ -217,70 +250,291 @@ class AttendanceServiceImplTest {
         assertNotNull(result.getCheckInTime());
         assertNotNull(result.getCheckOutTime());
         assertEquals(AttendanceStatus.CHECKED_OUT, result.getStatus());
-        
-        verify(tokenRepo).save(argThat(token -> token.isUsed()));
     }
 
     @Test
     void markAttendance_WithExpiredToken_ShouldThrowException() {
         // Arrange
-        testToken.setExpiresAt(LocalDateTime.now().minusMinutes(1)); // Expired
-        when(tokenRepo.findByTokenAndUsedFalse("expired-token"))
-                .thenReturn(Optional.of(testToken));
+        QrToken expired = new QrToken(1L, "testuser", LocalDate.now(), TokenDigests.sha256Hex("expired-token"),
+                Instant.now().minusSeconds(60));
+        when(qrTokens.consume(TokenDigests.sha256Hex("expired-token")))
+                .thenReturn(Optional.of(expired));
 
         // Act & Assert
-        RuntimeException exception = assertThrows(RuntimeException.class, 
+        InvalidQrTokenException exception = assertThrows(InvalidQrTokenException.class, 
                 () -> attendanceService.markAttendance("expired-token"));
         
         assertTrue(exception.getMessage().contains("expired"));
-        verify(attendanceRepo, never()).save(any(Attendance.class));
+        verify(recorder, never()).record(anyLong(), any(), any());
     }
 
     @Test
     void markAttendance_WithInvalidToken_ShouldThrowException() {
         // Arrange
-        when(tokenRepo.findByTokenAndUsedFalse("invalid-token"))
+        when(qrTokens.consume(TokenDigests.sha256Hex("invalid-token")))
                 .thenReturn(Optional.empty());
 
         // Act & Assert
-        assertThrows(RuntimeException.class, 
+        assertThrows(InvalidQrTokenException.class, 
                 () -> attendanceService.markAttendance("invalid-token"));
+        verify(recorder, never()).record(anyLong(), any(), any());
     }
 
     @Test
     void markAttendance_WhenAlreadyCompleted_ShouldThrowException() {
         // Arrange
-        testAttendance.setCheckInTime(LocalDateTime.now().minusHours(8));
-        testAttendance.setCheckOutTime(LocalDateTime.now());
-        
-        when(tokenRepo.findByTokenAndUsedFalse("valid-token"))
+        when(qrTokens.consume(TokenDigests.sha256Hex("valid-token")))
                 .thenReturn(Optional.of(testToken));
-        when(attendanceRepo.findByUserAndAttendanceDate(testUser, LocalDate.now()))
-                .thenReturn(Optional.of(testAttendance));
+        when(recorder.record(eq(1L), eq(LocalDate.now()), any())).thenReturn(Outcome.ALREADY_COMPLETED);
 
         // Act & Assert
-        RuntimeException exception = assertThrows(RuntimeException.class, 
+        AttendanceAlreadyMarkedException exception = assertThrows(AttendanceAlreadyMarkedException.class, 
                 () -> attendanceService.markAttendance("valid-token"));
         
         assertTrue(exception.getMessage().contains("already completed"));
     }
 
     @Test
-    void markAttendance_ShouldMarkTokenAsUsed() {
+    void markAttendance_ShouldConsumeTokenByHash() {
         // Arrange
-        when(tokenRepo.findByTokenAndUsedFalse("valid-token"))
+        when(qrTokens.consume(TokenDigests.sha256Hex("valid-token")))
                 .thenReturn(Optional.of(testToken));
-        when(attendanceRepo.findByUserAndAttendanceDate(any(), any()))
-                .thenReturn(Optional.empty());
-        when(attendanceRepo.save(any())).thenAnswer(i -> i.getArgument(0));
+        when(recorder.record(anyLong(), any(), any())).thenReturn(Outcome.CHECKED_IN);
+        when(attendanceRepo.findByUserUidAndAttendanceDate(anyLong(), any()))
+                .thenReturn(Optional.of(testAttendance));
 
         // Act
         attendanceService.markAttendance("valid-token");
 
         // Assert
-        verify(tokenRepo).save(argThat(token -> 
-            token.isUsed() == true && token.getToken().equals("valid-jwt-token")
-        ));
+        verify(qrTokens).consume(TokenDigests.sha256Hex("valid-token"));
+    }
+
+    // ==================== markAttendanceBatch() Tests ====================
+
+    private QrToken qrToken(long uid, String token, Instant expiresAt) {
+        return new QrToken(uid, "user" + uid, LocalDate.now(), TokenDigests.sha256Hex(token), expiresAt);
+    }
+
+    private void givenOutcomes(Map<Long, Outcome> byUid) {
+        when(recorder.recordAll(eq(LocalDate.now()), any())).thenAnswer(invocation -> invocation
+                .<List<Scan>>getArgument(1).stream().map(scan -> byUid.get(scan.uid())).toList());
+    }
+
+    private void verifyNothingRecorded() {
+        verify(recorder, never()).recordAll(any(), argThat(scans -> !scans.isEmpty()));
+    }
+
+    @Test
+    void markAttendanceBatch_ShouldReturnOneResultPerScan() {
+        // Arrange
+        when(qrTokens.consumeAll(any())).thenReturn(Map.of(
+                TokenDigests.sha256Hex("in"), qrToken(1L, "in", Instant.now().plusSeconds(300)),
+                TokenDigests.sha256Hex("out"), qrToken(2L, "out", Instant.now().plusSeconds(300)),
+                TokenDigests.sha256Hex("done"), qrToken(3L, "done", Instant.now().plusSeconds(300))));
+        givenOutcomes(Map.of(1L, Outcome.CHECKED_IN, 2L, Outcome.CHECKED_OUT, 3L, Outcome.ALREADY_COMPLETED));
+
+        // Act
+        List<ScanResult> results = attendanceService.markAttendanceBatch(List.of(
+                new ScannedToken("in", null),
+                new ScannedToken("unknown", null),
+                new ScannedToken("out", null),
+                new ScannedToken("", null),
+                new ScannedToken("in", null),
+                new ScannedToken("done", null)));
+
+        // Assert
+        assertEquals(6, results.size());
+        assertTrue(results.get(0).isMarked());
+        assertEquals("user1", results.get(0).getUsername());
+        assertEquals(AttendanceUiState.CHECKED_IN, results.get(0).getAttendance().getState());
+        assertFalse(results.get(1).isMarked());
+        assertTrue(results.get(2).isMarked());
+        assertEquals(AttendanceUiState.COMPLETED, results.get(2).getAttendance().getState());
+        assertEquals("QR token is required", results.get(3).getError());
+        assertEquals("Invalid or used QR token", results.get(4).getError()); // same token twice
+        assertEquals("Attendance already completed", results.get(5).getError());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+        }
+
+        verify(recorder).recordAll(eq(LocalDate.now()), argThat(scans -> scans.size() == 3)); // one batch
+        verify(recorder, never()).record(anyLong(), any(), any());
+        verify(attendanceRepo, never()).save(any(Attendance.class));
+    }
+
+    @Test
+    void markAttendanceBatch_ShouldApplyScansOfOneUserInScanOrder() {
+        // Arrange
+        LocalDateTime checkIn = LocalDateTime.now().minusMinutes(3);
+        LocalDateTime checkOut = LocalDateTime.now().minusMinutes(1);
+        when(qrTokens.consumeAll(any())).thenReturn(Map.of(
+                TokenDigests.sha256Hex("first"), qrToken(1L, "first", Instant.now().plusSeconds(300)),
+                TokenDigests.sha256Hex("second"), qrToken(1L, "second", Instant.now().plusSeconds(300))));
+        when(recorder.recordAll(LocalDate.now(), List.of(new Scan(1L, checkIn), new Scan(1L, checkOut))))
+                .thenReturn(List.of(Outcome.CHECKED_IN, Outcome.CHECKED_OUT));
+
+        // Act - sent out of order by the kiosk
+        List<ScanResult> results = attendanceService.markAttendanceBatch(List.of(
+                new ScannedToken("second", checkOut),
+                new ScannedToken("first", checkIn)));
+
+        // Assert
+        assertEquals(AttendanceUiState.COMPLETED, results.get(0).getAttendance().getState());
+        assertEquals(AttendanceUiState.CHECKED_IN, results.get(1).getAttendance().getState());
+    }
+
+    @Test
+    void markAttendanceBatch_WithTokenExpiredAtScanTime_ShouldRejectOnlyThatScan() {
+        // Arrange
+        when(qrTokens.consumeAll(any())).thenReturn(Map.of(
+                TokenDigests.sha256Hex("late"), qrToken(1L, "late", Instant.now().minusSeconds(60))));
+
+        // Act
+        List<ScanResult> results = attendanceService.markAttendanceBatch(List.of(new ScannedToken("late", null)));
+
+        // Assert
+        assertEquals("QR token expired", results.get(0).getError());
+        verifyNothingRecorded();
+    }
+
+    @Test
+    void markAttendanceBatch_WithScanTimeInTheFuture_ShouldUseServerTime() {
+        // Arrange
+        when(qrTokens.consumeAll(any())).thenReturn(Map.of(
+                TokenDigests.sha256Hex("in"), qrToken(1L, "in", Instant.now().plusSeconds(300))));
+        givenOutcomes(Map.of(1L, Outcome.CHECKED_IN));
+
+        // Act
+        attendanceService.markAttendanceBatch(List.of(new ScannedToken("in", LocalDateTime.now().plusHours(2))));
+
+        // Assert
+        verify(recorder).recordAll(any(), argThat(scans -> scans.size() == 1
+                && !scans.get(0).at().isAfter(LocalDateTime.now())));
+    }
+
+    // ==================== syncScans() Tests ====================
+
+    @Test
+    void syncScans_ShouldMarkNewScansAndReplayKnownKeys() {
+        // Arrange
+        ScanResult earlier = ScanResult.marked(0, "user2",
+                new AttendanceResponse(LocalDate.now(), AttendanceUiState.CHECKED_IN));
+        when(syncedScans.find("kiosk-1:a")).thenReturn(Optional.of(earlier));
+        when(syncedScans.find("kiosk-1:b")).thenReturn(Optional.empty());
+        when(syncedScans.claim("kiosk-1:b")).thenReturn(true);
+        when(qrTokens.consumeAll(any())).thenReturn(Map.of(
+                TokenDigests.sha256Hex("b"), qrToken(1L, "b", Instant.now().plusSeconds(300))));
+        givenOutcomes(Map.of(1L, Outcome.CHECKED_IN));
+
+        // Act
+        List<ScanResult> results = attendanceService.syncScans("kiosk-1", List.of(
+                new ScannedToken("a", null, "a"),
+                new ScannedToken("b", null, "b"),
+                new ScannedToken("b", null, "b"),
+                new ScannedToken("c", null, null)));
+
+        // Assert
+        assertTrue(results.get(0).isReplayed());
+        assertEquals("user2", results.get(0).getUsername());
+        assertTrue(results.get(1).isMarked());
+        assertFalse(results.get(1).isReplayed());
+        assertTrue(results.get(2).isReplayed()); // same key twice in one backlog
+        assertTrue(results.get(2).isMarked());
+        assertFalse(results.get(3).isMarked());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+        }
+
+        verify(recorder).recordAll(any(), argThat(scans -> scans.size() == 1));
+        verify(syncedScans).complete(eq("kiosk-1:b"), any());
+    }
+
+    @Test
+    void syncScans_WithBacklogOlderThanTheTokenLifetime_ShouldMarkScansAtTheirOriginalTimes() {
+        // Arrange - a scanner that was offline for most of an hour
+        LocalDateTime checkIn = LocalDateTime.now().minusMinutes(50);
+        LocalDateTime checkOut = LocalDateTime.now().minusMinutes(20);
+        assumeTrue(checkIn.toLocalDate().equals(LocalDate.now()), "backlog must not start yesterday");
+        when(syncedScans.find(any())).thenReturn(Optional.empty());
+        when(syncedScans.claim(any())).thenReturn(true);
+        when(qrTokens.consumeAll(any())).thenReturn(Map.of(
+                TokenDigests.sha256Hex("in"), qrToken(1L, "in",
+                        checkIn.plusMinutes(3).atZone(ZoneId.systemDefault()).toInstant()),
+                TokenDigests.sha256Hex("out"), qrToken(1L, "out",
+                        checkOut.plusMinutes(3).atZone(ZoneId.systemDefault()).toInstant()),
+                TokenDigests.sha256Hex("late"), qrToken(2L, "late",
+                        checkOut.minusMinutes(1).atZone(ZoneId.systemDefault()).toInstant())));
+        when(recorder.recordAll(LocalDate.now(), List.of(new Scan(1L, checkIn), new Scan(1L, checkOut))))
+                .thenReturn(List.of(Outcome.CHECKED_IN, Outcome.CHECKED_OUT));
+
+        // Act
+        List<ScanResult> results = attendanceService.syncScans("kiosk-1", List.of(
+                new ScannedToken("in", checkIn, "a"),
+                new ScannedToken("out", checkOut, "b"),
+                new ScannedToken("late", checkOut, "c")));
+
+        // Assert - tokens are checked against the time each scan was taken
+        assertEquals(AttendanceUiState.CHECKED_IN, results.get(0).getAttendance().getState());
+        assertEquals(AttendanceUiState.COMPLETED, results.get(1).getAttendance().getState());
+        assertEquals("QR token expired", results.get(2).getError());
+    }
+
+    @Test
+    void syncScans_WithScanOlderThanTheMaxBacklog_ShouldClampItsTime() {
+        // Arrange
+        ReflectionTestUtils.setField(attendanceService, "maxSyncBacklogMinutes", 30L);
+        LocalDateTime scannedAt = LocalDateTime.now().minusMinutes(45);
+        assumeTrue(scannedAt.toLocalDate().equals(LocalDate.now()), "backlog must not start yesterday");
+        when(syncedScans.find(any())).thenReturn(Optional.empty());
+        when(syncedScans.claim(any())).thenReturn(true);
+        when(qrTokens.consumeAll(any())).thenReturn(Map.of(
+                TokenDigests.sha256Hex("in"), qrToken(1L, "in",
+                        scannedAt.plusMinutes(5).atZone(ZoneId.systemDefault()).toInstant())));
+
+        // Act
+        List<ScanResult> results = attendanceService.syncScans("kiosk-1",
+                List.of(new ScannedToken("in", scannedAt, "a")));
+
+        // Assert - taken 30 minutes ago at the earliest, by when the token had expired
+        assertEquals("QR token expired", results.get(0).getError());
+        verifyNothingRecorded();
+    }
+
+    @Test
+    void syncScans_WithKeyBeingSynced_ShouldNotMarkAgain() {
+        // Arrange
+        when(syncedScans.find("kiosk-1:a")).thenReturn(Optional.empty());
+        when(syncedScans.claim("kiosk-1:a")).thenReturn(false);
+
+        // Act
+        List<ScanResult> results = attendanceService.syncScans("kiosk-1",
+                List.of(new ScannedToken("a", null, "a")));
+
+        // Assert
+        assertEquals("Scan is already being synced, retry later", results.get(0).getError());
+        verifyNothingRecorded();
+        verify(syncedScans, never()).complete(any(), any());
+    }
+
+    @Test
+    void syncScans_WhenMarkingFails_ShouldReleaseClaims() {
+        // Arrange
+        when(syncedScans.find("kiosk-1:a")).thenReturn(Optional.empty());
+        when(syncedScans.claim("kiosk-1:a")).thenReturn(true);
+        when(qrTokens.consumeAll(any())).thenThrow(new IllegalStateException("store down"));
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> attendanceService.syncScans("kiosk-1",
+                List.of(new ScannedToken("a", null, "a"))));
+        verify(syncedScans).release("kiosk-1:a");
+    }
+
+    @Test
+    void syncScans_WithoutDeviceId_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> attendanceService.syncScans(" ",
+                List.of(new ScannedToken("a", null, "a"))));
+        verify(qrTokens, never()).consumeAll(any());
     }
 
     // ==================== getMyAttendance() Tests ====================
@@ -290,45 +544,105 @@ class AttendanceServiceImplTest {
         // Arrange
         List<Attendance> expectedAttendances = Arrays.asList(testAttendance);
         
-        when(securityContext.getAuthentication()).thenReturn(authentication);
-        when(authentication.getName()).thenReturn("testuser");
-        when(userRepo.findByUsername("testuser")).thenReturn(Optional.of(testUser));
-        when(attendanceRepo.findByUser(testUser)).thenReturn(expectedAttendances);
+        when(attendanceRepo.findByUserUid(1L)).thenReturn(expectedAttendances);
 
         // Act
-        List<Attendance> result = attendanceService.getMyAttendance();
+        List<Attendance> result = attendanceService.getMyAttendance(principal);
 
         // Assert
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals(testAttendance, result.get(0));
-        verify(attendanceRepo).findByUser(testUser);
+        verify(attendanceRepo).findByUserUid(1L);
     }
 
     @Test
-    void getMyAttendance_WhenUserNotFound_ShouldThrowException() {
+    void getMyAttendance_ShouldNotLookUpUserByUsername() {
         // Arrange
-        when(securityContext.getAuthentication()).thenReturn(authentication);
-        when(authentication.getName()).thenReturn("nonexistent");
-        when(userRepo.findByUsername("nonexistent")).thenReturn(Optional.empty());
+        when(attendanceRepo.findByUserUid(1L)).thenReturn(Collections.emptyList());
 
-        // Act & Assert
-        assertThrows(RuntimeException.class, () -> attendanceService.getMyAttendance());
+        // Act
+        attendanceService.getMyAttendance(principal);
+
+        // Assert
+        verify(userRepo, never()).findByUsername(anyString());
+    }
+
+    // ==================== getMyAttendanceRecords() Tests ====================
+
+    private static List<AttendanceRecordView> records(LocalDate newest, int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new AttendanceRecordView(newest.minusDays(i), AttendanceStatus.CHECKED_OUT,
+                        null, null))
+                .toList();
+    }
+
+    @Test
+    void getMyAttendanceRecords_WithMoreRows_ShouldReturnCursorToNextPage() {
+        // Arrange: one row more than the page size comes back
+        LocalDate start = LocalDate.of(2026, 1, 1);
+        LocalDate end = LocalDate.of(2026, 3, 31);
+        when(attendanceRepo.findRecords(eq(1L), eq(start), eq(end), argThat((Pageable p) -> p.getPageSize() == 4)))
+                .thenReturn(records(end, 4));
+
+        // Act
+        AttendanceRecordPage page = attendanceService.getMyAttendanceRecords(principal, start, end, null, 3);
+
+        // Assert
+        assertEquals(3, page.getRecords().size());
+        assertEquals(LocalDate.of(2026, 3, 29), page.getNextBefore());
+    }
+
+    @Test
+    void getMyAttendanceRecords_WithCursor_ShouldReadStrictlyBeforeIt() {
+        // Arrange
+        LocalDate start = LocalDate.of(2026, 1, 1);
+        LocalDate end = LocalDate.of(2026, 3, 31);
+        when(attendanceRepo.findRecords(eq(1L), eq(start), eq(LocalDate.of(2026, 3, 28)), any()))
+                .thenReturn(records(LocalDate.of(2026, 3, 28), 2));
+
+        // Act
+        AttendanceRecordPage page = attendanceService.getMyAttendanceRecords(
+                principal, start, end, LocalDate.of(2026, 3, 29), 3);
+
+        // Assert: last page
+        assertEquals(2, page.getRecords().size());
+        assertNull(page.getNextBefore());
+    }
+
+    @Test
+    void getMyAttendanceRecords_WithCursorBeforeRange_ShouldNotQuery() {
+        AttendanceRecordPage page = attendanceService.getMyAttendanceRecords(principal,
+                LocalDate.of(2026, 1, 1), LocalDate.of(2026, 3, 31), LocalDate.of(2026, 1, 1), 10);
+
+        assertTrue(page.getRecords().isEmpty());
+        verify(attendanceRepo, never()).findRecords(anyLong(), any(), any(), any());
+    }
+
+    @Test
+    void getMyAttendanceRecords_WithInvertedRange_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () -> attendanceService.getMyAttendanceRecords(principal,
+                LocalDate.of(2026, 3, 1), LocalDate.of(2026, 2, 1), null, 10));
     }
 
     // ==================== getMyAttendancePercentage() Tests ====================
 
+    @SuppressWarnings("unchecked")
+    private void givenPercentageNotCached() {
+        when(percentageCache.get(eq(1L), eq(LocalDate.now()), any()))
+                .thenAnswer(inv -> ((Supplier<AttendancePercentageResponse>) inv.getArgument(2)).get());
+    }
+
     @Test
     void getMyAttendancePercentage_WithNoRecords_ShouldReturnZeroPercentage() {
         // Arrange
-        when(securityContext.getAuthentication()).thenReturn(authentication);
-        when(authentication.getName()).thenReturn("testuser");
-        when(userRepo.findByUsername("testuser")).thenReturn(Optional.of(testUser));
-        when(attendanceRepo.findByUserUidAndAttendanceDateBetween(anyLong(), any(), any()))
+        givenPercentageNotCached();
+        ReflectionTestUtils.setField(attendanceService, "readFromRollup", false);
+        when(attendanceRepo.findByUserUidAndAttendanceDateLessThanEqual(anyLong(), any()))
                 .thenReturn(Collections.emptyList());
 
         // Act
-        AttendancePercentageResponse result = attendanceService.getMyAttendancePercentage();
+        AttendancePercentageResponse result = attendanceService.getMyAttendancePercentage(principal);
 
         // Assert
         assertNotNull(result);
@@ -340,16 +654,15 @@ class AttendanceServiceImplTest {
     @Test
     void getMyAttendancePercentage_WithMixedAttendance_ShouldCalculateCorrectly() {
         // Arrange
+        givenPercentageNotCached();
+        ReflectionTestUtils.setField(attendanceService, "readFromRollup", false);
         List<Attendance> attendances = createMixedAttendanceList();
         
-        when(securityContext.getAuthentication()).thenReturn(authentication);
-        when(authentication.getName()).thenReturn("testuser");
-        when(userRepo.findByUsername("testuser")).thenReturn(Optional.of(testUser));
-        when(attendanceRepo.findByUserUidAndAttendanceDateBetween(anyLong(), any(), any()))
+        when(attendanceRepo.findByUserUidAndAttendanceDateLessThanEqual(anyLong(), any()))
                 .thenReturn(attendances);
 
         // Act
-        AttendancePercentageResponse result = attendanceService.getMyAttendancePercentage();
+        AttendancePercentageResponse result = attendanceService.getMyAttendancePercentage(principal);
 
         // Assert
         assertNotNull(result);
@@ -365,19 +678,18 @@ class AttendanceServiceImplTest {
     @Test
     void getMyAttendancePercentage_WithOnlyLeaveDays_ShouldReturnZeroPercentage() {
         // Arrange
+        givenPercentageNotCached();
+        ReflectionTestUtils.setField(attendanceService, "readFromRollup", false);
         List<Attendance> attendances = Arrays.asList(
             createAttendance(LocalDate.now().minusDays(1), AttendanceStatus.LEAVE),
             createAttendance(LocalDate.now().minusDays(2), AttendanceStatus.LEAVE)
         );
         
-        when(securityContext.getAuthentication()).thenReturn(authentication);
-        when(authentication.getName()).thenReturn("testuser");
-        when(userRepo.findByUsername("testuser")).thenReturn(Optional.of(testUser));
-        when(attendanceRepo.findByUserUidAndAttendanceDateBetween(anyLong(), any(), any()))
+        when(attendanceRepo.findByUserUidAndAttendanceDateLessThanEqual(anyLong(), any()))
                 .thenReturn(attendances);
 
         // Act
-        AttendancePercentageResponse result = attendanceService.getMyAttendancePercentage();
+        AttendancePercentageResponse result = attendanceService.getMyAttendancePercentage(principal);
 
         // Assert
         assertEquals(2, result.getTotalDays());
@@ -386,22 +698,66 @@ class AttendanceServiceImplTest {
         assertEquals(0.0, result.getAttendancePercentage()); // No effective days
     }
 
+    @Test
+    void getMyAttendancePercentage_ShouldSumMonthlyRollup() {
+        // Arrange
+        givenPercentageNotCached();
+        when(rollup.totals(1L, "testuser", LocalDate.now()))
+                .thenReturn(new AttendanceStatusCounts(1L, "testuser", 10, 7, 2, 1));
+
+        // Act
+        AttendancePercentageResponse result = attendanceService.getMyAttendancePercentage(principal);
+
+        // Assert
+        assertEquals(10, result.getTotalDays());
+        assertEquals(77.78, result.getAttendancePercentage(), 0.01);
+        verify(attendanceRepo, never()).findByUserUidAndAttendanceDateLessThanEqual(anyLong(), any());
+    }
+
+    @Test
+    void getMyAttendancePercentage_WhenCached_ShouldNotQuery() {
+        // Arrange
+        AttendancePercentageResponse cached = new AttendancePercentageResponse(1L, "testuser", 10, 7, 2, 1, 77.78);
+        when(percentageCache.get(eq(1L), eq(LocalDate.now()), any())).thenReturn(cached);
+
+        // Act
+        AttendancePercentageResponse result = attendanceService.getMyAttendancePercentage(principal);
+
+        // Assert
+        assertEquals(cached, result);
+        verify(rollup, never()).totals(anyLong(), any(), any());
+    }
+
     // ==================== getAttendancePercentage() Tests ====================
 
+    @Test
+    void getAttendancePercentage_ShouldReadMonthlyRollup() {
+        // Arrange
+        LocalDate start = LocalDate.of(2026, 1, 15);
+        LocalDate end = LocalDate.of(2026, 6, 10);
+        when(rollup.countByUser(start, end, null))
+                .thenReturn(List.of(
+                    new AttendanceStatusCounts(1L, "testuser", 4, 3, 0, 1),
+                    new AttendanceStatusCounts(2L, "user2", 2, 1, 1, 0)));
+
+        // Act
+        List<AttendancePercentageResponse> result = attendanceService.getAttendancePercentage(start, end, null);
+
+        // Assert
+        assertEquals(2, result.size());
+        assertEquals(100.0, result.get(0).getAttendancePercentage());
+        assertEquals(50.0, result.get(1).getAttendancePercentage());
+        verify(attendanceRepo, never()).countByUser(any(), any(), any(), any());
+    }
+
     @Test
     void getAttendancePercentage_ForAllUsers_ShouldReturnMultipleResponses() {
         // Arrange
-        User user2 = new User();
-        user2.setUid(2L);
-        user2.setUsername("user2");
-        
-        List<Attendance> attendances = Arrays.asList(
-            createAttendanceForUser(testUser, LocalDate.now(), AttendanceStatus.CHECKED_OUT),
-            createAttendanceForUser(user2, LocalDate.now(), AttendanceStatus.CHECKED_OUT)
-        );
-        
-        when(attendanceRepo.findByAttendanceDateBetween(any(), any()))
-                .thenReturn(attendances);
+        ReflectionTestUtils.setField(attendanceService, "readFromRollup", false);
+        when(attendanceRepo.countByUser(any(), any(), eq(null), any()))
+                .thenReturn(List.of(
+                    new AttendanceStatusCounts(1L, "testuser", 1, 1, 0, 0),
+                    new AttendanceStatusCounts(2L, "user2", 1, 1, 0, 0)));
 
         // Act
         List<AttendancePercentageResponse> result = 
@@ -414,18 +770,16 @@ class AttendanceServiceImplTest {
         // Assert
         assertNotNull(result);
         assertEquals(2, result.size());
+        verify(attendanceRepo, never()).findByAttendanceDateBetween(any(), any());
     }
 
     @Test
     void getAttendancePercentage_ForSpecificUser_ShouldReturnSingleResponse() {
         // Arrange
-        List<Attendance> attendances = Arrays.asList(
-            createAttendance(LocalDate.now(), AttendanceStatus.CHECKED_OUT),
-            createAttendance(LocalDate.now().minusDays(1), AttendanceStatus.CHECKED_OUT)
-        );
-        
-        when(attendanceRepo.findByUserUidAndAttendanceDateBetween(eq(1L), any(), any()))
-                .thenReturn(attendances);
+        ReflectionTestUtils.setField(attendanceService, "readFromRollup", false);
+        when(attendanceRepo.countByUser(any(), any(), eq(1L),
+                eq(EnumSet.of(AttendanceStatus.CHECKED_IN, AttendanceStatus.CHECKED_OUT, AttendanceStatus.WFH))))
+                .thenReturn(List.of(new AttendanceStatusCounts(1L, "testuser", 10, 7, 2, 1)));
 
         // Act
         List<AttendancePercentageResponse> result = 
@@ -439,64 +793,83 @@ class AttendanceServiceImplTest {
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals(1L, result.get(0).getUserId());
+        assertEquals(77.78, result.get(0).getAttendancePercentage(), 0.01); // 7 / (10 - 1)
     }
 
-    // ==================== markAbsentUsers() Tests ====================
+    // ==================== getMyCalendar() / getMyYearSummary() Tests ====================
 
     @Test
-    void markAbsentUsers_ShouldMarkMissingUsersAsAbsent() {
-        // Arrange
-        User user2 = new User();
-        user2.setUid(2L);
-        user2.setUsername("user2");
-        user2.setEnabled(true);
-        
-        List<User> allUsers = Arrays.asList(testUser, user2);
-        
-        when(userRepo.findAllByEnabledTrue()).thenReturn(allUsers);
-        when(attendanceRepo.existsByUserAndAttendanceDate(testUser, LocalDate.now()))
-                .thenReturn(true); // testUser already marked
-        when(attendanceRepo.existsByUserAndAttendanceDate(user2, LocalDate.now()))
-                .thenReturn(false); // user2 not marked
+    void getMyCalendar_ShouldListMarkedDaysOfTheMonthOnly() {
+        // Arrange: 28 Feb, 2 and 3 March 2026, and 1 April
+        AttendanceYearBits bits = new AttendanceYearBits();
+        bits.set(58, CalendarDayStatus.PRESENT);
+        bits.set(60, CalendarDayStatus.PRESENT);
+        bits.set(61, CalendarDayStatus.WFH);
+        bits.set(90, CalendarDayStatus.ABSENT);
+        when(attendanceIndex.year(1L, 2026)).thenReturn(bits);
 
         // Act
-        attendanceService.markAbsentUsers();
+        AttendanceCalendarResponse result = attendanceService.getMyCalendar(principal, YearMonth.of(2026, 3));
 
         // Assert
-        verify(attendanceRepo).save(argThat(attendance ->
-            attendance.getUser().equals(user2) &&
-            attendance.getStatus() == AttendanceStatus.ABSENT &&
-            attendance.getAttendanceDate().equals(LocalDate.now())
-        ));
-        verify(attendanceRepo, times(1)).save(any(Attendance.class));
+        assertEquals(2, result.getDays().size());
+        assertEquals(LocalDate.of(2026, 3, 2), result.getDays().get(0).getDate());
+        assertEquals(CalendarDayStatus.WFH, result.getDays().get(1).getStatus());
+        assertEquals(2, result.getPresentDays());
+        assertEquals(1, result.getWfhDays());
+        assertEquals(0, result.getAbsentDays());
+    }
+
+    @Test
+    void getMyCalendar_ForFutureMonth_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class,
+                () -> attendanceService.getMyCalendar(principal, YearMonth.now().plusMonths(1)));
+
+        verify(attendanceIndex, never()).year(anyLong(), anyInt());
     }
 
     @Test
-    void markAbsentUsers_WhenAllUsersMarked_ShouldNotSaveAny() {
+    void getMyYearSummary_ShouldExcludeLeaveFromPercentage() {
         // Arrange
-        List<User> allUsers = Arrays.asList(testUser);
-        
-        when(userRepo.findAllByEnabledTrue()).thenReturn(allUsers);
-        when(attendanceRepo.existsByUserAndAttendanceDate(any(), any()))
-                .thenReturn(true);
+        AttendanceYearBits bits = new AttendanceYearBits();
+        for (int day = 0; day < 6; day++) {
+            bits.set(day, CalendarDayStatus.PRESENT);
+        }
+        bits.set(6, CalendarDayStatus.WFH);
+        bits.set(7, CalendarDayStatus.ABSENT);
+        bits.set(8, CalendarDayStatus.LEAVE);
+        when(attendanceIndex.year(1L, 2025)).thenReturn(bits);
 
         // Act
-        attendanceService.markAbsentUsers();
+        AttendanceYearSummary result = attendanceService.getMyYearSummary(principal, 2025);
 
         // Assert
-        verify(attendanceRepo, never()).save(any(Attendance.class));
+        assertEquals(9, result.getTotalDays());
+        assertEquals(7, result.getPresentDays());
+        assertEquals(1, result.getWfhDays());
+        assertEquals(87.5, result.getAttendancePercentage(), 0.01);
     }
 
     @Test
-    void markAbsentUsers_WithNoEnabledUsers_ShouldNotProcess() {
-        // Arrange
-        when(userRepo.findAllByEnabledTrue()).thenReturn(Collections.emptyList());
+    void rebuildAttendanceRollup_ShouldDropTheAttendanceIndex() {
+        when(rollup.rebuild()).thenReturn(12);
+
+        assertEquals(12, attendanceService.rebuildAttendanceRollup());
 
+        verify(attendanceIndex).invalidateAll();
+        verify(percentageCache).invalidateAll();
+    }
+
+    // ==================== markAbsentUsers() Tests ====================
+
+    @Test
+    void markAbsentUsers_ShouldRunBulkJobForToday() {
         // Act
         attendanceService.markAbsentUsers();
 
-        // Assert
-        verify(attendanceRepo, never()).existsByUserAndAttendanceDate(any(), any());
+        // Assert - no per-user queries or saves
+        verify(absenteeJob).markAbsent(LocalDate.now());
+        verify(userRepo, never()).findAllByEnabledTrue();
         verify(attendanceRepo, never()).save(any(Attendance.class));
     }
 
@@ -0,0 +1,77 @@
+package com.phantask.attendance.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import com.phantask.attendance.repository.AttendanceTokenRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for AttendanceTokenPurgeJob
+ */
+class AttendanceTokenPurgeJobTest {
+
+    private AttendanceTokenRepository tokenRepo;
+    private SimpleMeterRegistry meterRegistry;
+    private AttendanceTokenPurgeJob job;
+
+    @BeforeEach
+    void setUp() {
+        tokenRepo = mock(AttendanceTokenRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        job = new AttendanceTokenPurgeJob(tokenRepo, meterRegistry, 24, 2);
+    }
+
+    @Test
+    void purgeExpired_ShouldDeleteInBatchesUntilNothingIsLeft() {
+        when(tokenRepo.findExpiredIds(any(), any(Pageable.class)))
+                .thenReturn(List.of(1L, 2L), List.of(3L, 4L), List.of(5L));
+
+        int deleted = job.purgeExpired();
+
+        assertEquals(5, deleted);
+        verify(tokenRepo).deleteAllByIdInBatch(List.of(1L, 2L));
+        verify(tokenRepo).deleteAllByIdInBatch(List.of(3L, 4L));
+        verify(tokenRepo).deleteAllByIdInBatch(List.of(5L));
+        assertEquals(5.0, meterRegistry.counter("phantask.attendance.qrtokens.purged").count());
+        assertEquals(1, meterRegistry.timer("phantask.attendance.qrtokens.purge.duration").count());
+    }
+
+    @Test
+    void purgeExpired_ShouldOnlyTouchRowsPastTheRetentionWindow() {
+        when(tokenRepo.findExpiredIds(any(), any(Pageable.class))).thenReturn(List.of());
+        LocalDateTime before = LocalDateTime.now().minusHours(24);
+
+        job.purgeExpired();
+
+        verify(tokenRepo).findExpiredIds(argThat(cutoff -> !cutoff.isBefore(before)
+                && cutoff.isBefore(LocalDateTime.now().minusHours(23))),
+                argThat((Pageable page) -> page.getPageSize() == 2));
+        verify(tokenRepo, never()).deleteAllByIdInBatch(any());
+    }
+
+    @Test
+    void purgeExpired_WithFullLastBatch_ShouldCheckOnceMore() {
+        when(tokenRepo.findExpiredIds(any(), any(Pageable.class)))
+                .thenReturn(List.of(1L, 2L), List.of());
+
+        assertEquals(2, job.purgeExpired());
+        assertTrue(meterRegistry.timer("phantask.attendance.qrtokens.purge.duration").totalTime(
+                TimeUnit.NANOSECONDS) > 0);
+    }
+}
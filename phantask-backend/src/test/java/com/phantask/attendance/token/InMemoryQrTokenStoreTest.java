@@ -0,0 +1,171 @@
+package com.phantask.attendance.token;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for InMemoryQrTokenStore
+ */
+class InMemoryQrTokenStoreTest {
+
+    private final AtomicLong now = new AtomicLong(1_700_000_000_000L);
+    private QrTokenAuditWriter audit;
+    private InMemoryQrTokenStore store;
+
+    @BeforeEach
+    void setUp() {
+        audit = mock(QrTokenAuditWriter.class);
+        store = new InMemoryQrTokenStore(audit, 1000, 16, 0, now::get);
+    }
+
+    private QrToken token(long uid, String hash, long ttlMillis) {
+        return new QrToken(uid, "user" + uid, LocalDate.now(), hash, Instant.ofEpochMilli(now.get() + ttlMillis));
+    }
+
+    @Test
+    void consume_ShouldSucceedOnlyOnce() {
+        QrToken token = token(1L, "h1", 300_000);
+        store.register(token);
+
+        assertEquals(token, store.consume("h1").orElseThrow());
+        assertTrue(store.consume("h1").isEmpty());
+        verify(audit).registered(token);
+        verify(audit).consumed(token);
+    }
+
+    @Test
+    void register_ShouldReplaceThePreviousTokenOfTheUser() {
+        store.register(token(1L, "h1", 300_000));
+        store.register(token(1L, "h2", 300_000));
+        store.register(token(2L, "h3", 300_000));
+
+        assertTrue(store.consume("h1").isEmpty());
+        assertTrue(store.consume("h2").isPresent());
+        assertTrue(store.consume("h3").isPresent());
+    }
+
+    @Test
+    void register_SameTokenTwice_ShouldAuditItOnce() {
+        QrToken token = token(1L, "h1", 300_000);
+
+        store.register(token);
+        store.register(token);
+
+        verify(audit, times(1)).registered(token);
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void expire_ShouldDropTokensWhoseTickHasPassed() {
+        store.register(token(1L, "short", 2_500));
+        store.register(token(2L, "long", 300_000));
+
+        now.addAndGet(2_000);
+        store.expire();
+        assertEquals(2, store.size());
+
+        now.addAndGet(1_000);
+        store.expire();
+        assertEquals(1, store.size());
+        assertTrue(store.consume("short").isEmpty());
+
+        // 300 s is many revolutions of a 16-slot wheel: the token must survive until then
+        for (int i = 0; i < 296; i++) {
+            now.addAndGet(1_000);
+            store.expire();
+        }
+        assertEquals(1, store.size());
+
+        now.addAndGet(1_000);
+        store.expire();
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void expire_ShouldKeepExpiredTokensForTheOfflineSyncWindow() {
+        store = new InMemoryQrTokenStore(audit, 1000, 16, 600_000, now::get);
+        QrToken token = token(1L, "h1", 300_000);
+        store.register(token);
+
+        // Expired, but a scanner that was offline may still sync a scan taken before that
+        now.addAndGet(300_000 + 599_000);
+        store.expire();
+        assertEquals(token, store.consume("h1").orElseThrow());
+
+        store.register(token(2L, "h2", 300_000));
+        now.addAndGet(300_000 + 600_000);
+        store.expire();
+        assertTrue(store.consume("h2").isEmpty());
+    }
+
+    @Test
+    void expire_AfterLongPause_ShouldStillDropEverythingExpired() {
+        for (int i = 0; i < 50; i++) {
+            store.register(token(i, "h" + i, 1_000L * i));
+        }
+
+        now.addAndGet(3_600_000);
+        store.expire();
+
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void expire_ShouldNotDropAReplacedTokensSuccessor() {
+        store.register(token(1L, "old", 1_000));
+        store.register(token(1L, "new", 300_000));
+
+        now.addAndGet(2_000);
+        store.expire();
+
+        assertTrue(store.consume("new").isPresent());
+    }
+
+    @Test
+    void concurrentScans_ShouldConsumeTheTokenExactlyOnce() throws Exception {
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 200; round++) {
+                String hash = "h" + round;
+                store.register(token(1L, hash, 300_000));
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Boolean>> scans = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    scans.add(pool.submit(() -> {
+                        start.await();
+                        return store.consume(hash).isPresent();
+                    }));
+                }
+                start.countDown();
+
+                int won = 0;
+                for (Future<Boolean> scan : scans) {
+                    won += scan.get(5, TimeUnit.SECONDS) ? 1 : 0;
+                }
+                assertEquals(1, won);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertFalse(store.consume("h0").isPresent());
+    }
+}
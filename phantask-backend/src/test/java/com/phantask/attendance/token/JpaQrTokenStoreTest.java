@@ -0,0 +1,104 @@
+package com.phantask.attendance.token;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.phantask.attendance.entity.AttendanceToken;
+import com.phantask.attendance.repository.AttendanceTokenRepository;
+import com.phantask.authentication.entity.User;
+import com.phantask.authentication.repository.UserRepository;
+
+/**
+ * Unit tests for JpaQrTokenStore
+ */
+class JpaQrTokenStoreTest {
+
+    private AttendanceTokenRepository tokenRepo;
+    private JpaQrTokenStore store;
+
+    @BeforeEach
+    void setUp() {
+        tokenRepo = mock(AttendanceTokenRepository.class);
+        store = new JpaQrTokenStore(tokenRepo, mock(UserRepository.class));
+    }
+
+    private static AttendanceToken entity(String hash) {
+        User user = new User();
+        user.setUid(1L);
+        user.setUsername("testuser");
+        AttendanceToken token = new AttendanceToken();
+        token.setTokenHash(hash);
+        token.setUser(user);
+        token.setDate(LocalDate.now());
+        token.setExpiresAt(LocalDateTime.now().plusMinutes(5));
+        return token;
+    }
+
+    @Test
+    void consume_WhenConditionalUpdateWins_ShouldReturnToken() {
+        when(tokenRepo.consume("h1")).thenReturn(1);
+        when(tokenRepo.findWithUser(List.of("h1"))).thenReturn(List.of(entity("h1")));
+
+        QrToken token = store.consume("h1").orElseThrow();
+
+        assertEquals(1L, token.uid());
+        assertEquals("testuser", token.username());
+    }
+
+    @Test
+    void consume_WhenAnotherScanWonTheUpdate_ShouldReturnEmpty() {
+        when(tokenRepo.consume("h1")).thenReturn(0);
+
+        assertTrue(store.consume("h1").isEmpty());
+        verify(tokenRepo, never()).findWithUser(any());
+    }
+
+    @Test
+    void consumeAll_ShouldOnlyConsumeAndLoadTheTokensThisCallLocked() {
+        when(tokenRepo.lockUnused(List.of("h1", "h2"))).thenReturn(List.of(entity("h1")));
+        when(tokenRepo.findWithUser(List.of("h1"))).thenReturn(List.of(entity("h1")));
+
+        Map<String, QrToken> consumed = store.consumeAll(List.of("h1", "h2"));
+
+        assertEquals(1, consumed.size());
+        assertTrue(consumed.containsKey("h1"));
+        verify(tokenRepo).markUsed(List.of("h1"));
+        verify(tokenRepo, never()).consume(any());
+    }
+
+    @Test
+    void consumeAll_WhenNoTokenIsStillUnused_ShouldNotUpdateAnything() {
+        when(tokenRepo.lockUnused(List.of("h1"))).thenReturn(List.of());
+
+        assertTrue(store.consumeAll(List.of("h1")).isEmpty());
+        verify(tokenRepo, never()).markUsed(any());
+        verify(tokenRepo, never()).findWithUser(any());
+    }
+
+    @Test
+    void register_SameTokenTwice_ShouldUpsertTheSameRow() {
+        QrToken token = new QrToken(1L, "testuser", LocalDate.now(), "h1", Instant.now().plusSeconds(300));
+
+        store.register(token);
+        store.register(token);
+
+        verify(tokenRepo, times(2)).upsert(eq("h1"), eq(1L), eq(LocalDate.now()), any(), eq(false));
+        verify(tokenRepo, never()).save(any());
+    }
+}
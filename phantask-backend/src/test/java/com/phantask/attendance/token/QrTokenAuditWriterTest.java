@@ -0,0 +1,156 @@
+package com.phantask.attendance.token;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.phantask.attendance.repository.AttendanceTokenRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for QrTokenAuditWriter
+ */
+class QrTokenAuditWriterTest {
+
+    private AttendanceTokenRepository tokenRepo;
+    private TransactionTemplate transactionTemplate;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        tokenRepo = mock(AttendanceTokenRepository.class);
+        transactionTemplate = mock(TransactionTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    private QrTokenAuditWriter writer(boolean enabled, int queueCapacity, int batchSize) {
+        return new QrTokenAuditWriter(tokenRepo, transactionTemplate, meterRegistry, enabled,
+                queueCapacity, batchSize);
+    }
+
+    private static QrToken token(String hash) {
+        return new QrToken(1L, "testuser", LocalDate.now(), hash, Instant.now().plusSeconds(300));
+    }
+
+    @Test
+    void flush_ShouldUpsertRegistrationsAndMarkScansUsed() {
+        QrTokenAuditWriter writer = writer(true, 100, 100);
+        writer.registered(token("h2"));
+        writer.consumed(token("h1"));
+
+        writer.flush();
+
+        verify(tokenRepo).upsert(eq("h2"), eq(1L), any(), any(), eq(false));
+        verify(tokenRepo).markUsed(Set.of("h1"));
+    }
+
+    @Test
+    void flush_TokenRegisteredAndScannedInSameBatch_ShouldBeWrittenAsUsed() {
+        QrTokenAuditWriter writer = writer(true, 100, 100);
+        writer.registered(token("h1"));
+        writer.consumed(token("h1"));
+
+        writer.flush();
+
+        verify(tokenRepo).upsert(eq("h1"), eq(1L), any(), any(), eq(true));
+        verify(tokenRepo, never()).markUsed(anyCollection());
+    }
+
+    @Test
+    void flush_SameTokenRegisteredTwice_ShouldUpsertInBothBatches() {
+        QrTokenAuditWriter writer = writer(true, 100, 100);
+        writer.registered(token("h1"));
+        writer.flush();
+
+        writer.registered(token("h1"));
+        writer.flush();
+
+        verify(tokenRepo, times(2)).upsert(eq("h1"), eq(1L), any(), any(), eq(false));
+    }
+
+    @Test
+    void flush_TokenScannedThenRegisteredAgain_ShouldEndUnused() {
+        QrTokenAuditWriter writer = writer(true, 100, 100);
+        writer.consumed(token("h1"));
+        writer.registered(token("h1"));
+
+        writer.flush();
+
+        verify(tokenRepo).upsert(eq("h1"), eq(1L), any(), any(), eq(false));
+        verify(tokenRepo, never()).markUsed(anyCollection());
+    }
+
+    @Test
+    void flush_ShouldWriteInBatches() {
+        QrTokenAuditWriter writer = writer(true, 100, 2);
+        for (int i = 0; i < 5; i++) {
+            writer.registered(token("h" + i));
+        }
+
+        writer.flush();
+
+        verify(transactionTemplate, times(3)).executeWithoutResult(any());
+    }
+
+    @Test
+    void flush_WhenWriteFails_ShouldCarryOnWithTheNextBatch() {
+        QrTokenAuditWriter writer = writer(true, 100, 1);
+        doThrow(new DataAccessResourceFailureException("down"))
+                .when(tokenRepo).upsert(eq("h1"), anyLong(), any(), any(), anyBoolean());
+        writer.registered(token("h1"));
+        writer.registered(token("h2"));
+
+        writer.flush();
+
+        verify(tokenRepo).upsert(eq("h2"), anyLong(), any(), any(), anyBoolean());
+    }
+
+    @Test
+    void fullQueue_ShouldDropAndCount() {
+        QrTokenAuditWriter writer = writer(true, 1, 100);
+        writer.registered(token("h1"));
+        writer.registered(token("h2"));
+
+        writer.flush();
+
+        verify(tokenRepo, times(1)).upsert(any(), anyLong(), any(), any(), anyBoolean());
+        assertEquals(1.0,
+                meterRegistry.counter("phantask.attendance.qrtokens.audit.dropped").count());
+    }
+
+    @Test
+    void disabled_ShouldWriteNothing() {
+        QrTokenAuditWriter writer = writer(false, 100, 100);
+        writer.registered(token("h1"));
+
+        writer.flush();
+
+        verify(transactionTemplate, never()).executeWithoutResult(any());
+    }
+}
@@ -0,0 +1,97 @@
+package com.phantask.authentication.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.phantask.exception.PasswordHashingBusyException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for BoundedPasswordEncoder
+ */
+class BoundedPasswordEncoderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void tearDown() {
+        if (encoder != null) {
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    void encodeAndMatches_ShouldRunBCryptAndRecordTimers() {
+        encoder = new BoundedPasswordEncoder(2, 4, 5000, meterRegistry);
+
+        String hash = encoder.encode("Secret@123");
+
+        assertTrue(hash.startsWith("$2a$"));
+        assertTrue(encoder.matches("Secret@123", hash));
+        assertFalse(encoder.matches("wrong", hash));
+        assertEquals(1, meterRegistry.get("phantask.password.hash").tag("op", "encode").timer().count());
+        assertEquals(2, meterRegistry.get("phantask.password.queue.wait").tag("op", "matches").timer().count());
+    }
+
+    @Test
+    void encode_WhenPoolAndQueueAreFull_ShouldRejectImmediately() throws Exception {
+        encoder = new BoundedPasswordEncoder(1, 1, 5000, meterRegistry);
+        String hash = encoder.encode("Secret@123");
+
+        // Occupy the only worker and the only queue slot with blocked callers
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        CountDownLatch release = new CountDownLatch(1);
+        BoundedPasswordEncoder[] holder = { encoder };
+        CharSequence blocking = new CharSequence() {
+            public int length() { awaitQuietly(release); return 10; }
+            public char charAt(int index) { return 'x'; }
+            public CharSequence subSequence(int start, int end) { return "x"; }
+            public String toString() { awaitQuietly(release); return "xxxxxxxxxx"; }
+        };
+        callers.submit(() -> holder[0].matches(blocking, hash));
+        callers.submit(() -> holder[0].matches(blocking, hash));
+        waitUntil(() -> meterRegistry.get("phantask.password.queue.depth").gauge().value() == 1);
+
+        assertThrows(PasswordHashingBusyException.class, () -> encoder.matches("Secret@123", hash));
+        assertEquals(1, meterRegistry.get("phantask.password.rejected").counter().count());
+
+        release.countDown();
+        callers.shutdown();
+        assertTrue(callers.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void matches_WhenWaitExceedsLimit_ShouldThrowBusy() {
+        encoder = new BoundedPasswordEncoder(1, 1, 1, meterRegistry);
+
+        assertThrows(PasswordHashingBusyException.class,
+                () -> encoder.encode("Secret@123")); // BCrypt takes far longer than 1 ms
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
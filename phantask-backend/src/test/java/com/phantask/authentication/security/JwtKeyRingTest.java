@@ -0,0 +1,129 @@
+package com.phantask.authentication.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Date;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Unit tests for JwtKeyRing
+ */
+class JwtKeyRingTest {
+
+    private static final String SECRET = "A7D9F2B3C4E5F6A7D8E9F0B1C2D3E4F599AA11223344556677889900AABBCCDD";
+    private static final String KEY_1 = "first-rotating-key-0123456789-abcdef";
+    private static final String KEY_2 = "second-rotating-key-0123456789-abcdef";
+
+    @TempDir
+    Path dir;
+
+    private static String sign(JwtKeyRing ring) {
+        return Jwts.builder()
+                .setHeaderParam("kid", ring.activeKid())
+                .setSubject("testuser")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(ring.activeKey(), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    private Path writeKeys(String content, long modifiedSecondsAgo) throws IOException {
+        Path file = dir.resolve("jwt-keys.properties");
+        Files.writeString(file, content);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minusSeconds(modifiedSecondsAgo)));
+        return file;
+    }
+
+    @Test
+    void withoutKeysFile_ShouldSignWithSecret() {
+        JwtKeyRing ring = new JwtKeyRing(SECRET, "", new VerifiedTokenCache(10));
+
+        assertEquals(JwtKeyRing.DEFAULT_KID, ring.activeKid());
+        assertEquals("testuser", ring.parser().parseClaimsJws(sign(ring)).getBody().getSubject());
+    }
+
+    @Test
+    void tokenWithoutKid_ShouldBeVerifiedWithSecret() throws IOException {
+        Path file = writeKeys("active=k1\nkey.k1=" + KEY_1 + "\n", 60);
+        JwtKeyRing ring = new JwtKeyRing(SECRET, file.toString(), new VerifiedTokenCache(10));
+        String legacy = Jwts.builder()
+                .setSubject("testuser")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertEquals("testuser", ring.parser().parseClaimsJws(legacy).getBody().getSubject());
+    }
+
+    @Test
+    void rotation_ShouldKeepOldTokensValidUntilKeyIsRemoved() throws IOException {
+        VerifiedTokenCache cache = mock(VerifiedTokenCache.class);
+        Path file = writeKeys("active=k1\nkey.k1=" + KEY_1 + "\n", 120);
+        JwtKeyRing ring = new JwtKeyRing(SECRET, file.toString(), cache);
+        String oldToken = sign(ring);
+
+        // Rotate: k2 becomes active, k1 stays for verification
+        writeKeys("active=k2\nkey.k1=" + KEY_1 + "\nkey.k2=" + KEY_2 + "\n", 60);
+        ring.reloadIfChanged();
+
+        assertEquals("k2", ring.activeKid());
+        assertEquals("testuser", ring.parser().parseClaimsJws(oldToken).getBody().getSubject());
+        assertEquals("testuser", ring.parser().parseClaimsJws(sign(ring)).getBody().getSubject());
+        verify(cache, never()).invalidateAll();
+
+        // Retire k1
+        writeKeys("active=k2\nkey.k2=" + KEY_2 + "\n", 0);
+        ring.reloadIfChanged();
+
+        assertThrows(JwtException.class, () -> ring.parser().parseClaimsJws(oldToken));
+        verify(cache).invalidateAll();
+    }
+
+    @Test
+    void reload_WithBrokenFile_ShouldKeepCurrentKeys() throws IOException {
+        Path file = writeKeys("active=k1\nkey.k1=" + KEY_1 + "\n", 60);
+        JwtKeyRing ring = new JwtKeyRing(SECRET, file.toString(), new VerifiedTokenCache(10));
+        String token = sign(ring);
+
+        writeKeys("active=missing\nkey.k1=" + KEY_1 + "\n", 0);
+        ring.reloadIfChanged();
+
+        assertEquals("k1", ring.activeKid());
+        assertEquals("testuser", ring.parser().parseClaimsJws(token).getBody().getSubject());
+    }
+
+    @Test
+    void unknownKid_ShouldBeRejected() {
+        JwtKeyRing ring = new JwtKeyRing(SECRET, "", new VerifiedTokenCache(10));
+        String token = Jwts.builder()
+                .setHeaderParam("kid", "other")
+                .setSubject("testuser")
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertThrows(JwtException.class, () -> ring.parser().parseClaimsJws(token));
+    }
+
+    @Test
+    void parser_ShouldBeSharedBetweenCalls() {
+        JwtKeyRing ring = new JwtKeyRing(SECRET, "", new VerifiedTokenCache(10));
+
+        assertSame(ring.parser(), ring.parser());
+    }
+}
@@ -0,0 +1,188 @@
+package com.phantask.authentication.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+
+import com.phantask.authentication.entity.Role;
+import com.phantask.authentication.entity.User;
+import com.phantask.authentication.repository.RoleRepository;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Unit tests for JwtUtil and its verified-token cache
+ */
+class JwtUtilTest {
+
+    private static final String SECRET = "A7D9F2B3C4E5F6A7D8E9F0B1C2D3E4F599AA11223344556677889900AABBCCDD";
+
+    private JwtUtil jwtUtil;
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        Role role = new Role();
+        role.setRid(1L);
+        role.setRoleName("ADMIN");
+        role.setBitIndex(0);
+
+        RoleRepository roleRepo = mock(RoleRepository.class);
+        when(roleRepo.findAll()).thenReturn(List.of(role));
+
+        jwtUtil = new JwtUtil(new VerifiedTokenCache(100), new RoleAuthorityRegistry(roleRepo),
+                new JwtKeyRing(SECRET, "", new VerifiedTokenCache(100)));
+
+        Set<Role> roles = new HashSet<>();
+        roles.add(role);
+
+        testUser = new User();
+        testUser.setUid(1L);
+        testUser.setUsername("testuser");
+        testUser.setRoles(roles);
+    }
+
+    @Test
+    void verify_WithAccessToken_ShouldExposeAllClaims() {
+        String token = jwtUtil.generateAccessToken(testUser);
+
+        VerifiedToken verified = jwtUtil.verify(token);
+
+        assertEquals("testuser", verified.getUsername());
+        assertTrue(verified.isAccessToken());
+        assertFalse(verified.isRefreshToken());
+        assertEquals(List.of("ADMIN"), verified.getRoles());
+        assertFalse(verified.isExpired());
+    }
+
+    @Test
+    void generateAccessToken_ShouldCarryRoleMaskInsteadOfRoleNames() {
+        String token = jwtUtil.generateAccessToken(testUser);
+
+        Claims claims = jwtUtil.getClaims(token);
+
+        assertEquals(1L, claims.get("rm", Long.class));
+        assertNull(claims.get("roles"));
+    }
+
+    @Test
+    void verify_WithLegacyRoleNameToken_ShouldShareAuthoritiesWithMaskToken() {
+        long now = System.currentTimeMillis();
+        String legacy = Jwts.builder()
+                .setSubject("testuser")
+                .claim("type", "ACCESS")
+                .claim("roles", List.of("ADMIN"))
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + 60_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()), SignatureAlgorithm.HS256)
+                .compact();
+
+        VerifiedToken fromNames = jwtUtil.verify(legacy);
+        VerifiedToken fromMask = jwtUtil.verify(jwtUtil.generateAccessToken(testUser));
+
+        assertEquals(List.of("ADMIN"), fromNames.getRoles());
+        assertEquals(List.of("ADMIN", "ROLE_ADMIN"),
+                fromMask.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+        assertSame(fromMask.getAuthorities(), fromNames.getAuthorities());
+    }
+
+    @Test
+    void generateAccessToken_WithRoleWithoutBitIndex_ShouldFallBackToRoleNames() {
+        testUser.getRoles().forEach(role -> role.setBitIndex(null));
+
+        String token = jwtUtil.generateAccessToken(testUser);
+
+        assertNull(jwtUtil.getClaims(token).get("rm"));
+        assertEquals(List.of("ADMIN"), jwtUtil.verify(token).getRoles());
+    }
+
+    @Test
+    void verify_WithRefreshToken_ShouldNotContainRoles() {
+        String token = jwtUtil.generateRefreshToken(testUser);
+
+        VerifiedToken verified = jwtUtil.verify(token);
+
+        assertTrue(verified.isRefreshToken());
+        assertTrue(verified.getRoles().isEmpty());
+    }
+
+    @Test
+    void generateRefreshToken_ShouldCarryOwnIdAndFamily() {
+        VerifiedToken first = jwtUtil.verify(jwtUtil.generateRefreshToken(testUser));
+        VerifiedToken rotated = jwtUtil.verify(jwtUtil.generateRefreshToken(testUser, first.getFamilyId()));
+
+        assertNotNull(first.getTokenId());
+        assertNotNull(first.getFamilyId());
+        assertEquals(first.getFamilyId(), rotated.getFamilyId());
+        assertNotEquals(first.getTokenId(), rotated.getTokenId());
+    }
+
+    @Test
+    void verify_CalledTwiceWithSameToken_ShouldReturnCachedInstance() {
+        String token = jwtUtil.generateAccessToken(testUser);
+
+        VerifiedToken first = jwtUtil.verify(token);
+        VerifiedToken second = jwtUtil.verify(token);
+
+        assertSame(first, second);
+    }
+
+    @Test
+    void verify_WithTamperedSignature_ShouldThrowJwtException() {
+        String token = jwtUtil.generateAccessToken(testUser);
+        jwtUtil.verify(token);
+
+        // Change a signature character; the cached entry must not match
+        int pos = token.length() - 5;
+        char c = token.charAt(pos);
+        String tampered = token.substring(0, pos) + (c == 'A' ? 'B' : 'A') + token.substring(pos + 1);
+
+        assertThrows(JwtException.class, () -> jwtUtil.verify(tampered));
+    }
+
+    @Test
+    void verify_WithExpiredToken_ShouldThrowExpiredJwtException() {
+        long now = System.currentTimeMillis();
+        String expired = Jwts.builder()
+                .setSubject("testuser")
+                .claim("type", "ACCESS")
+                .setIssuedAt(new Date(now - 60_000))
+                .setExpiration(new Date(now - 1_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertThrows(ExpiredJwtException.class, () -> jwtUtil.verify(expired));
+    }
+
+    @Test
+    void isTokenValid_WithDifferentUser_ShouldReturnFalse() {
+        String token = jwtUtil.generateAccessToken(testUser);
+
+        User other = new User();
+        other.setUsername("someoneelse");
+
+        assertFalse(jwtUtil.isTokenValid(token, other));
+        assertTrue(jwtUtil.isTokenValid(token, testUser));
+    }
+}
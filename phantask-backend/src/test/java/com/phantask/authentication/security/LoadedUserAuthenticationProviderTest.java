@@ -0,0 +1,80 @@
+package com.phantask.authentication.security;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.phantask.authentication.entity.User;
+
+/**
+ * Unit tests for LoadedUserAuthenticationProvider
+ */
+@ExtendWith(MockitoExtension.class)
+class LoadedUserAuthenticationProviderTest {
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    private LoadedUserAuthenticationProvider provider;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        provider = new LoadedUserAuthenticationProvider(userDetailsService, passwordEncoder);
+
+        user = new User();
+        user.setUsername("testuser");
+        user.setPassword("$2a$10$hash");
+        user.setEnabled(true);
+    }
+
+    @Test
+    void authenticate_WithLoadedUser_ShouldNotLoadUserAgain() {
+        UsernamePasswordAuthenticationToken request = new UsernamePasswordAuthenticationToken("testuser", "pw");
+        request.setDetails(user);
+        when(passwordEncoder.matches("pw", "$2a$10$hash")).thenReturn(true);
+
+        Authentication result = provider.authenticate(request);
+
+        assertTrue(result.isAuthenticated());
+        assertSame(user, result.getPrincipal());
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+    }
+
+    @Test
+    void authenticate_WithoutLoadedUser_ShouldFallBackToUserDetailsService() {
+        when(userDetailsService.loadUserByUsername("testuser")).thenReturn(user);
+        when(passwordEncoder.matches("pw", "$2a$10$hash")).thenReturn(true);
+
+        provider.authenticate(new UsernamePasswordAuthenticationToken("testuser", "pw"));
+
+        verify(userDetailsService).loadUserByUsername("testuser");
+    }
+
+    @Test
+    void authenticate_WithWrongPassword_ShouldThrowBadCredentials() {
+        UsernamePasswordAuthenticationToken request = new UsernamePasswordAuthenticationToken("testuser", "wrong");
+        request.setDetails(user);
+        when(passwordEncoder.matches("wrong", "$2a$10$hash")).thenReturn(false);
+
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(request));
+    }
+}
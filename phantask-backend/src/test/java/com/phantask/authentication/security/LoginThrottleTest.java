@@ -0,0 +1,118 @@
+package com.phantask.authentication.security;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.phantask.exception.TooManyRequestsException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for LoginThrottle
+ */
+class LoginThrottleTest {
+
+    private SimpleMeterRegistry registry;
+    private MockEnvironment env;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        env = new MockEnvironment()
+                .withProperty("security.rate-limit.slots", "1024")
+                .withProperty("security.rate-limit.login.ip.capacity", "3")
+                .withProperty("security.rate-limit.login.ip.refill-per-minute", "1")
+                .withProperty("security.rate-limit.login.username.capacity", "2")
+                .withProperty("security.rate-limit.login.username.refill-per-minute", "1");
+    }
+
+    @Test
+    void check_ShouldLimitByUsernameAcrossIps() {
+        LoginThrottle throttle = new LoginThrottle(env, registry);
+
+        throttle.check(LoginThrottle.Endpoint.LOGIN, "10.0.0.1", "alice");
+        throttle.check(LoginThrottle.Endpoint.LOGIN, "10.0.0.2", "Alice");
+
+        TooManyRequestsException ex = assertThrows(TooManyRequestsException.class,
+                () -> throttle.check(LoginThrottle.Endpoint.LOGIN, "10.0.0.3", "alice "));
+        assertTrue(ex.getRetryAfterSeconds() > 0);
+        assertEquals(1.0, registry.get("phantask.ratelimit.rejected")
+                .tag("endpoint", "login").tag("key", "username").counter().count());
+    }
+
+    @Test
+    void check_ShouldLimitByIpAcrossUsernames() {
+        LoginThrottle throttle = new LoginThrottle(env, registry);
+
+        throttle.check(LoginThrottle.Endpoint.LOGIN, "10.0.0.1", "a");
+        throttle.check(LoginThrottle.Endpoint.LOGIN, "10.0.0.1", "b");
+        throttle.check(LoginThrottle.Endpoint.LOGIN, "10.0.0.1", "c");
+
+        assertThrows(TooManyRequestsException.class,
+                () -> throttle.check(LoginThrottle.Endpoint.LOGIN, "10.0.0.1", "d"));
+        // the first-login endpoint has its own buckets
+        assertDoesNotThrow(() -> throttle.check(LoginThrottle.Endpoint.FIRST_LOGIN, "10.0.0.1", "d"));
+    }
+
+    @Test
+    void check_WhenDisabled_ShouldNeverThrow() {
+        env.setProperty("security.rate-limit.enabled", "false");
+        LoginThrottle throttle = new LoginThrottle(env, registry);
+
+        for (int i = 0; i < 10; i++) {
+            throttle.check(LoginThrottle.Endpoint.LOGIN, "10.0.0.1", "alice");
+        }
+    }
+
+    private static MockHttpServletRequest request(String remoteAddr, String forwardedFor) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(remoteAddr);
+        if (forwardedFor != null) {
+            request.addHeader(LoginThrottle.FORWARDED_FOR, forwardedFor);
+        }
+        return request;
+    }
+
+    @Test
+    void check_BehindTrustedProxy_ShouldGiveEachForwardedClientItsOwnBucket() {
+        env.setProperty("security.rate-limit.trusted-proxies", "10.1.0.0/16");
+        LoginThrottle throttle = new LoginThrottle(env, registry);
+
+        for (int i = 0; i < 3; i++) {
+            throttle.check(LoginThrottle.Endpoint.LOGIN, request("10.1.0.5", "203.0.113.7"), "user" + i);
+        }
+
+        assertThrows(TooManyRequestsException.class, () -> throttle.check(LoginThrottle.Endpoint.LOGIN,
+                request("10.1.0.5", "203.0.113.7"), "user3"));
+        // same proxy, different client
+        assertDoesNotThrow(() -> throttle.check(LoginThrottle.Endpoint.LOGIN,
+                request("10.1.0.5", "203.0.113.8"), "user4"));
+    }
+
+    @Test
+    void clientIp_ShouldOnlyTrustForwardedForFromTrustedProxies() {
+        env.setProperty("security.rate-limit.trusted-proxies", "10.1.0.0/16, ::1");
+        LoginThrottle throttle = new LoginThrottle(env, registry);
+
+        // the proxy appends the real peer; what the client sent further left is ignored
+        assertEquals("203.0.113.7", throttle.clientIp(request("10.1.0.5", "198.51.100.1, 203.0.113.7")));
+        assertEquals("203.0.113.7", throttle.clientIp(request("0:0:0:0:0:0:0:1", "203.0.113.7, 10.1.0.9")));
+        assertEquals("192.0.2.1", throttle.clientIp(request("192.0.2.1", "203.0.113.7")));
+        assertEquals("10.1.0.5", throttle.clientIp(request("10.1.0.5", null)));
+        assertEquals("unknown", throttle.clientIp(request("10.1.0.5", "unknown")));
+    }
+
+    @Test
+    void clientIp_WithoutTrustedProxies_ShouldIgnoreForwardedFor() {
+        LoginThrottle throttle = new LoginThrottle(env, registry);
+
+        assertEquals("10.1.0.5", throttle.clientIp(request("10.1.0.5", "203.0.113.7")));
+    }
+}
@@ -0,0 +1,57 @@
+package com.phantask.authentication.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Unit tests for PhanTaskPrincipalArgumentResolver
+ */
+class PhanTaskPrincipalArgumentResolverTest {
+
+    private final PhanTaskPrincipalArgumentResolver resolver = new PhanTaskPrincipalArgumentResolver();
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void resolveArgument_WithJwtPrincipal_ShouldReturnSameInstance() {
+        PhanTaskPrincipal principal = new PhanTaskPrincipal(7L, "testuser", List.of("ADMIN"), true);
+        UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(principal, null,
+                List.of(new SimpleGrantedAuthority("ADMIN"), new SimpleGrantedAuthority("ROLE_ADMIN")));
+        SecurityContextHolder.getContext().setAuthentication(auth);
+
+        assertSame(principal, resolver.resolveArgument(null, null, null, null));
+        assertEquals("testuser", auth.getName());
+    }
+
+    @Test
+    void resolveArgument_WithOtherAuthentication_ShouldConvertNameAndRoles() {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("testuser", null,
+                List.of(new SimpleGrantedAuthority("HR"), new SimpleGrantedAuthority("ROLE_HR"))));
+
+        PhanTaskPrincipal principal = resolver.resolveArgument(null, null, null, null);
+
+        assertEquals("testuser", principal.getUsername());
+        assertEquals(List.of("HR"), principal.getRoles());
+        assertNull(principal.getUid());
+    }
+
+    @Test
+    void resolveArgument_WithoutAuthentication_ShouldThrow() {
+        assertThrows(AuthenticationCredentialsNotFoundException.class,
+                () -> resolver.resolveArgument(null, null, null, null));
+    }
+}
@@ -0,0 +1,70 @@
+package com.phantask.authentication.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.phantask.authentication.entity.Role;
+import com.phantask.authentication.repository.RoleRepository;
+
+/**
+ * Unit tests for RoleAuthorityRegistry
+ */
+@ExtendWith(MockitoExtension.class)
+class RoleAuthorityRegistryTest {
+
+    @Mock
+    private RoleRepository roleRepo;
+
+    @InjectMocks
+    private RoleAuthorityRegistry registry;
+
+    private static Role role(String name, Integer bit) {
+        Role role = new Role();
+        role.setRoleName(name);
+        role.setBitIndex(bit);
+        return role;
+    }
+
+    @Test
+    void maskOf_ShouldCombineBitIndexes() {
+        assertEquals(0b101L, RoleAuthorityRegistry.maskOf(Set.of(role("ADMIN", 0), role("STUDENT", 2))));
+        assertNull(RoleAuthorityRegistry.maskOf(Set.of(role("ADMIN", 0), role("NEW", null))));
+    }
+
+    @Test
+    void resolve_SameMaskTwice_ShouldReturnSharedInstance() {
+        when(roleRepo.findAll()).thenReturn(List.of(role("ADMIN", 0), role("STUDENT", 1)));
+
+        RoleAuthorityRegistry.Roles first = registry.resolve(0b11L);
+        RoleAuthorityRegistry.Roles second = registry.resolve(0b11L);
+
+        assertSame(first, second);
+        assertEquals(List.of("ADMIN", "STUDENT"), first.names());
+        assertEquals(4, first.authorities().size());
+    }
+
+    @Test
+    void resolve_WithBitOfRoleAddedLater_ShouldReloadRoles() {
+        when(roleRepo.findAll())
+                .thenReturn(List.of(role("ADMIN", 0)))
+                .thenReturn(List.of(role("ADMIN", 0), role("EDITOR", 1)));
+
+        assertEquals(List.of("ADMIN"), registry.resolve(0b01L).names());
+        assertEquals(List.of("EDITOR"), registry.resolve(0b10L).names());
+
+        verify(roleRepo, times(2)).findAll();
+    }
+}
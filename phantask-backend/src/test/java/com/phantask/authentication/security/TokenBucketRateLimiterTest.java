@@ -0,0 +1,105 @@
+package com.phantask.authentication.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for TokenBucketRateLimiter
+ */
+class TokenBucketRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    @Test
+    void tryAcquire_ShouldAllowBurstThenReportWait() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1024, 3, 60, now::get);
+
+        assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+        assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+        assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+
+        // 60 per minute = one token per second
+        assertEquals(1000, limiter.tryAcquire("10.0.0.1"));
+    }
+
+    @Test
+    void tryAcquire_ShouldRefillOverTime() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1024, 1, 60, now::get);
+
+        assertEquals(0, limiter.tryAcquire("user"));
+        now.addAndGet(400);
+        assertEquals(600, limiter.tryAcquire("user"));
+        now.addAndGet(600);
+        assertEquals(0, limiter.tryAcquire("user"));
+    }
+
+    @Test
+    void tryAcquire_WithFrequentRequests_ShouldNotLoseFractionalRefill() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1024, 1, 10, now::get);
+        assertEquals(0, limiter.tryAcquire("user"));
+
+        // a rejected request every millisecond must not hold back the refill
+        for (int i = 0; i < 5_999; i++) {
+            now.incrementAndGet();
+            assertTrue(limiter.tryAcquire("user") > 0);
+        }
+        now.incrementAndGet();
+        assertEquals(0, limiter.tryAcquire("user"));
+    }
+
+    @Test
+    void tryAcquire_ShouldKeepKeysApart() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1 << 16, 1, 1, now::get);
+
+        assertEquals(0, limiter.tryAcquire("alice"));
+        assertTrue(limiter.tryAcquire("alice") > 0);
+        assertEquals(0, limiter.tryAcquire("bob"));
+    }
+
+    @Test
+    void tryAcquire_AfterLongIdle_ShouldStartWithFullBucket() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1024, 2, 1, now::get);
+        assertEquals(0, limiter.tryAcquire("user"));
+        assertEquals(0, limiter.tryAcquire("user"));
+
+        now.addAndGet(TimeUnit.DAYS.toMillis(30));
+
+        assertEquals(0, limiter.tryAcquire("user"));
+        assertEquals(0, limiter.tryAcquire("user"));
+        assertTrue(limiter.tryAcquire("user") > 0);
+    }
+
+    @Test
+    void tryAcquire_FromManyThreads_ShouldGrantExactlyCapacity() throws InterruptedException {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1024, 100, 1, now::get);
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+
+        for (int t = 0; t < 8; t++) {
+            pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < 100; i++) {
+                    if (limiter.tryAcquire("shared") == 0) {
+                        granted.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(100, granted.get());
+    }
+}
@@ -0,0 +1,95 @@
+package com.phantask.authentication.security;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.phantask.authentication.event.UserSecurityChangedEvent;
+import com.phantask.authentication.repository.UserRepository;
+import com.phantask.authentication.repository.UserTokenState;
+
+/**
+ * Unit tests for TokenVersionRegistry
+ */
+@ExtendWith(MockitoExtension.class)
+class TokenVersionRegistryTest {
+
+    @Mock
+    private UserRepository userRepo;
+
+    @InjectMocks
+    private TokenVersionRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(registry, "statelessEnabled", true);
+    }
+
+    private static UserTokenState state(long uid, int version, boolean enabled) {
+        return new UserTokenState() {
+            public Long getUid() { return uid; }
+            public int getTokenVersion() { return version; }
+            public boolean isEnabled() { return enabled; }
+        };
+    }
+
+    @Test
+    void isCurrent_WithUnknownUser_ShouldLoadOnceFromDatabase() {
+        when(userRepo.findTokenStateByUid(1L)).thenReturn(Optional.of(state(1L, 3, true)));
+
+        assertTrue(registry.isCurrent(1L, 3));
+        assertTrue(registry.isCurrent(1L, 3));
+        assertFalse(registry.isCurrent(1L, 2));
+
+        verify(userRepo, times(1)).findTokenStateByUid(1L);
+    }
+
+    @Test
+    void isCurrent_WithMissingUser_ShouldReturnFalse() {
+        when(userRepo.findTokenStateByUid(9L)).thenReturn(Optional.empty());
+
+        assertFalse(registry.isCurrent(9L, 0));
+    }
+
+    @Test
+    void onUserSecurityChanged_ShouldRevokeOlderTokensImmediately() {
+        when(userRepo.findAllTokenStates()).thenReturn(List.of(state(1L, 0, true)));
+        registry.refresh();
+
+        registry.onUserSecurityChanged(new UserSecurityChangedEvent(1L, "testuser", 1, true));
+
+        assertFalse(registry.isCurrent(1L, 0));
+        assertTrue(registry.isCurrent(1L, 1));
+    }
+
+    @Test
+    void isCurrent_WithDeactivatedUser_ShouldReturnFalse() {
+        registry.onUserSecurityChanged(new UserSecurityChangedEvent(1L, "testuser", 1, false));
+
+        assertFalse(registry.isCurrent(1L, 1));
+    }
+
+    @Test
+    void refresh_WithStaleSnapshot_ShouldNotUndoNewerVersion() {
+        registry.onUserSecurityChanged(new UserSecurityChangedEvent(1L, "testuser", 2, true));
+        when(userRepo.findAllTokenStates()).thenReturn(List.of(state(1L, 1, true)));
+
+        registry.refresh();
+
+        assertFalse(registry.isCurrent(1L, 1));
+        assertTrue(registry.isCurrent(1L, 2));
+    }
+}
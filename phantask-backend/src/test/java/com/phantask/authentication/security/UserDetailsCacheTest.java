@@ -0,0 +1,76 @@
+package com.phantask.authentication.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import com.phantask.authentication.event.UserSecurityChangedEvent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for UserDetailsCache
+ */
+class UserDetailsCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private UserDetailsCache cache;
+    private AtomicInteger loads;
+    private Function<String, UserDetails> loader;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new UserDetailsCache(meterRegistry, 100, 300);
+        loads = new AtomicInteger();
+        loader = username -> {
+            loads.incrementAndGet();
+            if ("nonexistent".equals(username)) {
+                throw new UsernameNotFoundException("User not found");
+            }
+            return User.withUsername(username).password("x").authorities(List.of()).build();
+        };
+    }
+
+    @Test
+    void get_CalledTwice_ShouldLoadOnceAndCountHit() {
+        UserDetails first = cache.get("testuser", loader);
+        UserDetails second = cache.get("testuser", loader);
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "userDetails").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "userDetails").tag("result", "miss")
+                .functionCounter().count());
+    }
+
+    @Test
+    void onUserSecurityChanged_ShouldForceReload() {
+        cache.get("testuser", loader);
+
+        cache.onUserSecurityChanged(new UserSecurityChangedEvent(1L, "testuser", 2, false));
+        cache.get("testuser", loader);
+
+        assertEquals(2, loads.get());
+        assertEquals(1, meterRegistry.get("phantask.userdetails.invalidations").counter().count());
+    }
+
+    @Test
+    void get_WithUnknownUser_ShouldNotCacheFailure() {
+        assertThrows(UsernameNotFoundException.class, () -> cache.get("nonexistent", loader));
+        assertThrows(UsernameNotFoundException.class, () -> cache.get("nonexistent", loader));
+
+        assertEquals(2, loads.get());
+    }
+}
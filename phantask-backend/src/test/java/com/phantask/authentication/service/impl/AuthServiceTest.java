@@ -6,6 +6,7 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -33,7 +34,9 @@ import com.phantask.authentication.entity.Role;
 import com.phantask.authentication.entity.User;
 import com.phantask.authentication.repository.UserRepository;
 import com.phantask.authentication.security.JwtUtil;
+import com.phantask.authentication.service.api.IRefreshTokenService;
 import com.phantask.exception.AccountDeactivatedException;
+import com.phantask.exception.InvalidRefreshTokenException;
 
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
@@ -53,6 +56,9 @@ class AuthServiceTest {
     @Mock
     private AuthenticationManager authManager;
 
+    @Mock
+    private IRefreshTokenService refreshTokens;
+
     @InjectMocks
     private AuthService authService;
 
@@ -129,6 +135,7 @@ class AuthServiceTest {
         verify(authManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
         verify(jwtUtil).generateAccessToken(testUser);
         verify(jwtUtil).generateRefreshToken(testUser);
+        verify(refreshTokens).register("refresh-token-456", testUser);
     }
 
     @Test
@@ -256,10 +263,27 @@ class AuthServiceTest {
         assertFalse(response.containsKey("password"));
     }
 
+    @Test
+    void login_ShouldPassLoadedUserToAuthenticationManager() {
+        // Arrange
+        when(userRepo.findByUsername("testuser"))
+                .thenReturn(Optional.of(testUser));
+        when(authManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenReturn(authentication);
+        when(jwtUtil.generateAccessToken(testUser)).thenReturn("access-token-123");
+        when(jwtUtil.generateRefreshToken(testUser)).thenReturn("refresh-token-456");
+
+        // Act
+        authService.login(loginRequest);
+
+        // Assert - the provider reuses this user instead of loading it again
+        verify(authManager).authenticate(argThat(auth -> auth.getDetails() == testUser));
+    }
+
     // ==================== refreshToken() Tests ====================
 
     @Test
-    void refreshToken_WithValidToken_ShouldReturnNewAccessToken() {
+    void refreshToken_WithValidToken_ShouldReturnNewAccessAndRefreshToken() {
         // Arrange
         String refreshToken = "valid-refresh-token";
         String username = "testuser";
@@ -269,19 +293,39 @@ class AuthServiceTest {
         when(userRepo.findByUsername(username)).thenReturn(Optional.of(testUser));
         when(jwtUtil.isTokenValid(refreshToken, testUser)).thenReturn(true);
         when(jwtUtil.generateAccessToken(testUser)).thenReturn("new-access-token-789");
+        when(refreshTokens.rotate(refreshToken, testUser)).thenReturn("next-refresh-token");
 
         // Act
-        String newAccessToken = authService.refreshToken(refreshToken);
+        Map<String, String> response = authService.refreshToken(refreshToken);
 
         // Assert
-        assertNotNull(newAccessToken);
-        assertEquals("new-access-token-789", newAccessToken);
+        assertNotNull(response);
+        assertEquals("new-access-token-789", response.get("token"));
+        assertEquals("next-refresh-token", response.get("refreshToken"));
         
         verify(jwtUtil).extractUsername(refreshToken);
         verify(jwtUtil).isRefreshToken(refreshToken);
         verify(userRepo).findByUsername(username);
         verify(jwtUtil).isTokenValid(refreshToken, testUser);
         verify(jwtUtil).generateAccessToken(testUser);
+        verify(refreshTokens).rotate(refreshToken, testUser);
+    }
+
+    @Test
+    void refreshToken_WhenTokenAlreadyRotated_ShouldNotIssueAccessToken() {
+        // Arrange
+        String refreshToken = "reused-refresh-token";
+
+        when(jwtUtil.extractUsername(refreshToken)).thenReturn("testuser");
+        when(jwtUtil.isRefreshToken(refreshToken)).thenReturn(true);
+        when(userRepo.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(jwtUtil.isTokenValid(refreshToken, testUser)).thenReturn(true);
+        when(refreshTokens.rotate(refreshToken, testUser))
+                .thenThrow(new InvalidRefreshTokenException("Refresh token is no longer valid. Please login again."));
+
+        // Act & Assert
+        assertThrows(InvalidRefreshTokenException.class, () -> authService.refreshToken(refreshToken));
+        verify(jwtUtil, never()).generateAccessToken(any());
     }
 
     @Test
@@ -370,6 +414,31 @@ class AuthServiceTest {
 
         assertEquals("Refresh token expired. Please login again.", exception.getMessage());
         verify(jwtUtil, never()).generateAccessToken(any());
+        verify(refreshTokens, never()).rotate(any(), any());
+    }
+
+    // ==================== logout() Tests ====================
+
+    @Test
+    void logout_WithRefreshToken_ShouldRevokeItsFamily() {
+        // Arrange
+        when(jwtUtil.isRefreshToken("refresh-token")).thenReturn(true);
+
+        // Act
+        authService.logout("refresh-token");
+
+        // Assert
+        verify(refreshTokens).revokeFamily("refresh-token");
+    }
+
+    @Test
+    void logout_WithAccessToken_ShouldThrowException() {
+        // Arrange
+        when(jwtUtil.isRefreshToken("access-token")).thenReturn(false);
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> authService.logout("access-token"));
+        verify(refreshTokens, never()).revokeFamily(any());
     }
 
     // ==================== getCurrentUserProfile() Tests ====================
@@ -0,0 +1,227 @@
+package com.phantask.authentication.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.phantask.authentication.entity.RefreshToken;
+import com.phantask.authentication.entity.RefreshTokenFamily;
+import com.phantask.authentication.entity.User;
+import com.phantask.authentication.event.UserSecurityChangedEvent;
+import com.phantask.authentication.repository.RefreshTokenFamilyRepository;
+import com.phantask.authentication.repository.RefreshTokenRepository;
+import com.phantask.authentication.repository.RoleRepository;
+import com.phantask.authentication.security.JwtKeyRing;
+import com.phantask.authentication.security.JwtUtil;
+import com.phantask.authentication.security.RoleAuthorityRegistry;
+import com.phantask.authentication.security.TokenDigests;
+import com.phantask.authentication.security.VerifiedTokenCache;
+import com.phantask.exception.InvalidRefreshTokenException;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * Unit tests for RefreshTokenService
+ */
+class RefreshTokenServiceTest {
+
+    private static final String SECRET = "A7D9F2B3C4E5F6A7D8E9F0B1C2D3E4F599AA11223344556677889900AABBCCDD";
+
+    private RefreshTokenRepository tokenRepo;
+    private RefreshTokenFamilyRepository familyRepo;
+    private JwtUtil jwtUtil;
+    private RefreshTokenService service;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        tokenRepo = mock(RefreshTokenRepository.class);
+        familyRepo = mock(RefreshTokenFamilyRepository.class);
+
+        jwtUtil = new JwtUtil(new VerifiedTokenCache(100), new RoleAuthorityRegistry(mock(RoleRepository.class)),
+                new JwtKeyRing(SECRET, "", new VerifiedTokenCache(100)));
+
+        service = new RefreshTokenService(tokenRepo, familyRepo, jwtUtil);
+
+        user = new User();
+        user.setUid(1L);
+        user.setUsername("testuser");
+    }
+
+    private String login() {
+        String token = jwtUtil.generateRefreshToken(user);
+        service.register(token, user);
+        String familyId = jwtUtil.verify(token).getFamilyId();
+
+        RefreshTokenFamily family = new RefreshTokenFamily();
+        family.setFamilyId(familyId);
+        family.setUid(1L);
+        family.setExpiresAt(LocalDateTime.now().plusHours(12));
+        when(familyRepo.findById(familyId)).thenReturn(Optional.of(family));
+        return token;
+    }
+
+    private static String hashOf(JwtUtil jwtUtil, String token) {
+        return TokenDigests.sha256Hex(jwtUtil.verify(token).getTokenId());
+    }
+
+    @Test
+    void register_ShouldStoreOnlyTheHashOfTheTokenId() {
+        String token = jwtUtil.generateRefreshToken(user);
+
+        service.register(token, user);
+
+        String expectedHash = hashOf(jwtUtil, token);
+        verify(familyRepo).save(argThat(f -> f.getFamilyId().equals(jwtUtil.verify(token).getFamilyId())
+                && f.getUid().equals(1L)));
+        verify(tokenRepo).save(argThat(t -> t.getTokenHash().equals(expectedHash) && t.getTokenHash().length() == 64
+                && !t.isUsed()));
+    }
+
+    @Test
+    void rotate_WithFreshToken_ShouldIssueNextTokenOfSameFamily() {
+        String token = login();
+        when(tokenRepo.markUsed(hashOf(jwtUtil, token))).thenReturn(1);
+
+        String next = service.rotate(token, user);
+
+        assertEquals(jwtUtil.verify(token).getFamilyId(), jwtUtil.verify(next).getFamilyId());
+        assertNotEquals(jwtUtil.verify(token).getTokenId(), jwtUtil.verify(next).getTokenId());
+        // the token was found in the in-memory index, not looked up
+        verify(tokenRepo, never()).findByTokenHash(anyString());
+    }
+
+    @Test
+    void rotate_ShouldNotOutliveTheSession() {
+        String token = login();
+        String familyId = jwtUtil.verify(token).getFamilyId();
+        LocalDateTime sessionEnd = LocalDateTime.now().plusHours(1);
+        familyRepo.findById(familyId).orElseThrow().setExpiresAt(sessionEnd);
+        when(tokenRepo.markUsed(hashOf(jwtUtil, token))).thenReturn(1);
+
+        String next = service.rotate(token, user);
+
+        // capped at the end of the session instead of a fresh 12 hours
+        Instant expiresAt = jwtUtil.verify(next).getExpiresAt();
+        assertFalse(expiresAt.isAfter(sessionEnd.atZone(ZoneId.systemDefault()).toInstant()));
+        assertTrue(expiresAt.isAfter(Instant.now().plus(59, ChronoUnit.MINUTES)));
+    }
+
+    @Test
+    void rotate_WithAlreadyUsedToken_ShouldRevokeFamily() {
+        String token = login();
+        String familyId = jwtUtil.verify(token).getFamilyId();
+        String hash = hashOf(jwtUtil, token);
+        when(tokenRepo.markUsed(hash)).thenReturn(1, 0);
+
+        String next = service.rotate(token, user);
+
+        // replaying the consumed token: now served from the table
+        RefreshToken stored = new RefreshToken();
+        stored.setTokenHash(hash);
+        stored.setFamilyId(familyId);
+        stored.setUid(1L);
+        stored.setExpiresAt(LocalDateTime.now().plusHours(12));
+        stored.setUsed(true);
+        when(tokenRepo.findByTokenHash(hash)).thenReturn(Optional.of(stored));
+
+        assertThrows(InvalidRefreshTokenException.class, () -> service.rotate(token, user));
+        verify(familyRepo).revoke(familyId);
+
+        // the legitimate successor is rejected too, without another write
+        assertThrows(InvalidRefreshTokenException.class, () -> service.rotate(next, user));
+        verify(tokenRepo, times(2)).markUsed(anyString());
+    }
+
+    @Test
+    void rotate_WithUnknownToken_ShouldThrow() {
+        String token = jwtUtil.generateRefreshToken(user);
+        when(tokenRepo.findByTokenHash(anyString())).thenReturn(Optional.empty());
+
+        assertThrows(InvalidRefreshTokenException.class, () -> service.rotate(token, user));
+        verify(tokenRepo, never()).markUsed(anyString());
+    }
+
+    @Test
+    void rotate_WithTokenOfAnotherUser_ShouldThrow() {
+        String token = login();
+        User other = new User();
+        other.setUid(2L);
+        other.setUsername("testuser");
+
+        assertThrows(InvalidRefreshTokenException.class, () -> service.rotate(token, other));
+        verify(tokenRepo, never()).markUsed(anyString());
+    }
+
+    @Test
+    void rotate_WithLegacyTokenWithoutId_ShouldThrow() {
+        long now = System.currentTimeMillis();
+        String legacy = Jwts.builder()
+                .setSubject("testuser")
+                .claim("type", "REFRESH")
+                .setIssuedAt(new java.util.Date(now))
+                .setExpiration(new java.util.Date(now + 60_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertThrows(InvalidRefreshTokenException.class, () -> service.rotate(legacy, user));
+    }
+
+    @Test
+    void revokeFamily_ShouldRejectEveryTokenOfTheSession() {
+        String token = login();
+        String familyId = jwtUtil.verify(token).getFamilyId();
+
+        service.revokeFamily(token);
+
+        verify(familyRepo).revoke(familyId);
+        assertThrows(InvalidRefreshTokenException.class, () -> service.rotate(token, user));
+        verify(tokenRepo, never()).markUsed(anyString());
+    }
+
+    @Test
+    void onUserSecurityChanged_ShouldRevokeAllSessionsOfUser() {
+        service.onUserSecurityChanged(new UserSecurityChangedEvent(1L, "testuser", 2, true));
+
+        verify(familyRepo).revokeAllForUser(1L);
+    }
+
+    @Test
+    void purgeExpired_ShouldDeleteInBatchesUntilNothingIsLeft() {
+        ReflectionTestUtils.setField(service, "purgeBatchSize", 2);
+        when(tokenRepo.findExpiredIds(any(), any(Pageable.class)))
+                .thenReturn(List.of(1L, 2L), List.of(3L));
+        when(familyRepo.findExpiredIds(any(), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        service.purgeExpired();
+
+        verify(tokenRepo).deleteAllByIdInBatch(List.of(1L, 2L));
+        verify(tokenRepo).deleteAllByIdInBatch(List.of(3L));
+        verify(familyRepo, never()).deleteAllByIdInBatch(any());
+    }
+}
@@ -12,6 +12,7 @@ import static org.mockito.Mockito.when;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -165,6 +166,32 @@ class RoleServiceTest {
         verify(roleRepository, never()).save(any(Role.class));
     }
 
+    @Test
+    void addRole_ShouldAssignNextBitIndex() {
+        when(roleRepository.existsByRoleName("EDITOR")).thenReturn(false);
+        when(roleRepository.findMaxBitIndex()).thenReturn(Optional.of(2));
+
+        roleService.addRole("EDITOR");
+
+        verify(roleRepository).save(argThat(role -> role.getBitIndex() == 3));
+    }
+
+    // ==================== assignMissingBitIndexes() Tests ====================
+
+    @Test
+    void assignMissingBitIndexes_ShouldNumberRolesAfterHighestIndex() {
+        adminRole.setBitIndex(0);
+        when(roleRepository.findByBitIndexIsNullOrderByRidAsc()).thenReturn(List.of(userRole, managerRole));
+        when(roleRepository.findMaxBitIndex()).thenReturn(Optional.of(0), Optional.of(1));
+
+        roleService.assignMissingBitIndexes();
+
+        assertEquals(1, userRole.getBitIndex());
+        assertEquals(2, managerRole.getBitIndex());
+        verify(roleRepository).saveAndFlush(userRole);
+        verify(roleRepository).saveAndFlush(managerRole);
+    }
+
     // ==================== getAllRoles() Tests ====================
 
     @Test
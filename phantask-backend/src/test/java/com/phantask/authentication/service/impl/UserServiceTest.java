@@ -29,6 +29,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -42,6 +43,7 @@ import com.phantask.authentication.dto.UserProfileResponse;
 import com.phantask.authentication.entity.Role;
 import com.phantask.authentication.entity.User;
 import com.phantask.authentication.entity.UserProfile;
+import com.phantask.authentication.event.UserSecurityChangedEvent;
 import com.phantask.authentication.repository.RoleRepository;
 import com.phantask.authentication.repository.UserProfileRepository;
 import com.phantask.authentication.repository.UserRepository;
@@ -68,6 +70,9 @@ class UserServiceTest {
     @Mock
     private EmailService emailService;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private UserService userService;
 
@@ -489,6 +494,21 @@ class UserServiceTest {
         verify(userRepo).save(testUser);
     }
 
+    @Test
+    void deactivateUser_ShouldBumpTokenVersionAndPublishEvent() {
+        // Arrange
+        int versionBefore = testUser.getTokenVersion();
+        when(userRepo.findByUidAndEnabledTrue(1L)).thenReturn(Optional.of(testUser));
+
+        // Act
+        userService.deactivateUser(1L);
+
+        // Assert
+        assertEquals(versionBefore + 1, testUser.getTokenVersion());
+        verify(eventPublisher).publishEvent(
+                new UserSecurityChangedEvent(1L, testUser.getUsername(), versionBefore + 1, false));
+    }
+
     @Test
     void deactivateUser_WithNonexistentUser_ShouldThrowException() {
         // Arrange
@@ -524,6 +544,7 @@ class UserServiceTest {
         assertNull(testUser.getDeactivatedAt());
         verify(userRepo).findByUidAndEnabledFalse(1L);
         verify(userRepo).save(testUser);
+        verify(eventPublisher).publishEvent(any(UserSecurityChangedEvent.class));
     }
 
     @Test
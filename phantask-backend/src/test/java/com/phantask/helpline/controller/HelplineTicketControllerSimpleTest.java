@@ -22,6 +22,7 @@ import static org.mockito.Mockito.when;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -32,10 +33,10 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 
 import com.phantask.authentication.entity.User;
 import com.phantask.authentication.repository.UserRepository;
+import com.phantask.authentication.security.PhanTaskPrincipal;
 import com.phantask.helpline.dto.RaiseHelplineTicketDTO;
 import com.phantask.helpline.entity.HelplineTicket;
 import com.phantask.helpline.service.HelplineTicketService;
@@ -53,13 +54,11 @@ class HelplineTicketControllerSimpleTest {
     @Mock
     private UserRepository userRepository;
 
-    @Mock
-    private Authentication authentication;
-
     @InjectMocks
     private HelplineTicketController controller;
 
     private User user;
+    private PhanTaskPrincipal principal;
     private HelplineTicket ticket;
 
     @BeforeEach
@@ -69,6 +68,8 @@ class HelplineTicketControllerSimpleTest {
         user.setUsername("testuser");
         user.setEmail("test@example.com");
 
+        principal = new PhanTaskPrincipal(100L, "testuser", List.of("USER"), true);
+
         ticket = new HelplineTicket();
         ticket.setTicketId(1L);
         ticket.setStatus("PENDING");
@@ -83,13 +84,12 @@ class HelplineTicketControllerSimpleTest {
         dto.setDescription("Issue");
         dto.setPriority("HIGH");
 
-        when(authentication.getName()).thenReturn("testuser");
-        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
+        when(userRepository.findEmailByUid(100L)).thenReturn(Optional.of(user.getEmail()));
         when(helplineTicketService.raiseTicket(anyLong(), anyString(), anyString(), anyString(), anyString()))
                 .thenReturn(ticket);
 
         // Act
-        ResponseEntity<?> response = controller.raiseTicket(dto, authentication);
+        ResponseEntity<?> response = controller.raiseTicket(dto, principal);
 
         // Assert
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -101,11 +101,10 @@ class HelplineTicketControllerSimpleTest {
     void raiseTicket_WithUserNotFound_ShouldReturn400() {
         // Arrange
         RaiseHelplineTicketDTO dto = new RaiseHelplineTicketDTO();
-        when(authentication.getName()).thenReturn("testuser");
-        when(userRepository.findByUsername("testuser")).thenReturn(Optional.empty());
+        when(userRepository.findEmailByUid(100L)).thenReturn(Optional.empty());
 
         // Act
-        ResponseEntity<?> response = controller.raiseTicket(dto, authentication);
+        ResponseEntity<?> response = controller.raiseTicket(dto, principal);
 
         // Assert
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
@@ -115,26 +114,24 @@ class HelplineTicketControllerSimpleTest {
     @Test
     void getMyRaisedTickets_WithExistingTickets_ShouldReturn200() {
         // Arrange
-        when(authentication.getName()).thenReturn("testuser");
-        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(user));
         when(helplineTicketService.getTicketsRaisedByUser(100L)).thenReturn(Arrays.asList(ticket));
 
         // Act
-        ResponseEntity<?> response = controller.myRaised(authentication);
+        ResponseEntity<?> response = controller.myRaised(principal);
 
         // Assert
         assertEquals(HttpStatus.OK, response.getStatusCode());
         verify(helplineTicketService).getTicketsRaisedByUser(100L);
+        verify(userRepository, never()).findByUsername(anyString());
     }
 
     @Test
-    void getMyRaisedTickets_WithUserNotFound_ShouldReturn500() {
+    void getMyRaisedTickets_WhenServiceFails_ShouldReturn500() {
         // Arrange
-        when(authentication.getName()).thenReturn("testuser");
-        when(userRepository.findByUsername("testuser")).thenReturn(Optional.empty());
+        when(helplineTicketService.getTicketsRaisedByUser(100L)).thenThrow(new RuntimeException("DB down"));
 
         // Act
-        ResponseEntity<?> response = controller.myRaised(authentication);
+        ResponseEntity<?> response = controller.myRaised(principal);
 
         // Assert
         assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
@@ -0,0 +1,271 @@
+package com.phantask.report.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.phantask.attendance.dto.AttendancePercentageResponse;
+import com.phantask.attendance.service.IAttendanceService;
+import com.phantask.attendance.service.impl.AttendancePercentageCsvWriter;
+import com.phantask.authentication.security.PhanTaskPrincipal;
+import com.phantask.exception.TooManyRequestsException;
+import com.phantask.feedback.dto.FeedbackReportDto;
+import com.phantask.feedback.service.FeedbackService;
+import com.phantask.report.dto.ReportJobRequest;
+import com.phantask.report.enums.ReportJobState;
+import com.phantask.report.enums.ReportType;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Unit tests for ReportJobService
+ */
+class ReportJobServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private IAttendanceService attendanceService;
+    private FeedbackService feedbackService;
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicLong clock;
+    private ReportJobService service;
+
+    private final PhanTaskPrincipal hr = new PhanTaskPrincipal(2L, "hr", List.of("HR"), true);
+    private final PhanTaskPrincipal otherHr = new PhanTaskPrincipal(3L, "hr2", List.of("HR"), true);
+    private final PhanTaskPrincipal admin = new PhanTaskPrincipal(1L, "admin", List.of("ADMIN"), true);
+
+    @BeforeEach
+    void setUp() {
+        attendanceService = mock(IAttendanceService.class);
+        feedbackService = mock(FeedbackService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        clock = new AtomicLong(1_000_000L);
+        service = new ReportJobService(new AttendancePercentageCsvWriter(attendanceService), feedbackService,
+                new ObjectMapper(), meterRegistry, dir, 1, 1, 1, Duration.ofMinutes(60), clock::get);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    private static ReportJobRequest attendanceRequest(LocalDate start) {
+        ReportJobRequest request = new ReportJobRequest();
+        request.setType(ReportType.ATTENDANCE_PERCENTAGE);
+        request.setStartDate(start);
+        request.setEndDate(start.plusDays(30));
+        return request;
+    }
+
+    private void streamReport(List<AttendancePercentageResponse> data) {
+        doAnswer(invocation -> {
+            Consumer<AttendancePercentageResponse> action = invocation.getArgument(3);
+            data.forEach(action);
+            return null;
+        }).when(attendanceService).streamAttendancePercentage(any(), any(), any(), any());
+    }
+
+    private static void awaitFinished(ReportJob job) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!job.getState().isFinished() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(job.getState().isFinished(), "job did not finish");
+    }
+
+    @Test
+    void submit_AttendanceReport_ShouldWriteCsvFile() throws Exception {
+        streamReport(List.of(
+                new AttendancePercentageResponse(1L, "user1", 7, 6, 1, 0, 85.71),
+                new AttendancePercentageResponse(2L, "user2", 7, 7, 0, 0, 100.0)));
+
+        ReportJob job = service.submit(attendanceRequest(LocalDate.of(2026, 1, 1)), hr);
+        awaitFinished(job);
+
+        assertEquals(ReportJobState.COMPLETED, job.getState());
+        assertEquals(2, job.getProcessedRows());
+        assertEquals(dir.resolve(job.getId() + ".csv"), job.getFile());
+        String csv = Files.readString(job.getFile(), StandardCharsets.UTF_8);
+        assertTrue(csv.startsWith("User ID,Username,"));
+        assertTrue(csv.contains("1,user1,7,6,1,0,85.71\n"));
+        assertTrue(csv.contains("2,user2,7,7,0,0,100.0\n"));
+        assertEquals(1, meterRegistry.timer("phantask.reports.jobs.duration",
+                "type", "ATTENDANCE_PERCENTAGE", "outcome", "completed").count());
+    }
+
+    @Test
+    void submit_FeedbackReport_ShouldWriteJsonFile() throws Exception {
+        FeedbackReportDto report = new FeedbackReportDto();
+        report.setAveragePerQuestion(Map.of("Cleanliness", 4));
+        report.setOverallAverage(8);
+        report.setTotalSubmissions(12);
+        when(feedbackService.getReport(7L)).thenReturn(report);
+
+        ReportJobRequest request = new ReportJobRequest();
+        request.setType(ReportType.FEEDBACK);
+        request.setFeedbackId(7L);
+        ReportJob job = service.submit(request, admin);
+        awaitFinished(job);
+
+        assertEquals(ReportJobState.COMPLETED, job.getState());
+        assertTrue(job.getFile().toString().endsWith(".json"));
+        assertTrue(Files.readString(job.getFile()).contains("\"totalSubmissions\":12"));
+    }
+
+    @Test
+    void submit_WithSameParametersAsActiveJob_ShouldReturnExistingJob() throws Exception {
+        CountDownLatch release = blockReports();
+        ReportJob first;
+        ReportJob second;
+        try {
+            first = service.submit(attendanceRequest(LocalDate.of(2026, 1, 1)), hr);
+            second = service.submit(attendanceRequest(LocalDate.of(2026, 1, 1)), otherHr);
+        } finally {
+            release.countDown();
+        }
+        awaitFinished(first);
+
+        assertSame(first, second);
+        assertTrue(service.find(first.getId(), otherHr).isPresent());
+        verify(attendanceService, times(1)).streamAttendancePercentage(any(), any(), any(), any());
+    }
+
+    @Test
+    void submit_WithSameParametersAsCompletedJob_ShouldStartNewJob() throws Exception {
+        streamReport(List.of());
+
+        ReportJob first = service.submit(attendanceRequest(LocalDate.of(2026, 1, 1)), hr);
+        awaitFinished(first);
+        ReportJob second = service.submit(attendanceRequest(LocalDate.of(2026, 1, 1)), otherHr);
+        awaitFinished(second);
+
+        // A finished report may be stale, so it is produced again
+        assertNotEquals(first.getId(), second.getId());
+        assertFalse(service.find(first.getId(), otherHr).isPresent());
+        assertTrue(service.find(first.getId(), hr).isPresent());
+        verify(attendanceService, times(2)).streamAttendancePercentage(any(), any(), any(), any());
+    }
+
+    @Test
+    void submit_AfterFailure_ShouldStartNewJob() throws Exception {
+        doAnswer(invocation -> {
+            throw new IllegalStateException("database down");
+        }).when(attendanceService).streamAttendancePercentage(any(), any(), any(), any());
+
+        ReportJob failed = service.submit(attendanceRequest(LocalDate.of(2026, 1, 1)), hr);
+        awaitFinished(failed);
+        assertEquals(ReportJobState.FAILED, failed.getState());
+        assertEquals("database down", failed.getError());
+        assertEquals(List.of(), listFiles());
+
+        ReportJob retried = service.submit(attendanceRequest(LocalDate.of(2026, 1, 1)), hr);
+        assertNotEquals(failed.getId(), retried.getId());
+    }
+
+    @Test
+    void submit_OverPerUserLimit_ShouldThrowTooManyRequests() throws Exception {
+        CountDownLatch release = blockReports();
+        try {
+            service.submit(attendanceRequest(LocalDate.of(2026, 1, 1)), hr);
+
+            assertThrows(TooManyRequestsException.class,
+                    () -> service.submit(attendanceRequest(LocalDate.of(2026, 2, 1)), hr));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void submit_WhenQueueIsFull_ShouldThrowTooManyRequestsAndForgetJob() throws Exception {
+        CountDownLatch release = blockReports();
+        try {
+            // one running, one queued
+            service.submit(attendanceRequest(LocalDate.of(2026, 1, 1)), hr);
+            service.submit(attendanceRequest(LocalDate.of(2026, 2, 1)), otherHr);
+
+            assertThrows(TooManyRequestsException.class,
+                    () -> service.submit(attendanceRequest(LocalDate.of(2026, 3, 1)), admin));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void submit_WithInvalidRange_ShouldThrowIllegalArgument() {
+        ReportJobRequest request = attendanceRequest(LocalDate.of(2026, 1, 1));
+        request.setEndDate(LocalDate.of(2025, 12, 1));
+
+        assertThrows(IllegalArgumentException.class, () -> service.submit(request, hr));
+        assertThrows(IllegalArgumentException.class, () -> service.submit(new ReportJobRequest(), hr));
+    }
+
+    @Test
+    void find_ByOtherUser_ShouldBeEmptyUnlessAdmin() throws Exception {
+        streamReport(List.of());
+        ReportJob job = service.submit(attendanceRequest(LocalDate.of(2026, 1, 1)), hr);
+
+        assertTrue(service.find(job.getId(), hr).isPresent());
+        assertFalse(service.find(job.getId(), otherHr).isPresent());
+        assertTrue(service.find(job.getId(), admin).isPresent());
+        awaitFinished(job);
+    }
+
+    @Test
+    void purgeExpired_ShouldDeleteJobAndFileAfterTtl() throws Exception {
+        streamReport(List.of());
+        ReportJob job = service.submit(attendanceRequest(LocalDate.of(2026, 1, 1)), hr);
+        awaitFinished(job);
+
+        clock.addAndGet(Duration.ofMinutes(59).toMillis());
+        service.purgeExpired();
+        assertTrue(Files.exists(job.getFile()));
+
+        clock.addAndGet(Duration.ofMinutes(2).toMillis());
+        service.purgeExpired();
+        assertFalse(Files.exists(job.getFile()));
+        assertFalse(service.find(job.getId(), admin).isPresent());
+    }
+
+    private CountDownLatch blockReports() {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(attendanceService).streamAttendancePercentage(any(), any(), any(), any());
+        return release;
+    }
+
+    private List<Path> listFiles() throws Exception {
+        try (var files = Files.list(dir)) {
+            return files.toList();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+-- H2 (MySQL mode) version of the attendance tables, shared by the JDBC tests
+CREATE TABLE attendance (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    uid BIGINT NOT NULL,
+    attendance_date DATE NOT NULL,
+    check_in_time TIMESTAMP,
+    check_out_time TIMESTAMP,
+    status VARCHAR(20) NOT NULL,
+    marked_by BIGINT,
+    UNIQUE (uid, attendance_date));
+
+CREATE TABLE attendance_rollup (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    uid BIGINT NOT NULL,
+    month_key INT NOT NULL,
+    present_days INT NOT NULL,
+    absent_days INT NOT NULL,
+    leave_days INT NOT NULL,
+    wfh_days INT NOT NULL,
+    UNIQUE (uid, month_key));
@@ -0,0 +1,15 @@
+#!/usr/bin/env sh
+# Builds the backend, then runs all JMH benchmarks.
+# The JSON report is written to target/jmh-result-<commit>.json so runs from
+# different commits can be compared side by side.
+#
+# Usage: ./run-benchmarks.sh [JMH options], e.g. ./run-benchmarks.sh JwtBenchmark -wi 1 -i 3
+set -e
+cd "$(dirname "$0")"
+
+commit=$(git rev-parse --short HEAD 2>/dev/null || echo local)
+
+mvn -q -f ../phantask-backend/pom.xml -DskipTests install
+mvn -q package exec:exec \
+	-Djmh.result="target/jmh-result-${commit}.json" \
+	-Djmh.args="$*"
@@ -0,0 +1,74 @@
+package com.phantask.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.phantask.authentication.entity.User;
+import com.phantask.authentication.repository.UserRepository;
+import com.phantask.authentication.security.JwtUtil;
+import com.phantask.authentication.security.VerifiedToken;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * Token signing and parsing in {@link JwtUtil}.
+ *
+ * <ul>
+ *   <li>{@code generateAccessToken} - issuing a token at login/refresh</li>
+ *   <li>{@code getClaims} - full signature check and JSON parse</li>
+ *   <li>{@code verifyCached} - what repeated requests with the same token pay</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JwtBenchmark {
+
+	private ConfigurableApplicationContext context;
+	private JwtUtil jwtUtil;
+	private User user;
+	private String token;
+
+	@Setup
+	public void setUp() {
+		context = PhanTaskContext.start();
+		jwtUtil = context.getBean(JwtUtil.class);
+		user = context.getBean(UserRepository.class).findByUsername("admin").orElseThrow();
+		token = jwtUtil.generateAccessToken(user);
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public String generateAccessToken() {
+		return jwtUtil.generateAccessToken(user);
+	}
+
+	@Benchmark
+	public Claims getClaims() {
+		return jwtUtil.getClaims(token);
+	}
+
+	@Benchmark
+	public VerifiedToken verifyCached() {
+		return jwtUtil.verify(token);
+	}
+}
@@ -0,0 +1,100 @@
+package com.phantask.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.phantask.authentication.entity.User;
+import com.phantask.authentication.repository.UserRepository;
+import com.phantask.authentication.security.JwtFilter;
+import com.phantask.authentication.security.JwtUtil;
+
+/**
+ * The work {@link JwtFilter} does for every authenticated request.
+ *
+ * <ul>
+ *   <li>{@code filter} - the whole filter for a request with a valid access
+ *       token, in database and stateless mode</li>
+ *   <li>{@code authoritiesShared} - authorities as the filter obtains them now
+ *       (resolved once per role mask and shared)</li>
+ *   <li>{@code authoritiesPerRequest} - the previous per-request construction
+ *       of plain and {@code ROLE_} authorities, as a baseline</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JwtFilterBenchmark {
+
+	@Param({ "false", "true" })
+	public boolean stateless;
+
+	private ConfigurableApplicationContext context;
+	private JwtFilter jwtFilter;
+	private JwtUtil jwtUtil;
+	private String token;
+
+	@Setup
+	public void setUp() {
+		context = PhanTaskContext.start("jwt.stateless.enabled=" + stateless);
+		jwtFilter = context.getBean(JwtFilter.class);
+		jwtUtil = context.getBean(JwtUtil.class);
+		User user = context.getBean(UserRepository.class).findByUsername("admin").orElseThrow();
+		token = jwtUtil.generateAccessToken(user);
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public int filter() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/profile");
+		request.setServletPath("/api/users/profile");
+		request.addHeader("Authorization", "Bearer " + token);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		try {
+			jwtFilter.doFilter(request, response, new MockFilterChain());
+		} finally {
+			SecurityContextHolder.clearContext();
+		}
+		return response.getStatus();
+	}
+
+	@Benchmark
+	public List<GrantedAuthority> authoritiesShared() {
+		return jwtUtil.verify(token).getAuthorities();
+	}
+
+	@Benchmark
+	public List<GrantedAuthority> authoritiesPerRequest() {
+		return jwtUtil.verify(token).getRoles().stream()
+				.flatMap(role -> Stream.<GrantedAuthority>of(new SimpleGrantedAuthority(role),
+						new SimpleGrantedAuthority("ROLE_" + role)))
+				.toList();
+	}
+}
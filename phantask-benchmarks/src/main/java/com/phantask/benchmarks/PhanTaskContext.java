@@ -0,0 +1,39 @@
+package com.phantask.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.phantask.PhanTaskApplication;
+
+/**
+ * Starts the real application against an in-memory H2 database, so the
+ * benchmarks measure the same beans and configuration that serve requests.
+ * The {@code admin} user created by the database initializer is available.
+ */
+final class PhanTaskContext {
+
+	private PhanTaskContext() {
+	}
+
+	static ConfigurableApplicationContext start(String... extraProperties) {
+		List<String> args = new ArrayList<>(List.of(
+				"--spring.datasource.url=jdbc:h2:mem:bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+				"--spring.datasource.driver-class-name=org.h2.Driver",
+				"--spring.datasource.username=sa",
+				"--spring.datasource.password=",
+				"--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+				"--spring.jpa.show-sql=false",
+				"--server.port=0",
+				"--server.address=127.0.0.1",
+				"--spring.main.banner-mode=off",
+				"--logging.level.root=WARN",
+				"--logging.level.org.springframework.security=WARN"));
+		for (String property : extraProperties) {
+			args.add("--" + property);
+		}
+		return new SpringApplicationBuilder(PhanTaskApplication.class).run(args.toArray(String[]::new));
+	}
+}
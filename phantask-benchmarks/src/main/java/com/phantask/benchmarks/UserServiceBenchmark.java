@@ -0,0 +1,59 @@
+package com.phantask.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.phantask.authentication.security.UserDetailsCache;
+import com.phantask.authentication.service.api.IUserService;
+
+/**
+ * Loading a user for authentication against the in-memory database, with and
+ * without {@link UserDetailsCache} in front of it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class UserServiceBenchmark {
+
+	private ConfigurableApplicationContext context;
+	private IUserService userService;
+	private UserDetailsCache userDetailsCache;
+
+	@Setup
+	public void setUp() {
+		context = PhanTaskContext.start();
+		userService = context.getBean(IUserService.class);
+		userDetailsCache = context.getBean(UserDetailsCache.class);
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public UserDetails loadUserByUsername() {
+		return userService.loadUserByUsername("admin");
+	}
+
+	@Benchmark
+	public UserDetails loadUserByUsernameCached() {
+		return userDetailsCache.get("admin", userService::loadUserByUsername);
+	}
+}
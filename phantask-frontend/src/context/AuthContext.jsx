@@ -47,6 +47,8 @@ export const AuthProvider = ({ children }) => {
 
   // LOGOUT function to clear session and user state
   const logout = (navigate) => {
+    // Best effort: the session is cleared locally even if the server is unreachable
+    apiService.logout().catch(() => {});
     sessionStorage.clear();
     setUser(null);
     if (navigate) navigate("/login");
@@ -213,6 +213,17 @@ export const apiService = {
   login: (username, password) =>
     api.post("/auth/login", { username, password }),
 
+  // Revokes the refresh token (and every token rotated from it) on the server
+  logout: () => {
+    const refreshToken = sessionStorage.getItem("refreshToken");
+    if (!refreshToken) return Promise.resolve();
+    return axios.post(
+      `${API_BASE_URL}/auth/logout`,
+      {},
+      { headers: { Authorization: `Bearer ${refreshToken}` } },
+    );
+  },
+
   /* ---------------------------------
    *     USER MANAGEMENT (ADMIN)
    * --------------------------------- */
@@ -294,6 +305,9 @@ export const apiService = {
   // User: Get own attendance records
   getMyAttendance: () => api.get("/attendance/my"),
 
+  // User: Get one page of own attendance, newest first ({ startDate, endDate, before, size })
+  getMyAttendanceRecords: (params) => api.get("/attendance/my/records", { params }),
+
   // User: Get own attendance percentage
   getMyAttendancePercentage: () => api.get("/attendance/percentage/my"),
 